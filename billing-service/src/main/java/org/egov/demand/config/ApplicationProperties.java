@@ -153,6 +153,12 @@ public class ApplicationProperties {
 	
 	@Value("${kafka.topics.receipt.cancel.name.v2}")
 	private String receiptCancellationTopicV2;
+
+	@Value("${kafka.topics.receipt.update.demand.v2.error}")
+	private String updateDemandFromReceiptV2ErrorTopic;
+
+	@Value("${kafka.topics.receipt.cancel.name.v2.error}")
+	private String receiptCancellationV2ErrorTopic;
 	
     @Value("${search.pagesize.default}")
     private String commonSearchDefaultLimit;
@@ -165,4 +171,21 @@ public class ApplicationProperties {
 	@Value("${egov.apportion.endpoint}")
 	private String apportionEndpoint;
 
+	// Consumers
+	@Value("${kafka.consumer.receipt.update.batch.size:50}")
+	private Integer receiptUpdateBatchSize;
+
+	// MDMS cache
+	@Value("${egov.mdms.cache.enabled:true}")
+	private boolean mdmsCacheEnabled;
+
+	@Value("${egov.mdms.cache.max.entries:500}")
+	private Integer mdmsCacheMaxEntries;
+
+	@Value("${egov.mdms.cache.refresh.seconds:600}")
+	private Long mdmsCacheRefreshSeconds;
+
+	@Value("${egov.mdms.cache.expiry.seconds:3600}")
+	private Long mdmsCacheExpirySeconds;
+
 }
\ No newline at end of file
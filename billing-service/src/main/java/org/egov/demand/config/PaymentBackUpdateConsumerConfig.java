@@ -0,0 +1,49 @@
+package org.egov.demand.config;
+
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.egov.demand.model.PaymentBackUpdate;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer2;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Listener container for the v2 receipt topics, the payment messages are bound
+ * straight from the record bytes into {@link PaymentBackUpdate} instead of
+ * going through a generic map and are delivered to the listener in batches.
+ * The factory is configured from the spring.kafka.listener properties like
+ * the default one, only the batching and the deserializer are overridden
+ */
+@Configuration
+public class PaymentBackUpdateConsumerConfig {
+
+	@Bean
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public ConcurrentKafkaListenerContainerFactory<Object, Object> paymentBackUpdateListenerContainerFactory(
+			ConcurrentKafkaListenerContainerFactoryConfigurer configurer, KafkaProperties kafkaProperties,
+			ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+
+		Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties();
+		consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, applicationProperties.getReceiptUpdateBatchSize());
+		JsonDeserializer<PaymentBackUpdate> valueDeserializer = new JsonDeserializer<>(PaymentBackUpdate.class,
+				objectMapper, false);
+		ConsumerFactory consumerFactory = new DefaultKafkaConsumerFactory<>(consumerProperties, new StringDeserializer(),
+				new ErrorHandlingDeserializer2<>(valueDeserializer));
+
+		ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+		configurer.configure(factory, consumerFactory);
+		factory.setBatchListener(true);
+		return factory;
+	}
+
+}
@@ -1,15 +1,18 @@
 package org.egov.demand.consumer;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.demand.config.ApplicationProperties;
 import org.egov.demand.helper.CollectionReceiptRequest;
 import org.egov.demand.model.BillDetail.StatusEnum;
 import org.egov.demand.model.BillV2;
+import org.egov.demand.model.PaymentBackUpdate;
+import org.egov.demand.producer.Producer;
 import org.egov.demand.repository.BillRepository;
 import org.egov.demand.service.DemandService;
 import org.egov.demand.service.ReceiptService;
@@ -19,17 +22,13 @@ import org.egov.demand.web.contract.BillRequestV2;
 import org.egov.demand.web.contract.DemandRequest;
 import org.egov.demand.web.contract.Receipt;
 import org.egov.demand.web.contract.ReceiptRequest;
-import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.jayway.jsonpath.DocumentContext;
-import com.jayway.jsonpath.JsonPath;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -55,37 +54,51 @@ public class BillingServiceConsumer {
 	@Autowired
 	private ReceiptServiceV2 receiptServiceV2;
 
+	@Autowired
+	private Producer producer;
+
 
-	@KafkaListener(topics = { "${kafka.topics.receipt.update.collecteReceipt}", "${kafka.topics.save.bill}",
-			"${kafka.topics.save.demand}", "${kafka.topics.update.demand}", "${kafka.topics.receipt.update.demand}",
-			"${kafka.topics.receipt.cancel.name}", "${kafka.topics.receipt.update.demand.v2}",
-			"${kafka.topics.receipt.cancel.name.v2}" })
-	public void processMessage(Map<String, Object> consumerRecord, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+	/*
+	 * save and update demand topics
+	 */
+	@KafkaListener(topics = { "${kafka.topics.save.demand}", "${kafka.topics.update.demand}" },
+			concurrency = "${kafka.consumer.demand.concurrency}")
+	public void processDemand(Map<String, Object> consumerRecord, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
 
 		log.debug("key:" + topic + ":" + "value:" + consumerRecord);
 
-		/*
-		 * save demand topic
-		 */
 		if (applicationProperties.getCreateDemandTopic().equals(topic))
 			demandService.save(objectMapper.convertValue(consumerRecord, DemandRequest.class));
-		
-		/*
-		 * update demand topic
-		 */
-		else if (applicationProperties.getUpdateDemandTopic().equals(topic))
+		else
 			demandService.update(objectMapper.convertValue(consumerRecord, DemandRequest.class));
-		
-		/*
-		 * save bill
-		 */
-		else if (topic.equals(applicationProperties.getCreateBillTopic()))
+	}
+
+	/*
+	 * save bill topic, collected receipt topic is only consumed and not processed
+	 */
+	@KafkaListener(topics = { "${kafka.topics.save.bill}", "${kafka.topics.receipt.update.collecteReceipt}" },
+			concurrency = "${kafka.consumer.bill.concurrency}")
+	public void processBill(Map<String, Object> consumerRecord, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+
+		log.debug("key:" + topic + ":" + "value:" + consumerRecord);
+
+		if (topic.equals(applicationProperties.getCreateBillTopic()))
 			billRepository.saveBill(objectMapper.convertValue(consumerRecord, BillRequest.class));
+	}
+
+	/*
+	 * v1 receipt create and cancel topics
+	 */
+	@KafkaListener(topics = { "${kafka.topics.receipt.update.demand}", "${kafka.topics.receipt.cancel.name}" },
+			concurrency = "${kafka.consumer.receipt.concurrency}")
+	public void processReceipt(Map<String, Object> consumerRecord, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+
+		log.debug("key:" + topic + ":" + "value:" + consumerRecord);
 
 		/*
 		 * update demand from receipt
 		 */
-		else if (applicationProperties.getUpdateDemandFromReceipt().equals(topic)) {
+		if (applicationProperties.getUpdateDemandFromReceipt().equals(topic)) {
 
 			CollectionReceiptRequest collectionReceiptRequest = objectMapper.convertValue(consumerRecord,
 					CollectionReceiptRequest.class);
@@ -102,65 +115,118 @@ public class BillingServiceConsumer {
 		/*
 		 * update demand for receipt cancellation
 		 */
-		else if (applicationProperties.getReceiptCancellationTopic().equals(topic)) {
+		else {
 			receiptService.updateDemandFromReceipt(objectMapper.convertValue(consumerRecord, ReceiptRequest.class),
 					StatusEnum.CANCELLED, true);
 		}
+	}
 
-		/*
-		 * update demand from receipt
-		 */
-		else if (applicationProperties.getUpdateDemandFromReceiptV2().equals(topic)) {
+	/**
+	 * Back updates the demands and bills from the v2 payment create topic
+	 */
+	@KafkaListener(topics = "${kafka.topics.receipt.update.demand.v2}", containerFactory = "paymentBackUpdateListenerContainerFactory",
+			concurrency = "${kafka.consumer.receipt.update.v2.concurrency}")
+	public void processPaymentCreate(List<PaymentBackUpdate> paymentBackUpdates) {
+		processPaymentBackUpdates(paymentBackUpdates, false);
+	}
 
-			BillRequestV2 billReq = getBillsFromPayment(consumerRecord, false);
-			receiptServiceV2.updateDemandFromReceipt(billReq, false);
+	/**
+	 * Back updates the demands and bills from the v2 payment cancel topic
+	 */
+	@KafkaListener(topics = "${kafka.topics.receipt.cancel.name.v2}", containerFactory = "paymentBackUpdateListenerContainerFactory",
+			concurrency = "${kafka.consumer.receipt.cancel.v2.concurrency}")
+	public void processPaymentCancel(List<PaymentBackUpdate> paymentBackUpdates) {
+		processPaymentBackUpdates(paymentBackUpdates, true);
+	}
+
+	/**
+	 * Applies the payments of the batch together, if the batch fails the payments are
+	 * applied one at a time so that one bad payment does not hold back the rest.
+	 * Payments which still cannot be applied, or whose bills cannot be read, are pushed
+	 * to the error topic of the source topic so that they can be replayed. Records which
+	 * could not be deserialized reach here as null and are skipped
+	 */
+	private void processPaymentBackUpdates(List<PaymentBackUpdate> paymentBackUpdates, boolean isReceiptCancelled) {
+
+		log.debug("Received {} payments for back update, cancellation: {}", paymentBackUpdates.size(), isReceiptCancelled);
+
+		List<PaymentBackUpdate> readable = new ArrayList<>(paymentBackUpdates.size());
+		List<BillRequestV2> billRequests = new ArrayList<>(paymentBackUpdates.size());
+		for (int i = 0; i < paymentBackUpdates.size(); i++) {
+			PaymentBackUpdate paymentBackUpdate = paymentBackUpdates.get(i);
+			if (paymentBackUpdate == null) {
+				log.error("Skipping record " + i + " of the batch as it could not be deserialized");
+				continue;
+			}
+			try {
+				billRequests.add(getBillsFromPayment(paymentBackUpdate, isReceiptCancelled));
+				readable.add(paymentBackUpdate);
+			} catch (Exception e) {
+				log.error("Bills of record " + i + " of the batch could not be read", e);
+				pushToErrorTopic(paymentBackUpdate, isReceiptCancelled);
+			}
 		}
 
-		/*
-		 * update demand for receipt cancellation
-		 */
-		else if (applicationProperties.getReceiptCancellationTopicV2().equals(topic)) {
+		if (billRequests.isEmpty())
+			return;
 
-			BillRequestV2 billReq = getBillsFromPayment(consumerRecord, true);
-			receiptServiceV2.updateDemandFromReceipt(billReq, true);
+		try {
+			receiptServiceV2.updateDemandFromReceipts(billRequests, isReceiptCancelled);
+		} catch (Exception e) {
+			log.error("Back update of " + billRequests.size() + " payments failed, applying them one at a time", e);
+			for (int i = 0; i < billRequests.size(); i++) {
+				BillRequestV2 billRequest = billRequests.get(i);
+				try {
+					receiptServiceV2.updateDemandFromReceipt(billRequest, isReceiptCancelled);
+				} catch (Exception ex) {
+					log.error("Back update failed for bills: " + billRequest.getBills().stream().map(BillV2::getId)
+							.collect(Collectors.toList()), ex);
+					pushToErrorTopic(readable.get(i), isReceiptCancelled);
+				}
+			}
 		}
 	}
 
+	/**
+	 * Pushes the payment to the error topic. If the push fails the exception reaches the
+	 * container error handler
+	 */
+	private void pushToErrorTopic(PaymentBackUpdate paymentBackUpdate, boolean isReceiptCancelled) {
+		producer.push(isReceiptCancelled ? applicationProperties.getReceiptCancellationV2ErrorTopic()
+				: applicationProperties.getUpdateDemandFromReceiptV2ErrorTopic(), paymentBackUpdate);
+	}
+
 
 	/**
-	 * @param consumerRecord
+	 * Sets the status of the paid bills based on the amount paid against each of them
+	 *
+	 * @param paymentBackUpdate
+	 * @param isReceiptCancelled
 	 */
-	private BillRequestV2 getBillsFromPayment(Map<String, Object> consumerRecord, boolean isReceiptCancelled) {
-		
-		DocumentContext context = null;
-		
-		try {
-			context = JsonPath.parse(objectMapper.writeValueAsString(consumerRecord));
-		} catch (JsonProcessingException e) {
-			log.error("Parsing of data failed in back update for data : {}" + consumerRecord);
-			throw new CustomException("Parsing of data failed in back update", e.getMessage());
-		}
-		
-		List<BigDecimal> amtPaidList = Arrays.asList(objectMapper.convertValue(context.read("$.Payment.paymentDetails.*.totalAmountPaid"), BigDecimal[].class));
-		List<BillV2> bills = Arrays.asList(objectMapper.convertValue(context.read("$.Payment.paymentDetails.*.bill"), BillV2[].class));
-		
-		for (int i = 0; i < bills.size(); i++) {
-			
-			BillV2 bill = bills.get(i);
-			BigDecimal amtPaid = null != amtPaidList.get(i) ? amtPaidList.get(i) : BigDecimal.ZERO; 
-
-			if (isReceiptCancelled) {
-				bill.setStatus(org.egov.demand.model.BillV2.BillStatus.CANCELLED);
-
-			} else if (bill.getTotalAmount().compareTo(amtPaid) > 0) {
-				bill.setStatus(org.egov.demand.model.BillV2.BillStatus.PARTIALLY_PAID);
-
-			} else {
-				bill.setStatus(org.egov.demand.model.BillV2.BillStatus.PAID);
+	private BillRequestV2 getBillsFromPayment(PaymentBackUpdate paymentBackUpdate, boolean isReceiptCancelled) {
+
+		List<BillV2> bills = new ArrayList<>();
+		if (paymentBackUpdate.getPayment() != null && paymentBackUpdate.getPayment().getPaymentDetails() != null) {
+			for (PaymentBackUpdate.PaymentDetail paymentDetail : paymentBackUpdate.getPayment().getPaymentDetails()) {
+
+				BillV2 bill = paymentDetail.getBill();
+				if (bill == null)
+					throw new IllegalArgumentException("Payment detail without a bill");
+				BigDecimal amtPaid = null != paymentDetail.getTotalAmountPaid() ? paymentDetail.getTotalAmountPaid() : BigDecimal.ZERO;
+
+				if (isReceiptCancelled) {
+					bill.setStatus(org.egov.demand.model.BillV2.BillStatus.CANCELLED);
+
+				} else if (bill.getTotalAmount().compareTo(amtPaid) > 0) {
+					bill.setStatus(org.egov.demand.model.BillV2.BillStatus.PARTIALLY_PAID);
+
+				} else {
+					bill.setStatus(org.egov.demand.model.BillV2.BillStatus.PAID);
+				}
+				bills.add(bill);
+			}
 		}
+
+		return BillRequestV2.builder().bills(bills).requestInfo(paymentBackUpdate.getRequestInfo()).build();
 	}
-		
-		RequestInfo requestInfo = objectMapper.convertValue(context.read("$.RequestInfo"), RequestInfo.class);
-		return BillRequestV2.builder().bills(bills).requestInfo(requestInfo).build();
-	}
-}
\ No newline at end of file
+}
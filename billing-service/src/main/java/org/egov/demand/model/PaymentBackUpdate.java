@@ -0,0 +1,55 @@
+package org.egov.demand.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.egov.common.contract.request.RequestInfo;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Slim view of the payment create/cancel message of collection service holding
+ * only the fields needed to back update the demands and bills
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PaymentBackUpdate {
+
+	@JsonProperty("RequestInfo")
+	private RequestInfo requestInfo;
+
+	@JsonProperty("Payment")
+	private Payment payment;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class Payment {
+
+		@JsonProperty("paymentDetails")
+		private List<PaymentDetail> paymentDetails = new ArrayList<>();
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class PaymentDetail {
+
+		@JsonProperty("totalAmountPaid")
+		private BigDecimal totalAmountPaid;
+
+		@JsonProperty("bill")
+		private BillV2 bill;
+	}
+
+}
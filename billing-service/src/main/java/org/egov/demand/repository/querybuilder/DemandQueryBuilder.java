@@ -39,6 +39,8 @@
  */
 package org.egov.demand.repository.querybuilder;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -47,6 +49,8 @@ import java.util.Set;
 import org.egov.demand.model.DemandCriteria;
 import org.egov.demand.model.DemandDetailCriteria;
 import org.egov.demand.model.DemandUpdateMisRequest;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
@@ -111,7 +115,7 @@ public class DemandQueryBuilder {
 			+ " VALUES (?,?,?,?,?,?,?,?,?,?);";
 	
 	public static final String DEMAND_UPDATE_CONSUMERCODE_QUERY="UPDATE egbs_demand_v1 SET consumercode=?, lastmodifiedby=?, lastmodifiedtime=? "
-			+ " WHERE tenantid=? AND id IN (";
+			+ " WHERE tenantid=? AND ";
 	
 
 	public String getDemandQueryForConsumerCodes(Map<String,Set<String>> businessConsumercodeMap,List<Object> preparedStmtList, String tenantId){
@@ -136,8 +140,10 @@ public class DemandQueryBuilder {
 				else
 					query.append("AND");
 				
-				query.append(" dmd.businessservice='"+businessService+"' AND dmd.consumercode IN ("
-						+getIdQueryForStrings(consumerCodes));
+				query.append(" dmd.businessservice=? AND ");
+				preparedStmtList.add(businessService);
+				addArrayClause(query, "dmd.consumercode", consumerCodes, preparedStmtList);
+				query.append(" ");
 				orFlag=true;
 			}
 		}
@@ -161,11 +167,11 @@ public class DemandQueryBuilder {
 		
 		if (demandCriteria.getDemandId() != null && !demandCriteria.getDemandId().isEmpty()) {
 			addAndClause(demandQuery);
-			demandQuery.append("dmd.id IN (" + getIdQueryForStrings(demandCriteria.getDemandId()));
+			addArrayClause(demandQuery, "dmd.id", demandCriteria.getDemandId(), preparedStatementValues);
 		}
 		if (!CollectionUtils.isEmpty(demandCriteria.getPayer())) {
 			addAndClause(demandQuery);
-			demandQuery.append("dmd.payer IN (" + getIdQueryForStrings(demandCriteria.getPayer()));
+			addArrayClause(demandQuery, "dmd.payer", demandCriteria.getPayer(), preparedStatementValues);
 		}
 		if (demandCriteria.getBusinessService() != null) {
 			addAndClause(demandQuery);
@@ -186,8 +192,7 @@ public class DemandQueryBuilder {
 		
 		if (demandCriteria.getConsumerCode() != null && !demandCriteria.getConsumerCode().isEmpty()) {
 			addAndClause(demandQuery);
-			demandQuery.append("dmd.consumercode IN ("
-			+ getIdQueryForStrings(demandCriteria.getConsumerCode()));
+			addArrayClause(demandQuery, "dmd.consumercode", demandCriteria.getConsumerCode(), preparedStatementValues);
 		}
 
 		addOrderByClause(demandQuery, DEMAND_QUERY_ORDER_BY_CLAUSE);
@@ -228,7 +233,7 @@ public class DemandQueryBuilder {
 		if(demandDetailCriteria.getDetailsId() !=null && 
 				!demandDetailCriteria.getDetailsId().isEmpty()){
 			addAndClause(demandDetailQuery);
-			demandDetailQuery.append("demanddetail.id IN (" +getIdQueryForStrings(demandDetailCriteria.getDetailsId()));
+			addArrayClause(demandDetailQuery, "demanddetail.id", demandDetailCriteria.getDetailsId(), preparedStatementValues);
 		}
 		addOrderByClause(demandDetailQuery, BASE_DEMAND_DETAIL_QUERY_ORDER_BY_CLAUSE);
 		addPagingClause(demandDetailQuery, preparedStatementValues);
@@ -236,9 +241,11 @@ public class DemandQueryBuilder {
 		return demandDetailQuery.toString();
 	}
 	//query builder for update mis(updating consumer code)
-	public String getDemandUpdateMisQuery(DemandUpdateMisRequest demandRequest){
+	public String getDemandUpdateMisQuery(DemandUpdateMisRequest demandRequest, List<Object> preparedStatementValues){
 
-		return DEMAND_UPDATE_CONSUMERCODE_QUERY+getIdQueryForStrings(demandRequest.getId());
+		StringBuilder query = new StringBuilder(DEMAND_UPDATE_CONSUMERCODE_QUERY);
+		addArrayClause(query, "id", demandRequest.getId(), preparedStatementValues);
+		return query.toString();
 	}
 
 	private static void addOrderByClause(StringBuilder demandQueryBuilder,String columnName) {
@@ -257,17 +264,23 @@ public class DemandQueryBuilder {
 		return true;
 	}
 	
-	private static String getIdQueryForStrings(Set<String> idList) {
-
-		StringBuilder query = new StringBuilder();
-		if (!idList.isEmpty()) {
+	/**
+	 * Binds the values as a single array parameter so that the statement text stays
+	 * the same whatever the number of values, letting the server reuse its plan
+	 */
+	private static void addArrayClause(StringBuilder query, String column, Set<String> values,
+			List<Object> preparedStatementValues) {
+		query.append(column).append(" = ANY(?)");
+		preparedStatementValues.add(getArrayValue(values));
+	}
 
-			String[] list = idList.toArray(new String[idList.size()]);
-			query.append("'"+list[0]+"'");
-			for (int i = 1; i < idList.size(); i++) {
-				query.append("," + "'"+list[i]+"'");
+	private static SqlTypeValue getArrayValue(Set<String> values) {
+		String[] array = values.toArray(new String[values.size()]);
+		return new AbstractSqlTypeValue() {
+			@Override
+			protected Object createTypeValue(Connection connection, int sqlType, String typeName) throws SQLException {
+				return connection.createArrayOf("varchar", array);
 			}
-		}
-		return query.append(")").toString();
+		};
 	}
 }
@@ -1,10 +1,12 @@
 package org.egov.demand.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,6 +29,7 @@ import org.egov.mdms.model.MdmsCriteriaReq;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import lombok.extern.slf4j.Slf4j;
@@ -67,6 +70,40 @@ public class ReceiptServiceV2 {
 		updateDemandFromBill(billReq,demandIds, isReceiptCancellation);
 	}
 
+	/**
+	 * Updates the demands of the bills of several payments together, the demands of
+	 * a tenant are loaded with one search and written back with one batch update.
+	 * Bills are applied in the order of the requests so that successive payments of
+	 * a demand are applied in the order they were received. The updates of all the
+	 * tenants are done in one transaction so that a failed batch can be retried as a whole
+	 *
+	 * @param billRequests bills of each payment, in the order received
+	 * @param isReceiptCancellation
+	 */
+	@Transactional
+	public void updateDemandFromReceipts(List<BillRequestV2> billRequests, Boolean isReceiptCancellation) {
+
+		Map<String, List<BillV2>> tenantIdToBills = new LinkedHashMap<>();
+		Map<String, RequestInfo> tenantIdToRequestInfo = new HashMap<>();
+
+		billRequests.forEach(billRequest -> {
+			if (billRequest == null || CollectionUtils.isEmpty(billRequest.getBills())) {
+				log.info(" no data found in payment for update : {} " + billRequest);
+				return;
+			}
+			billRequest.getBills().forEach(bill -> {
+				tenantIdToBills.computeIfAbsent(bill.getTenantId(), tenantId -> new ArrayList<>()).add(bill);
+				tenantIdToRequestInfo.putIfAbsent(bill.getTenantId(), billRequest.getRequestInfo());
+			});
+		});
+
+		tenantIdToBills.forEach((tenantId, bills) -> {
+			Set<String> demandIds = new HashSet<>();
+			bills.forEach(bill -> bill.getBillDetails().forEach(billDetail -> demandIds.add(billDetail.getDemandId())));
+			updateDemandFromBills(bills, tenantIdToRequestInfo.get(tenantId), demandIds, isReceiptCancellation);
+		});
+	}
+
 	/**
 	 * Update the demand collection details based on the bill
 	 * 
@@ -76,16 +113,18 @@ public class ReceiptServiceV2 {
 	 * @return
 	 */
 	public void updateDemandFromBill(BillRequestV2 billRequest,Set<String> demandIds, Boolean isReceiptCancellation) {
+		updateDemandFromBills(billRequest.getBills(), billRequest.getRequestInfo(), demandIds, isReceiptCancellation);
+	}
+
+	private void updateDemandFromBills(List<BillV2> bills, RequestInfo requestInfo, Set<String> demandIds, Boolean isReceiptCancellation) {
 
-		List<BillV2> bills = billRequest.getBills();
 		String tenantId = bills.get(0).getTenantId();
-		RequestInfo requestInfo = billRequest.getRequestInfo();
 		Map<String, String> mapOfBillIdAndStatus = new HashMap<>();
 
 		DemandCriteria demandCriteria = DemandCriteria.builder().demandId(demandIds).tenantId(tenantId).build();
 		List<Demand> demandsToBeUpdated = demandService.getDemands(demandCriteria, requestInfo);
 		Map<String, Demand> demandIdMap = demandsToBeUpdated.stream().collect(Collectors.toMap(Demand::getId, Function.identity()));
-		DocumentContext mdmsData = getTaxHeadMaster(tenantId,billRequest.getRequestInfo());
+		DocumentContext mdmsData = getTaxHeadMaster(tenantId,requestInfo);
 
 		for (BillV2 bill : bills) {
 			String advanceTaxhead = getAdvanceTaxhead(bill.getBusinessService(), mdmsData);
@@ -95,7 +134,7 @@ public class ReceiptServiceV2 {
 
 		}
 
-		demandService.updateAsync(DemandRequest.builder().demands(demandsToBeUpdated).requestInfo(billRequest.getRequestInfo()).build());
+		demandService.updateAsync(DemandRequest.builder().demands(demandsToBeUpdated).requestInfo(requestInfo).build());
 		billRepository.updateBillStatusInBatch(mapOfBillIdAndStatus);
 	}
 
@@ -0,0 +1,182 @@
+package org.egov.demand.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+
+import org.egov.demand.config.ApplicationProperties;
+import org.egov.mdms.model.MdmsCriteriaReq;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.jayway.jsonpath.DocumentContext;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the parsed MDMS responses keyed by tenant, module and master names.
+ *
+ * Entries older than the refresh interval are still served while a fresh copy is
+ * fetched in the background, entries older than the expiry are fetched again before
+ * being served. The least recently used entries are evicted once the cache is full.
+ *
+ * The cached documents are shared between requests and must only be read.
+ */
+@Slf4j
+@Component
+public class MasterDataCache {
+
+	private static final String KEY_SEPARATOR = "|";
+
+	private ApplicationProperties appProps;
+
+	private final Map<String, Entry> cache;
+
+	private final Set<String> refreshesInProgress = ConcurrentHashMap.newKeySet();
+
+	private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong refreshes = new AtomicLong();
+
+	private final AtomicLong refreshFailures = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	@Autowired
+	public MasterDataCache(ApplicationProperties appProps) {
+		this.appProps = appProps;
+		this.cache = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				boolean evict = size() > appProps.getMdmsCacheMaxEntries();
+				if (evict)
+					evictions.incrementAndGet();
+				return evict;
+			}
+		});
+	}
+
+	/**
+	 * Returns the master data of the request from the cache, loading it on a miss
+	 *
+	 * @param mdmsReq The mdms request
+	 * @param loader  Fetches and parses the master data from MDMS
+	 * @return Parsed master data
+	 */
+	public DocumentContext get(MdmsCriteriaReq mdmsReq, Function<MdmsCriteriaReq, DocumentContext> loader) {
+
+		if (!appProps.isMdmsCacheEnabled())
+			return loader.apply(mdmsReq);
+
+		String key = getKey(mdmsReq);
+		long now = System.currentTimeMillis();
+		Entry entry = cache.get(key);
+
+		if (entry != null && now - entry.loadedAt < appProps.getMdmsCacheExpirySeconds() * 1000) {
+			hits.incrementAndGet();
+			if (now - entry.loadedAt >= appProps.getMdmsCacheRefreshSeconds() * 1000)
+				scheduleRefresh(key, mdmsReq, loader);
+			return entry.data;
+		}
+
+		misses.incrementAndGet();
+		DocumentContext data = loader.apply(mdmsReq);
+		cache.put(key, new Entry(data, System.currentTimeMillis()));
+		return data;
+	}
+
+	/**
+	 * Removes the master data of the tenant and of the tenants under it
+	 *
+	 * @param tenantId tenant to be invalidated, a state level tenant invalidates its cities too
+	 * @return number of entries removed
+	 */
+	public int invalidate(String tenantId) {
+		List<String> keys;
+		synchronized (cache) {
+			keys = new ArrayList<>(cache.keySet());
+		}
+		int removed = 0;
+		for (String key : keys) {
+			String keyTenant = key.substring(0, key.indexOf(KEY_SEPARATOR));
+			if (keyTenant.equals(tenantId) || keyTenant.startsWith(tenantId + ".")) {
+				cache.remove(key);
+				removed++;
+			}
+		}
+		log.info("Invalidated {} master data cache entries of tenant {}", removed, tenantId);
+		return removed;
+	}
+
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("enabled", appProps.isMdmsCacheEnabled());
+		stats.put("size", cache.size());
+		stats.put("hits", hits.get());
+		stats.put("misses", misses.get());
+		stats.put("refreshes", refreshes.get());
+		stats.put("refreshFailures", refreshFailures.get());
+		stats.put("evictions", evictions.get());
+		return stats;
+	}
+
+	private void scheduleRefresh(String key, MdmsCriteriaReq mdmsReq, Function<MdmsCriteriaReq, DocumentContext> loader) {
+		if (!refreshesInProgress.add(key))
+			return;
+
+		refreshExecutor.submit(() -> {
+			try {
+				cache.put(key, new Entry(loader.apply(mdmsReq), System.currentTimeMillis()));
+				refreshes.incrementAndGet();
+				log.info("Refreshed master data cache entry {}, stats: {}", key, getStats());
+			} catch (Exception e) {
+				refreshFailures.incrementAndGet();
+				log.error("Failed to refresh master data cache entry " + key, e);
+			} finally {
+				refreshesInProgress.remove(key);
+			}
+		});
+	}
+
+	private String getKey(MdmsCriteriaReq mdmsReq) {
+		StringBuilder key = new StringBuilder(mdmsReq.getMdmsCriteria().getTenantId());
+		mdmsReq.getMdmsCriteria().getModuleDetails().forEach(moduleDetail -> {
+			key.append(KEY_SEPARATOR).append(moduleDetail.getModuleName());
+			moduleDetail.getMasterDetails().forEach(masterDetail -> {
+				key.append(KEY_SEPARATOR).append(masterDetail.getName());
+				if (masterDetail.getFilter() != null)
+					key.append(":").append(masterDetail.getFilter());
+			});
+		});
+		return key.toString();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		refreshExecutor.shutdownNow();
+	}
+
+	@AllArgsConstructor
+	private static class Entry {
+
+		private DocumentContext data;
+
+		private long loadedAt;
+	}
+
+}
@@ -45,6 +45,9 @@ public class Util {
 	@Autowired
 	private ServiceRequestRepository serviceRequestRepository;
 
+	@Autowired
+	private MasterDataCache masterDataCache;
+
 	/**
 	 * prepares mdms request
 	 * 
@@ -71,7 +74,8 @@ public class Util {
 	}
 
 	/**
-	 * Fetches all the values of particular attribute as documentContext
+	 * Fetches all the values of particular attribute as documentContext, served
+	 * from the master data cache when present
 	 *
 	 * @param tenantId    tenantId of properties in PropertyRequest
 	 * @param names       List of String containing the names of all master-data
@@ -81,6 +85,10 @@ public class Util {
 	 *
 	 */
 	public DocumentContext getAttributeValues(MdmsCriteriaReq mdmsReq) {
+		return masterDataCache.get(mdmsReq, this::fetchAttributeValues);
+	}
+
+	private DocumentContext fetchAttributeValues(MdmsCriteriaReq mdmsReq) {
 		StringBuilder uri = new StringBuilder(appProps.getMdmsHost()).append(appProps.getMdmsEndpoint());
 
 		try {
@@ -1,30 +1,57 @@
 package org.egov.demand.util.migration;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import org.apache.commons.lang3.StringUtils;
 import org.egov.demand.model.Demand;
 import org.egov.demand.model.DemandDetail;
 import org.egov.demand.repository.DemandRepository;
 import org.egov.demand.repository.rowmapper.DemandRowMapper;
 import org.egov.demand.web.contract.DemandRequest;
+import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Migrates the demands to the v1 tables.
+ *
+ * The ids of the demands to be migrated are split into disjoint ranges, one worker
+ * migrates a range at a time seeking from the last migrated id of the range. The
+ * last migrated id is saved in the checkpoint table in the same transaction as the
+ * demands so that a stopped or failed migration resumes from where it stopped.
+ * Each worker reads its next batch while the current batch is being written.
+ *
+ * The last range has no fixed end, once it is migrated up to its end the end is moved
+ * to the highest demand id, until no demand above it is left. So demands created with
+ * higher ids while the migration runs are migrated too.
+ */
 @Slf4j
 @Component
 public class DemandMigration {
-	
+
+	private static final String DEMAND_FILTER = " businessservice IN ('TL','PT') AND tenantid ilike 'pb%' ";
+
 	public static final String SELECT_QUERY = "select d.id as did,dl.id as dlid,dl.demandid as dldemandid,"
 			+ "d.consumercode as dconsumercode,d.consumertype as dconsumertype,d.taxperiodfrom as dtaxperiodfrom,"
 			+ "d.taxperiodto as dtaxperiodto,U.uuid as payer,null as dbillexpirytime,"
@@ -38,9 +65,39 @@ public class DemandMigration {
 			+ " from egbs_demand d inner join egbs_demanddetail dl ON d.id=dl.demandid AND d.tenantid=dl.tenantid "
 			+ " LEFT OUTER JOIN eg_user U ON U.id::CHARACTER VARYING=d.owner"
 			+ " WHERE d.businessservice IN ('TL','PT') AND d.tenantid ilike 'pb%' "
-			+ " AND d.id IN (select id from egbs_demand order by id offset ? limit ?);";
-	
-	public static final String COUNT_QUERY = "select count(*) from egbs_demand where businessservice IN ('TL','PT') AND tenantid ilike 'pb%';";
+			+ " AND d.id > ? AND d.id <= ?;";
+
+	public static final String SELECT_ID_QUERY = "select id from egbs_demand where" + DEMAND_FILTER
+			+ " AND id > ? AND id <= ? order by id limit ?;";
+
+	public static final String RANGE_QUERY = "select max(id) from (select id, ntile(?) over (order by id) as bucket"
+			+ " from egbs_demand where" + DEMAND_FILTER + " AND id > ?) ids group by bucket order by bucket;";
+
+	public static final String MAX_ID_ABOVE_QUERY = "select max(id) from egbs_demand where" + DEMAND_FILTER + " AND id > ?;";
+
+	public static final String START_ID_QUERY = "select id from egbs_demand order by id offset ? limit 1;";
+
+	public static final String CHECKPOINT_SELECT_QUERY = "select rangeno, rangestart, rangeend, lastid, migratedcount, status, error"
+			+ " from egbs_demand_migration_checkpoint order by rangeno;";
+
+	public static final String CHECKPOINT_INSERT_QUERY = "insert into egbs_demand_migration_checkpoint"
+			+ " (rangeno, rangestart, rangeend, lastid, migratedcount, status, lastmodifiedtime) values (?,?,?,?,0,?,?);";
+
+	public static final String CHECKPOINT_UPDATE_QUERY = "update egbs_demand_migration_checkpoint set lastid=?,"
+			+ " migratedcount=migratedcount+?, status=?, error=?, lastmodifiedtime=? where rangeno=?;";
+
+	public static final String CHECKPOINT_RANGE_END_UPDATE_QUERY = "update egbs_demand_migration_checkpoint set rangeend=?,"
+			+ " lastmodifiedtime=? where rangeno=?;";
+
+	public static final String CHECKPOINT_DELETE_QUERY = "delete from egbs_demand_migration_checkpoint;";
+
+	private static final String STATUS_PENDING = "PENDING";
+
+	private static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+
+	private static final String STATUS_COMPLETED = "COMPLETED";
+
+	private static final String STATUS_FAILED = "FAILED";
 	
 	private Comparator<DemandDetail> demandDetailOrdercomparator;
 
@@ -52,9 +109,25 @@ public class DemandMigration {
 	
 	@Autowired
 	private DemandRepository demandRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
 	
 	@Value("${migration.batch.value}")
 	private Integer batchSize;
+
+	@Value("${migration.workers:4}")
+	private Integer workers;
+
+	private final AtomicBoolean running = new AtomicBoolean(false);
+
+	private final AtomicLong migratedInRun = new AtomicLong();
+
+	private volatile long runStartTime;
+
+	private volatile long runEndTime;
+
+	private ExecutorService coordinator = Executors.newSingleThreadExecutor();
 	
 	@PostConstruct
 	public void createDemadDetailComparator() {
@@ -97,45 +170,236 @@ public class DemandMigration {
 		};
 	}
 	
-	public Map<String, String> migrateToV1(Integer startBatch, Integer batchSizeInput) {
-		
-		Map<String, String> responseMap = new HashMap<>();
-		
-		int count = jdbcTemplate.queryForObject(COUNT_QUERY, Integer.class);
-		int i = 0;
-		if (null != startBatch && startBatch > 0)
-			i = startBatch;
-		
-		if(null != batchSizeInput && batchSizeInput > 0)
-			batchSize = batchSizeInput;
-		
-		for( ; i<count;i = i+batchSize) {
+	/**
+	 * Starts the migration in the background, resuming from the checkpoints of the
+	 * previous run unless reset is requested
+	 *
+	 * @param batchStart     Number of demands, in the order of their ids, skipped by a new migration.
+	 *                       A resumed migration starts from its checkpoints, so it is rejected there
+	 * @param batchSizeInput Number of demands migrated in one transaction
+	 * @param workersInput   Number of ranges migrated in parallel
+	 * @param reset          Discards the checkpoints and migrates from the beginning
+	 * @return progress of the migration
+	 */
+	public Map<String, Object> migrateToV1(Integer batchStart, Integer batchSizeInput, Integer workersInput,
+			Boolean reset) {
 
-			List<Demand> demands = jdbcTemplate.query(SELECT_QUERY, new Object[] { i, batchSize }, demandRowMapper);
-			try {
+		if (!running.compareAndSet(false, true))
+			throw new CustomException("MIGRATION_IN_PROGRESS", "Demand migration is already running");
+
+		try {
+			int runBatchSize = null != batchSizeInput && batchSizeInput > 0 ? batchSizeInput : batchSize;
+			int runWorkers = null != workersInput && workersInput > 0 ? workersInput : workers;
+
+			if (Boolean.TRUE.equals(reset))
+				jdbcTemplate.update(CHECKPOINT_DELETE_QUERY);
+
+			List<Checkpoint> checkpoints = getCheckpoints();
+			boolean skipping = null != batchStart && batchStart > 0;
+			if (checkpoints.isEmpty())
+				checkpoints = createCheckpoints(runWorkers, skipping ? getStartId(batchStart) : "");
+			else if (skipping)
+				throw new CustomException("MIGRATION_BATCH_START_INVALID",
+						"batchStart applies to a new migration only, pass reset to start the migration again");
+
+			/*
+			 * The last range is taken up again when completed, for the demands created above its end
+			 */
+			int lastRangeNo = checkpoints.isEmpty() ? -1 : checkpoints.get(checkpoints.size() - 1).rangeNo;
+			List<Checkpoint> pending = new ArrayList<>();
+			checkpoints.forEach(checkpoint -> {
+				if (!STATUS_COMPLETED.equals(checkpoint.status) || checkpoint.rangeNo == lastRangeNo)
+					pending.add(checkpoint);
+			});
+
+			migratedInRun.set(0);
+			runStartTime = System.currentTimeMillis();
+			runEndTime = 0;
+			log.info("Starting demand migration of {} ranges with {} workers and batch size {}", pending.size(),
+					runWorkers, runBatchSize);
+			coordinator.submit(() -> migrateRanges(pending, lastRangeNo, runWorkers, runBatchSize));
+		} catch (RuntimeException e) {
+			running.set(false);
+			throw e;
+		}
+
+		return getProgress();
+	}
 
-				apportionDemands(demands);
-				postDemands(demands);
+	/**
+	 * Returns the progress of every range along with the throughput of the current run
+	 */
+	public Map<String, Object> getProgress() {
+
+		List<Checkpoint> checkpoints = getCheckpoints();
+		long migrated = checkpoints.stream().mapToLong(checkpoint -> checkpoint.migratedCount).sum();
+		long elapsed = runStartTime == 0 ? 0 : (runEndTime > 0 ? runEndTime : System.currentTimeMillis()) - runStartTime;
+
+		Map<String, Object> progress = new LinkedHashMap<>();
+		progress.put("running", running.get());
+		progress.put("migrated", migrated);
+		progress.put("migratedInRun", migratedInRun.get());
+		progress.put("elapsedSeconds", elapsed / 1000);
+		progress.put("demandsPerSecond", elapsed > 0 ? migratedInRun.get() * 1000 / elapsed : 0);
+
+		List<Map<String, Object>> ranges = new ArrayList<>();
+		checkpoints.forEach(checkpoint -> {
+			Map<String, Object> range = new LinkedHashMap<>();
+			range.put("rangeNo", checkpoint.rangeNo);
+			range.put("rangeEnd", checkpoint.rangeEnd);
+			range.put("lastId", checkpoint.lastId);
+			range.put("migrated", checkpoint.migratedCount);
+			range.put("status", checkpoint.status);
+			if (null != checkpoint.error)
+				range.put("error", checkpoint.error);
+			ranges.add(range);
+		});
+		progress.put("ranges", ranges);
+		return progress;
+	}
+
+	private void migrateRanges(List<Checkpoint> checkpoints, int lastRangeNo, int runWorkers, int runBatchSize) {
+
+		ExecutorService workerPool = Executors.newFixedThreadPool(runWorkers);
+		ExecutorService readerPool = Executors.newFixedThreadPool(runWorkers);
+		try {
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			checkpoints.forEach(checkpoint -> futures.add(CompletableFuture
+					.runAsync(() -> migrateRange(checkpoint, checkpoint.rangeNo == lastRangeNo, runBatchSize, readerPool),
+							workerPool)));
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		} catch (Exception e) {
+			log.error("Demand migration stopped", e);
+		} finally {
+			workerPool.shutdown();
+			readerPool.shutdown();
+			runEndTime = System.currentTimeMillis();
+			running.set(false);
+			log.info("Demand migration finished, progress : {}", getProgress());
+		}
+	}
+
+	/**
+	 * Migrates one range batch by batch, the next batch is read on the reader pool
+	 * while the current one is apportioned and written. The end of the last range is
+	 * moved up until no demand above it is left
+	 */
+	private void migrateRange(Checkpoint checkpoint, boolean lastRange, int runBatchSize, ExecutorService readerPool) {
+
+		String lastId = checkpoint.lastId;
+		updateCheckpoint(checkpoint.rangeNo, lastId, 0, STATUS_IN_PROGRESS, null);
+		CompletableFuture<Batch> next = CompletableFuture
+				.supplyAsync(() -> readBatch(lastId, checkpoint.rangeEnd, runBatchSize), readerPool);
+
+		while (true) {
+			Batch batch;
+			try {
+				batch = next.join();
 			} catch (Exception e) {
+				fail(checkpoint, e);
+				return;
+			}
 
-				log.error("Migration failed at batch count of : " + i);
-				responseMap.put( "Migration failed at batch count : " + i, e.getMessage());
-				return responseMap;
+			if (batch.lastId == null && lastRange) {
+				String maxId;
+				try {
+					maxId = jdbcTemplate.queryForObject(MAX_ID_ABOVE_QUERY, new Object[] { checkpoint.rangeEnd }, String.class);
+					if (maxId != null) {
+						log.info("Moving the end of range " + checkpoint.rangeNo + " from " + checkpoint.rangeEnd + " to " + maxId);
+						jdbcTemplate.update(CHECKPOINT_RANGE_END_UPDATE_QUERY, maxId, System.currentTimeMillis(), checkpoint.rangeNo);
+					}
+				} catch (Exception e) {
+					fail(checkpoint, e);
+					return;
+				}
+				if (maxId != null) {
+					checkpoint.rangeEnd = maxId;
+					next = CompletableFuture.supplyAsync(() -> readBatch(checkpoint.lastId, maxId, runBatchSize), readerPool);
+					continue;
+				}
 			}
-			addResponseToMap(demands,responseMap,"SUCCESS");
-			log.info(" count completed : " + i);
-		} 
-		
-		return responseMap;
+
+			if (batch.lastId == null) {
+				updateCheckpoint(checkpoint.rangeNo, checkpoint.lastId, 0, STATUS_COMPLETED, null);
+				log.info("Demand migration completed for range : " + checkpoint.rangeNo);
+				return;
+			}
+
+			next = CompletableFuture.supplyAsync(() -> readBatch(batch.lastId, checkpoint.rangeEnd, runBatchSize), readerPool);
+			try {
+				apportionDemands(batch.demands);
+				transactionTemplate.execute(status -> {
+					if (!batch.demands.isEmpty())
+						postDemands(batch.demands);
+					updateCheckpoint(checkpoint.rangeNo, batch.lastId, batch.demands.size(), STATUS_IN_PROGRESS, null);
+					return null;
+				});
+			} catch (Exception e) {
+				next.cancel(true);
+				fail(checkpoint, e);
+				return;
+			}
+			checkpoint.lastId = batch.lastId;
+			migratedInRun.addAndGet(batch.demands.size());
+		}
 	}
-	
-	private void addResponseToMap(List<Demand> demands, Map<String, String> responseMap, String message) {
 
-		demands.forEach(demand -> {
-			
-			responseMap.put(demand.getId(), message);
-			log.info("the demand id : " + demand.getId() + " message : " + message);
-		});
+	private Batch readBatch(String fromId, String toId, int runBatchSize) {
+
+		List<String> ids = jdbcTemplate.queryForList(SELECT_ID_QUERY, new Object[] { fromId, toId, runBatchSize },
+				String.class);
+		if (ids.isEmpty())
+			return new Batch(null, Collections.emptyList());
+
+		String lastId = ids.get(ids.size() - 1);
+		List<Demand> demands = jdbcTemplate.query(SELECT_QUERY, new Object[] { fromId, lastId }, demandRowMapper);
+		return new Batch(lastId, demands);
+	}
+
+	private void fail(Checkpoint checkpoint, Exception e) {
+		log.error("Demand migration failed for range : " + checkpoint.rangeNo + " after id : " + checkpoint.lastId, e);
+		updateCheckpoint(checkpoint.rangeNo, checkpoint.lastId, 0, STATUS_FAILED,
+				StringUtils.abbreviate(String.valueOf(e.getMessage()), 1024));
+	}
+
+	/**
+	 * Id of the last demand skipped by batchStart, demands are taken in the order of their
+	 * ids as the migration by offset used to
+	 */
+	private String getStartId(int batchStart) {
+
+		List<String> ids = jdbcTemplate.queryForList(START_ID_QUERY, new Object[] { batchStart - 1 }, String.class);
+		if (ids.isEmpty())
+			throw new CustomException("MIGRATION_BATCH_START_INVALID", "batchStart is beyond the number of demands");
+		return ids.get(0);
+	}
+
+	/**
+	 * Splits the ids above the start id of the demands to be migrated into the given number
+	 * of ranges of equal size
+	 */
+	private List<Checkpoint> createCheckpoints(int rangeCount, String startId) {
+
+		List<String> rangeEnds = jdbcTemplate.queryForList(RANGE_QUERY, new Object[] { rangeCount, startId }, String.class);
+		List<Checkpoint> checkpoints = new ArrayList<>();
+		String rangeStart = startId;
+		for (int i = 0; i < rangeEnds.size(); i++) {
+			checkpoints.add(new Checkpoint(i, rangeStart, rangeEnds.get(i), rangeStart, 0, STATUS_PENDING, null));
+			jdbcTemplate.update(CHECKPOINT_INSERT_QUERY, i, rangeStart, rangeEnds.get(i), rangeStart, STATUS_PENDING,
+					System.currentTimeMillis());
+			rangeStart = rangeEnds.get(i);
+		}
+		return checkpoints;
+	}
+
+	private List<Checkpoint> getCheckpoints() {
+		return jdbcTemplate.query(CHECKPOINT_SELECT_QUERY, (rs, rowNum) -> new Checkpoint(rs.getInt("rangeno"),
+				rs.getString("rangestart"), rs.getString("rangeend"), rs.getString("lastid"), rs.getLong("migratedcount"),
+				rs.getString("status"), rs.getString("error")));
+	}
+
+	private void updateCheckpoint(int rangeNo, String lastId, int migrated, String status, String error) {
+		jdbcTemplate.update(CHECKPOINT_UPDATE_QUERY, lastId, migrated, status, error, System.currentTimeMillis(), rangeNo);
 	}
 
 	private void postDemands(List<Demand> demands) {
@@ -198,5 +462,36 @@ public class DemandMigration {
 		 */
 		return totalCollectionAmount;
 	}
-	
+
+	@PreDestroy
+	public void shutdown() {
+		coordinator.shutdownNow();
+	}
+
+	@AllArgsConstructor
+	private static class Checkpoint {
+
+		private int rangeNo;
+
+		private String rangeStart;
+
+		private String rangeEnd;
+
+		private String lastId;
+
+		private long migratedCount;
+
+		private String status;
+
+		private String error;
+	}
+
+	@AllArgsConstructor
+	private static class Batch {
+
+		private String lastId;
+
+		private List<Demand> demands;
+	}
+
 }
@@ -126,10 +126,18 @@ public class DemandController {
     @PostMapping(value = "/_migratetov1")
     @ResponseBody
 	public ResponseEntity<?> migrate(@RequestBody @Valid RequestInfoWrapper wrapper,
-			@RequestParam(required=false) Integer batchStart, @RequestParam(required=true) Integer batchSizeInput) {
+			@RequestParam(required=false) Integer batchStart, @RequestParam(required=true) Integer batchSizeInput,
+			@RequestParam(required=false) Integer workers, @RequestParam(required=false) Boolean reset) {
 
-		Map<String, String> resultMap = migrationService.migrateToV1(batchStart, batchSizeInput);
+		Map<String, Object> resultMap = migrationService.migrateToV1(batchStart, batchSizeInput, workers, reset);
 		return new ResponseEntity<>(resultMap, HttpStatus.OK);
 	}
+
+    @PostMapping(value = "/_migratetov1/_progress")
+    @ResponseBody
+	public ResponseEntity<?> migrationProgress(@RequestBody @Valid RequestInfoWrapper wrapper) {
+
+		return new ResponseEntity<>(migrationService.getProgress(), HttpStatus.OK);
+	}
     
 }
\ No newline at end of file
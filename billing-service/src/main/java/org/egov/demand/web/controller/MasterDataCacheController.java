@@ -0,0 +1,45 @@
+package org.egov.demand.web.controller;
+
+import java.util.Map;
+
+import javax.validation.Valid;
+
+import org.egov.demand.util.MasterDataCache;
+import org.egov.demand.web.contract.RequestInfoWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@Slf4j
+@RequestMapping("/mdmscache")
+public class MasterDataCacheController {
+
+	@Autowired
+	private MasterDataCache masterDataCache;
+
+	@PostMapping("_invalidate")
+	@ResponseBody
+	public ResponseEntity<?> invalidate(@RequestBody @Valid final RequestInfoWrapper requestInfoWrapper,
+			@RequestParam final String tenantId) {
+
+		log.info("Invalidating master data cache of tenant: " + tenantId);
+		masterDataCache.invalidate(tenantId);
+		return new ResponseEntity<>(masterDataCache.getStats(), HttpStatus.OK);
+	}
+
+	@PostMapping("_stats")
+	@ResponseBody
+	public ResponseEntity<Map<String, Object>> stats(@RequestBody @Valid final RequestInfoWrapper requestInfoWrapper) {
+		return new ResponseEntity<>(masterDataCache.getStats(), HttpStatus.OK);
+	}
+
+}
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS egbs_demand_migration_checkpoint
+(
+    rangeno integer NOT NULL,
+    rangestart character varying(64) NOT NULL,
+    rangeend character varying(64) NOT NULL,
+    lastid character varying(64) NOT NULL,
+    migratedcount bigint NOT NULL DEFAULT 0,
+    status character varying(64) NOT NULL,
+    error character varying(1024),
+    lastmodifiedtime bigint,
+    CONSTRAINT pk_egbs_demand_migration_checkpoint PRIMARY KEY (rangeno)
+);
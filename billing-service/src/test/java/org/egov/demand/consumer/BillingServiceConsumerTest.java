@@ -0,0 +1,115 @@
+package org.egov.demand.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.egov.demand.config.ApplicationProperties;
+import org.egov.demand.model.BillV2;
+import org.egov.demand.model.PaymentBackUpdate;
+import org.egov.demand.producer.Producer;
+import org.egov.demand.service.ReceiptServiceV2;
+import org.egov.demand.web.contract.BillRequestV2;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class BillingServiceConsumerTest {
+
+	private static final String CREATE_ERROR_TOPIC = "egov.collection.payment-create-backupdate-error";
+	private static final String CANCEL_ERROR_TOPIC = "egov.collection.payment-cancel-backupdate-error";
+
+	@Mock
+	private ReceiptServiceV2 receiptServiceV2;
+
+	@Mock
+	private Producer producer;
+
+	@Mock
+	private ApplicationProperties applicationProperties;
+
+	@InjectMocks
+	private BillingServiceConsumer billingServiceConsumer;
+
+	@Before
+	public void setUp() {
+		when(applicationProperties.getUpdateDemandFromReceiptV2ErrorTopic()).thenReturn(CREATE_ERROR_TOPIC);
+		when(applicationProperties.getReceiptCancellationV2ErrorTopic()).thenReturn(CANCEL_ERROR_TOPIC);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void skipsUndeserializedAndBilllessPaymentsOfTheBatch() {
+		PaymentBackUpdate billless = payment(null);
+		List<PaymentBackUpdate> batch = Arrays.asList(payment("BILL-1"), null, billless, payment("BILL-2"));
+
+		billingServiceConsumer.processPaymentCreate(batch);
+
+		ArgumentCaptor<List<BillRequestV2>> billRequests = ArgumentCaptor.forClass(List.class);
+		verify(receiptServiceV2).updateDemandFromReceipts(billRequests.capture(), eq(false));
+		assertEquals(2, billRequests.getValue().size());
+		assertEquals("BILL-1", billRequests.getValue().get(0).getBills().get(0).getId());
+		assertEquals(BillV2.BillStatus.PAID, billRequests.getValue().get(0).getBills().get(0).getStatus());
+		assertEquals("BILL-2", billRequests.getValue().get(1).getBills().get(0).getId());
+		verify(producer).push(CREATE_ERROR_TOPIC, billless);
+	}
+
+	@Test
+	public void appliesPaymentsOneAtATimeWhenTheBatchFails() {
+		doThrow(new RuntimeException("batch failed")).when(receiptServiceV2).updateDemandFromReceipts(anyList(), eq(true));
+		doThrow(new RuntimeException("bad payment")).when(receiptServiceV2)
+				.updateDemandFromReceipt(argThat(request -> "BILL-1".equals(request.getBills().get(0).getId())), eq(true));
+
+		PaymentBackUpdate failing = payment("BILL-1");
+
+		billingServiceConsumer.processPaymentCancel(Arrays.asList(failing, null, payment("BILL-2")));
+
+		verify(receiptServiceV2, times(2)).updateDemandFromReceipt(any(BillRequestV2.class), eq(true));
+		verify(producer).push(CANCEL_ERROR_TOPIC, failing);
+		verifyNoMoreInteractions(producer);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void leavesAFailedErrorTopicPushToTheContainer() {
+		doThrow(new RuntimeException("batch failed")).when(receiptServiceV2).updateDemandFromReceipts(anyList(), eq(false));
+		doThrow(new RuntimeException("bad payment")).when(receiptServiceV2).updateDemandFromReceipt(any(BillRequestV2.class), eq(false));
+		doThrow(new RuntimeException("kafka down")).when(producer).push(eq(CREATE_ERROR_TOPIC), any());
+
+		billingServiceConsumer.processPaymentCreate(Collections.singletonList(payment("BILL-1")));
+	}
+
+	@Test
+	public void doesNothingWhenNoPaymentOfTheBatchIsReadable() {
+		billingServiceConsumer.processPaymentCreate(Collections.singletonList(null));
+
+		verify(receiptServiceV2, never()).updateDemandFromReceipts(anyList(), any());
+	}
+
+	private PaymentBackUpdate payment(String billId) {
+		BillV2 bill = billId == null ? null
+				: BillV2.builder().id(billId).tenantId("pb.amritsar").totalAmount(BigDecimal.TEN).build();
+		PaymentBackUpdate.PaymentDetail paymentDetail = new PaymentBackUpdate.PaymentDetail(BigDecimal.TEN, bill);
+		PaymentBackUpdate paymentBackUpdate = new PaymentBackUpdate();
+		paymentBackUpdate.setPayment(new PaymentBackUpdate.Payment(Collections.singletonList(paymentDetail)));
+		return paymentBackUpdate;
+	}
+
+}
@@ -0,0 +1,65 @@
+package org.egov.demand.repository.querybuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.egov.demand.model.DemandCriteria;
+import org.junit.Test;
+
+/**
+ * Checks the demand search statements are the same text whatever the number of ids and
+ * consumer codes searched for, so that their plans can be reused
+ */
+public class DemandQueryBuilderTest {
+
+	private static final String TENANT_ID = "pb.amritsar";
+
+	private final DemandQueryBuilder demandQueryBuilder = new DemandQueryBuilder();
+
+	@Test
+	public void buildsTheSameDemandQueryForAnyNumberOfConsumerCodes() {
+		List<Object> values = new ArrayList<>();
+		String query = demandQueryBuilder.getDemandQuery(criteria(1), values);
+
+		for (int count : new int[] { 10, 500 }) {
+			List<Object> otherValues = new ArrayList<>();
+			assertEquals(query, demandQueryBuilder.getDemandQuery(criteria(count), otherValues));
+			assertEquals(values.size(), otherValues.size());
+		}
+		assertFalse(query.contains("PT-107-0"));
+	}
+
+	@Test
+	public void buildsTheSameConsumerCodeQueryForAnyNumberOfConsumerCodes() {
+		List<Object> values = new ArrayList<>();
+		String query = demandQueryBuilder.getDemandQueryForConsumerCodes(
+				Collections.singletonMap("PT", consumerCodes(1)), values, TENANT_ID);
+
+		for (int count : new int[] { 10, 500 }) {
+			List<Object> otherValues = new ArrayList<>();
+			assertEquals(query, demandQueryBuilder.getDemandQueryForConsumerCodes(
+					Collections.singletonMap("PT", consumerCodes(count)), otherValues, TENANT_ID));
+			assertEquals(3, otherValues.size());
+		}
+		assertFalse(query.contains("'PT'"));
+	}
+
+	private DemandCriteria criteria(int consumerCodes) {
+		return DemandCriteria.builder().tenantId(TENANT_ID).businessService("PT").status("ACTIVE")
+				.consumerCode(consumerCodes(consumerCodes)).demandId(Collections.singleton("DMD-1")).build();
+	}
+
+	private Set<String> consumerCodes(int count) {
+		Set<String> consumerCodes = new HashSet<>();
+		for (int i = 0; i < count; i++)
+			consumerCodes.add("PT-107-0" + i);
+		return consumerCodes;
+	}
+
+}
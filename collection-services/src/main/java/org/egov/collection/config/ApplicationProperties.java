@@ -132,6 +132,36 @@ public class ApplicationProperties {
     @Value("${receiptnumber.state.level.format}")
     private String receiptNumberStateLevelFormat;
 
+    @Value("${collection.idgen.pool.enabled:false}")
+    private boolean idGenPoolEnabled;
+
+    @Value("${collection.idgen.pool.block.size:50}")
+    private Integer idGenPoolBlockSize;
+
+    @Value("${collection.idgen.pool.lowwatermark:10}")
+    private Integer idGenPoolLowWaterMark;
+
+    @Value("${collection.idgen.pool.ttl.seconds:300}")
+    private Integer idGenPoolTtl;
+
+    @Value("${collection.payment.create.parallel.enabled:false}")
+    private boolean paymentCreateParallelEnabled;
+
+    @Value("${collection.payment.create.executor.poolsize:20}")
+    private Integer paymentCreatePoolSize;
+
+    @Value("${collection.payment.create.executor.queuesize:200}")
+    private Integer paymentCreateQueueSize;
+
+    @Value("${collection.payment.create.stage.timeout.ms:15000}")
+    private Long paymentCreateStageTimeout;
+
+    @Value("${collection.payment.bulkcreate.max.size:500}")
+    private Integer paymentBulkCreateMaxSize;
+
+    @Value("${collection.payment.bulkcreate.chunk.size:50}")
+    private Integer paymentBulkCreateChunkSize;
+
     @Value("${collection.receipts.search.paginate}")
     private boolean receiptsSearchPaginationEnabled;
 
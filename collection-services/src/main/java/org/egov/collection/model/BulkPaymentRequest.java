@@ -0,0 +1,34 @@
+package org.egov.collection.model;
+
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import org.egov.common.contract.request.RequestInfo;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentRequest {
+
+    @NotNull
+    @Valid
+    @JsonProperty("RequestInfo")
+    private RequestInfo requestInfo;
+
+    @NotNull
+    @Size(min = 1)
+    @Valid
+    @JsonProperty("Payments")
+    private List<Payment> payments;
+
+}
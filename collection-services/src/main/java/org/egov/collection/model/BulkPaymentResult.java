@@ -0,0 +1,40 @@
+package org.egov.collection.model;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one payment of a bulk create request, index is the position
+ * of the payment in the request
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkPaymentResult {
+
+    public enum StatusEnum {
+        SUCCESSFUL, FAILED
+    }
+
+    @JsonProperty("index")
+    private Integer index;
+
+    @JsonProperty("status")
+    private StatusEnum status;
+
+    @JsonProperty("Payment")
+    private Payment payment;
+
+    @JsonProperty("errors")
+    private Map<String, String> errors;
+
+}
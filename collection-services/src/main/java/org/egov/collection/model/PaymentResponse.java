@@ -1,5 +1,6 @@
 package org.egov.collection.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,4 +22,13 @@ public class PaymentResponse {
     @JsonProperty("Payments")
     private List<Payment> payments;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("nextCursor")
+    private String nextCursor;
+
+    public PaymentResponse(ResponseInfo responseInfo, List<Payment> payments) {
+        this.responseInfo = responseInfo;
+        this.payments = payments;
+    }
+
 }
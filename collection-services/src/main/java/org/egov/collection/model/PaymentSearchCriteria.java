@@ -47,4 +47,6 @@ public class PaymentSearchCriteria {
 
     private Integer limit;
 
+    private String cursor;
+
 }
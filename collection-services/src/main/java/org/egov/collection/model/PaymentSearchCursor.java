@@ -0,0 +1,41 @@
+package org.egov.collection.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.egov.tracer.model.CustomException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Opaque position in the payment search ordering (transactionDate DESC, id DESC),
+ * handed to clients as a url safe token so that the next page can be fetched
+ * by seeking instead of skipping rows.
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentSearchCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private Long transactionDate;
+
+    private String id;
+
+    public String encode() {
+        String raw = transactionDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PaymentSearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = raw.indexOf(SEPARATOR);
+            return new PaymentSearchCursor(Long.valueOf(raw.substring(0, index)), raw.substring(index + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new CustomException("INVALID_CURSOR", "The search cursor provided is invalid: " + token);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.egov.collection.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One page of a keyset payment search, with the cursor of the next page if the
+ * id query filled the page
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentSearchPage {
+
+    private List<Payment> payments;
+
+    private String nextCursor;
+
+}
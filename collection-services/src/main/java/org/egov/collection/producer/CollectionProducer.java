@@ -1,13 +1,19 @@
 package org.egov.collection.producer;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.egov.collection.config.CollectionServiceConstants;
 import org.egov.tracer.kafka.CustomKafkaTemplate;
 import org.egov.tracer.model.CustomException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
 
 @Service
 public class CollectionProducer {
@@ -17,6 +23,9 @@ public class CollectionProducer {
 	@Autowired
     private CustomKafkaTemplate<String, Object> kafkaTemplate;
 
+    @Autowired
+    private KafkaTemplate<String, Object> batchKafkaTemplate;
+
     public void producer(String topicName, String key, Object value) {
         try {
             kafkaTemplate.send(topicName, key, value);
@@ -27,4 +36,32 @@ public class CollectionProducer {
         }
     	
     }
+
+    /**
+     * Sends all the values without waiting on each record, the producer is flushed
+     * once and the acknowledgements are awaited together
+     *
+     * @param topicName Topic to push to
+     * @param key Key of the records
+     * @param values Values to be pushed, one record each
+     */
+    public void producer(String topicName, String key, List<?> values) {
+        try {
+            List<ListenableFuture<SendResult<String, Object>>> futures = new ArrayList<>(values.size());
+            for (Object value : values)
+                futures.add(batchKafkaTemplate.send(topicName, key, value));
+            batchKafkaTemplate.flush();
+            for (ListenableFuture<SendResult<String, Object>> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Pushing to Queue FAILED! ", e.getMessage());
+            throw new CustomException("COLLECTIONS_KAFKA_PUSH_FAILED", CollectionServiceConstants
+                    .KAFKA_PUSH_EXCEPTION_DESC);
+        } catch (Exception e) {
+            logger.error("Pushing to Queue FAILED! ", e.getMessage());
+            throw new CustomException("COLLECTIONS_KAFKA_PUSH_FAILED", CollectionServiceConstants
+                    .KAFKA_PUSH_EXCEPTION_DESC);
+        }
+    }
 }
@@ -0,0 +1,167 @@
+package org.egov.collection.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import javax.annotation.PreDestroy;
+
+import org.egov.collection.config.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds blocks of ids reserved from ID Gen per key (tenant, id name and format),
+ * ids are handed out locally and the block is refilled in the background once it
+ * drops below the low water mark. Reserved ids expire after the configured ttl so that
+ * date based formats do not hand out stale ids. The hits, misses and refills are served
+ * by getStats.
+ */
+@Slf4j
+@Component
+public class IdGenPool {
+
+    private ApplicationProperties applicationProperties;
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    private final ExecutorService refillExecutor = Executors.newFixedThreadPool(2);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong refills = new AtomicLong();
+
+    private final AtomicLong refillFailures = new AtomicLong();
+
+    @Autowired
+    public IdGenPool(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Takes the given number of ids from the pool of the key, ids missing from the pool
+     * are fetched synchronously along with a fresh block
+     *
+     * @param key Key of the pool
+     * @param count Number of ids required
+     * @param fetcher Fetches the given number of ids from ID Gen for the request being served
+     * @param refillFetcher Fetches the given number of ids from ID Gen for a background refill,
+     *                      which is not made on behalf of the request that triggered it
+     * @return List of ids
+     */
+    public List<String> take(String key, int count, IntFunction<List<String>> fetcher,
+            IntFunction<List<String>> refillFetcher) {
+        Pool pool = pools.computeIfAbsent(key, k -> new Pool());
+        List<String> ids = pool.poll(count);
+        hits.addAndGet(ids.size());
+
+        if (ids.size() < count) {
+            int missing = count - ids.size();
+            misses.addAndGet(missing);
+            List<String> fetched = fetcher.apply(missing + applicationProperties.getIdGenPoolBlockSize());
+            ids.addAll(fetched.subList(0, missing));
+            pool.offer(fetched.subList(missing, fetched.size()), expiryTime());
+            refills.incrementAndGet();
+            logStats(key, pool);
+        } else if (pool.size() < applicationProperties.getIdGenPoolLowWaterMark()) {
+            scheduleRefill(key, pool, refillFetcher);
+        }
+
+        return ids;
+    }
+
+    private void scheduleRefill(String key, Pool pool, IntFunction<List<String>> fetcher) {
+        if (!pool.refillInProgress.compareAndSet(false, true))
+            return;
+
+        refillExecutor.submit(() -> {
+            try {
+                pool.offer(fetcher.apply(applicationProperties.getIdGenPoolBlockSize()), expiryTime());
+                refills.incrementAndGet();
+                logStats(key, pool);
+            } catch (Exception e) {
+                refillFailures.incrementAndGet();
+                log.error("Failed to refill id gen pool " + key, e);
+            } finally {
+                pool.refillInProgress.set(false);
+            }
+        });
+    }
+
+    private long expiryTime() {
+        return System.currentTimeMillis() + applicationProperties.getIdGenPoolTtl() * 1000L;
+    }
+
+    private void logStats(String key, Pool pool) {
+        log.info("IdGen pool {} refilled, available: {}, hits: {}, misses: {}, refills: {}, refill failures: {}",
+                key, pool.size(), hits.get(), misses.get(), refills.get(), refillFailures.get());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", applicationProperties.isIdGenPoolEnabled());
+        stats.put("pools", pools.size());
+        stats.put("available", pools.values().stream().mapToInt(Pool::size).sum());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("refills", refills.get());
+        stats.put("refillFailures", refillFailures.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+
+    private static class Pool {
+
+        private final LinkedBlockingQueue<ReservedId> ids = new LinkedBlockingQueue<>();
+
+        private final AtomicBoolean refillInProgress = new AtomicBoolean(false);
+
+        private List<String> poll(int count) {
+            List<String> polled = new ArrayList<>(count);
+            long now = System.currentTimeMillis();
+            while (polled.size() < count) {
+                ReservedId reservedId = ids.poll();
+                if (reservedId == null)
+                    break;
+                if (reservedId.expiresAt > now)
+                    polled.add(reservedId.id);
+            }
+            return polled;
+        }
+
+        private void offer(List<String> fetched, long expiresAt) {
+            fetched.forEach(id -> ids.offer(new ReservedId(id, expiresAt)));
+        }
+
+        private int size() {
+            return ids.size();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class ReservedId {
+
+        private String id;
+
+        private long expiresAt;
+    }
+
+}
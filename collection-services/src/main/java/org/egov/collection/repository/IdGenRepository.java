@@ -5,7 +5,9 @@ import org.egov.collection.config.ApplicationProperties;
 import org.egov.collection.model.IdGenerationRequest;
 import org.egov.collection.model.IdGenerationResponse;
 import org.egov.collection.model.IdRequest;
+import org.egov.collection.model.IdResponse;
 import org.egov.common.contract.request.RequestInfo;
+import org.egov.common.contract.request.User;
 import org.egov.tracer.model.ServiceCallException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,6 +17,7 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.egov.collection.config.CollectionServiceConstants.*;
 
@@ -28,6 +31,9 @@ public class IdGenRepository {
 	@Autowired
 	private ApplicationProperties applicationProperties;
 
+	@Autowired
+	private IdGenPool idGenPool;
+
     /**
      * Generates a receipt number
      *  - If isReceiptNumberByService flag is set to true,
@@ -40,6 +46,20 @@ public class IdGenRepository {
      * @return
      */
 	public String generateReceiptNumber(RequestInfo requestInfo, String businessService ,String tenantId) {
+        return generateReceiptNumbers(requestInfo, businessService, tenantId, 1).get(0);
+	}
+
+    /**
+     * Generates the given number of receipt numbers for a business service
+     * in a single call, served from the id gen pool when it is enabled
+     *
+     * @param requestInfo
+     * @param businessService
+     * @param tenantId
+     * @param count
+     * @return
+     */
+	public List<String> generateReceiptNumbers(RequestInfo requestInfo, String businessService, String tenantId, int count) {
         String idName = "";
         String format = null;
 	    log.debug("Attempting to generate Receipt Number from ID Gen");
@@ -51,21 +71,58 @@ public class IdGenRepository {
             format = applicationProperties.getReceiptNumberStateLevelFormat();
         }
 
-        return getId(requestInfo, tenantId, idName, format, 1);
+        return getIds(requestInfo, tenantId, idName, format, count);
 	}
 
     public String generateTransactionNumber(RequestInfo requestInfo, String tenantId) {
+        return generateTransactionNumbers(requestInfo, tenantId, 1).get(0);
+    }
+
+    /**
+     * Generates the given number of transaction numbers for a tenant in a single call
+     *
+     * @param requestInfo
+     * @param tenantId
+     * @param count
+     * @return
+     */
+    public List<String> generateTransactionNumbers(RequestInfo requestInfo, String tenantId, int count) {
         log.debug("Attempting to generate Transaction Number from ID Gen");
 
         String splitTenant = tenantId.contains(".") ? tenantId.split("\\.")[1] : tenantId;
         String tenantFormat = COLL_TRANSACTION_FORMAT.replace("{tenant}", splitTenant);
 
 
-        return getId(requestInfo, tenantId, COLL_TRANSACTION_ID_NAME, tenantFormat, 1);
+        return getIds(requestInfo, tenantId, COLL_TRANSACTION_ID_NAME, tenantFormat, count);
+
+    }
+
+    /**
+     * Ids are pooled by what ID Gen numbers them by, the tenant, the id name and the format.
+     * Receipt numbers by service carry the business service in the id name, state level
+     * receipt numbers are shared by all the business services. Background refills are made
+     * as the system user, the request that triggered them may have completed by then
+     */
+    private List<String> getIds(RequestInfo requestInfo, String tenantId, String name, String format, int count) {
+        if (!applicationProperties.isIdGenPoolEnabled())
+            return fetchIds(requestInfo, tenantId, name, format, count);
 
+        String key = String.join("|", tenantId, name, String.valueOf(format));
+        return idGenPool.take(key, count, size -> fetchIds(requestInfo, tenantId, name, format, size),
+                size -> fetchIds(getSystemRequestInfo(tenantId), tenantId, name, format, size));
     }
 
-    private String getId(RequestInfo requestInfo, String tenantId, String name, String format, int count) {
+    private RequestInfo getSystemRequestInfo(String tenantId) {
+        User userInfo = new User();
+        userInfo.setType(SYSTEM_USER_TYPE);
+        userInfo.setTenantId(tenantId);
+        RequestInfo requestInfo = new RequestInfo();
+        requestInfo.setUserInfo(userInfo);
+        requestInfo.setTs(System.currentTimeMillis());
+        return requestInfo;
+    }
+
+    private List<String> fetchIds(RequestInfo requestInfo, String tenantId, String name, String format, int count) {
 
         List<IdRequest> reqList = new ArrayList<>();
         for (int i = 0; i < count; i++) {
@@ -77,10 +134,11 @@ public class IdGenRepository {
                 .path(applicationProperties.getIdGeneration())
                 .build()
                 .toUriString();
+        List<IdResponse> idResponses;
         try {
             IdGenerationResponse idGenerationResponse = restTemplate.postForObject(uri, req,
                     IdGenerationResponse.class);
-            return idGenerationResponse.getIdResponses().get(0).getId();
+            idResponses = idGenerationResponse.getIdResponses();
         } catch (HttpClientErrorException e) {
             log.error("ID Gen Service failure ", e);
             throw new ServiceCallException(e.getResponseBodyAsString());
@@ -88,5 +146,10 @@ public class IdGenRepository {
             log.error("ID Gen Service failure", e);
             throw new org.egov.tracer.model.CustomException("IDGEN_SERVICE_ERROR", "Failed to generate ID, unknown error occurred");
         }
+
+        if (idResponses == null || idResponses.size() < count)
+            throw new org.egov.tracer.model.CustomException("IDGEN_SERVICE_ERROR", "ID Gen returned fewer ids than requested");
+
+        return idResponses.stream().map(IdResponse::getId).collect(Collectors.toList());
     }
 }
@@ -6,6 +6,7 @@ import static org.egov.collection.config.CollectionServiceConstants.KEY_ID;
 import static org.egov.collection.repository.querybuilder.PaymentQueryBuilder.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -17,8 +18,11 @@ import java.util.stream.Collectors;
 import org.egov.collection.model.Payment;
 import org.egov.collection.model.PaymentDetail;
 import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.PaymentSearchCursor;
+import org.egov.collection.model.PaymentSearchPage;
 import org.egov.collection.repository.querybuilder.PaymentQueryBuilder;
 import org.egov.collection.repository.rowmapper.BillRowMapper;
+import org.egov.collection.repository.rowmapper.PaymentDetailRowMapper;
 import org.egov.collection.repository.rowmapper.PaymentRowMapper;
 import org.egov.collection.web.contract.Bill;
 import org.egov.tracer.model.CustomException;
@@ -41,15 +45,18 @@ public class PaymentRepository {
     private PaymentQueryBuilder paymentQueryBuilder;
 
     private PaymentRowMapper paymentRowMapper;
+
+    private PaymentDetailRowMapper paymentDetailRowMapper;
     
     private BillRowMapper billRowMapper;
 
     @Autowired
     public PaymentRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate, PaymentQueryBuilder paymentQueryBuilder, 
-    		PaymentRowMapper paymentRowMapper, BillRowMapper billRowMapper) {
+    		PaymentRowMapper paymentRowMapper, PaymentDetailRowMapper paymentDetailRowMapper, BillRowMapper billRowMapper) {
         this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
         this.paymentQueryBuilder = paymentQueryBuilder;
         this.paymentRowMapper = paymentRowMapper;
+        this.paymentDetailRowMapper = paymentDetailRowMapper;
         this.billRowMapper = billRowMapper;
     }
 
@@ -58,25 +65,38 @@ public class PaymentRepository {
 
     @Transactional
     public void savePayment(Payment payment){
+        savePayments(Collections.singletonList(payment));
+    }
+
+    /**
+     * Persists the payments with one batch per table
+     *
+     * @param payments Payments to be persisted
+     */
+    @Transactional
+    public void savePayments(List<Payment> payments){
         try {
 
+            List<MapSqlParameterSource> paymentSource = new ArrayList<>();
             List<MapSqlParameterSource> paymentDetailSource = new ArrayList<>();
             List<MapSqlParameterSource> billSource = new ArrayList<>();
             List<MapSqlParameterSource> billDetailSource = new ArrayList<>();
             List<MapSqlParameterSource> billAccountDetailSource = new ArrayList<>();
 
-            for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
-                paymentDetailSource.add(getParametersForPaymentDetailCreate(payment.getId(), paymentDetail));
-                billSource.add(getParamtersForBillCreate(paymentDetail.getBill()));
-                paymentDetail.getBill().getBillDetails().forEach(billDetail -> {
-                    billDetailSource.add(getParamtersForBillDetailCreate(billDetail));
-                    billDetail.getBillAccountDetails().forEach(billAccountDetail -> {
-                        billAccountDetailSource.add(getParametersForBillAccountDetailCreate(billAccountDetail));
+            for (Payment payment : payments) {
+                paymentSource.add(getParametersForPaymentCreate(payment));
+                for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
+                    paymentDetailSource.add(getParametersForPaymentDetailCreate(payment.getId(), paymentDetail));
+                    billSource.add(getParamtersForBillCreate(paymentDetail.getBill()));
+                    paymentDetail.getBill().getBillDetails().forEach(billDetail -> {
+                        billDetailSource.add(getParamtersForBillDetailCreate(billDetail));
+                        billDetail.getBillAccountDetails().forEach(billAccountDetail -> {
+                            billAccountDetailSource.add(getParametersForBillAccountDetailCreate(billAccountDetail));
+                        });
                     });
-                });
-
+                }
             }
-            namedParameterJdbcTemplate.update(INSERT_PAYMENT_SQL, getParametersForPaymentCreate(payment));
+            namedParameterJdbcTemplate.batchUpdate(INSERT_PAYMENT_SQL, paymentSource.toArray(new MapSqlParameterSource[0]));
             namedParameterJdbcTemplate.batchUpdate(INSERT_PAYMENTDETAIL_SQL, paymentDetailSource.toArray(new MapSqlParameterSource[0]));
             namedParameterJdbcTemplate.batchUpdate(INSERT_BILL_SQL, billSource.toArray(new MapSqlParameterSource[0]));
             namedParameterJdbcTemplate.batchUpdate(INSERT_BILLDETAIL_SQL, billDetailSource.toArray(new MapSqlParameterSource[0]));
@@ -91,29 +111,93 @@ public class PaymentRepository {
 
     public List<Payment> fetchPayments(PaymentSearchCriteria paymentSearchCriteria){
         Map<String, Object> preparedStatementValues = new HashMap<>();
-        String query = paymentQueryBuilder.getPaymentSearchQuery(paymentSearchCriteria, preparedStatementValues);
-        log.info("Query: "+query);
+        String idQuery = paymentQueryBuilder.getPaymentIdSearchQuery(paymentSearchCriteria, preparedStatementValues);
+        log.info("Query: "+idQuery);
         log.info("preparedStatementValues: "+preparedStatementValues);
-        List<Payment> payments = namedParameterJdbcTemplate.query(query, preparedStatementValues,paymentRowMapper);
-        if(!CollectionUtils.isEmpty(payments)) {
-            Set<String> billIds = new HashSet<>();
-            for(Payment payment : payments) {
-            	billIds.addAll(payment.getPaymentDetails().stream().map(detail -> detail.getBillId()).collect(Collectors.toSet()));
-            }
-            Map<String, Bill> billMap = getBills(billIds);
-            for(Payment payment : payments) {
-            	payment.getPaymentDetails().forEach(detail -> {
-            		detail.setBill(billMap.get(detail.getBillId()));
-            	});
-            }
-           payments.sort(reverseOrder(Comparator.comparingLong(Payment::getTransactionDate)));
+
+        return fetchPaymentsByIdQuery(idQuery, preparedStatementValues, paymentSearchCriteria);
+    }
+
+    /**
+     * Keyset variant of the payment search, seeks the ids of the requested page
+     * using the cursor instead of an offset. The next cursor is taken from the last
+     * id of the page, so a payment missing from the hydrated page does not end the
+     * pagination early
+     *
+     * @param paymentSearchCriteria Criteria with limit and optional cursor
+     * @return Payments of the page ordered by transaction date and id, descending, with the next cursor
+     */
+    public PaymentSearchPage fetchPaymentsByCursor(PaymentSearchCriteria paymentSearchCriteria){
+        Map<String, Object> preparedStatementValues = new HashMap<>();
+        String idQuery = paymentQueryBuilder.getPaymentIdKeysetQuery(paymentSearchCriteria, preparedStatementValues);
+        log.info("Query: "+idQuery);
+        log.info("preparedStatementValues: "+preparedStatementValues);
+
+        long startTime = System.currentTimeMillis();
+        List<PaymentSearchCursor> positions = namedParameterJdbcTemplate.query(idQuery, preparedStatementValues,
+                (rs, rowNum) -> new PaymentSearchCursor(rs.getLong("py_transactiondate"), rs.getString("py_id")));
+        List<String> ids = positions.stream().map(PaymentSearchCursor::getId).collect(Collectors.toList());
+
+        String nextCursor = positions.size() == paymentSearchCriteria.getLimit()
+                ? positions.get(positions.size() - 1).encode() : null;
+        return new PaymentSearchPage(fetchPaymentsByIds(ids, paymentSearchCriteria, startTime), nextCursor);
+    }
+
+    private List<Payment> fetchPaymentsByIdQuery(String idQuery, Map<String, Object> preparedStatementValues,
+                                                 PaymentSearchCriteria paymentSearchCriteria){
+        long startTime = System.currentTimeMillis();
+        List<String> ids = namedParameterJdbcTemplate.query(idQuery, preparedStatementValues,
+                (rs, rowNum) -> rs.getString("py_id"));
+        return fetchPaymentsByIds(ids, paymentSearchCriteria, startTime);
+    }
+
+    /**
+     * Two phase read of payments, the id query selects the page of payment ids and
+     * the payments, payment details and bills of those ids are then fetched with one
+     * set based query each and stitched together in memory
+     */
+    private List<Payment> fetchPaymentsByIds(List<String> ids, PaymentSearchCriteria paymentSearchCriteria,
+                                             long startTime){
+        long idTime = System.currentTimeMillis();
+        if(CollectionUtils.isEmpty(ids)) {
+            log.info("Payment search timings - ids: {}ms, no payments found", idTime - startTime);
+            return new ArrayList<>();
         }
 
+        List<Payment> payments = namedParameterJdbcTemplate.query(SELECT_PAYMENT_BY_IDS_SQL,
+                Collections.singletonMap("id", ids), paymentRowMapper);
+        long paymentTime = System.currentTimeMillis();
+
+        Map<String, Object> detailStatementValues = new HashMap<>();
+        String detailQuery = paymentQueryBuilder.getPaymentDetailQuery(paymentSearchCriteria, ids, detailStatementValues);
+        Map<String, List<PaymentDetail>> paymentIdToDetails = namedParameterJdbcTemplate.query(detailQuery,
+                detailStatementValues, paymentDetailRowMapper);
+        long detailTime = System.currentTimeMillis();
+
+        Set<String> billIds = new HashSet<>();
+        paymentIdToDetails.values().forEach(details -> details.forEach(detail -> billIds.add(detail.getBillId())));
+        Map<String, Bill> billMap = getBills(billIds);
+        long billTime = System.currentTimeMillis();
+
+        for(Payment payment : payments) {
+            payment.setPaymentDetails(paymentIdToDetails.getOrDefault(payment.getId(), new ArrayList<>()));
+            payment.getPaymentDetails().forEach(detail -> {
+                detail.setBill(billMap.get(detail.getBillId()));
+            });
+        }
+        payments.sort(reverseOrder(Comparator.comparingLong(Payment::getTransactionDate).thenComparing(Payment::getId)));
+
+        log.info("Payment search timings - ids: {}ms, payments: {}ms, paymentDetails: {}ms, bills: {}ms, total: {}ms for {} payments",
+                idTime - startTime, paymentTime - idTime, detailTime - paymentTime, billTime - detailTime,
+                billTime - startTime, payments.size());
+
         return payments;
     }
     
     private Map<String, Bill> getBills(Set<String> ids){
     	Map<String, Bill> mapOfIdAndBills = new HashMap<>();
+        if(CollectionUtils.isEmpty(ids))
+            return mapOfIdAndBills;
         Map<String, Object> preparedStatementValues = new HashMap<>();
         preparedStatementValues.put("id", ids);
         String query = paymentQueryBuilder.getBillQuery();
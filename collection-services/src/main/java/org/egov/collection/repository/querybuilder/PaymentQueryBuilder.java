@@ -9,6 +9,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.egov.collection.model.Payment;
 import org.egov.collection.model.PaymentDetail;
 import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.PaymentSearchCursor;
 import org.egov.collection.web.contract.Bill;
 import org.egov.collection.web.contract.BillAccountDetail;
 import org.egov.collection.web.contract.BillDetail;
@@ -25,29 +26,45 @@ public class PaymentQueryBuilder {
 
 
 
-    public static final String SELECT_PAYMENT_SQL = "SELECT py.*,pyd.*,bill.*,bd.*,bacdt.*, " +
-            "py.id as py_id,py.tenantId as py_tenantId,py.totalAmountPaid as py_totalAmountPaid,py.createdBy as py_createdBy,py.createdtime as py_createdtime," +
-            "py.lastModifiedBy as py_lastModifiedBy,py.lastmodifiedtime as py_lastmodifiedtime,py.additionalDetails as py_additionalDetails," +
-            "pyd.id as pyd_id, pyd.tenantId as pyd_tenantId, pyd.manualreceiptnumber as manualreceiptnumber,pyd.manualreceiptdate as manualreceiptdate, pyd.createdBy as pyd_createdBy,pyd.createdtime as pyd_createdtime,pyd.lastModifiedBy as pyd_lastModifiedBy," +
-            "pyd.lastmodifiedtime as pyd_lastmodifiedtime,pyd.additionalDetails as pyd_additionalDetails," +
-            "bill.createdby as bill_createdby,bill.createdtime as bill_createdtime,bill.lastmodifiedby as bill_lastmodifiedby," +
-            "bill.lastmodifiedtime as bill_lastmodifiedtime,bill.id as bill_id," +
-            "bill.status as bill_status,bill.additionalDetails as bill_additionalDetails," +
-            "bill.tenantid as bill_tenantid,bill.totalamount as bill_totalamount," +
-            "bd.id as bd_id,bd.tenantid as bd_tenantid,bd.additionalDetails as bd_additionalDetails," +
-            "bacdt.id as bacdt_id,bacdt.tenantid as bacdt_tenantid, bacdt.amount as bacdt_amount, bacdt.adjustedamount as bacdt_adjustedamount, "
-            + "bacdt.additionalDetails as bacdt_additionalDetails" +
+    private static final String SELECT_PAYMENT_ID_SQL = "SELECT py.id AS py_id, py.transactiondate AS py_transactiondate " +
+            " FROM egcl_payment py  ";
+
+    private static final String SELECT_PAYMENT_DETAIL_ID_SQL = "SELECT DISTINCT py.id AS py_id, py.transactiondate AS py_transactiondate " +
+            " FROM egcl_payment py  " +
+            " INNER JOIN egcl_paymentdetail pyd ON pyd.paymentid = py.id ";
+
+    private static final String BILL_JOIN_SQL = " INNER JOIN egcl_bill bill ON bill.id = pyd.billid ";
+
+    private static final String PAYMENT_WITH_DETAILS_SQL = " EXISTS (SELECT 1 FROM egcl_paymentdetail epd " +
+            " INNER JOIN egcl_bill eb ON eb.id = epd.billid " +
+            " WHERE epd.paymentid = py.id AND EXISTS (SELECT 1 FROM egcl_billdetial ebd " +
+            " INNER JOIN egcl_billaccountdetail ebad ON ebad.billdetailid = ebd.id WHERE ebd.billid = eb.id)) ";
+
+    private static final String SELECT_PAYMENT_PAGE_ID_SQL = "SELECT DISTINCT py.id AS py_id " +
             " FROM egcl_payment py  " +
             " INNER JOIN egcl_paymentdetail pyd ON pyd.paymentid = py.id " +
             " INNER JOIN egcl_bill bill ON bill.id = pyd.billid " +
             " INNER JOIN egcl_billdetial bd ON bd.billid = bill.id " +
             " INNER JOIN egcl_billaccountdetail bacdt ON bacdt.billdetailid = bd.id  ";
 
-    private static final String PAGINATION_WRAPPER = "SELECT * FROM " +
-            "(SELECT *, DENSE_RANK() OVER (ORDER BY py_id) offset_ FROM " +
-            "({baseQuery})" +
-            " result) result_offset " +
-            "WHERE offset_ > :offset AND offset_ <= :limit";
+    private static final String OFFSET_ORDER_AND_LIMIT = " ORDER BY py.id OFFSET :offset LIMIT :limit ";
+
+    private static final String KEYSET_ORDER_AND_LIMIT = " ORDER BY py.transactiondate DESC, py.id DESC LIMIT :limit ";
+
+    public static final String SELECT_PAYMENT_BY_IDS_SQL = "SELECT id, tenantid, totaldue, totalamountpaid, transactionnumber, transactiondate, " +
+            " paymentmode, instrumentdate, instrumentnumber, instrumentstatus, ifsccode, additionaldetails, " +
+            " paidby, mobilenumber, payername, payeraddress, payeremail, payerid, paymentstatus, filestoreid, " +
+            " createdby, createdtime, lastmodifiedby, lastmodifiedtime " +
+            " FROM egcl_payment WHERE id IN (:id) ";
+
+    private static final String SELECT_PAYMENTDETAIL_SQL = "SELECT pyd.id, pyd.tenantid, pyd.paymentid, pyd.due, pyd.amountpaid, " +
+            " pyd.receiptnumber, pyd.receiptdate, pyd.receipttype, pyd.businessservice, pyd.billid, pyd.manualreceiptnumber, " +
+            " pyd.manualreceiptdate, pyd.additionaldetails, pyd.createdby, pyd.createdtime, pyd.lastmodifiedby, pyd.lastmodifiedtime " +
+            " FROM egcl_paymentdetail pyd " +
+            " INNER JOIN egcl_bill bill ON bill.id = pyd.billid " +
+            " WHERE pyd.paymentid IN (:paymentid) " +
+            " AND EXISTS (SELECT 1 FROM egcl_billdetial bd " +
+            " INNER JOIN egcl_billaccountdetail bacdt ON bacdt.billdetailid = bd.id WHERE bd.billid = bill.id) ";
 
 
     public static final String INSERT_PAYMENT_SQL = "INSERT INTO egcl_payment(" +
@@ -304,15 +321,117 @@ public class PaymentQueryBuilder {
 
 
 
-    public static String getPaymentSearchQuery(PaymentSearchCriteria searchCriteria,
-                                               Map<String, Object> preparedStatementValues) {
-        StringBuilder selectQuery = new StringBuilder(SELECT_PAYMENT_SQL);
+    /**
+     * Narrow query returning only the ids of the payments on the requested page,
+     * the payment graph is hydrated separately for these ids. As in the joined
+     * search, only payments whose bills have bill and account details are found
+     * and pages are taken in the order of the payment ids
+     *
+     * @param searchCriteria Criteria against which search has to be performed
+     * @param preparedStatementValues Named parameters of the query
+     * @return Query fetching the payment ids of one page
+     */
+    public static String getPaymentIdSearchQuery(PaymentSearchCriteria searchCriteria,
+                                                 Map<String, Object> preparedStatementValues) {
+        StringBuilder selectQuery = new StringBuilder(SELECT_PAYMENT_PAGE_ID_SQL);
+
+        addWhereClause(selectQuery, preparedStatementValues, searchCriteria);
+
+        selectQuery.append(OFFSET_ORDER_AND_LIMIT);
+        preparedStatementValues.put("offset", searchCriteria.getOffset());
+        preparedStatementValues.put("limit", searchCriteria.getLimit());
+
+        return selectQuery.toString();
+    }
+
+
+    /**
+     * Seek query returning only the ids of the payments on the requested page,
+     * ordered by (transactiondate, id) descending and starting after the cursor
+     * position if one is provided. Payment details and bills are joined only when
+     * criteria on them are given, otherwise the page is read straight off the
+     * (tenantid, transactiondate, id) index of egcl_payment. As in the search, only
+     * payments having a payment detail with a bill, bill details and bill account
+     * details are returned, so that no payment of a page is without payment details
+     *
+     * @param searchCriteria Criteria against which search has to be performed
+     * @param preparedStatementValues Named parameters of the query
+     * @return Query fetching the payment ids of one page
+     */
+    public static String getPaymentIdKeysetQuery(PaymentSearchCriteria searchCriteria,
+                                                 Map<String, Object> preparedStatementValues) {
+        StringBuilder selectQuery;
+        if (CollectionUtils.isEmpty(searchCriteria.getReceiptNumbers())
+                && CollectionUtils.isEmpty(searchCriteria.getBusinessServices())
+                && CollectionUtils.isEmpty(searchCriteria.getConsumerCodes())
+                && CollectionUtils.isEmpty(searchCriteria.getBillIds()))
+            selectQuery = new StringBuilder(SELECT_PAYMENT_ID_SQL);
+        else {
+            selectQuery = new StringBuilder(SELECT_PAYMENT_DETAIL_ID_SQL);
+            if (!CollectionUtils.isEmpty(searchCriteria.getConsumerCodes()))
+                selectQuery.append(BILL_JOIN_SQL);
+        }
 
         addWhereClause(selectQuery, preparedStatementValues, searchCriteria);
 
-        addOrderByClause(selectQuery);
+        if (StringUtils.isNotBlank(searchCriteria.getCursor())) {
+            PaymentSearchCursor cursor = PaymentSearchCursor.decode(searchCriteria.getCursor());
+            addClauseIfRequired(preparedStatementValues, selectQuery);
+            selectQuery.append(" (py.transactiondate, py.id) < (:cursorTransactionDate, :cursorId)");
+            preparedStatementValues.put("cursorTransactionDate", cursor.getTransactionDate());
+            preparedStatementValues.put("cursorId", cursor.getId());
+        }
+
+        addClauseIfRequired(preparedStatementValues, selectQuery);
+        selectQuery.append(PAYMENT_WITH_DETAILS_SQL);
+
+        selectQuery.append(KEYSET_ORDER_AND_LIMIT);
+        preparedStatementValues.put("limit", searchCriteria.getLimit());
+
+        return selectQuery.toString();
+    }
+
+    /**
+     * Fetches the payment details of the given payments, restricted by the detail
+     * level criteria (receipt number, business service, bill and consumer code)
+     * so that only the matching details are returned as in the search
+     *
+     * @param searchCriteria Criteria against which search has been performed
+     * @param paymentIds Ids of the payments whose details have to be fetched
+     * @param preparedStatementValues Named parameters of the query
+     * @return Query fetching the payment details
+     */
+    public static String getPaymentDetailQuery(PaymentSearchCriteria searchCriteria, Collection<String> paymentIds,
+                                               Map<String, Object> preparedStatementValues) {
+        StringBuilder selectQuery = new StringBuilder(SELECT_PAYMENTDETAIL_SQL);
+        preparedStatementValues.put("paymentid", paymentIds);
+
+        if (!CollectionUtils.isEmpty(searchCriteria.getReceiptNumbers())) {
+            selectQuery.append(" AND pyd.receiptNumber IN (:receiptnumber) ");
+            preparedStatementValues.put("receiptnumber",
+                    searchCriteria.getReceiptNumbers()
+                            .stream()
+                            .map(String::toUpperCase)
+                            .collect(toSet())
+            );
+        }
+
+        if (!CollectionUtils.isEmpty(searchCriteria.getBusinessServices())) {
+            selectQuery.append(" AND pyd.businessService IN (:businessService) ");
+            preparedStatementValues.put("businessService", searchCriteria.getBusinessServices());
+        }
+
+        if (!CollectionUtils.isEmpty(searchCriteria.getConsumerCodes())) {
+            selectQuery.append(" AND bill.consumerCode IN (:consumerCodes) ");
+            preparedStatementValues.put("consumerCodes", searchCriteria.getConsumerCodes());
+        }
 
-        return addPaginationClause(selectQuery, preparedStatementValues, searchCriteria);
+        if (!CollectionUtils.isEmpty(searchCriteria.getBillIds())) {
+            selectQuery.append(" AND pyd.billid IN (:billid) ");
+            preparedStatementValues.put("billid", searchCriteria.getBillIds());
+        }
+
+        return selectQuery.toString();
     }
 
 
@@ -443,21 +562,6 @@ public class PaymentQueryBuilder {
     }
 
 
-    private static String addPaginationClause(StringBuilder selectQuery, Map<String, Object> preparedStatementValues,
-                                              PaymentSearchCriteria criteria) {
-
-            String finalQuery = PAGINATION_WRAPPER.replace("{baseQuery}", selectQuery);
-            preparedStatementValues.put("offset", criteria.getOffset());
-            preparedStatementValues.put("limit", criteria.getOffset() + criteria.getLimit());
-
-            return finalQuery;
-    }
-
-    private static String addOrderByClause(StringBuilder selectQuery) {
-        return selectQuery.append(" ORDER BY py.transactiondate DESC ").toString();
-    }
-
-
     private static void addClauseIfRequired(Map<String, Object> values, StringBuilder queryString) {
         if (values.isEmpty())
             queryString.append(" WHERE ");
@@ -0,0 +1,93 @@
+package org.egov.collection.repository.rowmapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.egov.collection.model.AuditDetails;
+import org.egov.collection.model.PaymentDetail;
+import org.egov.tracer.model.CustomException;
+import org.postgresql.util.PGobject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Maps rows of egcl_paymentdetail grouped by the id of the payment they belong to
+ */
+@Service
+public class PaymentDetailRowMapper implements ResultSetExtractor<Map<String, List<PaymentDetail>>> {
+
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Override
+    public Map<String, List<PaymentDetail>> extractData(ResultSet rs) throws SQLException, DataAccessException {
+
+        Map<String, List<PaymentDetail>> paymentIdToDetails = new HashMap<>();
+
+        while (rs.next()){
+
+            String paymentId = rs.getString("paymentid");
+            String id = rs.getString("id");
+            String tenantId = rs.getString("tenantId");
+            BigDecimal due  = rs.getBigDecimal("due");
+            BigDecimal amountPaid = rs.getBigDecimal("amountPaid");
+            String receiptNumber = rs.getString("receiptNumber");
+            Long receiptDate = rs.getLong("receiptdate");
+            String receiptType = rs.getString("receipttype");
+            String businessService = rs.getString("businessService");
+            String manualReceiptNo = rs.getString("manualreceiptnumber");
+            Long manualReceiptDate = rs.getLong("manualreceiptdate");
+            String billId = rs.getString("billId");
+            PGobject obj = (PGobject) rs.getObject("additionalDetails");
+            String createdBy = rs.getString("createdBy");
+            Long createdTime =  rs.getLong("createdTime");
+            String lastModifiedBy = rs.getString("lastModifiedBy");
+            Long lastModifiedTime = rs.getLong("lastModifiedTime");
+
+            AuditDetails auditDetails = AuditDetails.builder().createdBy(createdBy).createdTime(createdTime)
+                    .lastModifiedBy(lastModifiedBy).lastModifiedTime(lastModifiedTime).build();
+
+            PaymentDetail paymentDetail = PaymentDetail.builder()
+                    .id(id)
+                    .tenantId(tenantId)
+                    .totalDue(due)
+                    .totalAmountPaid(amountPaid)
+                    .receiptNumber(receiptNumber)
+                    .businessService(businessService)
+                    .billId(billId)
+                    .receiptDate(receiptDate)
+                    .manualReceiptDate(manualReceiptDate)
+                    .manualReceiptNumber(manualReceiptNo)
+                    .receiptType(receiptType)
+                    .additionalDetails(getJsonValue(obj))
+                    .auditDetails(auditDetails)
+                    .build();
+
+            paymentIdToDetails.computeIfAbsent(paymentId, key -> new ArrayList<>()).add(paymentDetail);
+        }
+
+        return paymentIdToDetails;
+    }
+
+
+    private JsonNode getJsonValue(PGobject pGobject){
+        try {
+            if(Objects.isNull(pGobject) || Objects.isNull(pGobject.getValue()))
+                return null;
+            else
+                return mapper.readTree( pGobject.getValue());
+        } catch (IOException e) {
+            throw new CustomException("SERVER_ERROR","Exception occurred while parsing the additionalDetail json : "+ e
+                    .getMessage());
+        }
+    }
+
+}
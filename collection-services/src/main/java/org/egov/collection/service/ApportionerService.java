@@ -41,12 +41,24 @@ public class ApportionerService {
 	 */
 	public Map<String,Bill> apportionBill(PaymentRequest paymentRequest) {
 		
-		RequestInfo requestInfo = paymentRequest.getRequestInfo();
 		Payment payment = paymentRequest.getPayment();
 		List<Bill> bills = payment.getPaymentDetails().stream().map(PaymentDetail::getBill).collect(Collectors.toList());
+		return apportionBills(paymentRequest.getRequestInfo(), payment.getTenantId(), bills);
+	}
+
+	/**
+	 * Apportions the bills of a tenant, possibly belonging to different payments, in one call
+	 *
+	 * @param requestInfo
+	 * @param tenantId
+	 * @param bills
+	 * @return
+	 */
+	public Map<String,Bill> apportionBills(RequestInfo requestInfo, String tenantId, List<Bill> bills) {
+
 		StringBuilder uri = new StringBuilder();
 		uri.append(applicationProperties.getApportionHost()).append(applicationProperties.getApportionURI());
-		ApportionRequest apportionRequest = ApportionRequest.builder().bills(bills).tenantId(payment.getTenantId())
+		ApportionRequest apportionRequest = ApportionRequest.builder().bills(bills).tenantId(tenantId)
 				.requestInfo(requestInfo).build();
 		ApportionResponse apportionResponse;
 		try {
@@ -0,0 +1,348 @@
+package org.egov.collection.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.model.BulkPaymentRequest;
+import org.egov.collection.model.BulkPaymentResult;
+import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentDetail;
+import org.egov.collection.model.PaymentRequest;
+import org.egov.collection.producer.CollectionProducer;
+import org.egov.collection.repository.BillingServiceRepository;
+import org.egov.collection.repository.PaymentRepository;
+import org.egov.collection.util.PaymentEnricher;
+import org.egov.collection.util.PaymentValidator;
+import org.egov.collection.web.contract.Bill;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.tracer.model.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.CollectionUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates several payments of a request together,
+ *  - MDMS, bills and existing payments are fetched once per tenant
+ *  - Receipt and transaction numbers are generated once per tenant and business service
+ *  - Bills are apportioned once per tenant
+ *  - Payments are persisted in chunks, one transaction and one batch per table for each
+ *    chunk, and the committed payments of a chunk are pushed to kafka in one batch
+ *
+ * A payment failing enrichment or validation is reported against its index and
+ * does not stop the rest of the payments from being created. If persisting a chunk
+ * fails, its payments are persisted one at a time, each in its own transaction.
+ */
+@Slf4j
+@Service
+public class BulkPaymentService {
+
+    private static final String PAYMENT_CREATION_FAILED = "PAYMENT_CREATION_FAILED";
+
+    private static final String PAYMENT_PUSH_FAILED = "PAYMENT_PUSH_FAILED";
+
+    private PaymentEnricher paymentEnricher;
+
+    private PaymentValidator paymentValidator;
+
+    private ApportionerService apportionerService;
+
+    private PaymentService paymentService;
+
+    private MDMSService mdmsService;
+
+    private BillingServiceRepository billingRepository;
+
+    private PaymentRepository paymentRepository;
+
+    private CollectionProducer producer;
+
+    private ApplicationProperties applicationProperties;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public BulkPaymentService(PaymentEnricher paymentEnricher, PaymentValidator paymentValidator,
+                              ApportionerService apportionerService, PaymentService paymentService, MDMSService mdmsService,
+                              BillingServiceRepository billingRepository, PaymentRepository paymentRepository,
+                              CollectionProducer producer, ApplicationProperties applicationProperties,
+                              PlatformTransactionManager transactionManager) {
+        this.paymentEnricher = paymentEnricher;
+        this.paymentValidator = paymentValidator;
+        this.apportionerService = apportionerService;
+        this.paymentService = paymentService;
+        this.mdmsService = mdmsService;
+        this.billingRepository = billingRepository;
+        this.paymentRepository = paymentRepository;
+        this.producer = producer;
+        this.applicationProperties = applicationProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Enriches, validates, apportions and persists the payments of the request
+     *
+     * @param bulkPaymentRequest Request holding the payments to be created
+     * @return Result of every payment in the order of the request
+     */
+    public List<BulkPaymentResult> createPayments(BulkPaymentRequest bulkPaymentRequest) {
+
+        RequestInfo requestInfo = bulkPaymentRequest.getRequestInfo();
+        List<Payment> payments = bulkPaymentRequest.getPayments();
+        if (payments.size() > applicationProperties.getPaymentBulkCreateMaxSize())
+            throw new CustomException("BULK_PAYMENT_LIMIT_EXCEEDED", "Maximum of "
+                    + applicationProperties.getPaymentBulkCreateMaxSize() + " payments can be created in one request");
+
+        long startTime = System.currentTimeMillis();
+        Map<Integer, BulkPaymentResult> failures = new HashMap<>();
+        List<Item> items = new ArrayList<>(payments.size());
+        for (int i = 0; i < payments.size(); i++)
+            items.add(new Item(i, new PaymentRequest(requestInfo, payments.get(i))));
+
+        Set<String> billIdsInRequest = new HashSet<>();
+        items = process(items, failures, item -> {
+            paymentEnricher.validatePaymentRequestForEnrichment(item.paymentRequest);
+            validateBillsNotRepeatedInRequest(item.payment(), billIdsInRequest);
+        });
+
+        List<Item> validated = new ArrayList<>();
+        groupByTenant(items).forEach((tenantId, tenantItems) ->
+                validated.addAll(enrichAndValidate(requestInfo, tenantId, tenantItems, failures)));
+
+        List<Item> numbered = new ArrayList<>();
+        groupByTenant(validated).forEach((tenantId, tenantItems) ->
+                numbered.addAll(processTogether(tenantItems, failures, () -> paymentEnricher
+                        .enrichReceiptAndTransactionNumbers(requestInfo, paymentsOf(tenantItems)))));
+
+        List<Item> apportioned = new ArrayList<>();
+        groupByTenant(numbered).forEach((tenantId, tenantItems) ->
+                apportioned.addAll(apportion(requestInfo, tenantId, tenantItems, failures)));
+
+        List<Item> withPayer = process(apportioned, failures, item -> {
+            String payerId = paymentService.createUser(item.paymentRequest);
+            if (!StringUtils.isEmpty(payerId))
+                item.payment().setPayerId(payerId);
+        });
+
+        List<Item> created = new ArrayList<>(withPayer.size());
+        int chunkSize = applicationProperties.getPaymentBulkCreateChunkSize();
+        for (int from = 0; from < withPayer.size(); from += chunkSize)
+            created.addAll(save(withPayer.subList(from, Math.min(from + chunkSize, withPayer.size())), failures));
+
+        List<BulkPaymentResult> results = new ArrayList<>(failures.values());
+        created.forEach(item -> results.add(BulkPaymentResult.builder().index(item.index)
+                .status(BulkPaymentResult.StatusEnum.SUCCESSFUL).payment(item.payment()).build()));
+        results.sort(Comparator.comparing(BulkPaymentResult::getIndex));
+
+        log.info("Bulk payment create - created: {}, failed: {}, total: {}ms", created.size(), failures.size(),
+                System.currentTimeMillis() - startTime);
+        return results;
+    }
+
+    private void validateBillsNotRepeatedInRequest(Payment payment, Set<String> billIdsInRequest) {
+        for (PaymentDetail paymentDetail : payment.getPaymentDetails()) {
+            if (billIdsInRequest.contains(paymentDetail.getBillId()))
+                throw new CustomException("DUPLICATE_BILLID", "The Bill id: " + paymentDetail.getBillId()
+                        + " is paid by another payment of the request");
+        }
+        payment.getPaymentDetails().forEach(paymentDetail -> billIdsInRequest.add(paymentDetail.getBillId()));
+    }
+
+    /**
+     * Fetches MDMS, bills and existing payments of the tenant once and enriches and
+     * validates every payment of the tenant against them
+     */
+    private List<Item> enrichAndValidate(RequestInfo requestInfo, String tenantId, List<Item> items,
+                                         Map<Integer, BulkPaymentResult> failures) {
+        Set<String> billIds = items.stream().flatMap(item -> item.payment().getPaymentDetails().stream())
+                .map(PaymentDetail::getBillId).collect(Collectors.toSet());
+
+        Object mdmsData;
+        List<Bill> bills;
+        List<Payment> existingPayments;
+        try {
+            mdmsData = mdmsService.mDMSCall(requestInfo, tenantId);
+            bills = billingRepository.fetchBill(requestInfo, tenantId, new ArrayList<>(billIds));
+            existingPayments = paymentValidator.fetchPaymentsForBills(tenantId, billIds);
+        } catch (Exception e) {
+            items.forEach(item -> failures.put(item.index, failure(item, e)));
+            return Collections.emptyList();
+        }
+
+        Map<String, Bill> billIdToBill = CollectionUtils.isEmpty(bills) ? Collections.emptyMap()
+                : bills.stream().collect(Collectors.toMap(Bill::getId, bill -> bill, (bill1, bill2) -> bill1));
+        Map<String, List<Payment>> billIdToExistingPayments = new HashMap<>();
+        existingPayments.forEach(existingPayment -> existingPayment.getPaymentDetails().forEach(paymentDetail ->
+                billIdToExistingPayments.computeIfAbsent(paymentDetail.getBillId(), billId -> new ArrayList<>()).add(existingPayment)));
+
+        return process(items, failures, item -> {
+            List<Bill> paymentBills = new ArrayList<>();
+            Map<String, Payment> paymentsForBills = new LinkedHashMap<>();
+            item.payment().getPaymentDetails().forEach(paymentDetail -> {
+                if (billIdToBill.containsKey(paymentDetail.getBillId()))
+                    paymentBills.add(billIdToBill.get(paymentDetail.getBillId()));
+                billIdToExistingPayments.getOrDefault(paymentDetail.getBillId(), Collections.emptyList())
+                        .forEach(existingPayment -> paymentsForBills.put(existingPayment.getId(), existingPayment));
+            });
+            if (paymentBills.size() < item.payment().getPaymentDetails().size())
+                throw new CustomException("INVALID_BILL_ID", "Bill IDs provided does not exist or is in an invalid state");
+
+            paymentEnricher.enrichPaymentPreValidate(item.paymentRequest, mdmsData, paymentBills);
+            paymentValidator.validatePaymentForCreate(item.paymentRequest, new ArrayList<>(paymentsForBills.values()));
+            paymentEnricher.enrichPaymentStatusAndInstrument(item.paymentRequest);
+        });
+    }
+
+    /**
+     * Apportions the bills of all the payments of the tenant in one call, if the call fails
+     * the payments are apportioned one by one so that only the failing payments are rejected
+     */
+    private List<Item> apportion(RequestInfo requestInfo, String tenantId, List<Item> items,
+                                 Map<Integer, BulkPaymentResult> failures) {
+        Map<String, Bill> billIdToApportionedBill = null;
+        try {
+            List<Bill> bills = items.stream().flatMap(item -> item.payment().getPaymentDetails().stream())
+                    .map(PaymentDetail::getBill).collect(Collectors.toList());
+            billIdToApportionedBill = apportionerService.apportionBills(requestInfo, tenantId, bills);
+        } catch (Exception e) {
+            log.error("Apportioning of bills of tenant " + tenantId + " failed, apportioning payments one by one");
+        }
+
+        Map<String, Bill> tenantApportionedBills = billIdToApportionedBill;
+        return process(items, failures, item -> {
+            Map<String, Bill> apportionedBills = tenantApportionedBills != null ? tenantApportionedBills
+                    : apportionerService.apportionBill(item.paymentRequest);
+            List<Bill> paymentBills = item.payment().getPaymentDetails().stream()
+                    .map(paymentDetail -> apportionedBills.get(paymentDetail.getBillId()))
+                    .filter(bill -> bill != null).collect(Collectors.toList());
+            paymentEnricher.enrichAdvanceTaxHead(new LinkedList<>(paymentBills));
+            paymentEnricher.setApportionedBillsToPayment(apportionedBills, item.payment());
+        });
+    }
+
+    /**
+     * Persists the payments of the chunk in one transaction. If persisting fails the payments
+     * are persisted one by one, each in its own transaction, so that only the failing payments
+     * are rejected. The committed payments are then pushed in one batch, never from inside a
+     * transaction, so a rolled back payment is never published. If pushing fails the committed
+     * payments cannot be taken back, they are reported as failed with PAYMENT_PUSH_FAILED along
+     * with their receipt numbers.
+     */
+    private List<Item> save(List<Item> items, Map<Integer, BulkPaymentResult> failures) {
+        List<Item> saved;
+        try {
+            transactionTemplate.execute(status -> {
+                paymentRepository.savePayments(paymentsOf(items));
+                return null;
+            });
+            saved = items;
+        } catch (Exception e) {
+            boolean persistFailed = e instanceof CustomException && PAYMENT_CREATION_FAILED.equals(((CustomException) e).getCode());
+            if (!persistFailed || items.size() == 1) {
+                items.forEach(item -> failures.put(item.index, failure(item, e)));
+                return Collections.emptyList();
+            }
+            log.error("Persisting a chunk of " + items.size() + " payments failed, persisting payments one by one");
+            saved = process(items, failures, item -> transactionTemplate.execute(status -> {
+                paymentRepository.savePayment(item.payment());
+                return null;
+            }));
+        }
+
+        if (saved.isEmpty())
+            return saved;
+        try {
+            producer.producer(applicationProperties.getCreatePaymentTopicName(), applicationProperties
+                    .getCreatePaymentTopicKey(), saved.stream().map(item -> item.paymentRequest).collect(Collectors.toList()));
+            return saved;
+        } catch (Exception e) {
+            log.error("Pushing " + saved.size() + " persisted payments failed, receipt numbers: " + saved.stream()
+                    .flatMap(item -> item.payment().getPaymentDetails().stream()).map(PaymentDetail::getReceiptNumber)
+                    .collect(Collectors.toList()), e);
+            saved.forEach(item -> failures.put(item.index, failure(item, new CustomException(PAYMENT_PUSH_FAILED,
+                    "Payment is persisted but could not be pushed for further processing"))));
+            return Collections.emptyList();
+        }
+    }
+
+    private List<Item> process(List<Item> items, Map<Integer, BulkPaymentResult> failures, Consumer<Item> step) {
+        List<Item> succeeded = new ArrayList<>(items.size());
+        for (Item item : items) {
+            try {
+                step.accept(item);
+                succeeded.add(item);
+            } catch (Exception e) {
+                failures.put(item.index, failure(item, e));
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * Runs a step covering several payments at once, all of them fail if the step fails
+     */
+    private List<Item> processTogether(List<Item> items, Map<Integer, BulkPaymentResult> failures, Runnable step) {
+        try {
+            step.run();
+            return items;
+        } catch (Exception e) {
+            items.forEach(item -> failures.put(item.index, failure(item, e)));
+            return Collections.emptyList();
+        }
+    }
+
+    private BulkPaymentResult failure(Item item, Exception e) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        if (e instanceof CustomException) {
+            CustomException customException = (CustomException) e;
+            if (!CollectionUtils.isEmpty(customException.getErrors()))
+                errors.putAll(customException.getErrors());
+            else
+                errors.put(customException.getCode(), message);
+        } else {
+            log.error("Failed to create payment at index " + item.index, e);
+            errors.put(PAYMENT_CREATION_FAILED, message);
+        }
+        return BulkPaymentResult.builder().index(item.index).status(BulkPaymentResult.StatusEnum.FAILED)
+                .payment(item.payment()).errors(errors).build();
+    }
+
+    private Map<String, List<Item>> groupByTenant(List<Item> items) {
+        return items.stream().collect(Collectors.groupingBy(item -> item.payment().getTenantId(),
+                LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private List<Payment> paymentsOf(List<Item> items) {
+        return items.stream().map(Item::payment).collect(Collectors.toList());
+    }
+
+    @AllArgsConstructor
+    private static class Item {
+
+        private int index;
+
+        private PaymentRequest paymentRequest;
+
+        private Payment payment() {
+            return paymentRequest.getPayment();
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package org.egov.collection.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentDetail;
+import org.egov.collection.model.PaymentRequest;
+import org.egov.collection.repository.BillingServiceRepository;
+import org.egov.collection.util.PaymentEnricher;
+import org.egov.collection.util.PaymentValidator;
+import org.egov.collection.web.contract.Bill;
+import org.egov.tracer.model.CustomException;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the remote calls of payment creation concurrently where they do not depend on each other,
+ *  - MDMS, bill fetch, existing payment check and user search run together
+ *  - Receipt/transaction number generation and apportioning run together after validation
+ *  - The payer is created only once numbering and apportioning have succeeded, so that no user
+ *    is created for a payment that fails them
+ *
+ * Each stage has to complete within the configured deadline counted from the moment it is
+ * submitted. A stage still queued when its deadline passes is not run at all, a stage already
+ * running is left to finish on its own as a remote call cannot be taken back, and its result
+ * is discarded. The time taken by every stage is logged.
+ */
+@Slf4j
+@Service
+public class PaymentCreateOrchestrator {
+
+    private static final String STAGE_MDMS = "mdms";
+    private static final String STAGE_BILL = "billFetch";
+    private static final String STAGE_DUPLICATE_CHECK = "duplicateCheck";
+    private static final String STAGE_USER_SEARCH = "userSearch";
+    private static final String STAGE_IDGEN = "idGen";
+    private static final String STAGE_APPORTION = "apportion";
+    private static final String STAGE_USER_CREATE = "userCreate";
+
+    private PaymentEnricher paymentEnricher;
+
+    private PaymentValidator paymentValidator;
+
+    private ApportionerService apportionerService;
+
+    private UserService userService;
+
+    private MDMSService mdmsService;
+
+    private BillingServiceRepository billingRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    private ExecutorService executor;
+
+    @Autowired
+    public PaymentCreateOrchestrator(PaymentEnricher paymentEnricher, PaymentValidator paymentValidator,
+                                     ApportionerService apportionerService, UserService userService, MDMSService mdmsService,
+                                     BillingServiceRepository billingRepository, ApplicationProperties applicationProperties) {
+        this.paymentEnricher = paymentEnricher;
+        this.paymentValidator = paymentValidator;
+        this.apportionerService = apportionerService;
+        this.userService = userService;
+        this.mdmsService = mdmsService;
+        this.billingRepository = billingRepository;
+        this.applicationProperties = applicationProperties;
+        this.executor = new ThreadPoolExecutor(applicationProperties.getPaymentCreatePoolSize(),
+                applicationProperties.getPaymentCreatePoolSize(), 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(applicationProperties.getPaymentCreateQueueSize()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Enriches, validates and apportions the payment and sets the payer id,
+     * leaving the payment ready to be persisted
+     *
+     * @param paymentRequest payment request for which receipt has to be created
+     */
+    public void enrichAndApportion(PaymentRequest paymentRequest) {
+
+        Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+        long startTime = System.currentTimeMillis();
+
+        Payment payment = paymentRequest.getPayment();
+        paymentEnricher.validatePaymentRequestForEnrichment(paymentRequest);
+        List<String> billIds = payment.getPaymentDetails().stream().map(PaymentDetail::getBillId).collect(Collectors.toList());
+
+        Stage<Object> mdmsStage = submit(STAGE_MDMS, timings,
+                () -> mdmsService.mDMSCall(paymentRequest.getRequestInfo(), payment.getTenantId()));
+        Stage<List<Bill>> billStage = submit(STAGE_BILL, timings,
+                () -> billingRepository.fetchBill(paymentRequest.getRequestInfo(), payment.getTenantId(), billIds));
+        Stage<List<Payment>> duplicateCheckStage = submit(STAGE_DUPLICATE_CHECK, timings,
+                () -> paymentValidator.fetchPaymentsForBills(payment));
+        Stage<Map<String, String>> userSearchStage = isUserCreationRequired(paymentRequest)
+                ? submit(STAGE_USER_SEARCH, timings,
+                        () -> userService.getUser(paymentRequest.getRequestInfo(), payment.getMobileNumber(), payment.getTenantId()))
+                : Stage.completed(STAGE_USER_SEARCH, Collections.emptyMap());
+
+        paymentEnricher.enrichPaymentPreValidate(paymentRequest, await(mdmsStage), await(billStage));
+        paymentValidator.validatePaymentForCreate(paymentRequest, await(duplicateCheckStage));
+        paymentEnricher.enrichPaymentStatusAndInstrument(paymentRequest);
+
+        Stage<Void> idGenStage = submit(STAGE_IDGEN, timings, () -> {
+            paymentEnricher.enrichReceiptAndTransactionNumbers(paymentRequest);
+            return null;
+        });
+        Stage<Map<String, Bill>> apportionStage = submit(STAGE_APPORTION, timings,
+                () -> apportionerService.apportionBill(paymentRequest));
+        Map<String, String> user = await(userSearchStage);
+
+        await(idGenStage);
+        Map<String, Bill> billIdToApportionedBill = await(apportionStage);
+        String payerId = isUserCreationRequired(paymentRequest) && CollectionUtils.isEmpty(user.keySet())
+                ? await(submit(STAGE_USER_CREATE, timings, () -> userService.createUser(paymentRequest)))
+                : getPayerId(paymentRequest, user);
+
+        paymentEnricher.enrichAdvanceTaxHead(new LinkedList<>(billIdToApportionedBill.values()));
+        paymentEnricher.setApportionedBillsToPayment(billIdToApportionedBill, payment);
+        if(!StringUtils.isEmpty(payerId))
+            payment.setPayerId(payerId);
+
+        log.info("Payment create timings - {}, total: {}ms", timings, System.currentTimeMillis() - startTime);
+    }
+
+    private boolean isUserCreationRequired(PaymentRequest paymentRequest) {
+        return !paymentRequest.getRequestInfo().getUserInfo().getType().equals("CITIZEN")
+                && applicationProperties.getIsUserCreateEnabled();
+    }
+
+    private String getPayerId(PaymentRequest paymentRequest, Map<String, String> user) {
+        if (paymentRequest.getRequestInfo().getUserInfo().getType().equals("CITIZEN"))
+            return paymentRequest.getRequestInfo().getUserInfo().getUuid();
+        return user.get("id");
+    }
+
+    /**
+     * Submits the stage to the executor carrying over the logging context (correlation id)
+     * of the request thread and records the time taken by the stage. The deadline of the
+     * stage starts now, if it has passed by the time a pool thread picks the stage up the
+     * stage is not run.
+     */
+    private <T> Stage<T> submit(String stage, Map<String, Long> timings, Supplier<T> supplier) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        long deadline = System.currentTimeMillis() + applicationProperties.getPaymentCreateStageTimeout();
+        return new Stage<>(stage, deadline, CompletableFuture.supplyAsync(() -> {
+            if (System.currentTimeMillis() >= deadline)
+                throw timedOut(stage);
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (context != null)
+                MDC.setContextMap(context);
+            long stageStart = System.currentTimeMillis();
+            try {
+                return supplier.get();
+            } finally {
+                timings.put(stage, System.currentTimeMillis() - stageStart);
+                if (previous != null)
+                    MDC.setContextMap(previous);
+                else
+                    MDC.clear();
+            }
+        }, executor));
+    }
+
+    /**
+     * Waits for the stage until its deadline. A stage that times out is not cancelled, as
+     * cancelling a CompletableFuture does not stop the call it is running, it is left to
+     * finish and its result is ignored.
+     */
+    private <T> T await(Stage<T> stage) {
+        try {
+            return stage.future.get(Math.max(0L, stage.deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw timedOut(stage.name);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new CustomException("PAYMENT_CREATION_FAILED", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("PAYMENT_CREATION_FAILED", "Interrupted while processing " + stage.name + " for the payment");
+        }
+    }
+
+    private CustomException timedOut(String stage) {
+        log.error("Payment create stage " + stage + " timed out");
+        return new CustomException("PAYMENT_CREATE_TIMEOUT", "Timed out while processing " + stage + " for the payment");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @AllArgsConstructor
+    private static class Stage<T> {
+
+        private String name;
+
+        private long deadline;
+
+        private CompletableFuture<T> future;
+
+        private static <T> Stage<T> completed(String name, T value) {
+            return new Stage<>(name, Long.MAX_VALUE, CompletableFuture.completedFuture(value));
+        }
+    }
+
+}
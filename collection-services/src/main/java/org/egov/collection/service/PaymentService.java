@@ -14,6 +14,7 @@ import org.egov.collection.config.ApplicationProperties;
 import org.egov.collection.model.Payment;
 import org.egov.collection.model.PaymentRequest;
 import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.PaymentSearchPage;
 import org.egov.collection.producer.CollectionProducer;
 import org.egov.collection.repository.PaymentRepository;
 import org.egov.collection.util.PaymentEnricher;
@@ -44,10 +45,13 @@ public class PaymentService {
 
     private CollectionProducer producer;
 
+    private PaymentCreateOrchestrator paymentCreateOrchestrator;
+
 
     @Autowired
     public PaymentService(ApportionerService apportionerService, PaymentEnricher paymentEnricher, ApplicationProperties applicationProperties,
-                          UserService userService, PaymentValidator paymentValidator, PaymentRepository paymentRepository, CollectionProducer producer) {
+                          UserService userService, PaymentValidator paymentValidator, PaymentRepository paymentRepository, CollectionProducer producer,
+                          PaymentCreateOrchestrator paymentCreateOrchestrator) {
         this.apportionerService = apportionerService;
         this.paymentEnricher = paymentEnricher;
         this.applicationProperties = applicationProperties;
@@ -55,6 +59,7 @@ public class PaymentService {
         this.paymentValidator = paymentValidator;
         this.paymentRepository = paymentRepository;
         this.producer = producer;
+        this.paymentCreateOrchestrator = paymentCreateOrchestrator;
     }
 
 
@@ -90,6 +95,27 @@ public class PaymentService {
 
         return payments;
     }
+
+    /**
+     * Fetch one page of receipts matching the given criteria, seeking from the cursor
+     * of the previous page instead of counting an offset
+     *
+     * @param requestInfo           Request info of the search
+     * @param paymentSearchCriteria Criteria against which search has to be performed, with optional cursor
+     * @return Page of matching receipts ordered by transaction date, latest first, with the next cursor
+     */
+    public PaymentSearchPage getPaymentsByCursor(RequestInfo requestInfo, PaymentSearchCriteria paymentSearchCriteria) {
+
+        Map<String, String> errorMap = new HashMap<>();
+        paymentValidator.validateUserInfo(requestInfo, errorMap);
+        if (!errorMap.isEmpty())
+            throw new CustomException(errorMap);
+
+        if (isNull(paymentSearchCriteria.getLimit()) || paymentSearchCriteria.getLimit() <= 0)
+            paymentSearchCriteria.setLimit(applicationProperties.getReceiptsSearchDefaultLimit());
+
+        return paymentRepository.fetchPaymentsByCursor(paymentSearchCriteria);
+    }
     
     
     /**
@@ -102,19 +128,23 @@ public class PaymentService {
      */
     @Transactional
     public Payment createPayment(PaymentRequest paymentRequest) {
-    	
-        paymentEnricher.enrichPaymentPreValidate(paymentRequest);
-        paymentValidator.validatePaymentForCreate(paymentRequest);
-        paymentEnricher.enrichPaymentPostValidate(paymentRequest);
 
         Payment payment = paymentRequest.getPayment();
-        Map<String, Bill> billIdToApportionedBill = apportionerService.apportionBill(paymentRequest);
-        paymentEnricher.enrichAdvanceTaxHead(new LinkedList<>(billIdToApportionedBill.values()));
-        setApportionedBillsToPayment(billIdToApportionedBill,payment);
+        if (applicationProperties.isPaymentCreateParallelEnabled()) {
+            paymentCreateOrchestrator.enrichAndApportion(paymentRequest);
+        } else {
+            paymentEnricher.enrichPaymentPreValidate(paymentRequest);
+            paymentValidator.validatePaymentForCreate(paymentRequest);
+            paymentEnricher.enrichPaymentPostValidate(paymentRequest);
 
-        String payerId = createUser(paymentRequest);
-        if(!StringUtils.isEmpty(payerId))
-            payment.setPayerId(payerId);
+            Map<String, Bill> billIdToApportionedBill = apportionerService.apportionBill(paymentRequest);
+            paymentEnricher.enrichAdvanceTaxHead(new LinkedList<>(billIdToApportionedBill.values()));
+            paymentEnricher.setApportionedBillsToPayment(billIdToApportionedBill, payment);
+
+            String payerId = createUser(paymentRequest);
+            if(!StringUtils.isEmpty(payerId))
+                payment.setPayerId(payerId);
+        }
         paymentRepository.savePayment(payment);
 
         producer.producer(applicationProperties.getCreatePaymentTopicName(), applicationProperties
@@ -154,18 +184,6 @@ public class PaymentService {
     }
 
 
-    private void setApportionedBillsToPayment(Map<String, Bill> billIdToApportionedBill,Payment payment){
-        Map<String,String> errorMap = new HashMap<>();
-        payment.getPaymentDetails().forEach(paymentDetail -> {
-            if(billIdToApportionedBill.get(paymentDetail.getBillId())!=null)
-                paymentDetail.setBill(billIdToApportionedBill.get(paymentDetail.getBillId()));
-            else errorMap.put("APPORTIONING_ERROR","The bill id: "+paymentDetail.getBillId()+" not present in apportion response");
-        });
-        if(!errorMap.isEmpty())
-            throw new CustomException(errorMap);
-    }
-
-
     @Transactional
     public List<Payment> updatePayment(PaymentRequest paymentRequest) {
 
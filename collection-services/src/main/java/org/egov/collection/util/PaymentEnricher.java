@@ -13,6 +13,8 @@ import static org.egov.collection.model.enums.PaymentModeEnum.ONLINE_NEFT;
 import static org.egov.collection.model.enums.PaymentModeEnum.ONLINE_RTGS;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -33,6 +35,7 @@ import org.egov.collection.repository.BillingServiceRepository;
 import org.egov.collection.repository.IdGenRepository;
 import org.egov.collection.service.MDMSService;
 import org.egov.collection.web.contract.Bill;
+import org.egov.common.contract.request.RequestInfo;
 import org.egov.tracer.model.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -61,17 +64,47 @@ public class PaymentEnricher {
 		Payment payment = paymentRequest.getPayment();
 		String tenantId = payment.getTenantId();
 		List<String> billIds = payment.getPaymentDetails().stream().map(PaymentDetail::getBillId).collect(Collectors.toList());
+
+		validatePaymentRequestForEnrichment(paymentRequest);
+
+		Object mdmsData = mdmsService.mDMSCall(paymentRequest.getRequestInfo(),tenantId);
+
+		List<Bill> validatedBills = billingRepository.fetchBill(paymentRequest.getRequestInfo(), payment.getTenantId(),
+				billIds);
+
+		enrichPaymentPreValidate(paymentRequest, mdmsData, validatedBills);
+	}
+
+	/**
+	 * Checks done on the request before any master data or bill is fetched
+	 *
+	 * @param paymentRequest
+	 */
+	public void validatePaymentRequestForEnrichment(PaymentRequest paymentRequest) {
+
+		Payment payment = paymentRequest.getPayment();
 		Set<String> billIdSet = payment.getPaymentDetails().stream().map(PaymentDetail::getBillId)
 				.collect(Collectors.toSet());
-		
+
 		if (isNull(paymentRequest.getRequestInfo().getUserInfo()) || isNull(paymentRequest.getRequestInfo().getUserInfo().getUuid())) {
 			throw new CustomException("USER_INFO_INVALID", "Invalid user info in request info, user id is mandatory");
 		}
-		
+
 		if (billIdSet.size() < payment.getPaymentDetails().size())
 			throw new CustomException("DUPLICATE_BILLID", "The Bill ids have been repeated for multiple payment details");
+	}
 
-		Object mdmsData = mdmsService.mDMSCall(paymentRequest.getRequestInfo(),tenantId);
+	/**
+	 * Enriches the payment with the bills and business service master data
+	 * which have already been fetched
+	 *
+	 * @param paymentRequest
+	 * @param mdmsData
+	 * @param validatedBills
+	 */
+	public void enrichPaymentPreValidate(PaymentRequest paymentRequest, Object mdmsData, List<Bill> validatedBills) {
+
+		Payment payment = paymentRequest.getPayment();
 
 		List<Map> businessServices = JsonPath.read(mdmsData,MDMS_BUSINESSSERVICE_PATH);
 
@@ -81,8 +114,6 @@ public class PaymentEnricher {
 			codeToBusinessService.put(businessService.get(MASTER_BUSINESSSERVICE_KEY).toString(),businessService);
 		});
 
-		List<Bill> validatedBills = billingRepository.fetchBill(paymentRequest.getRequestInfo(), payment.getTenantId(),
-				billIds);
 		Map<String, Bill> billIdToBillMap = new HashMap<>();
 		Map<String, String> errorMap = new HashMap<>();
 
@@ -155,6 +186,17 @@ public class PaymentEnricher {
 	 *            paymentRequest to be enriched
 	 */
 	public void enrichPaymentPostValidate(PaymentRequest paymentRequest) {
+		enrichPaymentStatusAndInstrument(paymentRequest);
+		enrichReceiptAndTransactionNumbers(paymentRequest);
+	}
+
+	/**
+	 * Enriches status, ids and instrument details of the payment, does not make any remote call
+	 *
+	 * @param paymentRequest
+	 *            paymentRequest to be enriched
+	 */
+	public void enrichPaymentStatusAndInstrument(PaymentRequest paymentRequest) {
 		Payment payment = paymentRequest.getPayment();
 		List<PaymentDetail> paymentDetails = payment.getPaymentDetails();
 		String paymentMode = payment.getPaymentMode().toString();
@@ -167,24 +209,68 @@ public class PaymentEnricher {
 
 		for (PaymentDetail paymentDetail : paymentDetails) {
 			paymentDetail.setId(UUID.randomUUID().toString());
-			String receiptNumber = idGenRepository.generateReceiptNumber(paymentRequest.getRequestInfo(),
-					paymentDetail.getBusinessService(), paymentDetail.getTenantId());
-			paymentDetail.setReceiptNumber(receiptNumber);
 			paymentDetail.getBill().setAmountPaid(paymentDetail.getTotalAmountPaid());
 
 		}
 		enrichInstrument(paymentRequest);
 	}
 
+	/**
+	 * Generates receipt numbers for the payment details and the transaction number
+	 * for cash payments from ID Gen, receipt numbers are generated in one call per
+	 * business service
+	 *
+	 * @param paymentRequest
+	 *            paymentRequest to be enriched
+	 */
+	public void enrichReceiptAndTransactionNumbers(PaymentRequest paymentRequest) {
+		enrichReceiptAndTransactionNumbers(paymentRequest.getRequestInfo(),
+				Collections.singletonList(paymentRequest.getPayment()));
+	}
+
+	/**
+	 * Generates receipt and transaction numbers for all the payments together, one
+	 * ID Gen call per tenant and business service for receipt numbers and one per
+	 * tenant for transaction numbers of cash payments
+	 *
+	 * @param requestInfo
+	 * @param payments
+	 *            payments to be enriched
+	 */
+	public void enrichReceiptAndTransactionNumbers(RequestInfo requestInfo, List<Payment> payments) {
+
+		Map<String, Map<String, List<PaymentDetail>>> tenantToBusinessServiceToPaymentDetails = new HashMap<>();
+		Map<String, List<Payment>> tenantToCashPayments = new HashMap<>();
+
+		payments.forEach(payment -> {
+			Map<String, List<PaymentDetail>> businessServiceToPaymentDetails = tenantToBusinessServiceToPaymentDetails
+					.computeIfAbsent(payment.getTenantId(), tenantId -> new HashMap<>());
+			payment.getPaymentDetails().forEach(paymentDetail -> businessServiceToPaymentDetails
+					.computeIfAbsent(paymentDetail.getBusinessService(), businessService -> new ArrayList<>()).add(paymentDetail));
+			if (payment.getPaymentMode().toString().equalsIgnoreCase(CASH.name()))
+				tenantToCashPayments.computeIfAbsent(payment.getTenantId(), tenantId -> new ArrayList<>()).add(payment);
+		});
+
+		tenantToBusinessServiceToPaymentDetails.forEach((tenantId, businessServiceToPaymentDetails) ->
+			businessServiceToPaymentDetails.forEach((businessService, details) -> {
+				List<String> receiptNumbers = idGenRepository.generateReceiptNumbers(requestInfo, businessService,
+						tenantId, details.size());
+				for (int i = 0; i < details.size(); i++)
+					details.get(i).setReceiptNumber(receiptNumbers.get(i));
+			}));
+
+		tenantToCashPayments.forEach((tenantId, cashPayments) -> {
+			List<String> transactionIds = idGenRepository.generateTransactionNumbers(requestInfo, tenantId,
+					cashPayments.size());
+			for (int i = 0; i < cashPayments.size(); i++)
+				cashPayments.get(i).setTransactionNumber(transactionIds.get(i));
+		});
+	}
+
 	private void enrichInstrument(PaymentRequest paymentRequest) {
 		Payment payment = paymentRequest.getPayment();
 		String paymentMode = payment.getPaymentMode().toString();
 
-		if (paymentMode.equalsIgnoreCase(CASH.name())) {
-			String transactionId = idGenRepository.generateTransactionNumber(paymentRequest.getRequestInfo(),
-					payment.getTenantId());
-			payment.setTransactionNumber(transactionId);
-		}
 		if (paymentMode.equalsIgnoreCase(ONLINE.name()) || paymentMode.equalsIgnoreCase(CARD.name()) ||
 				paymentMode.equalsIgnoreCase(ONLINE_NEFT.name()) || paymentMode.equalsIgnoreCase(ONLINE_RTGS.name()))
 			payment.setInstrumentStatus(InstrumentStatusEnum.REMITTED);
@@ -223,6 +309,21 @@ public class PaymentEnricher {
 		});
 	}
 
-
+	/**
+	 * Replaces the bills of the payment details with the apportioned bills
+	 *
+	 * @param billIdToApportionedBill
+	 * @param payment
+	 */
+	public void setApportionedBillsToPayment(Map<String, Bill> billIdToApportionedBill, Payment payment) {
+		Map<String, String> errorMap = new HashMap<>();
+		payment.getPaymentDetails().forEach(paymentDetail -> {
+			if (billIdToApportionedBill.get(paymentDetail.getBillId()) != null)
+				paymentDetail.setBill(billIdToApportionedBill.get(paymentDetail.getBillId()));
+			else errorMap.put("APPORTIONING_ERROR", "The bill id: " + paymentDetail.getBillId() + " not present in apportion response");
+		});
+		if (!errorMap.isEmpty())
+			throw new CustomException(errorMap);
+	}
 
 }
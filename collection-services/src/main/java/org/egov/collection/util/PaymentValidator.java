@@ -65,17 +65,53 @@ public class PaymentValidator {
 
 
     public Payment validatePaymentForCreate(PaymentRequest paymentRequest) {
+        return validatePaymentForCreate(paymentRequest, fetchPaymentsForBills(paymentRequest.getPayment()));
+    }
+
+    /**
+     * Fetches the existing payments made against the bills of the payment
+     *
+     * @param payment Payment being created
+     * @return Payments already present for the bills
+     */
+    public List<Payment> fetchPaymentsForBills(Payment payment) {
+        Set<String> billIds = payment.getPaymentDetails().stream().map(PaymentDetail :: getBillId).collect(Collectors.toSet());
+
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().tenantId(payment.getTenantId())
+                .offset(0).limit(applicationProperties.getReceiptsSearchDefaultLimit()).billIds(billIds).build();
+
+        return paymentRepository.fetchPayments(criteria);
+    }
+
+    /**
+     * Fetches the existing payments made against the bills of several payments of a tenant
+     * in one search, the limit grows with the number of bills so that no bill is left out
+     *
+     * @param tenantId Tenant of the bills
+     * @param billIds Bill ids of the payments being created
+     * @return Payments already present for the bills, holding only the payment details of those bills
+     */
+    public List<Payment> fetchPaymentsForBills(String tenantId, Set<String> billIds) {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().tenantId(tenantId).offset(0)
+                .limit(applicationProperties.getReceiptsSearchDefaultLimit() * billIds.size()).billIds(billIds).build();
+
+        return paymentRepository.fetchPayments(criteria);
+    }
+
+    /**
+     * Validates the payment for create against the payments already present for its bills
+     *
+     * @param paymentRequest Request for payment creation
+     * @param payments Payments already present for the bills of the payment
+     * @return Validated payment
+     */
+    public Payment validatePaymentForCreate(PaymentRequest paymentRequest, List<Payment> payments) {
         Map<String, String> errorMap = new HashMap<>();
         Payment payment = paymentRequest.getPayment();
         List<PaymentDetail> paymentDetails = paymentRequest.getPayment().getPaymentDetails();
         validateUserInfo(paymentRequest.getRequestInfo(), errorMap);
         validateInstrument(paymentRequest.getPayment(),errorMap);
-        Set<String> billIds = payment.getPaymentDetails().stream().map(PaymentDetail :: getBillId).collect(Collectors.toSet());
-        
-        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().tenantId(payment.getTenantId())
-                .offset(0).limit(applicationProperties.getReceiptsSearchDefaultLimit()).billIds(billIds).build();
 
-        List<Payment> payments = paymentRepository.fetchPayments(criteria);
         if (!payments.isEmpty()) {
             validateIPaymentForBillPresent(payments,errorMap);
         }
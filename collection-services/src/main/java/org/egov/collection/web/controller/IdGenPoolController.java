@@ -0,0 +1,31 @@
+package org.egov.collection.web.controller;
+
+import java.util.Map;
+
+import javax.validation.Valid;
+
+import org.egov.collection.repository.IdGenPool;
+import org.egov.collection.web.contract.factory.RequestInfoWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/idgenpool")
+public class IdGenPoolController {
+
+    @Autowired
+    private IdGenPool idGenPool;
+
+    @PostMapping("_stats")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> stats(@RequestBody @Valid final RequestInfoWrapper requestInfoWrapper) {
+        return new ResponseEntity<>(idGenPool.getStats(), HttpStatus.OK);
+    }
+
+}
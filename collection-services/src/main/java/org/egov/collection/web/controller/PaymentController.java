@@ -48,11 +48,16 @@ import java.util.Set;
 import javax.validation.Valid;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.egov.collection.model.BulkPaymentRequest;
+import org.egov.collection.model.BulkPaymentResponse;
+import org.egov.collection.model.BulkPaymentResult;
 import org.egov.collection.model.Payment;
 import org.egov.collection.model.PaymentRequest;
 import org.egov.collection.model.PaymentResponse;
 import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.PaymentSearchPage;
 import org.egov.collection.model.enums.PaymentStatusEnum;
+import org.egov.collection.service.BulkPaymentService;
 import org.egov.collection.service.MigrationService;
 import org.egov.collection.service.PaymentService;
 import org.egov.collection.service.PaymentWorkflowService;
@@ -81,6 +86,9 @@ public class PaymentController {
     @Autowired
     private MigrationService migrationService;
 
+    @Autowired
+    private BulkPaymentService bulkPaymentService;
+
     @Value("#{'${search.ignore.status}'.split(',')}")
     private List<String> searchIgnoreStatus;
 
@@ -91,11 +99,34 @@ public class PaymentController {
 
         final RequestInfo requestInfo = requestInfoWrapper.getRequestInfo();
 
-		/*
-		 * Only Applicable if there is no receipt number search
-		 * Only Apllicable when search ignore status has been defined in application properties
-		 * Only Applicable when status has not been already provided for the search
-		 */
+        setDefaultStatus(paymentSearchCriteria);
+        List<Payment> payments = paymentService.getPayments(requestInfo, paymentSearchCriteria);
+
+        return getSuccessResponse(payments, requestInfo);
+    }
+
+    @RequestMapping(value = "/_cursorsearch", method = RequestMethod.POST)
+    @ResponseBody
+    public ResponseEntity<PaymentResponse> cursorSearch(@ModelAttribute PaymentSearchCriteria paymentSearchCriteria,
+                                                   @RequestBody @Valid final RequestInfoWrapper requestInfoWrapper) {
+
+        final RequestInfo requestInfo = requestInfoWrapper.getRequestInfo();
+
+        setDefaultStatus(paymentSearchCriteria);
+        PaymentSearchPage page = paymentService.getPaymentsByCursor(requestInfo, paymentSearchCriteria);
+
+        ResponseEntity<PaymentResponse> response = getSuccessResponse(page.getPayments(), requestInfo);
+        response.getBody().setNextCursor(page.getNextCursor());
+
+        return response;
+    }
+
+    /*
+     * Only Applicable if there is no receipt number search
+     * Only Apllicable when search ignore status has been defined in application properties
+     * Only Applicable when status has not been already provided for the search
+     */
+    private void setDefaultStatus(PaymentSearchCriteria paymentSearchCriteria) {
         if ((CollectionUtils.isEmpty(paymentSearchCriteria.getReceiptNumbers()))
                 && !searchIgnoreStatus.isEmpty()
                 && (CollectionUtils.isEmpty(paymentSearchCriteria.getStatus()))) {
@@ -108,9 +139,6 @@ public class PaymentController {
             }
             paymentSearchCriteria.setStatus(defaultStatus);
         }
-        List<Payment> payments = paymentService.getPayments(requestInfo, paymentSearchCriteria);
-
-        return getSuccessResponse(payments, requestInfo);
     }
 
     @RequestMapping(value = "/_create", method = RequestMethod.POST)
@@ -122,6 +150,17 @@ public class PaymentController {
 
     }
 
+    @RequestMapping(value = "/_bulkcreate", method = RequestMethod.POST)
+    @ResponseBody
+    public ResponseEntity<BulkPaymentResponse> bulkCreate(@RequestBody @Valid BulkPaymentRequest bulkPaymentRequest) {
+
+        List<BulkPaymentResult> results = bulkPaymentService.createPayments(bulkPaymentRequest);
+
+        final ResponseInfo responseInfo = ResponseInfoFactory.createResponseInfoFromRequestInfo(bulkPaymentRequest.getRequestInfo(), true);
+        responseInfo.setStatus(HttpStatus.OK.toString());
+        return new ResponseEntity<>(new BulkPaymentResponse(responseInfo, results), HttpStatus.OK);
+    }
+
     @RequestMapping(value = "/_workflow", method = RequestMethod.POST)
     @ResponseBody
     public ResponseEntity<?> workflow(@RequestBody @Valid PaymentWorkflowRequest receiptWorkflowRequest) {
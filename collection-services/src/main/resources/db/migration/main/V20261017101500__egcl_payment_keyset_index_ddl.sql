@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_egcl_payment_tenantid_transactiondate_id ON egcl_payment USING btree (tenantid, transactiondate DESC, id DESC);
@@ -0,0 +1,137 @@
+package org.egov.collection.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.model.IdGenerationRequest;
+import org.egov.collection.model.IdGenerationResponse;
+import org.egov.collection.model.IdResponse;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.common.contract.request.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class IdGenRepositoryTest {
+
+    private static final String TENANT_ID = "pb.amritsar";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ApplicationProperties applicationProperties;
+
+    @InjectMocks
+    private IdGenRepository idGenRepository;
+
+    private IdGenPool idGenPool;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        when(applicationProperties.isIdGenPoolEnabled()).thenReturn(true);
+        when(applicationProperties.getIdGenPoolBlockSize()).thenReturn(5);
+        when(applicationProperties.getIdGenPoolLowWaterMark()).thenReturn(0);
+        when(applicationProperties.getIdGenPoolTtl()).thenReturn(300);
+        when(applicationProperties.getReceiptNumberIdName()).thenReturn("receipt.number");
+        when(applicationProperties.getReceiptNumberStateLevelFormat()).thenReturn("PB/MP/[fy:2019-20]/[SEQ_EGOV_COMMON]");
+        when(applicationProperties.getIdGenServiceHost()).thenReturn("http://localhost:8088");
+        when(applicationProperties.getIdGeneration()).thenReturn("/egov-idgen/id/_generate");
+        when(restTemplate.postForObject(anyString(), any(IdGenerationRequest.class), eq(IdGenerationResponse.class)))
+                .thenAnswer(invocation -> {
+                    IdGenerationRequest request = invocation.getArgument(1);
+                    List<IdResponse> ids = new ArrayList<>();
+                    request.getIdRequests().forEach(idRequest -> ids.add(new IdResponse(idRequest.getIdName() + "/"
+                            + sequence.incrementAndGet())));
+                    return new IdGenerationResponse(null, ids);
+                });
+
+        idGenPool = new IdGenPool(applicationProperties);
+        ReflectionTestUtils.setField(idGenRepository, "idGenPool", idGenPool);
+    }
+
+    @After
+    public void tearDown() {
+        idGenPool.shutdown();
+    }
+
+    @Test
+    public void sharesTheStateLevelReceiptNumbersAcrossBusinessServices() {
+        when(applicationProperties.isReceiptNumberByService()).thenReturn(false);
+
+        List<String> receiptNumbers = new ArrayList<>();
+        receiptNumbers.addAll(idGenRepository.generateReceiptNumbers(new RequestInfo(), "PT", TENANT_ID, 2));
+        receiptNumbers.addAll(idGenRepository.generateReceiptNumbers(new RequestInfo(), "WS", TENANT_ID, 2));
+
+        assertEquals(Arrays.asList("receipt.number/1", "receipt.number/2", "receipt.number/3", "receipt.number/4"),
+                receiptNumbers);
+        verify(restTemplate, times(1)).postForObject(anyString(), any(IdGenerationRequest.class),
+                eq(IdGenerationResponse.class));
+    }
+
+    @Test
+    public void poolsTheReceiptNumbersOfEachBusinessServiceApart() {
+        when(applicationProperties.isReceiptNumberByService()).thenReturn(true);
+
+        List<String> pt = idGenRepository.generateReceiptNumbers(new RequestInfo(), "PT", TENANT_ID, 2);
+        List<String> ws = idGenRepository.generateReceiptNumbers(new RequestInfo(), "WS", TENANT_ID, 2);
+
+        assertEquals(Arrays.asList("pt.receipt.number/1", "pt.receipt.number/2"), pt);
+        assertEquals(Arrays.asList("ws.receipt.number/8", "ws.receipt.number/9"), ws);
+        verify(restTemplate, times(2)).postForObject(anyString(), any(IdGenerationRequest.class),
+                eq(IdGenerationResponse.class));
+    }
+
+    @Test
+    public void refillsInTheBackgroundAsTheSystemUser() {
+        when(applicationProperties.isReceiptNumberByService()).thenReturn(false);
+        when(applicationProperties.getIdGenPoolLowWaterMark()).thenReturn(4);
+        User employee = new User();
+        employee.setType("EMPLOYEE");
+        RequestInfo requestInfo = new RequestInfo();
+        requestInfo.setAuthToken("employee-token");
+        requestInfo.setUserInfo(employee);
+
+        idGenRepository.generateReceiptNumbers(requestInfo, "PT", TENANT_ID, 2);
+        idGenRepository.generateReceiptNumbers(requestInfo, "PT", TENANT_ID, 2);
+
+        ArgumentCaptor<IdGenerationRequest> requests = ArgumentCaptor.forClass(IdGenerationRequest.class);
+        verify(restTemplate, timeout(5000).times(2)).postForObject(anyString(), requests.capture(),
+                eq(IdGenerationResponse.class));
+        assertEquals("employee-token", requests.getAllValues().get(0).getRequestInfo().getAuthToken());
+        RequestInfo refillRequestInfo = requests.getAllValues().get(1).getRequestInfo();
+        assertNull(refillRequestInfo.getAuthToken());
+        assertEquals("SYSTEM", refillRequestInfo.getUserInfo().getType());
+        assertEquals(TENANT_ID, refillRequestInfo.getUserInfo().getTenantId());
+
+        Map<String, Object> stats = idGenPool.getStats();
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+        assertEquals(1, stats.get("pools"));
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.egov.collection.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.PaymentSearchCursor;
+import org.egov.collection.model.PaymentSearchPage;
+import org.egov.collection.repository.querybuilder.PaymentQueryBuilder;
+import org.egov.collection.repository.rowmapper.BillRowMapper;
+import org.egov.collection.repository.rowmapper.PaymentDetailRowMapper;
+import org.egov.collection.repository.rowmapper.PaymentRowMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class PaymentRepositoryTest {
+
+    private static final String TENANT_ID = "pb.amritsar";
+
+    @Mock
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Mock
+    private PaymentRowMapper paymentRowMapper;
+
+    @Mock
+    private PaymentDetailRowMapper paymentDetailRowMapper;
+
+    @Mock
+    private BillRowMapper billRowMapper;
+
+    private PaymentRepository paymentRepository;
+
+    @Before
+    public void setUp() {
+        when(namedParameterJdbcTemplate.query(startsWith("SELECT pyd.id"), anyMap(), eq(paymentDetailRowMapper)))
+                .thenReturn(Collections.emptyMap());
+        paymentRepository = new PaymentRepository(namedParameterJdbcTemplate, new PaymentQueryBuilder(), paymentRowMapper,
+                paymentDetailRowMapper, billRowMapper);
+    }
+
+    @Test
+    public void takesTheNextCursorFromTheIdPageWhenPaymentsAreMissing() {
+        List<PaymentSearchCursor> positions = Arrays.asList(new PaymentSearchCursor(300L, "PAY-3"),
+                new PaymentSearchCursor(200L, "PAY-2"), new PaymentSearchCursor(100L, "PAY-1"));
+        idPage(positions);
+        when(namedParameterJdbcTemplate.query(eq(PaymentQueryBuilder.SELECT_PAYMENT_BY_IDS_SQL), anyMap(),
+                eq(paymentRowMapper))).thenReturn(new ArrayList<>(Arrays.asList(payment("PAY-3", 300L), payment("PAY-2", 200L))));
+
+        PaymentSearchPage page = paymentRepository.fetchPaymentsByCursor(criteria(3));
+
+        assertEquals(2, page.getPayments().size());
+        assertEquals(new PaymentSearchCursor(100L, "PAY-1").encode(), page.getNextCursor());
+    }
+
+    @Test
+    public void endsThePaginationOnAShortIdPage() {
+        idPage(Collections.singletonList(new PaymentSearchCursor(100L, "PAY-1")));
+        when(namedParameterJdbcTemplate.query(eq(PaymentQueryBuilder.SELECT_PAYMENT_BY_IDS_SQL), anyMap(),
+                eq(paymentRowMapper))).thenReturn(new ArrayList<>(Collections.singletonList(payment("PAY-1", 100L))));
+
+        PaymentSearchPage page = paymentRepository.fetchPaymentsByCursor(criteria(3));
+
+        assertEquals(1, page.getPayments().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void idPage(List<PaymentSearchCursor> positions) {
+        when(namedParameterJdbcTemplate.query(startsWith("SELECT py.id"), anyMap(), any(RowMapper.class)))
+                .thenReturn(positions);
+    }
+
+    private PaymentSearchCriteria criteria(int limit) {
+        return PaymentSearchCriteria.builder().tenantId(TENANT_ID).limit(limit).build();
+    }
+
+    private Payment payment(String id, Long transactionDate) {
+        return Payment.builder().id(id).tenantId(TENANT_ID).transactionDate(transactionDate).build();
+    }
+
+}
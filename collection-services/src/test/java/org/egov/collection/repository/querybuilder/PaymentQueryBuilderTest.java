@@ -0,0 +1,66 @@
+package org.egov.collection.repository.querybuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.egov.collection.model.PaymentSearchCriteria;
+import org.egov.collection.model.PaymentSearchCursor;
+import org.junit.Test;
+
+public class PaymentQueryBuilderTest {
+
+    @Test
+    public void seeksThePaymentsAloneWithoutDetailCriteria() {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().tenantId("pb.amritsar").limit(10)
+                .cursor(new PaymentSearchCursor(1571232000000L, "PAY-1").encode()).build();
+        Map<String, Object> preparedStatementValues = new HashMap<>();
+
+        String query = PaymentQueryBuilder.getPaymentIdKeysetQuery(criteria, preparedStatementValues);
+
+        assertFalse(query.contains("DISTINCT"));
+        assertFalse(query.contains("JOIN egcl_paymentdetail pyd"));
+        assertFalse(query.contains("JOIN egcl_bill bill"));
+        assertTrue(query.contains("(py.transactiondate, py.id) < (:cursorTransactionDate, :cursorId)"));
+        assertEquals("PAY-1", preparedStatementValues.get("cursorId"));
+    }
+
+    @Test
+    public void returnsOnlyPaymentsHavingPaymentDetails() {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().limit(10).build();
+
+        String query = PaymentQueryBuilder.getPaymentIdKeysetQuery(criteria, new HashMap<>());
+
+        assertTrue(query.contains(" WHERE  EXISTS (SELECT 1 FROM egcl_paymentdetail epd "));
+        assertTrue(query.contains("WHERE epd.paymentid = py.id AND EXISTS (SELECT 1 FROM egcl_billdetial ebd "));
+    }
+
+    @Test
+    public void joinsThePaymentDetailsForDetailCriteria() {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().tenantId("pb.amritsar").limit(10)
+                .businessServices(Collections.singleton("PT")).build();
+
+        String query = PaymentQueryBuilder.getPaymentIdKeysetQuery(criteria, new HashMap<>());
+
+        assertTrue(query.contains("SELECT DISTINCT"));
+        assertTrue(query.contains("egcl_paymentdetail pyd"));
+        assertFalse(query.contains("egcl_bill bill"));
+    }
+
+    @Test
+    public void joinsTheBillsForConsumerCodes() {
+        PaymentSearchCriteria criteria = PaymentSearchCriteria.builder().tenantId("pb.amritsar").limit(10)
+                .consumerCodes(Collections.singleton("PT-107-001")).build();
+
+        String query = PaymentQueryBuilder.getPaymentIdKeysetQuery(criteria, new HashMap<>());
+
+        assertTrue(query.contains("egcl_paymentdetail pyd"));
+        assertTrue(query.contains("egcl_bill bill"));
+        assertTrue(query.contains("bill.consumerCode in (:consumerCodes)"));
+    }
+
+}
@@ -0,0 +1,207 @@
+package org.egov.collection.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.model.BulkPaymentRequest;
+import org.egov.collection.model.BulkPaymentResult;
+import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentDetail;
+import org.egov.collection.model.PaymentRequest;
+import org.egov.collection.producer.CollectionProducer;
+import org.egov.collection.repository.BillingServiceRepository;
+import org.egov.collection.repository.PaymentRepository;
+import org.egov.collection.util.PaymentEnricher;
+import org.egov.collection.util.PaymentValidator;
+import org.egov.collection.web.contract.Bill;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.tracer.model.CustomException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class BulkPaymentServiceTest {
+
+    private static final String TENANT_ID = "pb.amritsar";
+    private static final String TOPIC = "egov.collection.payment-create";
+    private static final String KEY = "payment-create";
+
+    @Mock
+    private PaymentEnricher paymentEnricher;
+
+    @Mock
+    private PaymentValidator paymentValidator;
+
+    @Mock
+    private ApportionerService apportionerService;
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private MDMSService mdmsService;
+
+    @Mock
+    private BillingServiceRepository billingRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private CollectionProducer producer;
+
+    @Mock
+    private ApplicationProperties applicationProperties;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkPaymentService bulkPaymentService;
+
+    @Before
+    public void setUp() {
+        when(applicationProperties.getPaymentBulkCreateMaxSize()).thenReturn(500);
+        when(applicationProperties.getPaymentBulkCreateChunkSize()).thenReturn(2);
+        when(applicationProperties.getCreatePaymentTopicName()).thenReturn(TOPIC);
+        when(applicationProperties.getCreatePaymentTopicKey()).thenReturn(KEY);
+
+        List<Bill> bills = new ArrayList<>();
+        Map<String, Bill> apportionedBills = new HashMap<>();
+        for (String billId : new String[] { "BILL-0", "BILL-1", "BILL-2" }) {
+            Bill bill = Bill.builder().id(billId).tenantId(TENANT_ID).build();
+            bills.add(bill);
+            apportionedBills.put(billId, bill);
+        }
+        when(mdmsService.mDMSCall(any(), eq(TENANT_ID))).thenReturn(new Object());
+        when(billingRepository.fetchBill(any(), eq(TENANT_ID), anyList())).thenReturn(bills);
+        when(paymentValidator.fetchPaymentsForBills(eq(TENANT_ID), any())).thenReturn(Collections.emptyList());
+        when(apportionerService.apportionBills(any(), eq(TENANT_ID), anyList())).thenReturn(apportionedBills);
+
+        bulkPaymentService = new BulkPaymentService(paymentEnricher, paymentValidator, apportionerService, paymentService,
+                mdmsService, billingRepository, paymentRepository, producer, applicationProperties, transactionManager);
+    }
+
+    @Test
+    public void persistsAndPushesThePaymentsInChunks() {
+        List<BulkPaymentResult> results = bulkPaymentService.createPayments(request());
+
+        assertStatuses(results, BulkPaymentResult.StatusEnum.SUCCESSFUL, BulkPaymentResult.StatusEnum.SUCCESSFUL,
+                BulkPaymentResult.StatusEnum.SUCCESSFUL);
+        verify(paymentRepository, times(2)).savePayments(anyList());
+        verify(paymentRepository, never()).savePayment(any());
+        verify(producer, times(2)).producer(eq(TOPIC), eq(KEY), anyList());
+        verify(producer, never()).producer(eq(TOPIC), eq(KEY), any(PaymentRequest.class));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    public void pushesAChunkOnlyOnceItIsCommitted() {
+        List<BulkPaymentResult> results = bulkPaymentService.createPayments(request());
+
+        assertEquals(3, results.size());
+        InOrder inOrder = inOrder(paymentRepository, transactionManager, producer);
+        for (int chunk = 0; chunk < 2; chunk++) {
+            inOrder.verify(paymentRepository).savePayments(anyList());
+            inOrder.verify(transactionManager).commit(any());
+            inOrder.verify(producer).producer(eq(TOPIC), eq(KEY), anyList());
+        }
+    }
+
+    @Test
+    public void persistsThePaymentsOfAFailedChunkOneAtATime() {
+        when(applicationProperties.getPaymentBulkCreateChunkSize()).thenReturn(3);
+        doThrow(new CustomException("PAYMENT_CREATION_FAILED", "batch failed")).when(paymentRepository).savePayments(anyList());
+        doThrow(new CustomException("PAYMENT_CREATION_FAILED", "duplicate receipt")).when(paymentRepository)
+                .savePayment(argThat(payment -> "BILL-1".equals(payment.getPaymentDetails().get(0).getBillId())));
+
+        List<BulkPaymentResult> results = bulkPaymentService.createPayments(request());
+
+        assertStatuses(results, BulkPaymentResult.StatusEnum.SUCCESSFUL, BulkPaymentResult.StatusEnum.FAILED,
+                BulkPaymentResult.StatusEnum.SUCCESSFUL);
+        assertEquals("duplicate receipt", results.get(1).getErrors().get("PAYMENT_CREATION_FAILED"));
+        verify(paymentRepository, times(3)).savePayment(any());
+        verify(producer).producer(eq(TOPIC), eq(KEY), argThat((List<?> values) -> values.size() == 2));
+    }
+
+    @Test
+    public void pushesNothingOfARolledBackChunk() {
+        when(applicationProperties.getPaymentBulkCreateChunkSize()).thenReturn(3);
+        doThrow(new IllegalStateException("connection lost")).when(paymentRepository).savePayments(anyList());
+
+        List<BulkPaymentResult> results = bulkPaymentService.createPayments(request());
+
+        assertStatuses(results, BulkPaymentResult.StatusEnum.FAILED, BulkPaymentResult.StatusEnum.FAILED,
+                BulkPaymentResult.StatusEnum.FAILED);
+        verify(transactionManager).rollback(any());
+        verify(producer, never()).producer(any(), any(), anyList());
+    }
+
+    @Test
+    public void reportsTheCommittedChunkAsNotPushedWhenPushingFails() {
+        doThrow(new CustomException("COLLECTIONS_KAFKA_PUSH_FAILED", "push failed")).when(producer)
+                .producer(eq(TOPIC), eq(KEY), anyList());
+
+        List<BulkPaymentResult> results = bulkPaymentService.createPayments(request());
+
+        assertStatuses(results, BulkPaymentResult.StatusEnum.FAILED, BulkPaymentResult.StatusEnum.FAILED,
+                BulkPaymentResult.StatusEnum.FAILED);
+        assertTrue(results.get(0).getErrors().containsKey("PAYMENT_PUSH_FAILED"));
+        verify(paymentRepository, never()).savePayment(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    public void reportsTheExceptionTypeOfAFailureWithoutMessage() {
+        doThrow(new NullPointerException()).when(paymentEnricher)
+                .validatePaymentRequestForEnrichment(argThat(paymentRequest -> "BILL-2".equals(paymentRequest
+                        .getPayment().getPaymentDetails().get(0).getBillId())));
+
+        List<BulkPaymentResult> results = bulkPaymentService.createPayments(request());
+
+        assertStatuses(results, BulkPaymentResult.StatusEnum.SUCCESSFUL, BulkPaymentResult.StatusEnum.SUCCESSFUL,
+                BulkPaymentResult.StatusEnum.FAILED);
+        assertEquals(Collections.singletonMap("PAYMENT_CREATION_FAILED", NullPointerException.class.getName()),
+                results.get(2).getErrors());
+    }
+
+    private void assertStatuses(List<BulkPaymentResult> results, BulkPaymentResult.StatusEnum... statuses) {
+        assertEquals(statuses.length, results.size());
+        for (int i = 0; i < statuses.length; i++) {
+            assertEquals(Integer.valueOf(i), results.get(i).getIndex());
+            assertEquals(statuses[i], results.get(i).getStatus());
+        }
+    }
+
+    private BulkPaymentRequest request() {
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            PaymentDetail paymentDetail = PaymentDetail.builder().billId("BILL-" + i).tenantId(TENANT_ID).build();
+            payments.add(Payment.builder().tenantId(TENANT_ID).paymentDetails(Collections.singletonList(paymentDetail)).build());
+        }
+        return new BulkPaymentRequest(new RequestInfo(), payments);
+    }
+
+}
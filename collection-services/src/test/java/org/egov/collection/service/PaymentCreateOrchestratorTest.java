@@ -0,0 +1,226 @@
+package org.egov.collection.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.egov.collection.config.ApplicationProperties;
+import org.egov.collection.model.Payment;
+import org.egov.collection.model.PaymentDetail;
+import org.egov.collection.model.PaymentRequest;
+import org.egov.collection.repository.BillingServiceRepository;
+import org.egov.collection.util.PaymentEnricher;
+import org.egov.collection.util.PaymentValidator;
+import org.egov.collection.web.contract.Bill;
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.common.contract.request.User;
+import org.egov.tracer.model.CustomException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class PaymentCreateOrchestratorTest {
+
+    private static final String TENANT_ID = "pb.amritsar";
+    private static final String MOBILE_NUMBER = "9999999999";
+
+    @Mock
+    private PaymentEnricher paymentEnricher;
+
+    @Mock
+    private PaymentValidator paymentValidator;
+
+    @Mock
+    private ApportionerService apportionerService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private MDMSService mdmsService;
+
+    @Mock
+    private BillingServiceRepository billingRepository;
+
+    @Mock
+    private ApplicationProperties applicationProperties;
+
+    private PaymentCreateOrchestrator orchestrator;
+
+    private final Object mdmsData = new Object();
+
+    private final List<Bill> bills = Collections.singletonList(Bill.builder().id("BILL-1").tenantId(TENANT_ID).build());
+
+    @Before
+    public void setUp() {
+        when(applicationProperties.getPaymentCreatePoolSize()).thenReturn(8);
+        when(applicationProperties.getPaymentCreateQueueSize()).thenReturn(100);
+        when(applicationProperties.getPaymentCreateStageTimeout()).thenReturn(2000L);
+        when(applicationProperties.getIsUserCreateEnabled()).thenReturn(true);
+        when(apportionerService.apportionBill(any())).thenReturn(Collections.singletonMap("BILL-1", bills.get(0)));
+        orchestrator = new PaymentCreateOrchestrator(paymentEnricher, paymentValidator, apportionerService, userService,
+                mdmsService, billingRepository, applicationProperties);
+    }
+
+    @After
+    public void tearDown() {
+        orchestrator.shutdown();
+    }
+
+    @Test
+    public void runsTheLookupsTogetherAndCreatesTheMissingPayer() {
+        CyclicBarrier lookups = new CyclicBarrier(4);
+        when(mdmsService.mDMSCall(any(), eq(TENANT_ID))).thenAnswer(invocation -> {
+            lookups.await(1, TimeUnit.SECONDS);
+            return mdmsData;
+        });
+        when(billingRepository.fetchBill(any(), eq(TENANT_ID), anyList())).thenAnswer(invocation -> {
+            lookups.await(1, TimeUnit.SECONDS);
+            return bills;
+        });
+        when(paymentValidator.fetchPaymentsForBills(any(Payment.class))).thenAnswer(invocation -> {
+            lookups.await(1, TimeUnit.SECONDS);
+            return Collections.emptyList();
+        });
+        when(userService.getUser(any(), eq(MOBILE_NUMBER), eq(TENANT_ID))).thenAnswer(invocation -> {
+            lookups.await(1, TimeUnit.SECONDS);
+            return Collections.emptyMap();
+        });
+        when(userService.createUser(any(PaymentRequest.class))).thenReturn("PAYER-1");
+        PaymentRequest paymentRequest = request("EMPLOYEE");
+
+        orchestrator.enrichAndApportion(paymentRequest);
+
+        verify(paymentEnricher).enrichPaymentPreValidate(paymentRequest, mdmsData, bills);
+        verify(paymentValidator).validatePaymentForCreate(paymentRequest, Collections.emptyList());
+        verify(paymentEnricher).enrichReceiptAndTransactionNumbers(paymentRequest);
+        verify(paymentEnricher).setApportionedBillsToPayment(anyMap(), eq(paymentRequest.getPayment()));
+        assertEquals("PAYER-1", paymentRequest.getPayment().getPayerId());
+    }
+
+    @Test
+    public void takesTheCitizenAsPayerWithoutSearchingUsers() {
+        when(mdmsService.mDMSCall(any(), eq(TENANT_ID))).thenReturn(mdmsData);
+        when(billingRepository.fetchBill(any(), eq(TENANT_ID), anyList())).thenReturn(bills);
+        when(paymentValidator.fetchPaymentsForBills(any(Payment.class))).thenReturn(Collections.emptyList());
+        PaymentRequest paymentRequest = request("CITIZEN");
+
+        orchestrator.enrichAndApportion(paymentRequest);
+
+        verify(userService, never()).getUser(any(), anyString(), anyString());
+        verify(userService, never()).createUser(any(PaymentRequest.class));
+        assertEquals("CITIZEN-UUID", paymentRequest.getPayment().getPayerId());
+    }
+
+    @Test
+    public void rethrowsTheErrorOfAFailedStage() {
+        when(mdmsService.mDMSCall(any(), eq(TENANT_ID))).thenReturn(mdmsData);
+        when(billingRepository.fetchBill(any(), eq(TENANT_ID), anyList()))
+                .thenThrow(new CustomException("BILL_NOT_FOUND", "No bill found"));
+        when(paymentValidator.fetchPaymentsForBills(any(Payment.class))).thenReturn(Collections.emptyList());
+
+        try {
+            orchestrator.enrichAndApportion(request("CITIZEN"));
+            fail("The bill fetch failure should be thrown");
+        } catch (CustomException e) {
+            assertEquals("BILL_NOT_FOUND", e.getCode());
+        }
+        verify(paymentValidator, never()).validatePaymentForCreate(any(), any());
+    }
+
+    @Test
+    public void failsAStageRunningPastTheDeadline() {
+        when(applicationProperties.getPaymentCreateStageTimeout()).thenReturn(50L);
+        when(mdmsService.mDMSCall(any(), eq(TENANT_ID))).thenAnswer(invocation -> {
+            Thread.sleep(1000);
+            return mdmsData;
+        });
+
+        try {
+            orchestrator.enrichAndApportion(request("CITIZEN"));
+            fail("The mdms stage should time out");
+        } catch (CustomException e) {
+            assertEquals("PAYMENT_CREATE_TIMEOUT", e.getCode());
+        }
+    }
+
+    @Test
+    public void createsNoPayerForAPaymentFailingApportioning() {
+        when(mdmsService.mDMSCall(any(), eq(TENANT_ID))).thenReturn(mdmsData);
+        when(billingRepository.fetchBill(any(), eq(TENANT_ID), anyList())).thenReturn(bills);
+        when(paymentValidator.fetchPaymentsForBills(any(Payment.class))).thenReturn(Collections.emptyList());
+        when(userService.getUser(any(), eq(MOBILE_NUMBER), eq(TENANT_ID))).thenReturn(Collections.emptyMap());
+        when(apportionerService.apportionBill(any())).thenThrow(new CustomException("APPORTIONING_FAILED", "Apportioning failed"));
+
+        try {
+            orchestrator.enrichAndApportion(request("EMPLOYEE"));
+            fail("The apportioning failure should be thrown");
+        } catch (CustomException e) {
+            assertEquals("APPORTIONING_FAILED", e.getCode());
+        }
+        verify(userService, never()).createUser(any(PaymentRequest.class));
+    }
+
+    @Test
+    public void skipsAStageStillQueuedPastItsDeadline() throws Exception {
+        when(applicationProperties.getPaymentCreatePoolSize()).thenReturn(1);
+        when(applicationProperties.getPaymentCreateStageTimeout()).thenReturn(50L);
+        orchestrator.shutdown();
+        orchestrator = new PaymentCreateOrchestrator(paymentEnricher, paymentValidator, apportionerService, userService,
+                mdmsService, billingRepository, applicationProperties);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mdmsService.mDMSCall(any(), eq(TENANT_ID))).thenAnswer(invocation -> {
+            release.await(1, TimeUnit.SECONDS);
+            return mdmsData;
+        });
+
+        try {
+            orchestrator.enrichAndApportion(request("CITIZEN"));
+            fail("The mdms stage should time out");
+        } catch (CustomException e) {
+            assertEquals("PAYMENT_CREATE_TIMEOUT", e.getCode());
+        }
+        release.countDown();
+        orchestrator.shutdown();
+        ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(orchestrator, "executor");
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+
+        verify(billingRepository, never()).fetchBill(any(), anyString(), anyList());
+        verify(paymentValidator, never()).fetchPaymentsForBills(any(Payment.class));
+    }
+
+    private PaymentRequest request(String userType) {
+        User user = new User();
+        user.setUuid("CITIZEN-UUID");
+        user.setType(userType);
+        user.setTenantId(TENANT_ID);
+        RequestInfo requestInfo = new RequestInfo();
+        requestInfo.setUserInfo(user);
+        PaymentDetail paymentDetail = PaymentDetail.builder().billId("BILL-1").tenantId(TENANT_ID).build();
+        Payment payment = Payment.builder().tenantId(TENANT_ID).mobileNumber(MOBILE_NUMBER)
+                .paymentDetails(Collections.singletonList(paymentDetail)).build();
+        return new PaymentRequest(requestInfo, payment);
+    }
+
+}
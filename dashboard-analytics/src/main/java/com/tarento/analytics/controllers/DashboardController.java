@@ -33,6 +33,7 @@ import com.tarento.analytics.dto.UserDto;
 import com.tarento.analytics.exception.AINException;
 import com.tarento.analytics.org.service.ClientService;
 import com.tarento.analytics.service.MetadataService;
+import com.tarento.analytics.service.impl.ChartResponseCache;
 import com.tarento.analytics.utils.PathRoutes;
 import com.tarento.analytics.utils.ResponseGenerator;
 import org.springframework.web.multipart.MultipartFile;
@@ -54,6 +55,9 @@ public class DashboardController {
 	@Autowired
 	private ClientServiceFactory clientServiceFactory;
 
+	@Autowired
+	private ChartResponseCache chartResponseCache;
+
 	@RequestMapping(value = PathRoutes.DashboardApi.FILE_PATH, method = RequestMethod.POST)
 	public Map<String, String> uploadFile(@RequestPart(value = "file") MultipartFile file)
 	{
@@ -112,6 +116,17 @@ public class DashboardController {
 		return ResponseGenerator.successResponse(metadataService.getDashboardConfiguration(dashboardId, catagory, user.getRoles()));
 	}
 
+	@GetMapping(value = PathRoutes.DashboardApi.CHART_CACHE_STATS, produces = MediaType.APPLICATION_JSON_VALUE)
+	public String getChartCacheStats() throws JsonProcessingException {
+		return ResponseGenerator.successResponse(chartResponseCache.getStats());
+	}
+
+	@PostMapping(value = PathRoutes.DashboardApi.CHART_CACHE_CLEAR, produces = MediaType.APPLICATION_JSON_VALUE)
+	public String clearChartCache() throws JsonProcessingException {
+		chartResponseCache.clear();
+		return ResponseGenerator.successResponse(chartResponseCache.getStats());
+	}
+
 	@RequestMapping(value = PathRoutes.DashboardApi.GET_CHART_V2, method = RequestMethod.POST)
 	public String getVisualizationChartV2( @RequestBody RequestDto requestDto, @RequestHeader(value = "x-user-info", required = false) String xUserInfo, ServletWebRequest request)
 			throws IOException {
@@ -154,8 +169,10 @@ public class DashboardController {
 				requestInfo.setModuleLevel(Constants.Modules.HOME_REVENUE);
 			}
 
+			response = chartResponseCache.get(requestInfo, headers.get("tenantId"), user.getRoles(), () -> {
 				Object responseData = clientServiceFactory.get(requestInfo.getVisualizationCode()).getAggregatedData(requestInfo, user.getRoles());
-			response = ResponseGenerator.successResponse(responseData);
+				return ResponseGenerator.successResponse(responseData);
+			});
 
 		} catch (AINException e) {
 			logger.error("error while executing api getVisualizationChart");
@@ -4,7 +4,6 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.tarento.analytics.dto.AggregateDto;
 import com.tarento.analytics.dto.AggregateRequestDto;
@@ -37,6 +36,9 @@ public class AdvanceTableChartResponseHandler implements IResponseHandler {
     @Autowired
     private ComputedFieldFactory computedFieldFactory;
 
+    @Autowired
+    private AggregationPathCompiler aggregationPathCompiler;
+
 
     @Override
     public AggregateDto translate(AggregateRequestDto requestDto, ObjectNode aggregations) throws IOException {
@@ -49,8 +51,7 @@ public class AdvanceTableChartResponseHandler implements IResponseHandler {
 
         boolean executeComputedFields = computedFields !=null && computedFields.isArray();
         List<JsonNode> aggrNodes = aggregationNode.findValues(BUCKETS);
-        boolean isPathSpecified = chartNode.get(IResponseHandler.AGGS_PATH)!=null && chartNode.get(IResponseHandler.AGGS_PATH).isArray();
-        ArrayNode aggrsPaths = isPathSpecified ? (ArrayNode) chartNode.get(IResponseHandler.AGGS_PATH) : JsonNodeFactory.instance.arrayNode();
+        AggregationPathExtractor extractor = aggregationPathCompiler.get(requestDto.getVisualizationCode(), chartNode);
 
 
 
@@ -68,8 +69,8 @@ public class AdvanceTableChartResponseHandler implements IResponseHandler {
                 String key = bucket.get(IResponseHandler.KEY).asText();
 
                 //If aggrPath is specified.
-                if(aggrsPaths.size()>0){
-                    processWithSpecifiedKeys(aggrsPaths, bucket, mappings, key, plotMap);
+                if(extractor.getAggsPaths().size()>0){
+                    processWithSpecifiedKeys(extractor, bucket, mappings, key, plotMap);
 
                 } else {
                     processNestedObjects(bucket, mappings, key, plotMap);
@@ -187,24 +188,26 @@ public class AdvanceTableChartResponseHandler implements IResponseHandler {
 
     }
 
-    private void processWithSpecifiedKeys(ArrayNode aggrsPaths, JsonNode bucket, Map<String, Map<String, Plot>> mappings, String key, Map<String, Plot> plotMap ){
+    private void processWithSpecifiedKeys(AggregationPathExtractor extractor, JsonNode bucket, Map<String, Map<String, Plot>> mappings, String key, Map<String, Plot> plotMap ){
 
-        aggrsPaths.forEach(headerPath -> {
-            JsonNode valueNode = bucket.findValue(headerPath.asText());
+        extractor.getAggsPaths().forEach(headerPath -> {
+            JsonNode valueNode = extractor.find(bucket, headerPath, headerPath);
             //Double value = (null == valueNode || null == valueNode.get(VALUE)) ? 0.0 : valueNode.get(VALUE).asDouble();
+            JsonNode docCountNode = extractor.find(valueNode, headerPath + "/" + DOC_COUNT, DOC_COUNT);
+            JsonNode valueFieldNode = extractor.find(valueNode, headerPath + "/" + VALUE, VALUE);
             Double doc_value = 0.0;
             if(valueNode!=null)
-                doc_value = (null == valueNode.findValue(DOC_COUNT)) ? 0.0 : valueNode.findValue(DOC_COUNT).asDouble();
-            Double value = (null == valueNode || null == valueNode.findValue(VALUE)) ? doc_value : valueNode.findValue(VALUE).asDouble();
-            String dataType = valueNode.findValue(VALUE)!=null? (valueNode.findValue(VALUE).isDouble() ? "amount" : "number") : "number" ;
+                doc_value = (null == docCountNode) ? 0.0 : docCountNode.asDouble();
+            Double value = (null == valueNode || null == valueFieldNode) ? doc_value : valueFieldNode.asDouble();
+            String dataType = valueFieldNode!=null? (valueFieldNode.isDouble() ? "amount" : "number") : "number" ;
 
-            Plot plot = new Plot(headerPath.asText(), value, dataType);
+            Plot plot = new Plot(headerPath, value, dataType);
             if (mappings.containsKey(key)) {
-                double newval = mappings.get(key).get(headerPath.asText()) == null ? value : (mappings.get(key).get(headerPath.asText()).getValue() + value);
+                double newval = mappings.get(key).get(headerPath) == null ? value : (mappings.get(key).get(headerPath).getValue() + value);
                 plot.setValue(newval);
-                mappings.get(key).put(headerPath.asText(), plot);
+                mappings.get(key).put(headerPath, plot);
             } else {
-                plotMap.put(headerPath.asText(), plot);
+                plotMap.put(headerPath, plot);
             }
         });
     }
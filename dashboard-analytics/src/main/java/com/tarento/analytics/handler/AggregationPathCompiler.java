@@ -0,0 +1,27 @@
+package com.tarento.analytics.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Compiles the aggregation paths of a chart once and keeps them per chart id
+ */
+@Component
+public class AggregationPathCompiler {
+
+	private final Map<String, AggregationPathExtractor> extractors = new ConcurrentHashMap<>();
+
+	/**
+	 * @param chartId visualization code of the chart
+	 * @param chartNode The Chart Config defined in ChartApiConfig.json
+	 * @return extractor compiled from the chart config
+	 */
+	public AggregationPathExtractor get(String chartId, JsonNode chartNode) {
+		return extractors.computeIfAbsent(chartId, id -> new AggregationPathExtractor(chartNode));
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.tarento.analytics.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+
+/**
+ * Compiled form of the aggregationPaths and pathDataTypeMapping of a chart.
+ *
+ * Lookups which used findValue on every bucket remember the JSON pointer of the value
+ * found in the first bucket, the buckets after it are read through the pointer directly.
+ * When the pointer does not resolve on a bucket, or resolves to a node of another type than
+ * the value it was learned from, the value is searched for the same way as findValue does
+ * and the pointer is replaced.
+ *
+ * A bucket on which the pointer does resolve is not searched, so the value returned is the
+ * one at the learned position even when findValue would have met another field of the same
+ * name first. The two only agree while the buckets of a slot share a layout, which is the
+ * case for the buckets of one aggregation.
+ */
+public class AggregationPathExtractor {
+
+	private final List<String> aggsPaths;
+
+	private final Map<String, String> dataTypes;
+
+	private final Map<String, LearnedPath> learnedPaths = new ConcurrentHashMap<>();
+
+	public AggregationPathExtractor(JsonNode chartNode) {
+		List<String> paths = new ArrayList<>();
+		JsonNode aggsPathNode = chartNode.get(IResponseHandler.AGGS_PATH);
+		if (aggsPathNode != null && aggsPathNode.isArray())
+			aggsPathNode.forEach(path -> paths.add(path.asText()));
+		this.aggsPaths = Collections.unmodifiableList(paths);
+
+		Map<String, String> types = new HashMap<>();
+		JsonNode typeMapping = chartNode.get(IResponseHandler.TYPE_MAPPING);
+		if (typeMapping != null)
+			paths.forEach(path -> {
+				JsonNode dataType = typeMapping.findValue(path);
+				if (dataType != null)
+					types.put(path, dataType.asText());
+			});
+		this.dataTypes = Collections.unmodifiableMap(types);
+	}
+
+	public List<String> getAggsPaths() {
+		return aggsPaths;
+	}
+
+	/**
+	 * Data type configured for the path in pathDataTypeMapping, null when not configured
+	 */
+	public String getDataType(String path) {
+		return dataTypes.get(path);
+	}
+
+	/**
+	 * Returns the node at the pointer learned for the slot when it resolves to a node of the
+	 * learned type, otherwise the node node.findValue(fieldName) returns, learning its pointer.
+	 * @param node Node to be searched
+	 * @param slot Identifies the lookup, nodes searched under the same slot are expected to share a layout
+	 * @param fieldName Name of the field to be found
+	 * @return Value of the field, null when not present
+	 */
+	public JsonNode find(JsonNode node, String slot, String fieldName) {
+		if (node == null)
+			return null;
+
+		LearnedPath learnedPath = learnedPaths.get(slot);
+		if (learnedPath != null) {
+			JsonNode value = node.at(learnedPath.pointer);
+			if (value.getNodeType() == learnedPath.type)
+				return value;
+		}
+
+		List<String> path = new ArrayList<>();
+		if (!locate(node, fieldName, path))
+			return null;
+
+		StringBuilder expression = new StringBuilder();
+		path.forEach(segment -> expression.append('/').append(segment.replace("~", "~0").replace("/", "~1")));
+		JsonPointer pointer = JsonPointer.compile(expression.toString());
+		JsonNode value = node.at(pointer);
+		learnedPaths.put(slot, new LearnedPath(pointer, value.getNodeType()));
+		return value;
+	}
+
+	/**
+	 * Depth first search in the order of JsonNode.findValue, collecting the path to the field
+	 */
+	private boolean locate(JsonNode node, String fieldName, List<String> path) {
+		if (node.isObject()) {
+			Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				path.add(field.getKey());
+				if (fieldName.equals(field.getKey()) || locate(field.getValue(), fieldName, path))
+					return true;
+				path.remove(path.size() - 1);
+			}
+		} else if (node.isArray()) {
+			for (int i = 0; i < node.size(); i++) {
+				path.add(String.valueOf(i));
+				if (locate(node.get(i), fieldName, path))
+					return true;
+				path.remove(path.size() - 1);
+			}
+		}
+		return false;
+	}
+
+	private static class LearnedPath {
+
+		private final JsonPointer pointer;
+
+		private final JsonNodeType type;
+
+		private LearnedPath(JsonPointer pointer, JsonNodeType type) {
+			this.pointer = pointer;
+			this.type = type;
+		}
+	}
+
+}
@@ -48,6 +48,8 @@ public class LineChartResponseHandler implements IResponseHandler {
     private ObjectMapper mapper;
     @Autowired
     private ComputedFieldFactory computedFieldFactory;
+    @Autowired
+    private AggregationPathCompiler aggregationPathCompiler;
 
     @Override
     public AggregateDto translate(AggregateRequestDto requestDto, ObjectNode aggregations) throws IOException {
@@ -57,6 +59,7 @@ public class LineChartResponseHandler implements IResponseHandler {
         //String json = "{\"ptindex-v1\":{\"Closed Application\":{\"buckets\":[{\"key_as_string\":\"2018-11-12T00:00:00.000Z\",\"key\":1541980800000,\"doc_count\":1,\"Applications Closed\":{\"buckets\":{\"closed\":{\"doc_count\":0,\"Count\":{\"value\":0}}}}}]},\"Total Application\":{\"buckets\":[{\"key_as_string\":\"2018-11-12T00:00:00.000Z\",\"key\":1541980800000,\"doc_count\":1,\"Count\":{\"value\":1}}]}},\"tlindex-v1\":{\"Closed Application\":{\"buckets\":[{\"key_as_string\":\"2019-04-29T00:00:00.000Z\",\"key\":1556496000000,\"doc_count\":6,\"Applications Closed\":{\"buckets\":{\"closed\":{\"doc_count\":0,\"Count\":{\"value\":0}},\"resolved\":{\"doc_count\":0,\"Count\":{\"value\":0}}}}}]},\"Total Application\":{\"buckets\":[{\"key\":1555891200000,\"doc_count\":1,\"Count\":{\"value\":1}},{\"key\":1556496000000,\"doc_count\":0,\"Count\":{\"value\":0}}]}},\"pgrindex-v1\":{\"Closed Application\":{\"buckets\":[{\"key\":1564963200000,\"doc_count\":438,\"Applications Closed\":{\"buckets\":{\"closed\":{\"doc_count\":5,\"Count\":{\"value\":5}}}}}]},\"Total Application\":{\"buckets\":[{\"key\":1564963200000,\"doc_count\":438,\"Count\":{\"value\":438}},{\"key\":1574035200000,\"doc_count\":3,\"Count\":{\"value\":3}}]}}}";
         JsonNode aggregationNode = aggregations.get(AGGREGATIONS);
         JsonNode chartNode = requestDto.getChartNode();
+        AggregationPathExtractor extractor = aggregationPathCompiler.get(requestDto.getVisualizationCode(), chartNode);
         boolean isRequestInterval = null == requestDto.getRequestDate() ? false : requestDto.getRequestDate().getInterval()!=null && !requestDto.getRequestDate().getInterval().isEmpty();
         String interval = isRequestInterval ? requestDto.getRequestDate().getInterval(): chartNode.get(Constants.JsonPaths.INTERVAL).asText();
         if(interval == null || interval.isEmpty()){
@@ -82,7 +85,7 @@ public class LineChartResponseHandler implements IResponseHandler {
 
                     ArrayNode buckets = (ArrayNode) aggrNode.findValues(IResponseHandler.BUCKETS).get(0);
                     buckets.forEach(bucket -> {
-                        String bkey = bucket.findValue(IResponseHandler.KEY).asText();
+                        String bkey = extractor.find(bucket, headerPath.asText() + "/" + KEY, IResponseHandler.KEY).asText();
                         String key = getIntervalKey(bkey, Constants.Interval.valueOf(interval));
 
                         plotKeys.add(key);
@@ -116,7 +119,8 @@ public class LineChartResponseHandler implements IResponseHandler {
                             }
 
                         } else {
-                            value = previousVal + ((bucket.findValue(IResponseHandler.VALUE) != null) ? bucket.findValue(IResponseHandler.VALUE).asDouble():bucket.findValue(IResponseHandler.DOC_COUNT).asDouble());
+                            JsonNode valueNode = extractor.find(bucket, headerPath.asText() + "/" + VALUE, IResponseHandler.VALUE);
+                            value = previousVal + ((valueNode != null) ? valueNode.asDouble() : extractor.find(bucket, headerPath.asText() + "/" + DOC_COUNT, IResponseHandler.DOC_COUNT).asDouble());
 
                         }
                         //double value = previousVal + ((bucket.findValue(IResponseHandler.VALUE) != null) ? bucket.findValue(IResponseHandler.VALUE).asDouble():bucket.findValue(IResponseHandler.DOC_COUNT).asDouble());
@@ -24,11 +24,15 @@ public class PerformanceChartResponeHandler implements IResponseHandler {
 
     public static final Logger logger = LoggerFactory.getLogger(PerformanceChartResponeHandler.class);
 
+    @Autowired
+    private AggregationPathCompiler aggregationPathCompiler;
+
     @Override
     public AggregateDto translate(AggregateRequestDto requestDto, ObjectNode aggregations) throws IOException {
 
         JsonNode aggregationNode = aggregations.get(AGGREGATIONS);
         JsonNode chartNode = requestDto.getChartNode();
+        AggregationPathExtractor extractor = aggregationPathCompiler.get(requestDto.getVisualizationCode(), chartNode);
         String symbol = chartNode.get(IResponseHandler.VALUE_TYPE).asText();
         String plotLabel = chartNode.get(PLOT_LABEL).asText();
         String order = chartNode.get(ORDER).asText();
@@ -44,8 +48,8 @@ public class PerformanceChartResponeHandler implements IResponseHandler {
 
                     ArrayNode buckets = (ArrayNode) aggrNode.findValues(IResponseHandler.BUCKETS).get(0);
                     buckets.forEach(bucket -> {
-                        String key = bucket.findValue(IResponseHandler.KEY).asText();
-                        Double value = bucket.findValue(IResponseHandler.VALUE).asDouble();
+                        String key = extractor.find(bucket, headerPath.asText() + "/" + KEY, IResponseHandler.KEY).asText();
+                        Double value = extractor.find(bucket, headerPath.asText() + "/" + VALUE, IResponseHandler.VALUE).asDouble();
 
                         if (mappings.containsKey(key)) {
                             Double sum = (mappings.get(key)).containsKey(headerPath.asText()) ? (mappings.get(key)).get(headerPath.asText()) + value : value;
@@ -30,6 +30,8 @@ import java.util.Map;
 public class PieChartResponseHandler implements IResponseHandler {
     public static final Logger logger = LoggerFactory.getLogger(PieChartResponseHandler.class);
 
+    @Autowired
+    private AggregationPathCompiler aggregationPathCompiler;
 
     @Override
     public AggregateDto translate(AggregateRequestDto requestDto, ObjectNode aggregations) throws IOException {
@@ -38,6 +40,7 @@ public class PieChartResponseHandler implements IResponseHandler {
 
         JsonNode aggregationNode = aggregations.get(AGGREGATIONS);
         JsonNode chartNode = requestDto.getChartNode();
+        AggregationPathExtractor extractor = aggregationPathCompiler.get(requestDto.getVisualizationCode(), chartNode);
         String headerKey = chartNode.get(CHART_NAME).asText();
         List<Plot> headerPlotList = new ArrayList<>();
         List<Double> totalValue = new ArrayList<>();
@@ -52,10 +55,11 @@ public class PieChartResponseHandler implements IResponseHandler {
             aggregationNode.findValues(headerPath.asText()).stream().parallel().forEach(valueNode->{
                 if(valueNode.has(BUCKETS)){
                     JsonNode buckets = valueNode.findValue(BUCKETS);
+                    boolean hasValues = !valueNode.findValues(VALUE).isEmpty();
                     buckets.forEach(bucket -> {
-                        Double val = valueNode.findValues(VALUE).isEmpty() ? bucket.findValue(DOC_COUNT).asInt() : bucket.findValue(VALUE).asDouble();
+                        Double val = !hasValues ? extractor.find(bucket, headerPath.asText() + "/" + DOC_COUNT, DOC_COUNT).asInt() : extractor.find(bucket, headerPath.asText() + "/" + VALUE, VALUE).asDouble();
                         totalValue.add(val);
-                        Plot plot = new Plot(bucket.findValue(KEY).asText(), val, symbol);
+                        Plot plot = new Plot(extractor.find(bucket, headerPath.asText() + "/" + KEY, KEY).asText(), val, symbol);
                         headerPlotList.add(plot);
                     });
 
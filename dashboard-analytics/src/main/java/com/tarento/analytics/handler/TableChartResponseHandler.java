@@ -3,11 +3,13 @@ package com.tarento.analytics.handler;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.tarento.analytics.helper.ComputedFieldHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -34,6 +36,13 @@ public class TableChartResponseHandler implements IResponseHandler {
 
     @Autowired
     ComputedFieldHelper computedFieldHelper;
+
+    @Autowired
+    AggregationPathCompiler aggregationPathCompiler;
+
+    @Value("${egov.dashboard.table.parallel.threshold}")
+    private int parallelThreshold;
+
     @Override
     public AggregateDto translate(AggregateRequestDto requestDto, ObjectNode aggregations) throws IOException {
 
@@ -41,8 +50,7 @@ public class TableChartResponseHandler implements IResponseHandler {
         JsonNode chartNode = requestDto.getChartNode();
         String postAggrTheoryName = chartNode.get(POST_AGGREGATION_THEORY) == null ? "" :  chartNode.get(POST_AGGREGATION_THEORY).asText();
         String plotLabel = chartNode.get(PLOT_LABEL).asText();
-        ArrayNode pathDataTypeMap = (ArrayNode) chartNode.get(TYPE_MAPPING);
-        ArrayNode aggrsPaths = (ArrayNode) chartNode.get(IResponseHandler.AGGS_PATH);
+        AggregationPathExtractor extractor = aggregationPathCompiler.get(requestDto.getVisualizationCode(), chartNode);
         Map<String, Map<String, Plot>> mappings = new HashMap<>();
         List<JsonNode> aggrNodes = aggregationNode.findValues(BUCKETS);
 
@@ -52,28 +60,30 @@ public class TableChartResponseHandler implements IResponseHandler {
             ArrayNode buckets = (ArrayNode) node;
             buckets.forEach(bucket -> {
                 Map<String, Plot> plotMap = new LinkedHashMap<>();
-                String key = bucket.findValue(IResponseHandler.KEY).asText();
+                String key = extractor.find(bucket, KEY, KEY).asText();
 
-                aggrsPaths.forEach(headerPath -> {
-                    JsonNode datatype = pathDataTypeMap.findValue(headerPath.asText());
+                extractor.getAggsPaths().forEach(headerPath -> {
+                    String datatype = extractor.getDataType(headerPath);
 
-                    if(datatype.asText().equalsIgnoreCase(STRING_DATATYPE)){
-                        addPlotFromBucketForString(headerPath.asText(),bucket,plotMap);
+                    if(STRING_DATATYPE.equalsIgnoreCase(datatype)){
+                        addPlotFromBucketForString(extractor, headerPath, bucket, plotMap);
                     }
                     else {
-                        JsonNode valueNode = bucket.findValue(headerPath.asText());
+                        JsonNode valueNode = extractor.find(bucket, headerPath, headerPath);
                         //Double value = (null == valueNode || null == valueNode.get(VALUE)) ? 0.0 : valueNode.get(VALUE).asDouble();
                         Double doc_value = 0.0;
+                        JsonNode docCountNode = extractor.find(valueNode, headerPath + "/" + DOC_COUNT, DOC_COUNT);
+                        JsonNode valueFieldNode = extractor.find(valueNode, headerPath + "/" + VALUE, VALUE);
                         if(valueNode!=null)
-                            doc_value = (null == valueNode.findValue(DOC_COUNT)) ? 0.0 : valueNode.findValue(DOC_COUNT).asDouble();
-                        Double value = (null == valueNode || null == valueNode.findValue(VALUE)) ? doc_value : valueNode.findValue(VALUE).asDouble();
-                        Plot plot = new Plot(headerPath.asText(), value, datatype.asText());
+                            doc_value = (null == docCountNode) ? 0.0 : docCountNode.asDouble();
+                        Double value = (null == valueNode || null == valueFieldNode) ? doc_value : valueFieldNode.asDouble();
+                        Plot plot = new Plot(headerPath, value, datatype);
                         if (mappings.containsKey(key)) {
-                            double newval = mappings.get(key).get(headerPath.asText()) == null ? value : (mappings.get(key).get(headerPath.asText()).getValue() + value);
+                            double newval = mappings.get(key).get(headerPath) == null ? value : (mappings.get(key).get(headerPath).getValue() + value);
                             plot.setValue(newval);
-                            mappings.get(key).put(headerPath.asText(), plot);
+                            mappings.get(key).put(headerPath, plot);
                         } else {
-                            plotMap.put(headerPath.asText(), plot);
+                            plotMap.put(headerPath, plot);
                         }
                     }
 
@@ -96,41 +106,39 @@ public class TableChartResponseHandler implements IResponseHandler {
 
         });
 
-        List<Data> dataList = new ArrayList<>();
-        mappings.entrySet().stream().parallel().forEach(plotMap -> {
-            List<Plot> plotList = plotMap.getValue().values().stream().parallel().collect(Collectors.toList());
-            List<Plot> filterPlot = plotList.stream().filter(c -> (!c.getName().equalsIgnoreCase(SERIAL_NUMBER) && !c.getName().equalsIgnoreCase(plotLabel) && c.getValue() != 0.0)).collect(Collectors.toList());
+        // Rows are built independently, in parallel for large tables, and ordered by serial number
+        boolean isBoundaryChart = requestDto.getVisualizationCode().equals(PT_DDR_BOUNDARY) || requestDto.getVisualizationCode().equals(PT_BOUNDARY) || requestDto.getVisualizationCode().equals(PT_BOUNDARY_DRILL)
+                || requestDto.getVisualizationCode().equals(TL_DDR_BOUNDARY) || requestDto.getVisualizationCode().equals(TL_BOUNDARY) || requestDto.getVisualizationCode().equals(TL_BOUNDARY_DRILL);
 
-            // FIX ME: For all aggragation oath with string the above condition will fail and no data will be retunred
+        Stream<Map.Entry<String, Map<String, Plot>>> rows = mappings.entrySet().stream();
+        if (mappings.size() >= parallelThreshold)
+            rows = rows.parallel();
 
-            if(filterPlot.size()>=0){
-                Data data = new Data(plotMap.getKey(), Integer.parseInt(String.valueOf(plotMap.getValue().get(SERIAL_NUMBER).getLabel())), null);
-                data.setPlots(plotList);
+        List<Data> dataList = rows.map(plotMap -> {
+            List<Plot> plotList = new ArrayList<>(plotMap.getValue().values());
+            Data data = new Data(plotMap.getKey(), Integer.parseInt(String.valueOf(plotMap.getValue().get(SERIAL_NUMBER).getLabel())), null);
+            data.setPlots(plotList);
 
-                if(requestDto.getVisualizationCode().equals(PT_DDR_BOUNDARY) || requestDto.getVisualizationCode().equals(PT_BOUNDARY) || requestDto.getVisualizationCode().equals(PT_BOUNDARY_DRILL)
-                        || requestDto.getVisualizationCode().equals(TL_DDR_BOUNDARY) || requestDto.getVisualizationCode().equals(TL_BOUNDARY) || requestDto.getVisualizationCode().equals(TL_BOUNDARY_DRILL)) {
-
-                    computedFieldHelper.set(requestDto, postAggrTheoryName);
-                    computedFieldHelper.add(data,TARGET_ACHIEVED, TOTAL_COLLECTION, TARGET_COLLECTION );
-                }
-                dataList.add(data);
+            if(isBoundaryChart) {
+                computedFieldHelper.add(requestDto, postAggrTheoryName, data, TARGET_ACHIEVED, TOTAL_COLLECTION, TARGET_COLLECTION);
             }
+            return data;
+        }).sorted(Comparator.comparing((Data data) -> (Integer) data.getHeaderValue())).collect(Collectors.toList());
 
-        });
-        //dataList.sort((o1, o2) -> ((Integer) o1.getHeaderValue()).compareTo((Integer) o2.getHeaderValue()));
         return getAggregatedDto(chartNode, dataList, requestDto.getVisualizationCode());
     }
 
     /**
      * Creates plot object for aggragation paths with datatype as string
+     * @param extractor
      * @param headerPath
      * @param bucket
      * @param plotMap
      */
-    private void addPlotFromBucketForString(String headerPath, JsonNode bucket, Map<String, Plot> plotMap){
+    private void addPlotFromBucketForString(AggregationPathExtractor extractor, String headerPath, JsonNode bucket, Map<String, Plot> plotMap){
         try{
-            JsonNode valueNode = bucket.findPath(headerPath);
-            String key = valueNode.findValue(IResponseHandler.KEY).asText();
+            JsonNode valueNode = extractor.find(bucket, headerPath, headerPath);
+            String key = extractor.find(valueNode, headerPath + "/" + KEY, KEY).asText();
             Plot plot = new Plot(headerPath, key, STRING_DATATYPE);
             plotMap.put(headerPath, plot);
         }
@@ -30,8 +30,16 @@ public class ComputedFieldHelper {
     }
 
     public void add(Data data, String newfield, String partField, String wholeField){
+        add(aggregateRequestDto, postAggrTheoryName, data, newfield, partField, wholeField);
+    }
+
+    /**
+     * Appends the computed field to the data, the request and post aggregation theory are passed in
+     * instead of being held by the helper so that rows can be computed concurrently
+     */
+    public void add(AggregateRequestDto aggregateRequestDto, String postAggrTheoryName, Data data, String newfield, String partField, String wholeField){
         try {
-            Map<String, Plot> plotMap = data.getPlots().stream().parallel().collect(Collectors.toMap(Plot::getName, Function.identity()));
+            Map<String, Plot> plotMap = data.getPlots().stream().collect(Collectors.toMap(Plot::getName, Function.identity()));
 
             if (plotMap.get(partField).getValue() == 0.0 || plotMap.get(wholeField).getValue() == 0.0) {
 
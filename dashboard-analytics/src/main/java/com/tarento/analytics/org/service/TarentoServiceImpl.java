@@ -1,9 +1,13 @@
 package com.tarento.analytics.org.service;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
@@ -12,7 +16,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -32,7 +35,8 @@ import com.tarento.analytics.handler.InsightsHandlerFactory;
 import com.tarento.analytics.handler.ResponseHandlerFactory;
 import com.tarento.analytics.model.InsightsConfiguration;
 import com.tarento.analytics.service.QueryService;
-import com.tarento.analytics.service.impl.RestService;
+import com.tarento.analytics.service.impl.ChartQueryExecutor;
+import com.tarento.analytics.service.impl.ChartQueryExecutor.ChartQuery;
 
 
 @Component
@@ -48,7 +52,7 @@ public class TarentoServiceImpl implements ClientService {
 	private QueryService queryService;
 
 	@Autowired
-	private RestService restService;
+	private ChartQueryExecutor chartQueryExecutor;
 
 	@Autowired
 	private ConfigurationLoader configurationLoader;
@@ -68,8 +72,6 @@ public class TarentoServiceImpl implements ClientService {
 		String internalChartId = request.getVisualizationCode();
 		ObjectNode aggrObjectNode = JsonNodeFactory.instance.objectNode();
 		ObjectNode insightAggrObjectNode = JsonNodeFactory.instance.objectNode();
-		ObjectNode nodes = JsonNodeFactory.instance.objectNode();
-		ObjectNode insightNodes = JsonNodeFactory.instance.objectNode();
 		Boolean continueWithInsight = Boolean.FALSE; 
 
 		// Load Chart API configuration to Object Node for easy retrieval later
@@ -84,7 +86,44 @@ public class TarentoServiceImpl implements ClientService {
 		boolean isRequestContainsInterval = null == request.getRequestDate() ? false : (request.getRequestDate().getInterval()!=null && !request.getRequestDate().getInterval().isEmpty()) ;
 		String interval = isRequestContainsInterval? request.getRequestDate().getInterval(): (isDefaultPresent ? chartNode.get(Constants.JsonPaths.INTERVAL).asText():"");
 
-		executeConfiguredQueries(chartNode, aggrObjectNode, nodes, request, interval);
+		List<ChartQuery> queries = buildConfiguredQueries(chartNode, request, interval);
+		List<ChartQuery> insightQueries = Collections.emptyList();
+		String visualizationCode = request.getVisualizationCode();
+		Map<String, Object> esFilters = request.getEsFilters();
+		Map<String, Object> insightEsFilters = null;
+		String insightStartDate = null;
+		String insightEndDate = null;
+
+		if(insightsConfig != null && StringUtils.isNotBlank(insightsConfig.getInsightInterval())) {
+			String startDate = request.getRequestDate().getStartDate();
+			String endDate = request.getRequestDate().getEndDate();
+			continueWithInsight = getInsightsDate(request, insightsConfig.getInsightInterval());
+			if(continueWithInsight) {
+				/*
+						Insight queries are built with updated RequestDates (updated in getInsightsDate which subtracted one interval from the dates)
+				*		and run along with the chart queries, the request is set back to the requested window till the chart is translated
+				* */
+				request.setVisualizationCode(insightPrefix + visualizationCode);
+				insightQueries = buildConfiguredQueries(chartNode, request, interval);
+				insightEsFilters = request.getEsFilters();
+				insightStartDate = request.getRequestDate().getStartDate();
+				insightEndDate = request.getRequestDate().getEndDate();
+
+				request.setVisualizationCode(visualizationCode);
+				request.setEsFilters(esFilters);
+				request.getRequestDate().setStartDate(startDate);
+				request.getRequestDate().setEndDate(endDate);
+			}
+		}
+
+		List<ObjectNode> results = chartQueryExecutor.execute(Arrays.asList(queries, insightQueries));
+		if(!queries.isEmpty()) {
+			aggrObjectNode.set(Constants.JsonPaths.AGGREGATIONS, results.get(0));
+		}
+		if(!insightQueries.isEmpty()) {
+			insightAggrObjectNode.set(Constants.JsonPaths.AGGREGATIONS, results.get(1));
+		}
+
 		request.setChartNode(chartNode);
 		IResponseHandler responseHandler = responseHandlerFactory.getInstance(chartType);
 		AggregateDto aggregateDto = new AggregateDto();
@@ -92,42 +131,36 @@ public class TarentoServiceImpl implements ClientService {
 			aggregateDto = responseHandler.translate(request, aggrObjectNode);
 		}
 		
-		if(insightsConfig != null && StringUtils.isNotBlank(insightsConfig.getInsightInterval())) { 
-			continueWithInsight = getInsightsDate(request, insightsConfig.getInsightInterval());
-			if(continueWithInsight) { 
-				String insightVisualizationCode = insightPrefix  + request.getVisualizationCode(); 
-				request.setVisualizationCode(insightVisualizationCode);
-				/*
-						Data is fetched with updated RequestDates (updated in getInsightsDate which subtracted one interval from the dates)
-				*
-				* */
-				executeConfiguredQueries(chartNode, insightAggrObjectNode, insightNodes, request, interval);
-
-				request.setChartNode(chartNode);
-				responseHandler = responseHandlerFactory.getInstance(chartType);
-				if(insightAggrObjectNode.fields().hasNext()){
-					responseHandler.translate(request, insightAggrObjectNode);
-				}
-				InsightsHandler insightsHandler = insightsHandlerFactory.getInstance(chartType);
-				aggregateDto = insightsHandler.getInsights(aggregateDto, request.getVisualizationCode(), request.getModuleLevel(), insightsConfig);
+		if(continueWithInsight) { 
+			request.setVisualizationCode(insightPrefix + visualizationCode);
+			request.setEsFilters(insightEsFilters);
+			request.getRequestDate().setStartDate(insightStartDate);
+			request.getRequestDate().setEndDate(insightEndDate);
+
+			request.setChartNode(chartNode);
+			responseHandler = responseHandlerFactory.getInstance(chartType);
+			if(insightAggrObjectNode.fields().hasNext()){
+				responseHandler.translate(request, insightAggrObjectNode);
 			}
+			InsightsHandler insightsHandler = insightsHandlerFactory.getInstance(chartType);
+			aggregateDto = insightsHandler.getInsights(aggregateDto, request.getVisualizationCode(), request.getModuleLevel(), insightsConfig);
 		}
 
 		return aggregateDto;
 	}
 
 	/**
-	 * Executes queries and enriches the respons in aggrObjectNode
+	 * Builds the Elasticsearch queries of the chart applicable to the requested module
 	 * @param chartNode The Chart Config defined in ChartApiConfig.json
-	 * @param aggrObjectNode Object in which response is enriched
-	 * @param nodes Don't know why passed as argument should have been defined in function itself
 	 * @param request The API request
 	 * @param interval Interval ( eg: Month) defines in RequestDate in AggregateRequestDto noot needed as seperate argument as it can
 	 *                 be fetched from  AggregateRequestDto
+	 * @return Queries in the configured order, executed together by ChartQueryExecutor
 	 */
-	private void executeConfiguredQueries(ObjectNode chartNode, ObjectNode aggrObjectNode, ObjectNode nodes, AggregateRequestDto request, String interval) {
+	private List<ChartQuery> buildConfiguredQueries(ObjectNode chartNode, AggregateRequestDto request, String interval) {
 		preHandle(request, chartNode, mdmsApiMappings);
 
+		List<ChartQuery> chartQueries = new ArrayList<>();
 		ArrayNode queries = (ArrayNode) chartNode.get(Constants.JsonPaths.QUERIES);
 		queries.forEach(query -> {
 			String module = query.get(Constants.JsonPaths.MODULE).asText();
@@ -138,20 +171,10 @@ public class TarentoServiceImpl implements ClientService {
 				
 				String indexName = query.get(Constants.JsonPaths.INDEX_NAME).asText();
 				ObjectNode objectNode = queryService.getChartConfigurationQuery(request, query, indexName, interval);
-				try {
-					JsonNode aggrNode = restService.search(indexName,objectNode.toString());
-					if(nodes.has(indexName)) { 
-						indexName = indexName + "_1";
-					}
-					nodes.set(indexName,aggrNode.get(Constants.JsonPaths.AGGREGATIONS));
-				}catch (Exception e) {
-					logger.error("Encountered an Exception while Executing the Query : " + e.getMessage());
-					throw new RuntimeException(e);
-				}
-				aggrObjectNode.set(Constants.JsonPaths.AGGREGATIONS, nodes);
-
+				chartQueries.add(new ChartQuery(indexName, objectNode.toString()));
 			}
 		});
+		return chartQueries;
 	}
 
 	/**
@@ -0,0 +1,162 @@
+package com.tarento.analytics.service.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tarento.analytics.constant.Constants;
+
+/**
+ * Runs the Elasticsearch queries of a chart concurrently on a bounded pool.
+ * The queries are submitted together, so each of them gets the configured timeout
+ * from the time of submission. The time taken by each query is logged against
+ * the index it was run on.
+ */
+@Component
+public class ChartQueryExecutor {
+
+	public static final Logger logger = LoggerFactory.getLogger(ChartQueryExecutor.class);
+
+	private static final String DUPLICATE_INDEX_SUFFIX = "_1";
+
+	private RestService restService;
+
+	private long queryTimeout;
+
+	private ExecutorService executor;
+
+	@Autowired
+	public ChartQueryExecutor(RestService restService, @Value("${egov.dashboard.query.pool.size}") int poolSize,
+			@Value("${egov.dashboard.query.queue.size}") int queueSize,
+			@Value("${egov.dashboard.query.timeout.ms}") long queryTimeout) {
+		this.restService = restService;
+		this.queryTimeout = queryTimeout;
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(queueSize), new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Submits the queries of all the groups to Elasticsearch together and waits for all of them
+	 * @param queryGroups Groups of index name and query pairs in the order configured for the chart,
+	 *                    eg: the queries of the requested window and of the insight window
+	 * @return Aggregations of every group keyed by index name, a repeated index is suffixed with _1
+	 */
+	public List<ObjectNode> execute(List<List<ChartQuery>> queryGroups) {
+		Map<String, Long> timings = new LinkedHashMap<>();
+		long startTime = System.currentTimeMillis();
+
+		List<CompletableFuture<TimedResponse>> futures = new ArrayList<>();
+		queryGroups.forEach(queries -> queries.forEach(query -> futures.add(CompletableFuture.supplyAsync(() -> {
+			long queryStart = System.currentTimeMillis();
+			JsonNode response = restService.search(query.getIndexName(), query.getQuery());
+			return new TimedResponse(response, System.currentTimeMillis() - queryStart);
+		}, executor))));
+
+		List<ObjectNode> results = new ArrayList<>();
+		int next = 0;
+		for (int group = 0; group < queryGroups.size(); group++) {
+			ObjectNode nodes = JsonNodeFactory.instance.objectNode();
+			for (ChartQuery query : queryGroups.get(group)) {
+				String indexName = query.getIndexName();
+				TimedResponse timedResponse = await(indexName, futures.get(next++), futures, startTime + queryTimeout);
+				if (timedResponse.response == null) {
+					cancel(futures);
+					logger.error("Encountered an Exception while Executing the Query on index : " + indexName);
+					throw new RuntimeException("No response from Elasticsearch for index " + indexName);
+				}
+				if (nodes.has(indexName)) {
+					indexName = indexName + DUPLICATE_INDEX_SUFFIX;
+				}
+				timings.put(group + ":" + indexName, timedResponse.took);
+				nodes.set(indexName, timedResponse.response.get(Constants.JsonPaths.AGGREGATIONS));
+			}
+			results.add(nodes);
+		}
+
+		logger.info("Chart query timings - " + timings + ", total: " + (System.currentTimeMillis() - startTime) + "ms");
+		return results;
+	}
+
+	private TimedResponse await(String indexName, CompletableFuture<TimedResponse> future,
+			List<CompletableFuture<TimedResponse>> futures, long deadline) {
+		try {
+			return future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			cancel(futures);
+			logger.error("Query on index " + indexName + " timed out after " + queryTimeout + "ms");
+			throw new RuntimeException("Timed out while querying index " + indexName, e);
+		} catch (ExecutionException e) {
+			cancel(futures);
+			logger.error("Encountered an Exception while Executing the Query : " + e.getCause().getMessage());
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			cancel(futures);
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void cancel(List<CompletableFuture<TimedResponse>> futures) {
+		futures.forEach(future -> future.cancel(true));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * A query of a chart ready to be sent to Elasticsearch
+	 */
+	public static class ChartQuery {
+
+		private String indexName;
+
+		private String query;
+
+		public ChartQuery(String indexName, String query) {
+			this.indexName = indexName;
+			this.query = query;
+		}
+
+		public String getIndexName() {
+			return indexName;
+		}
+
+		public String getQuery() {
+			return query;
+		}
+	}
+
+	private static class TimedResponse {
+
+		private JsonNode response;
+
+		private long took;
+
+		private TimedResponse(JsonNode response, long took) {
+			this.response = response;
+			this.took = took;
+		}
+	}
+
+}
@@ -0,0 +1,268 @@
+package com.tarento.analytics.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tarento.analytics.ConfigurationLoader;
+import com.tarento.analytics.constant.Constants;
+import com.tarento.analytics.dto.AggregateRequestDto;
+import com.tarento.analytics.dto.RoleDto;
+import com.tarento.analytics.exception.AINException;
+
+/**
+ * Holds the chart responses keyed by the normalized chart request and the tenant and roles
+ * it was requested for.
+ *
+ * Responses expire after the ttl configured for the chart type, responses of a date window
+ * that closed before today are kept for the longer history ttl. The least recently used
+ * responses are evicted once the cache is full. Identical requests arriving while a response
+ * is being computed wait for that computation instead of querying Elasticsearch again.
+ */
+@Component
+public class ChartResponseCache {
+
+	public static final Logger logger = LoggerFactory.getLogger(ChartResponseCache.class);
+
+	private static final ObjectMapper KEY_MAPPER = new ObjectMapper()
+			.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+			.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+
+	private ConfigurationLoader configurationLoader;
+
+	private boolean enabled;
+
+	private long defaultTtl;
+
+	private long historyTtl;
+
+	private Map<String, Integer> chartTypeTtl;
+
+	private final Map<String, Entry> cache;
+
+	private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong collapsed = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	@Autowired
+	public ChartResponseCache(ConfigurationLoader configurationLoader,
+			@Value("${egov.dashboard.cache.enabled}") boolean enabled,
+			@Value("${egov.dashboard.cache.max.entries}") int maxEntries,
+			@Value("${egov.dashboard.cache.ttl.seconds}") long defaultTtl,
+			@Value("${egov.dashboard.cache.history.ttl.seconds}") long historyTtl,
+			@Value("#{${egov.dashboard.cache.chart.ttl.seconds}}") Map<String, Integer> chartTypeTtl) {
+		this.configurationLoader = configurationLoader;
+		this.enabled = enabled;
+		this.defaultTtl = defaultTtl;
+		this.historyTtl = historyTtl;
+		this.chartTypeTtl = chartTypeTtl;
+		this.cache = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				boolean evict = size() > maxEntries;
+				if (evict)
+					evictions.incrementAndGet();
+				return evict;
+			}
+		});
+	}
+
+	/**
+	 * Returns the response of the chart request from the cache, computing it on a miss
+	 * @param request The chart request, the key is taken before the request is handed to the loader
+	 * @param tenantId Tenant from the request headers
+	 * @param roles Roles of the user
+	 * @param loader Computes the response of the chart
+	 * @return Response of the chart
+	 */
+	public String get(AggregateRequestDto request, Object tenantId, List<RoleDto> roles, ResponseLoader loader)
+			throws AINException, IOException {
+		if (!enabled)
+			return loader.load();
+
+		String key = getKey(request, tenantId, roles);
+		Entry entry = cache.get(key);
+		if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+			hits.incrementAndGet();
+			return entry.response;
+		}
+
+		CompletableFuture<String> computation = new CompletableFuture<>();
+		CompletableFuture<String> running = inFlight.computeIfAbsent(key, k -> computation);
+		if (running != computation) {
+			collapsed.incrementAndGet();
+			return await(running);
+		}
+
+		try {
+			entry = cache.get(key);
+			if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+				hits.incrementAndGet();
+				computation.complete(entry.response);
+				return entry.response;
+			}
+
+			misses.incrementAndGet();
+			long ttl = getTtl(request);
+			String response = loader.load();
+			cache.put(key, new Entry(response, System.currentTimeMillis() + ttl * 1000));
+			computation.complete(response);
+			return response;
+		} catch (AINException | IOException | RuntimeException e) {
+			computation.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, computation);
+		}
+	}
+
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("enabled", enabled);
+		stats.put("size", cache.size());
+		stats.put("hits", hits.get());
+		stats.put("misses", misses.get());
+		stats.put("collapsed", collapsed.get());
+		stats.put("evictions", evictions.get());
+		return stats;
+	}
+
+	public void clear() {
+		cache.clear();
+		logger.info("Chart response cache cleared, stats : " + getStats());
+	}
+
+	private String await(CompletableFuture<String> running) throws AINException, IOException {
+		try {
+			return running.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof AINException)
+				throw (AINException) e.getCause();
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Ttl of the chart type, or the history ttl when the requested window ended before today
+	 */
+	private long getTtl(AggregateRequestDto request) {
+		if (request.getRequestDate() != null && StringUtils.isNumeric(request.getRequestDate().getEndDate())) {
+			Calendar today = Calendar.getInstance();
+			today.set(Calendar.HOUR_OF_DAY, 0);
+			today.set(Calendar.MINUTE, 0);
+			today.set(Calendar.SECOND, 0);
+			today.set(Calendar.MILLISECOND, 0);
+			if (Long.parseLong(request.getRequestDate().getEndDate()) < today.getTimeInMillis())
+				return historyTtl;
+		}
+
+		ObjectNode chartNode = (ObjectNode) configurationLoader.get(Constants.ConfigurationFiles.CHART_API_CONFIG)
+				.get(request.getVisualizationCode());
+		JsonNode chartType = chartNode == null ? null : chartNode.get(Constants.JsonPaths.CHART_TYPE);
+		if (chartType != null && chartTypeTtl.containsKey(chartType.asText()))
+			return chartTypeTtl.get(chartType.asText());
+		return defaultTtl;
+	}
+
+	/**
+	 * Builds the key from the fields of the request which decide the response, maps are
+	 * written with sorted keys and the values of list filters are sorted, so that the order
+	 * of the filters and of their values does not matter
+	 */
+	private String getKey(AggregateRequestDto request, Object tenantId, List<RoleDto> roles) {
+		Map<String, Object> key = new TreeMap<>();
+		key.put("visualizationCode", request.getVisualizationCode());
+		key.put("visualizationType", request.getVisualizationType());
+		key.put("moduleLevel", request.getModuleLevel());
+		key.put("queryType", request.getQueryType());
+		key.put("filters", sortValues(request.getFilters()));
+		key.put("aggregationFactors", request.getAggregationFactors());
+		key.put("requestDate", request.getRequestDate());
+		key.put("interval", request.getInterval());
+		key.put("tenantId", tenantId);
+		if (roles != null) {
+			TreeSet<String> roleNames = new TreeSet<>();
+			roles.forEach(role -> roleNames.add(String.valueOf(role.getName())));
+			key.put("roles", roleNames);
+		}
+		try {
+			return KEY_MAPPER.writeValueAsString(key);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static Map<String, Object> sortValues(Map<String, Object> filters) {
+		if (filters == null)
+			return null;
+		Map<String, Object> sorted = new TreeMap<>();
+		filters.forEach((name, value) -> {
+			if (value instanceof Collection) {
+				List<Object> values = new ArrayList<>((Collection<?>) value);
+				values.sort(Comparator.comparing(String::valueOf));
+				sorted.put(name, values);
+			} else
+				sorted.put(name, value);
+		});
+		return sorted;
+	}
+
+	/**
+	 * Computes the response of a chart request
+	 */
+	@FunctionalInterface
+	public interface ResponseLoader {
+		String load() throws AINException, IOException;
+	}
+
+	private static class Entry {
+
+		private String response;
+
+		private long expiresAt;
+
+		private Entry(String response, long expiresAt) {
+			this.response = response;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
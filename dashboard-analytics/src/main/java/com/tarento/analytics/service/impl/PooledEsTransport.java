@@ -0,0 +1,150 @@
+package com.tarento.analytics.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.entity.NStringEntity;
+import org.apache.tomcat.util.codec.binary.Base64;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.apache.commons.codec.CharEncoding.US_ASCII;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Sends search queries to Elasticsearch over a single shared low level rest client.
+ * The client keeps a pool of connections per Elasticsearch host and the response
+ * body is parsed straight from the stream into a JsonNode.
+ *
+ * Created only when egov.es.transport.mode is pooled, RestService uses it in place
+ * of the rest template for searches. Searches failing with a 5xx status or an I/O error
+ * are retried with a fixed back off, through a spring-retry template held by the transport
+ * so that the retries do not depend on @Retryable proxies.
+ */
+@Component
+@ConditionalOnProperty(name = "egov.es.transport.mode", havingValue = "pooled")
+public class PooledEsTransport {
+
+	public static final Logger LOGGER = LoggerFactory.getLogger(PooledEsTransport.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final String POST = "POST";
+
+	private final RestClient restClient;
+
+	private final String searchPath;
+
+	private final org.springframework.retry.support.RetryTemplate searchRetry;
+
+	public PooledEsTransport(@Value("${egov.es.transport.hosts:${services.esindexer.host}}") String hosts,
+			@Value("${egov.services.esindexer.host.search}") String searchPath,
+			@Value("${egov.es.username}") String userName, @Value("${egov.es.password}") String password,
+			@Value("${egov.es.transport.max.connections.per.host}") int maxConnectionsPerHost,
+			@Value("${egov.es.transport.max.connections.total}") int maxConnectionsTotal,
+			@Value("${egov.es.transport.connect.timeout.ms}") int connectTimeout,
+			@Value("${egov.es.transport.socket.timeout.ms}") int socketTimeout,
+			@Value("${egov.es.transport.retry.max.attempts}") int retryMaxAttempts,
+			@Value("${egov.es.transport.retry.backoff.delay.ms}") long retryBackoffDelay) {
+		this.searchPath = searchPath;
+
+		FixedBackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+		backOffPolicy.setBackOffPeriod(retryBackoffDelay);
+		this.searchRetry = new org.springframework.retry.support.RetryTemplate();
+		this.searchRetry.setRetryPolicy(new SimpleRetryPolicy(retryMaxAttempts,
+				Collections.singletonMap(RuntimeException.class, true)));
+		this.searchRetry.setBackOffPolicy(backOffPolicy);
+
+		List<HttpHost> httpHosts = new ArrayList<>();
+		String pathPrefix = null;
+		for (String host : hosts.split(",")) {
+			URI uri = URI.create(host.trim());
+			httpHosts.add(new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme()));
+			if (StringUtils.isNotBlank(StringUtils.strip(uri.getPath(), "/")))
+				pathPrefix = "/" + StringUtils.strip(uri.getPath(), "/");
+		}
+
+		String authString = String.format("%s:%s", userName, password);
+		Header authHeader = new BasicHeader(AUTHORIZATION,
+				"Basic " + new String(Base64.encodeBase64(authString.getBytes(Charset.forName(US_ASCII)))));
+
+		RestClientBuilder builder = RestClient.builder(httpHosts.toArray(new HttpHost[0]))
+				.setDefaultHeaders(new Header[] { authHeader })
+				.setMaxRetryTimeoutMillis(socketTimeout)
+				.setRequestConfigCallback(requestConfig -> requestConfig.setConnectTimeout(connectTimeout)
+						.setSocketTimeout(socketTimeout))
+				.setHttpClientConfigCallback(httpClient -> httpClient.setMaxConnPerRoute(maxConnectionsPerHost)
+						.setMaxConnTotal(maxConnectionsTotal));
+		if (pathPrefix != null)
+			builder.setPathPrefix(pathPrefix);
+		this.restClient = builder.build();
+		LOGGER.info("Pooled Elasticsearch transport created for hosts " + httpHosts + " with " + maxConnectionsPerHost
+				+ " connections per host");
+	}
+
+	/**
+	 * search on Elastic search for a search query
+	 * @param index           elastic search index name against which search operation
+	 * @param searchQuery     search query as request body
+	 * @return response of the search, null when Elasticsearch rejects the query
+	 */
+	public JsonNode search(String index, String searchQuery) {
+		return searchRetry.execute(context -> {
+			if (context.getRetryCount() > 0)
+				LOGGER.info("Retrying ES search on index " + index + ", attempt " + (context.getRetryCount() + 1));
+			return send(index, searchQuery);
+		});
+	}
+
+	private JsonNode send(String index, String searchQuery) {
+		LOGGER.info("Index Name : " + index);
+		LOGGER.debug("Searching ES for Query: {}", searchQuery);
+		try {
+			Response response = restClient.performRequest(POST, "/" + index + searchPath, Collections.emptyMap(),
+					new NStringEntity(searchQuery, ContentType.APPLICATION_JSON));
+			try (InputStream content = response.getEntity().getContent()) {
+				JsonNode responseNode = MAPPER.readTree(content);
+				LOGGER.debug("Elasticsearch response :- {}", responseNode);
+				return responseNode;
+			}
+		} catch (ResponseException e) {
+			if (e.getResponse().getStatusLine().getStatusCode() >= 500)
+				throw new RuntimeException(e);
+			LOGGER.error("client error while searching ES : " + e.getMessage());
+			return null;
+		} catch (IOException e) {
+			LOGGER.error("Encountered an Exception while searching ES : " + e.getMessage());
+			throw new RuntimeException(e);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() throws IOException {
+		restClient.close();
+	}
+
+}
@@ -39,6 +39,11 @@ public class RestService {
     @Autowired
     private RetryTemplate retryTemplate;
 
+    @Autowired(required = false)
+    private PooledEsTransport pooledEsTransport;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
 
     /**
      * search on Elastic search for a search query
@@ -49,6 +54,9 @@ public class RestService {
      */
     public JsonNode search(String index, String searchQuery) {
 
+        if (pooledEsTransport != null)
+            return pooledEsTransport.search(index, searchQuery);
+
         String url =( indexServiceHost) + index + indexServiceHostSearch;
         HttpHeaders headers = getHttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -60,7 +68,7 @@ public class RestService {
 
         try {
             ResponseEntity<Object> response = retryTemplate.postForEntity(url, requestEntity);
-            responseNode = new ObjectMapper().convertValue(response.getBody(), JsonNode.class);
+            responseNode = MAPPER.convertValue(response.getBody(), JsonNode.class);
             LOGGER.info("RestTemplate response :- "+responseNode);
 
         } catch (HttpClientErrorException e) {
@@ -94,7 +102,7 @@ public class RestService {
 
         try {
             ResponseEntity<Object> response = retryTemplate.postForEntity(uri,requestEntity);
-            responseNode = new ObjectMapper().convertValue(response.getBody(), JsonNode.class);
+            responseNode = MAPPER.convertValue(response.getBody(), JsonNode.class);
             LOGGER.info("RestTemplate response :- "+responseNode);
 
         } catch (HttpClientErrorException e) {
@@ -120,7 +128,7 @@ public class RestService {
         JsonNode responseNode = null;
         try {
             ResponseEntity<Object> response = retryTemplate.getForEntity(uri, headerEntity);
-            responseNode = new ObjectMapper().convertValue(response.getBody(), JsonNode.class);
+            responseNode = MAPPER.convertValue(response.getBody(), JsonNode.class);
             LOGGER.info("RestTemplate response :- "+responseNode);
 
         } catch (HttpClientErrorException e) {
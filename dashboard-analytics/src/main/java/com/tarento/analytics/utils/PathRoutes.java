@@ -20,6 +20,8 @@ public interface PathRoutes {
 		final String GET_HEADER_DATA = "/getDashboardHeader";
 		final String GET_FEEDBACK_MESSAGE="/getPulseFeedbackMessage";
 		final String TARGET_DISTRICT_ULB = "/targetDistrict";
+		final String CHART_CACHE_STATS = "/chartCache/stats";
+		final String CHART_CACHE_CLEAR = "/chartCache/clear";
 
 	}
 	
@@ -0,0 +1,89 @@
+package com.tarento.analytics.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tarento.analytics.handler.AggregationPathExtractor;
+
+/**
+ * Reads the value and doc_count of each aggregation path from the buckets of a table chart
+ * response with findValue, as the handlers did, against the extractor reading them through
+ * the pointers learned on the first bucket.
+ *
+ * Run the main method on the test classpath, it is not run by the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationPathExtractorBenchmark {
+
+	private static final String[] PATHS = { "Total Collection", "Transactions", "Assessed Properties", "Rebate" };
+	private static final int BUCKETS = 500;
+
+	private AggregationPathExtractor extractor;
+
+	private List<JsonNode> buckets;
+
+	@Setup
+	public void setUp() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		StringBuilder chart = new StringBuilder("{\"aggregationPaths\":[");
+		for (int i = 0; i < PATHS.length; i++)
+			chart.append(i == 0 ? "" : ",").append('"').append(PATHS[i]).append('"');
+		extractor = new AggregationPathExtractor(mapper.readTree(chart.append("]}").toString()));
+
+		buckets = new ArrayList<>();
+		for (int i = 0; i < BUCKETS; i++) {
+			StringBuilder bucket = new StringBuilder("{\"key\":\"pb.tenant" + i + "\",\"doc_count\":" + i);
+			for (String path : PATHS)
+				bucket.append(",\"").append(path).append("\":{\"doc_count\":").append(i)
+						.append(",\"Sum\":{\"value\":").append(i * 10.5).append("}}");
+			buckets.add(mapper.readTree(bucket.append('}').toString()));
+		}
+	}
+
+	@Benchmark
+	public void findValue(Blackhole blackhole) {
+		for (JsonNode bucket : buckets)
+			for (String path : PATHS) {
+				JsonNode valueNode = bucket.findValue(path);
+				blackhole.consume(valueNode.findValue("doc_count"));
+				blackhole.consume(valueNode.findValue("value"));
+			}
+	}
+
+	@Benchmark
+	public void learnedPointers(Blackhole blackhole) {
+		for (JsonNode bucket : buckets)
+			for (String path : PATHS) {
+				JsonNode valueNode = extractor.find(bucket, path, path);
+				blackhole.consume(extractor.find(valueNode, path + "/doc_count", "doc_count"));
+				blackhole.consume(extractor.find(valueNode, path + "/value", "value"));
+			}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(AggregationPathExtractorBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
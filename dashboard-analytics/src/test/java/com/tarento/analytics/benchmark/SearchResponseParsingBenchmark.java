@@ -0,0 +1,91 @@
+package com.tarento.analytics.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Parses a search response of a terms aggregation the way each ES transport does: the rest
+ * template reads the body into an Object map which RestService converts to a JsonNode, the
+ * pooled transport reads the body stream straight into a JsonNode. The body has a bucket per
+ * term with a date histogram and sum sub aggregations, 20000 buckets come to about 13 MB.
+ *
+ * Run the main method on the test classpath, it is not run by the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+public class SearchResponseParsingBenchmark {
+
+	private static final String[] PATHS = { "Total Collection", "Transactions", "Rebate" };
+	private static final int MONTHS = 6;
+
+	@Param({ "2000", "20000" })
+	public int buckets;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private byte[] body;
+
+	@Setup
+	public void setUp() {
+		StringBuilder response = new StringBuilder("{\"took\":412,\"timed_out\":false,")
+				.append("\"_shards\":{\"total\":5,\"successful\":5,\"skipped\":0,\"failed\":0},")
+				.append("\"hits\":{\"total\":").append(buckets * 40).append(",\"max_score\":0.0,\"hits\":[]},")
+				.append("\"aggregations\":{\"Tenant\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,")
+				.append("\"buckets\":[");
+		for (int i = 0; i < buckets; i++) {
+			response.append(i == 0 ? "" : ",").append("{\"key\":\"pb.tenant").append(i).append("\",\"doc_count\":")
+					.append(40 + i % 7).append(",\"Month\":{\"buckets\":[");
+			for (int month = 0; month < MONTHS; month++) {
+				response.append(month == 0 ? "" : ",").append("{\"key_as_string\":\"2019-0").append(month + 1)
+						.append("-01T00:00:00.000Z\",\"key\":").append(1546300800000L + month * 2678400000L)
+						.append(",\"doc_count\":").append(5 + month).append('}');
+			}
+			response.append("]}");
+			for (String path : PATHS)
+				response.append(",\"").append(path).append("\":{\"value\":").append(i * 125.75).append('}');
+			response.append('}');
+		}
+		body = response.append("]}}}").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public JsonNode mapThenConvertValue() throws Exception {
+		Object responseBody = mapper.readValue(body, Object.class);
+		return mapper.convertValue(responseBody, JsonNode.class);
+	}
+
+	@Benchmark
+	public JsonNode streamToJsonNode() throws Exception {
+		try (InputStream content = new ByteArrayInputStream(body)) {
+			return mapper.readTree(content);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(SearchResponseParsingBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
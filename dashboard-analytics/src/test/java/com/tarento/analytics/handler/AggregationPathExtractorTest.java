@@ -0,0 +1,78 @@
+package com.tarento.analytics.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Checks the values read through the learned pointers are the ones findValue returns for
+ * buckets sharing a layout, and which values are returned for buckets whose layout differs
+ * from the bucket the pointer was learned from
+ */
+public class AggregationPathExtractorTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private AggregationPathExtractor extractor;
+
+	@Before
+	public void setUp() throws Exception {
+		extractor = new AggregationPathExtractor(mapper.readTree("{\"aggregationPaths\":[\"Total Collection\"],"
+				+ "\"pathDataTypeMapping\":[{\"Total Collection\":\"amount\"}]}"));
+	}
+
+	@Test
+	public void compilesThePathsAndTheirDataTypes() {
+		assertEquals(1, extractor.getAggsPaths().size());
+		assertEquals("amount", extractor.getDataType("Total Collection"));
+		assertNull(extractor.getDataType("Transactions"));
+	}
+
+	@Test
+	public void readsTheValuesOfBucketsSharingALayoutThroughThePointer() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			JsonNode bucket = mapper.readTree("{\"key\":\"pb.amritsar\",\"doc_count\":" + i
+					+ ",\"Total Collection\":{\"value\":" + (i * 100.5) + "}}");
+			assertSame(bucket.findValue("value"), extractor.find(bucket, "Total Collection/value", "value"));
+		}
+	}
+
+	@Test
+	public void searchesAgainWhenThePointerResolvesToAnotherType() throws Exception {
+		JsonNode first = mapper.readTree("{\"key\":\"pb.amritsar\",\"Total Collection\":{\"value\":100}}");
+		JsonNode second = mapper.readTree("{\"key\":\"pb.jalandhar\",\"value\":250,\"Total Collection\":{\"value\":{\"sum\":1}}}");
+		JsonNode third = mapper.readTree("{\"key\":\"pb.patiala\",\"Total Collection\":{\"value\":300}}");
+
+		assertSame(first.findValue("value"), extractor.find(first, "value", "value"));
+		assertSame(second.findValue("value"), extractor.find(second, "value", "value"));
+		assertEquals(250, extractor.find(second, "value", "value").asInt());
+		assertSame(third.findValue("value"), extractor.find(third, "value", "value"));
+	}
+
+	@Test
+	public void keepsToTheLearnedPositionWhileThePointerResolves() throws Exception {
+		JsonNode first = mapper.readTree("{\"key\":\"pb.amritsar\",\"Total Collection\":{\"value\":100}}");
+		JsonNode second = mapper.readTree("{\"key\":\"pb.jalandhar\",\"value\":250,\"Total Collection\":{\"value\":300}}");
+
+		extractor.find(first, "value", "value");
+
+		assertEquals(250, second.findValue("value").asInt());
+		assertEquals(300, extractor.find(second, "value", "value").asInt());
+	}
+
+	@Test
+	public void returnsNullForMissingFields() throws Exception {
+		JsonNode bucket = mapper.readTree("{\"key\":\"pb.amritsar\",\"Total Collection\":{\"value\":100}}");
+		extractor.find(bucket, "value", "value");
+
+		assertNull(extractor.find(mapper.readTree("{\"key\":\"pb.patiala\"}"), "value", "value"));
+		assertNull(extractor.find(null, "value", "value"));
+	}
+
+}
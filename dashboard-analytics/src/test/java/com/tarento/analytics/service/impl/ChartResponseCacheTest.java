@@ -0,0 +1,145 @@
+package com.tarento.analytics.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tarento.analytics.ConfigurationLoader;
+import com.tarento.analytics.dto.AggregateRequestDto;
+import com.tarento.analytics.dto.RoleDto;
+
+/**
+ * Checks requests differing only in the order of their filters share a response, and that
+ * identical requests arriving together compute the response once
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ChartResponseCacheTest {
+
+	private static final String TENANT_ID = "pb.amritsar";
+
+	@Mock
+	private ConfigurationLoader configurationLoader;
+
+	private ChartResponseCache chartResponseCache;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() throws Exception {
+		when(configurationLoader.get(anyString())).thenReturn(
+				(ObjectNode) new ObjectMapper().readTree("{\"totalCollection\":{\"chartType\":\"metric\"}}"));
+		Map<String, Integer> chartTypeTtl = new HashMap<>();
+		chartTypeTtl.put("metric", 300);
+		chartResponseCache = new ChartResponseCache(configurationLoader, true, 100, 60, 3600, chartTypeTtl);
+		executor = Executors.newFixedThreadPool(8);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void sharesTheResponseOfFiltersGivenInAnotherOrder() throws Exception {
+		Map<String, Object> filters = new LinkedHashMap<>();
+		filters.put("tenantId", Arrays.asList("pb.jalandhar", "pb.amritsar"));
+		filters.put("ward", "B1");
+		Map<String, Object> reordered = new LinkedHashMap<>();
+		reordered.put("ward", "B1");
+		reordered.put("tenantId", Arrays.asList("pb.amritsar", "pb.jalandhar"));
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals("response", chartResponseCache.get(request(filters), TENANT_ID, roles("EMPLOYEE", "SUPERUSER"),
+				() -> load(loads)));
+		assertEquals("response", chartResponseCache.get(request(reordered), TENANT_ID, roles("SUPERUSER", "EMPLOYEE"),
+				() -> load(loads)));
+		chartResponseCache.get(request(Collections.singletonMap("ward", "B2")), TENANT_ID, roles("EMPLOYEE"),
+				() -> load(loads));
+
+		assertEquals(2, loads.get());
+		assertEquals(1L, chartResponseCache.getStats().get("hits"));
+	}
+
+	@Test
+	public void computesTheResponseOnceForIdenticalRequestsArrivingTogether() throws Exception {
+		int requests = 8;
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+		List<Future<String>> responses = new ArrayList<>();
+		for (int i = 0; i < requests; i++)
+			responses.add(executor.submit(() -> chartResponseCache.get(request(Collections.singletonMap("ward", "B1")),
+					TENANT_ID, roles("EMPLOYEE"), () -> {
+						loading.countDown();
+						await(release);
+						return load(loads);
+					})));
+
+		loading.await(10, TimeUnit.SECONDS);
+		long deadline = System.currentTimeMillis() + 10000;
+		while ((Long) chartResponseCache.getStats().get("collapsed") < requests - 1 && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		release.countDown();
+
+		for (Future<String> response : responses)
+			assertEquals("response", response.get(10, TimeUnit.SECONDS));
+		assertEquals(1, loads.get());
+		assertEquals(1L, chartResponseCache.getStats().get("misses"));
+	}
+
+	private void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private String load(AtomicInteger loads) {
+		loads.incrementAndGet();
+		return "response";
+	}
+
+	private AggregateRequestDto request(Map<String, Object> filters) {
+		AggregateRequestDto request = new AggregateRequestDto();
+		request.setVisualizationCode("totalCollection");
+		request.setVisualizationType("METRIC");
+		request.setModuleLevel("home_revenue");
+		request.setFilters(filters);
+		return request;
+	}
+
+	private List<RoleDto> roles(String... names) {
+		List<RoleDto> roles = new ArrayList<>();
+		for (String name : names) {
+			RoleDto role = new RoleDto();
+			role.setName(name);
+			roles.add(role);
+		}
+		return roles;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.tarento.analytics.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks searches failing with a server error are retried by the transport itself, and that
+ * rejected queries are neither retried nor thrown
+ */
+public class PooledEsTransportTest {
+
+	private static final String QUERY = "{\"size\":0,\"aggs\":{}}";
+
+	private HttpServer server;
+
+	private PooledEsTransport transport;
+
+	private final AtomicInteger requests = new AtomicInteger();
+
+	private volatile int[] statuses;
+
+	@Before
+	public void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange -> {
+			int request = requests.getAndIncrement();
+			int status = statuses[Math.min(request, statuses.length - 1)];
+			byte[] body = (status == 200 ? "{\"took\":1,\"aggregations\":{}}" : "{\"error\":{}}")
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		transport = new PooledEsTransport("http://localhost:" + server.getAddress().getPort() + "/", "/_search",
+				"elastic", "changeme", 2, 2, 1000, 5000, 3, 0);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		transport.shutdown();
+		server.stop(0);
+	}
+
+	@Test
+	public void retriesASearchFailingWithAServerError() {
+		statuses = new int[] { 500, 500, 200 };
+
+		JsonNode response = transport.search("collectionsindex-v1", QUERY);
+
+		assertEquals(1, response.get("took").asInt());
+		assertEquals(3, requests.get());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void throwsOnceTheAttemptsAreUsedUp() {
+		statuses = new int[] { 500 };
+
+		try {
+			transport.search("collectionsindex-v1", QUERY);
+		} finally {
+			assertEquals(3, requests.get());
+		}
+	}
+
+	@Test
+	public void returnsNullForARejectedQueryWithoutRetrying() {
+		statuses = new int[] { 400, 200 };
+
+		assertNull(transport.search("collectionsindex-v1", QUERY));
+		assertEquals(1, requests.get());
+	}
+
+}
@@ -1,5 +1,6 @@
 package com.ingestpipeline;
 
+import com.ingestpipeline.service.ChainrRegistry;
 import com.ingestpipeline.service.IngestServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,11 +38,14 @@ public class AppStartupRunner implements ApplicationRunner {
 
 	  @Autowired IngestServiceImpl ingestService;
 
+	  @Autowired ChainrRegistry chainrRegistry;
+
     @SuppressWarnings("static-access")
 	@Override
     public void run(ApplicationArguments args) throws Exception {
     	logger.info("On Boot starts loading: config resources ");
 		configLoader.loadResources();
+		chainrRegistry.compileAll();
 		for(DomainConfig domainConfig : domainConfigFactory.getAllConfigs()) { 
 			domainConfig.loadDomains(); 
 		}
@@ -73,6 +73,17 @@ public class ConsumerConfigurations {
         return factory;
     }
 
+    /**
+     * Delivers the records of a poll together, for the consumers which process them as a batch
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Map> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Map> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(kafkaConsumerFactory());
+        factory.setBatchListener(true);
+        return factory;
+    }
+
     
     
     /*@Bean
@@ -1,5 +1,7 @@
 package com.ingestpipeline.consumer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -17,7 +19,7 @@ import com.ingestpipeline.service.IESService;
 import com.ingestpipeline.util.Constants;
 
 @Service
-public class EnrichmentConsumer implements KafkaConsumer {
+public class EnrichmentConsumer {
 
 	public static final Logger LOGGER = LoggerFactory.getLogger(EnrichmentConsumer.class);
 	private static final String ERROR_INTENT = "DataError";
@@ -41,19 +43,37 @@ public class EnrichmentConsumer implements KafkaConsumer {
 	@Autowired
 	private IESService elasticService;
 
-	@KafkaListener(id = INTENT, groupId = INTENT, topics = { Constants.KafkaTopics.TRANSFORMED_DATA}, containerFactory = Constants.BeanContainerFactory.INCOMING_KAFKA_LISTENER)
-	public void processMessage(final Map incomingData,
-			@Header(KafkaHeaders.RECEIVED_TOPIC) final String topic) {
+	/**
+	 * Receives the records of a poll together, so that their domain lookups are resolved in one go
+	 */
+	@KafkaListener(id = INTENT, groupId = INTENT, topics = { Constants.KafkaTopics.TRANSFORMED_DATA}, containerFactory = Constants.BeanContainerFactory.BATCH_KAFKA_LISTENER, concurrency = "${kafka.consumer.config.enrichment_concurrency}", autoStartup = Constants.PipelineMode.STAGE_CONSUMERS_AUTO_STARTUP)
+	public void processMessage(final List<Map> incomingRecords,
+			@Header(KafkaHeaders.RECEIVED_TOPIC) final List<String> topics) {
 
-		LOGGER.info("##KafkaMessageAlert## : key:" + topic + ":" + "value:" + incomingData.size());
+		LOGGER.info("##KafkaMessageAlert## : key:" + topics.get(0) + ":" + "records:" + incomingRecords.size());
 
-		if(incomingData.get(Constants.DATA_CONTEXT) != null && !incomingData.get(Constants.DATA_CONTEXT).equals(Constants.TransformationType.COLLECTION) ){
-			push(incomingData, null);
-		} else {
-			for(Object key : incomingData.keySet()){
-				push((Map)incomingData.get(key), key.toString());
+		List<Map> records = new ArrayList<>();
+		List<String> docIds = new ArrayList<>();
+		for (Map incomingData : incomingRecords) {
+			if(incomingData.get(Constants.DATA_CONTEXT) != null && !incomingData.get(Constants.DATA_CONTEXT).equals(Constants.TransformationType.COLLECTION) ){
+				records.add(incomingData);
+				docIds.add(null);
+			} else {
+				for(Object key : incomingData.keySet()){
+					records.add((Map)incomingData.get(key));
+					docIds.add(key.toString());
+				}
 			}
 		}
+
+		try {
+			enrichmentService.prefetch(records);
+		} catch (final Exception e) {
+			LOGGER.error("Exception Encountered while prefetching the domain lookups : " + e.getMessage());
+		}
+		for (int i = 0; i < records.size(); i++) {
+			push(records.get(i), docIds.get(i));
+		}
 	}
 
 	private void push(Map incomingData, String docId ) {
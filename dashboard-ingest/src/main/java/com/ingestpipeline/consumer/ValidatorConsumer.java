@@ -31,7 +31,7 @@ public class ValidatorConsumer implements KafkaConsumer {
 	@Autowired
 	private ApplicationProperties applicationProperties; 
     
-    @KafkaListener(id = INTENT, groupId = INTENT, topics = {Constants.KafkaTopics.INGEST_DATA} , containerFactory = Constants.BeanContainerFactory.INCOMING_KAFKA_LISTENER)
+    @KafkaListener(id = INTENT, groupId = INTENT, topics = {Constants.KafkaTopics.INGEST_DATA} , containerFactory = Constants.BeanContainerFactory.INCOMING_KAFKA_LISTENER, autoStartup = Constants.PipelineMode.STAGE_CONSUMERS_AUTO_STARTUP)
     public void processMessage(Map consumerRecord,
 							   @Header(KafkaHeaders.RECEIVED_TOPIC) final String topic) {
     	LOGGER.info("##KafkaMessageAlert## Message Received at Validator Consumer : key:" + topic + ":" + "value:" + consumerRecord.size());
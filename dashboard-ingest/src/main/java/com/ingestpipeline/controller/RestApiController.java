@@ -29,6 +29,8 @@ import com.google.gson.Gson;
 import com.ingestpipeline.model.IncomingData;
 import com.ingestpipeline.model.TargetData;
 import com.ingestpipeline.repository.TargetDataDao;
+import com.ingestpipeline.service.BulkIndexer;
+import com.ingestpipeline.service.ChainrRegistry;
 import com.ingestpipeline.service.ElasticService;
 import com.ingestpipeline.service.IngestService;
 import com.ingestpipeline.util.Constants;
@@ -53,6 +55,12 @@ public class RestApiController {
 	@Autowired
 	private ElasticService elasticService;
 
+	@Autowired
+	private ChainrRegistry chainrRegistry;
+
+	@Autowired
+	private BulkIndexer bulkIndexer;
+
 	/**
 	 * This API use to pause a active kafka consumer
 	 *
@@ -77,6 +85,27 @@ public class RestApiController {
 		return Boolean.TRUE;
 	}
 
+	/**
+	 * This API reloads the config resources and compiles the transform specs again
+	 *
+	 * @return
+	 */
+	@RequestMapping(value = Constants.Paths.TRANSFORM_RELOAD, method = RequestMethod.POST)
+	public Boolean reloadTransformSpecs() throws Exception {
+		chainrRegistry.reload();
+		return Boolean.TRUE;
+	}
+
+	/**
+	 * This API returns the stats of the ES bulk indexer
+	 *
+	 * @return
+	 */
+	@RequestMapping(value = Constants.Paths.BULK_STATS, method = RequestMethod.GET)
+	public Map<String, Object> getBulkStats() {
+		return bulkIndexer.getStats();
+	}
+
 	/**
 	 * This API receives the Transaction Details JSON Request and passes it on to
 	 * the Service Layer for further process of persisting into elastic search
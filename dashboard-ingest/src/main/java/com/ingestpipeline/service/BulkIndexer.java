@@ -0,0 +1,315 @@
+package com.ingestpipeline.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ingestpipeline.model.ErrorWrapper;
+import com.ingestpipeline.producer.IngestProducer;
+import com.ingestpipeline.util.Constants;
+
+/**
+ * Buffers documents per index and writes them to ES through _bulk. The buffer of an index is
+ * flushed when it holds es.bulk.flush.docs documents or es.bulk.flush.size.bytes of request body,
+ * or when its oldest document has waited es.bulk.linger.ms.
+ *
+ * At most es.bulk.max.buffered.docs documents are held, buffered or being flushed, adding a
+ * document beyond that waits for a flush to complete. This holds back the consumer thread which
+ * pushes the documents.
+ *
+ * Documents which ES rejects with 429 or a 5xx status, or which were in a bulk request which
+ * failed as a whole, are added back to the buffer up to es.bulk.max.retries times. The other
+ * failed documents are sent to the error topic.
+ *
+ * Once stopped, the buffered documents are flushed and the documents still added are written
+ * through. It is off by default as a document is reported as pushed once it is buffered, the
+ * documents which fail are only seen on the error topic.
+ */
+@Component
+public class BulkIndexer {
+
+	public static final Logger LOGGER = LoggerFactory.getLogger(BulkIndexer.class);
+	private static final String INTENT = "INDEX";
+	private static final String BULK_PATH = "_bulk";
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+	private static final long STATS_LOG_INTERVAL_MS = 60000;
+
+	@Value("${services.esindexer.host}")
+	private String indexerServiceHost;
+
+	@Value("${es.bulk.enabled:false}")
+	private Boolean enabled;
+
+	@Value("${es.bulk.flush.docs}")
+	private Integer flushDocs;
+
+	@Value("${es.bulk.flush.size.bytes}")
+	private Integer flushBytes;
+
+	@Value("${es.bulk.linger.ms}")
+	private Long lingerMs;
+
+	@Value("${es.bulk.max.buffered.docs}")
+	private Integer maxBufferedDocs;
+
+	@Value("${es.bulk.max.retries}")
+	private Integer maxRetries;
+
+	@Autowired
+	private RetryTemplate retryTemplate;
+
+	@Autowired
+	private IngestProducer ingestProducer;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private final Map<String, IndexBuffer> buffers = new ConcurrentHashMap<>();
+	private Semaphore capacity;
+	private ScheduledExecutorService flusher;
+	private volatile boolean stopped;
+
+	private final AtomicLong indexed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong retried = new AtomicLong();
+	private final AtomicLong flushes = new AtomicLong();
+	private final AtomicLong flushTime = new AtomicLong();
+	private final AtomicLong maxFlushTime = new AtomicLong();
+	private volatile long lastStatsAt = System.currentTimeMillis();
+	private volatile long lastStatsIndexed;
+
+	@PostConstruct
+	public void start() {
+		if (!enabled)
+			return;
+		capacity = new Semaphore(maxBufferedDocs);
+		flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "es-bulk-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = Math.max(lingerMs / 2, 10);
+		flusher.scheduleWithFixedDelay(this::flushLingering, interval, interval, TimeUnit.MILLISECONDS);
+		flusher.scheduleWithFixedDelay(this::logStats, STATS_LOG_INTERVAL_MS, STATS_LOG_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Adds a document to the buffer of the index, flushing the buffer on the calling thread when it is full
+	 *
+	 * @param index ES index
+	 * @param type Document type
+	 * @param id Document id
+	 * @param source Document as JSON
+	 */
+	public void add(String index, String type, String id, String source) throws InterruptedException {
+		capacity.acquire();
+		ObjectNode action = mapper.createObjectNode();
+		action.putObject("index").put("_index", index).put("_type", type).put("_id", id);
+		addItem(new BulkItem(index, action.toString(), source), true);
+	}
+
+	private void addItem(BulkItem item, boolean flushWhenFull) {
+		IndexBuffer buffer = buffers.computeIfAbsent(item.index, key -> new IndexBuffer());
+		List<BulkItem> batch = null;
+		synchronized (buffer) {
+			buffer.add(item);
+			if (flushWhenFull && (stopped || buffer.items.size() >= flushDocs || buffer.size >= flushBytes))
+				batch = buffer.drain();
+		}
+		if (batch != null)
+			flush(batch);
+	}
+
+	private void flushLingering() {
+		try {
+			long now = System.currentTimeMillis();
+			for (IndexBuffer buffer : buffers.values()) {
+				List<BulkItem> batch = null;
+				synchronized (buffer) {
+					if (!buffer.items.isEmpty() && now - buffer.firstAddedAt >= lingerMs)
+						batch = buffer.drain();
+				}
+				if (batch != null)
+					flush(batch);
+			}
+		} catch (Exception e) {
+			LOGGER.error("Encountered an error while flushing the bulk buffers : " + e.getMessage());
+		}
+	}
+
+	private void flush(List<BulkItem> batch) {
+		long startTime = System.currentTimeMillis();
+		StringBuilder body = new StringBuilder();
+		for (BulkItem item : batch)
+			body.append(item.action).append('\n').append(item.source).append('\n');
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(NDJSON);
+
+		JsonNode items = null;
+		try {
+			ResponseEntity<Object> response = retryTemplate.postForEntity(indexerServiceHost + BULK_PATH,
+					new HttpEntity<>(body.toString(), headers));
+			items = mapper.convertValue(response.getBody(), JsonNode.class).get("items");
+		} catch (Exception e) {
+			LOGGER.error("Bulk request of " + batch.size() + " documents to " + batch.get(0).index + " failed : " + e.getMessage());
+		}
+		long timeTaken = System.currentTimeMillis() - startTime;
+		flushes.incrementAndGet();
+		flushTime.addAndGet(timeTaken);
+		maxFlushTime.accumulateAndGet(timeTaken, Math::max);
+
+		for (int i = 0; i < batch.size(); i++) {
+			BulkItem item = batch.get(i);
+			JsonNode result = items == null || items.size() <= i ? null : items.get(i).elements().next();
+			int status = result == null ? HttpStatus.SERVICE_UNAVAILABLE.value() : result.path("status").asInt();
+			if (status >= 200 && status < 300) {
+				indexed.incrementAndGet();
+				capacity.release();
+			} else if ((status == HttpStatus.TOO_MANY_REQUESTS.value() || status >= 500) && item.attempts < maxRetries) {
+				retried.incrementAndGet();
+				item.attempts++;
+				addItem(item, stopped);
+			} else {
+				failed.incrementAndGet();
+				capacity.release();
+				reportFailure(item, result);
+			}
+		}
+	}
+
+	private void reportFailure(BulkItem item, JsonNode result) {
+		try {
+			ErrorWrapper errorWrapper = new ErrorWrapper();
+			errorWrapper.setErrorCode(INTENT);
+			errorWrapper.setErrorMessage(result == null ? Constants.ErrorMessages.errorCodeMessageMap.get(INTENT)
+					: result.path("error").toString());
+			errorWrapper.setIncomingData(mapper.readValue(item.source, Map.class));
+			ingestProducer.pushToPipeline(errorWrapper, Constants.KafkaTopics.ERROR_INTENT, null);
+		} catch (Exception e) {
+			LOGGER.error("Encountered an error while reporting the failed document of " + item.index + " : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Flushes every buffer irrespective of its size and age
+	 */
+	public void flushAll() {
+		for (IndexBuffer buffer : buffers.values()) {
+			List<BulkItem> batch;
+			synchronized (buffer) {
+				batch = buffer.items.isEmpty() ? null : buffer.drain();
+			}
+			if (batch != null)
+				flush(batch);
+		}
+	}
+
+	public Map<String, Object> getStats() {
+		long flushCount = flushes.get();
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("buffered", capacity == null ? 0 : maxBufferedDocs - capacity.availablePermits());
+		stats.put("indexed", indexed.get());
+		stats.put("failed", failed.get());
+		stats.put("retried", retried.get());
+		stats.put("flushes", flushCount);
+		stats.put("avgFlushMs", flushCount == 0 ? 0 : flushTime.get() / flushCount);
+		stats.put("maxFlushMs", maxFlushTime.get());
+		long elapsed = System.currentTimeMillis() - lastStatsAt;
+		stats.put("docsPerSec", elapsed == 0 ? 0 : (indexed.get() - lastStatsIndexed) * 1000 / elapsed);
+		return stats;
+	}
+
+	/**
+	 * Logs the stats, docs/sec being over the time since the previous log
+	 */
+	private void logStats() {
+		LOGGER.info("ES bulk stats : " + getStats());
+		lastStatsIndexed = indexed.get();
+		lastStatsAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Flushes what is buffered, including the documents added back for retry, and writes the
+	 * documents added from then on through
+	 */
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (flusher == null)
+			return;
+		stopped = true;
+		flusher.shutdown();
+		flusher.awaitTermination(lingerMs, TimeUnit.MILLISECONDS);
+		for (int attempt = 0; attempt <= maxRetries; attempt++)
+			flushAll();
+		LOGGER.info("ES bulk indexer stopped, stats : " + getStats());
+	}
+
+	private static class BulkItem {
+
+		private final String index;
+
+		private final String action;
+
+		private final String source;
+
+		private int attempts;
+
+		private BulkItem(String index, String action, String source) {
+			this.index = index;
+			this.action = action;
+			this.source = source;
+		}
+	}
+
+	private static class IndexBuffer {
+
+		private List<BulkItem> items = new ArrayList<>();
+
+		private int size;
+
+		private long firstAddedAt;
+
+		private void add(BulkItem item) {
+			if (items.isEmpty())
+				firstAddedAt = System.currentTimeMillis();
+			items.add(item);
+			size += item.action.length() + item.source.length() + 2;
+		}
+
+		private List<BulkItem> drain() {
+			List<BulkItem> drained = items;
+			items = new ArrayList<>();
+			size = 0;
+			return drained;
+		}
+	}
+
+}
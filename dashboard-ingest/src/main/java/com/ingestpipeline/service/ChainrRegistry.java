@@ -0,0 +1,172 @@
+package com.ingestpipeline.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingestpipeline.util.ConfigLoader;
+
+/**
+ * Holds the JOLT transform specs loaded by the ConfigLoader compiled into Chainr instances,
+ * keyed by the data context and version of the spec file (transform_{dataContext}_{version}.json).
+ * Specs which are templates over the $i and $j indexes are compiled once for each pair of
+ * indexes they are applied with. Chainr instances are stateless and shared across threads.
+ * The fields of the record iterated over as $i and $j are also found once per spec.
+ *
+ * The specs are compiled on startup and again on every reload.
+ */
+@Component
+public class ChainrRegistry {
+
+	public static final Logger LOGGER = LoggerFactory.getLogger(ChainrRegistry.class);
+	private static final String SEPARATOR = "_";
+	private static final String JSON_EXTENSION = ".json";
+	private static final String OBJECTIVE = "transform";
+	private static final String INDEX_PLACEHOLDER = "$i";
+	private static final String NESTED_INDEX_PLACEHOLDER = "$j";
+	private static final String JOLT_SPEC = "spec";
+	private static final int MAX_BOUND_CHAINRS = 10000;
+
+	@Autowired
+	private ConfigLoader configLoader;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private volatile Map<String, CompiledSpec> specs = new HashMap<>();
+
+	/**
+	 * Compiles all the transform specs currently held by the ConfigLoader, replacing the
+	 * previously compiled ones
+	 */
+	public void compileAll() {
+		long startTime = System.currentTimeMillis();
+		Map<String, CompiledSpec> compiled = new HashMap<>();
+		for (String name : configLoader.getNames()) {
+			if (!name.startsWith(OBJECTIVE.concat(SEPARATOR)) || !name.endsWith(JSON_EXTENSION))
+				continue;
+			try {
+				compiled.put(name, new CompiledSpec(configLoader.get(name)));
+			} catch (Exception e) {
+				LOGGER.error("Encountered an error while compiling the transform spec " + name + " : " + e.getMessage());
+			}
+		}
+		specs = compiled;
+		LOGGER.info("Compiled " + compiled.size() + " transform specs in " + (System.currentTimeMillis() - startTime) + "ms");
+	}
+
+	/**
+	 * Reloads the config resources and compiles the transform specs again
+	 */
+	public void reload() throws Exception {
+		configLoader.loadResources();
+		compileAll();
+	}
+
+	/**
+	 * @return Compiled spec for the data context and version, null when there is no such spec
+	 */
+	public Chainr get(String dataContext, String dataContextVersion) {
+		CompiledSpec spec = specs.get(getName(dataContext, dataContextVersion));
+		return spec == null ? null : spec.chainr;
+	}
+
+	/**
+	 * @return Compiled spec for the data context and version with $i and $j replaced by the indexes,
+	 * null when there is no such spec
+	 */
+	public Chainr get(String dataContext, String dataContextVersion, int index, int nestedIndex) {
+		CompiledSpec spec = specs.get(getName(dataContext, dataContextVersion));
+		if (spec == null)
+			return null;
+		if (spec.bound.size() >= MAX_BOUND_CHAINRS)
+			spec.bound.clear();
+		return spec.bound.computeIfAbsent(index + SEPARATOR + nestedIndex,
+				key -> Chainr.fromSpec(JsonUtils.jsonToList(spec.content.replace(INDEX_PLACEHOLDER, String.valueOf(index))
+						.replace(NESTED_INDEX_PLACEHOLDER, String.valueOf(nestedIndex)))));
+	}
+
+	/**
+	 * @return Parsed spec for the data context and version, to be read only. Null when there is no such spec
+	 */
+	public JsonNode getSpecNode(String dataContext, String dataContextVersion) {
+		CompiledSpec spec = specs.get(getName(dataContext, dataContextVersion));
+		return spec == null ? null : spec.specNode;
+	}
+
+	/**
+	 * @return Field of the record whose elements the spec iterates over as $i, null when there is
+	 * no such spec or field
+	 */
+	public String getIndexField(String dataContext, String dataContextVersion) {
+		CompiledSpec spec = specs.get(getName(dataContext, dataContextVersion));
+		return spec == null ? null : spec.indexField;
+	}
+
+	/**
+	 * @return Field of the record whose elements the spec iterates over as $j, null when there is
+	 * no such spec or field
+	 */
+	public String getNestedIndexField(String dataContext, String dataContextVersion) {
+		CompiledSpec spec = specs.get(getName(dataContext, dataContextVersion));
+		return spec == null ? null : spec.nestedIndexField;
+	}
+
+	/**
+	 * @return Key of the object in the spec which holds the given key, the last one found when
+	 * there are many. Null when there is none
+	 */
+	private static String findParentKey(JsonNode node, String value, String key) {
+		String parentKey = null;
+		Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> entry = fields.next();
+			if (entry.getKey().equalsIgnoreCase(value))
+				return key;
+			if (entry.getValue().isObject()) {
+				String found = findParentKey(entry.getValue(), value, entry.getKey());
+				if (found != null)
+					parentKey = found;
+			}
+		}
+		return parentKey;
+	}
+
+	private String getName(String dataContext, String dataContextVersion) {
+		return OBJECTIVE.concat(SEPARATOR).concat(dataContext).concat(SEPARATOR).concat(dataContextVersion).concat(JSON_EXTENSION);
+	}
+
+	private class CompiledSpec {
+
+		private final String content;
+
+		private final JsonNode specNode;
+
+		private final Chainr chainr;
+
+		private final String indexField;
+
+		private final String nestedIndexField;
+
+		private final Map<String, Chainr> bound = new ConcurrentHashMap<>();
+
+		private CompiledSpec(String content) throws Exception {
+			this.content = content;
+			this.specNode = mapper.readTree(content);
+			boolean template = content.contains(INDEX_PLACEHOLDER) || content.contains(NESTED_INDEX_PLACEHOLDER);
+			this.chainr = template ? null : Chainr.fromSpec(JsonUtils.jsonToList(content));
+			this.indexField = findParentKey(specNode.findPath(JOLT_SPEC), INDEX_PLACEHOLDER, "");
+			this.nestedIndexField = findParentKey(specNode.findPath(JOLT_SPEC), NESTED_INDEX_PLACEHOLDER, "");
+		}
+	}
+
+}
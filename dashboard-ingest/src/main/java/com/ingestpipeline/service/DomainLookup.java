@@ -0,0 +1,271 @@
+package com.ingestpipeline.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ingestpipeline.model.DomainIndexConfig;
+
+/**
+ * Looks up the domain documents which enrich the incoming records, by the values resolved for
+ * the target references of the domain index config.
+ *
+ * Documents found are kept in an LRU cache of es.enrichment.cache.max.entries, keyed by the index
+ * and the resolved values, for es.enrichment.cache.ttl.seconds. Documents not found are not kept.
+ * Each lookup returns its own copy of the cached documents, as the enrichment shifts parts of them
+ * into the record, which is changed further on.
+ *
+ * Records consumed together can be prefetched, which resolves the documents of all of them in one
+ * search with the configured query of each record as a should clause. A search asks for at most
+ * MAX_PREFETCH_HITS documents. A document is only cached for a record when it is the one document
+ * of the complete response matching the values of the record, as the single search of find would
+ * then return it too. Records with more than one match, or none, are found one at a time.
+ */
+@Component
+public class DomainLookup {
+
+	public static final Logger LOGGER = LoggerFactory.getLogger(DomainLookup.class);
+	private static final String KEY_SEPARATOR = "|";
+	private static final String FIRST = "first";
+	private static final String ALL = "all";
+	private static final String QUERY = "query";
+	private static final String SOURCE = "_source";
+	private static final String PATH_SEPARATOR = "\\.";
+	private static final int MAX_HITS_PER_KEY = 5;
+	private static final int MAX_PREFETCH_KEYS = 100;
+	private static final int MAX_PREFETCH_HITS = 200;
+
+	@Value("${es.enrichment.cache.max.entries}")
+	private Integer maxEntries;
+
+	@Value("${es.enrichment.cache.ttl.seconds}")
+	private Long ttlSeconds;
+
+	@Autowired
+	private IESService elasticService;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	/**
+	 * Query templates compiled once per domain index config
+	 */
+	private final Map<DomainIndexConfig, QueryTemplate> templates = new ConcurrentHashMap<>();
+
+	private Map<String, CachedLookup> cache;
+
+	@PostConstruct
+	public void init() {
+		cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedLookup>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedLookup> eldest) {
+				return size() > maxEntries;
+			}
+		});
+	}
+
+	/**
+	 * @param indexConfig Domain index config
+	 * @param values Resolved value of each target reference argument
+	 * @return First document found by the configured query, null when there is none
+	 */
+	public Map find(DomainIndexConfig indexConfig, Map<String, String> values) throws Exception {
+		String key = getKey(FIRST, indexConfig.getIndexName(), values);
+		Object cached = getCached(key);
+		if (cached != null)
+			return (Map) copy(cached);
+		Map domainNode = elasticService.search(indexConfig.getIndexName(), buildQuery(indexConfig, values).toString());
+		if (domainNode == null)
+			return null;
+		cache.put(key, new CachedLookup(domainNode));
+		return (Map) copy(domainNode);
+	}
+
+	/**
+	 * @param indexConfig Domain index config
+	 * @param values Resolved value of each target reference argument
+	 * @return Documents found by the configured query, null when there are none
+	 */
+	public List findAll(DomainIndexConfig indexConfig, Map<String, String> values) throws Exception {
+		String key = getKey(ALL, indexConfig.getIndexName(), values);
+		Object cached = getCached(key);
+		if (cached != null)
+			return (List) copy(cached);
+		List domainNodes = elasticService.searchMultiple(indexConfig.getIndexName(), buildQuery(indexConfig, values).toString());
+		if (domainNodes == null)
+			return null;
+		cache.put(key, new CachedLookup(domainNodes));
+		return (List) copy(domainNodes);
+	}
+
+	/**
+	 * Resolves the documents of the values not already cached in one search, so that the find for
+	 * each of them is served from the cache. Values without exactly one matching document in the
+	 * search response, or all values when the response was cut at its size, are left to be found
+	 * one at a time.
+	 *
+	 * @param indexConfig Domain index config
+	 * @param valueSets Resolved values of the records consumed together
+	 */
+	public void prefetch(DomainIndexConfig indexConfig, Collection<Map<String, String>> valueSets) {
+		Map<String, Map<String, String>> pending = new LinkedHashMap<>();
+		for (Map<String, String> values : valueSets) {
+			String key = getKey(FIRST, indexConfig.getIndexName(), values);
+			if (getCached(key) == null)
+				pending.put(key, values);
+		}
+		if (pending.size() < 2)
+			return;
+
+		List<String> keys = new ArrayList<>(pending.keySet());
+		for (int from = 0; from < keys.size(); from += MAX_PREFETCH_KEYS) {
+			List<String> chunk = keys.subList(from, Math.min(from + MAX_PREFETCH_KEYS, keys.size()));
+			try {
+				int size = Math.min(chunk.size() * MAX_HITS_PER_KEY, MAX_PREFETCH_HITS);
+				ObjectNode searchNode = mapper.createObjectNode();
+				searchNode.put("size", size);
+				ObjectNode boolNode = searchNode.putObject(QUERY).putObject("bool");
+				ArrayNode shouldNode = boolNode.putArray("should");
+				for (String key : chunk)
+					shouldNode.add(buildQuery(indexConfig, pending.get(key)).path(QUERY));
+				boolNode.put("minimum_should_match", 1);
+
+				List hits = elasticService.searchMultiple(indexConfig.getIndexName(), searchNode.toString());
+				if (hits == null)
+					continue;
+				if (hits.size() >= size) {
+					LOGGER.info("Prefetch of " + chunk.size() + " domain documents from " + indexConfig.getIndexName()
+							+ " returned " + hits.size() + " documents, its size, they are found one at a time");
+					continue;
+				}
+				int found = 0;
+				int ambiguous = 0;
+				for (String key : chunk) {
+					Object match = null;
+					int matchCount = 0;
+					for (Object hit : hits) {
+						if (hit instanceof Map && matches((Map) hit, pending.get(key))) {
+							match = hit;
+							if (++matchCount > 1)
+								break;
+						}
+					}
+					if (matchCount == 1) {
+						cache.put(key, new CachedLookup(match));
+						found++;
+					} else if (matchCount > 1) {
+						ambiguous++;
+					}
+				}
+				LOGGER.info("Prefetched " + found + " of " + chunk.size() + " domain documents from " + indexConfig.getIndexName()
+						+ ", " + ambiguous + " with more than one match");
+			} catch (Exception e) {
+				LOGGER.error("Prefetching domain documents from " + indexConfig.getIndexName() + " failed : " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * @param indexConfig Domain index config
+	 * @return Query template compiled from the index config
+	 */
+	public QueryTemplate getTemplate(DomainIndexConfig indexConfig) throws Exception {
+		QueryTemplate template = templates.get(indexConfig);
+		if (template == null) {
+			template = QueryTemplate.compile(indexConfig, mapper);
+			templates.put(indexConfig, template);
+		}
+		return template;
+	}
+
+	private ObjectNode buildQuery(DomainIndexConfig indexConfig, Map<String, String> values) throws Exception {
+		return getTemplate(indexConfig).bind(values);
+	}
+
+	/**
+	 * Checks the document has the value of each argument, read as a path in the document source.
+	 * Where the path goes through an array, any of its elements may have the value
+	 */
+	private boolean matches(Map hit, Map<String, String> values) {
+		for (Map.Entry<String, String> value : values.entrySet()) {
+			if (!hasValue(hit.get(SOURCE), value.getKey().split(PATH_SEPARATOR), 0, value.getValue()))
+				return false;
+		}
+		return true;
+	}
+
+	private boolean hasValue(Object field, String[] path, int depth, String value) {
+		if (field instanceof List) {
+			for (Object element : (List) field) {
+				if (hasValue(element, path, depth, value))
+					return true;
+			}
+			return false;
+		}
+		if (depth == path.length)
+			return field != null && field.toString().equalsIgnoreCase(value);
+		return field instanceof Map && hasValue(((Map) field).get(path[depth]), path, depth + 1, value);
+	}
+
+	/**
+	 * Copies the maps and lists of a document, the values within them are not changed in place
+	 */
+	private Object copy(Object value) {
+		if (value instanceof Map) {
+			Map copy = new LinkedHashMap();
+			((Map<?, ?>) value).forEach((field, fieldValue) -> copy.put(field, copy(fieldValue)));
+			return copy;
+		}
+		if (value instanceof List) {
+			List copy = new ArrayList();
+			for (Object element : (List) value)
+				copy.add(copy(element));
+			return copy;
+		}
+		return value;
+	}
+
+	private Object getCached(String key) {
+		CachedLookup cached = cache.get(key);
+		if (cached == null)
+			return null;
+		if (System.currentTimeMillis() - cached.loadedAt > ttlSeconds * 1000) {
+			cache.remove(key);
+			return null;
+		}
+		return cached.value;
+	}
+
+	private String getKey(String kind, String indexName, Map<String, String> values) {
+		StringBuilder key = new StringBuilder(kind).append(KEY_SEPARATOR).append(indexName);
+		values.forEach((argument, value) -> key.append(KEY_SEPARATOR).append(argument).append('=').append(value));
+		return key.toString();
+	}
+
+	private static class CachedLookup {
+
+		private final Object value;
+
+		private final long loadedAt = System.currentTimeMillis();
+
+		private CachedLookup(Object value) {
+			this.value = value;
+		}
+	}
+
+}
@@ -2,7 +2,6 @@ package com.ingestpipeline.service;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -83,6 +82,12 @@ public class ElasticService implements IESService {
 	@Autowired
 	private IngestService ingestService;
 
+	@Autowired
+	private BulkIndexer bulkIndexer;
+
+	@Autowired
+	private ObjectMapper mapper;
+
 	private static final String SLASH_SEPERATOR  = "/";
 
 	public static final Logger LOGGER = LoggerFactory.getLogger(ElasticService.class);
@@ -146,7 +151,7 @@ public class ElasticService implements IESService {
 
 		ArrayNode resultArray = JsonNodeFactory.instance.arrayNode();
 		for (SearchHit hit : searchResponse.getHits()) {
-			JsonNode node = new ObjectMapper().readValue(hit.getSourceAsString(), JsonNode.class);
+			JsonNode node = mapper.readValue(hit.getSourceAsString(), JsonNode.class);
 			resultArray.add(node);
 		}
 		return resultArray;
@@ -166,7 +171,7 @@ public class ElasticService implements IESService {
         try {
 			ResponseEntity<Object> response = retryTemplate.postForEntity(url,requestEntity);
 
-            Map responseNode = new ObjectMapper().convertValue(response.getBody(), Map.class);
+            Map responseNode = mapper.convertValue(response.getBody(), Map.class);
 			Map hits = (Map)responseNode.get("hits");
             if((Integer)hits.get("total") >=1)
                 return (Map)((ArrayList)hits.get("hits")).get(0);
@@ -184,37 +189,27 @@ public class ElasticService implements IESService {
 
 		Object id = requestBody.get(Constants.IDENTIFIER);
 		Object trxid = ((Map)requestBody.get(Constants.DATA_OBJECT)).get(Constants.TRANSACTION_ID);
-		LOGGER.info("request body on ### trxid "  +trxid);
-		//Object dataObjectId = ((Map)requestBody.get(Constants.DATA_OBJECT)).get("id");
-
+		String docId = id!=null ? id.toString(): trxid.toString();
 
+		if (bulkIndexer.isEnabled()) {
+			bulkIndexer.add(collectionIndexName, DOC_PATH, docId, mapper.writeValueAsString(requestBody));
+			return Boolean.TRUE;
+		}
 
-		String docId = id!=null ? id.toString(): trxid.toString();
 		StringBuilder url = new StringBuilder().append(indexerServiceHost).append(collectionIndexName).append(SLASH_SEPERATOR).append(DOC_PATH).append(SLASH_SEPERATOR).append(docId);
-		LOGGER.info("url ## " +url);
-
+		LOGGER.debug("Posting request to ES on ::" + url);
 
 		HttpHeaders headers = new HttpHeaders();
 		headers.setContentType(MediaType.APPLICATION_JSON);
-
-		LOGGER.info("Posting request to ES on ::" + collectionIndexName + " with doc id:: "+docId);
-
-		JsonNode request = new ObjectMapper().convertValue(requestBody, JsonNode.class);
-		//LOGGER.info(" new request body json ### " +request);
-
-		HttpEntity<String> requestEntity = new HttpEntity<>(request.toString(), headers);
-		ArrayNode hitNodes = null;
+		HttpEntity<String> requestEntity = new HttpEntity<>(mapper.writeValueAsString(requestBody), headers);
 
 		try {
 			ResponseEntity<Object> response = retryTemplate.postForEntity(url.toString(), requestEntity);
-			LOGGER.info("Status code on pushing to collection index : {}",  response.getStatusCode());
+			LOGGER.debug("Status code on pushing to collection index : {}",  response.getStatusCode());
 			if (response.getStatusCode().value() == HttpStatus.CREATED.value())
 				return Boolean.TRUE;
 
 		} catch (HttpClientErrorException e) {
-			//e.printStackTrace();
-
-			//caughtFailedRequests.put(dataObjectId.toString(), request);
 			LOGGER.error("client error while pushing ES collection index : {}, {}" ,e.getMessage(), requestEntity.getBody());
 
 		}
@@ -224,30 +219,26 @@ public class ElasticService implements IESService {
 	@Override
 	public Boolean push(TargetData requestBody) throws Exception {
 
-		Long currentDateTime = new Date().getTime();
+		if (bulkIndexer.isEnabled()) {
+			bulkIndexer.add(targetIndexName, DOC_TYPE.replace(SLASH_SEPERATOR, ""), String.valueOf(requestBody.getId()),
+					mapper.writeValueAsString(requestBody));
+			return Boolean.TRUE;
+		}
+
 		String url = indexerServiceHost + targetIndexName + DOC_TYPE + requestBody.getId();
+		LOGGER.debug("Posting request to ES on ## " + url);
 
 		HttpHeaders headers = new HttpHeaders();
 		headers.setContentType(MediaType.APPLICATION_JSON);
-
-		LOGGER.info("Posting request to ES on ## " + targetIndexName);
-		LOGGER.info("request body on ### " +requestBody);
-
-		JsonNode request = new ObjectMapper().convertValue(requestBody, JsonNode.class);
-
-		HttpEntity<String> requestEntity = new HttpEntity<>(request.toString(), headers);
-		ArrayNode hitNodes = null;
+		HttpEntity<String> requestEntity = new HttpEntity<>(mapper.writeValueAsString(requestBody), headers);
 
 		try {
 			ResponseEntity<Object> response = retryTemplate.postForEntity(url, requestEntity);
-
-			//ResponseEntity<Object> response = restTemplate.exchange(url, HttpMethod.PUT, requestEntity, Object.class);
-			LOGGER.info("Status code on pushing to target index : " + response.getStatusCode());
-			if (response.getStatusCode().value() == 201)
+			LOGGER.debug("Status code on pushing to target index : " + response.getStatusCode());
+			if (response.getStatusCode().value() == HttpStatus.CREATED.value())
 				return Boolean.TRUE;
 
 		} catch (HttpClientErrorException e) {
-			e.printStackTrace();
 			LOGGER.error("client error while pushing ES target index : " + e.getMessage());
 
 		}
@@ -282,7 +273,6 @@ public class ElasticService implements IESService {
 	    					Map innerMap = (Map) entry.getValue().get(i);
 	    					Gson gson = new Gson(); 
 	    					String json = gson.toJson(innerMap.get("_source"));
-	    				    ObjectMapper mapper = new ObjectMapper();
 	    					JsonNode dataNode = null;
 							try {
 								dataNode = mapper.readTree(json);
@@ -323,7 +313,7 @@ public class ElasticService implements IESService {
         try {
 			ResponseEntity<Object> response = retryTemplate.postForEntity(url,requestEntity);
 
-            Map responseNode = new ObjectMapper().convertValue(response.getBody(), Map.class);
+            Map responseNode = mapper.convertValue(response.getBody(), Map.class);
 			Map hits = (Map)responseNode.get("hits");
             if((Integer)hits.get("total") >=1)
                 return (List) ((ArrayList)hits.get("hits"));
@@ -351,7 +341,7 @@ public class ElasticService implements IESService {
 			HttpEntity<String> requestEntity = new HttpEntity<>(scrollSearchParams.get(Constants.ScrollSearch.QUERY), getHttpHeaders());
 			ResponseEntity<Object> response = restTemplate.exchange(scrollSearchParams.get(Constants.ScrollSearch.SEARCH_PATH), HttpMethod.POST, requestEntity,
 					Object.class);
-			Map responseNode = new ObjectMapper().convertValue(response.getBody(), Map.class);
+			Map responseNode = mapper.convertValue(response.getBody(), Map.class);
 			hits = (Map) responseNode.get("hits");
 			if ((Integer) hits.get("total") >= 1) {
 				hitsToMap.put("hits", ((ArrayList) hits.get("hits")));
@@ -385,7 +375,7 @@ public class ElasticService implements IESService {
 			LOGGER.info("Request Body for Scroll Search : "+requestEntity);
 			ResponseEntity<Object> response = restTemplate.exchange(scrollUrl, HttpMethod.POST, requestEntity,
 					Object.class);
-			Map responseNode = new ObjectMapper().convertValue(response.getBody(), Map.class);
+			Map responseNode = mapper.convertValue(response.getBody(), Map.class);
 			
 			Map<String, List<JsonObject>> hitsToMap = new LinkedHashMap();
 			Map hits = new LinkedHashMap();
@@ -400,7 +390,6 @@ public class ElasticService implements IESService {
 					Map innerMap = (Map) entry.getValue().get(i);
 					Gson gson = new Gson(); 
 					String json = gson.toJson(innerMap.get("_source"));
-				    ObjectMapper mapper = new ObjectMapper();
 					JsonNode dataNode = null;
 					try {
 						dataNode = mapper.readTree(json);
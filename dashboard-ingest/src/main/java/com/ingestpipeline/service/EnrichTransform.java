@@ -11,9 +11,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.bazaarvoice.jolt.Chainr;
-import com.bazaarvoice.jolt.JsonUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ingestpipeline.util.ConfigLoader;
 
 @Service
 public class EnrichTransform {
@@ -24,12 +21,9 @@ public class EnrichTransform {
     private TransformService transformService;
     
     @Autowired
-    private ConfigLoader configLoader; 
+    private ChainrRegistry chainrRegistry;
 
     private static final String SEPARATOR = "_";
-    private static final String JSON_EXTENSION = ".json";
-    private static final String OBJECTIVE = "transform";
-    private static final String CONFIGROOT = "config/";
     private static final String VERSION = "v1";
     private static final String ENHANCE = "enhance";
 
@@ -45,13 +39,13 @@ public class EnrichTransform {
      */
     public Object transform (Map rawResponseNode, String businessService) throws IOException {
     	
-    	ObjectMapper mapper = new ObjectMapper(); 
-		List chainrSpecJSON = null ;
         Object transNode = null;
 		try {
-            chainrSpecJSON = mapper.readValue(configLoader.get(OBJECTIVE.concat(SEPARATOR).concat(businessService.toLowerCase()).concat(SEPARATOR).concat(VERSION).concat(JSON_EXTENSION)), List.class);
-            LOGGER.info("ChainrSpecJSON::" + chainrSpecJSON);
-            Chainr chainr = Chainr.fromSpec( chainrSpecJSON );
+            Chainr chainr = chainrRegistry.get(businessService.toLowerCase(), VERSION);
+            if (chainr == null) {
+                LOGGER.error("No transform spec found for businessService {} ", businessService);
+                return null;
+            }
 
             Object indexData = rawResponseNode.keySet().contains("_source") ? ((Map)rawResponseNode.get("_source")).get("Data") : null;
             transNode = indexData!= null ? chainr.transform(indexData) : null;
@@ -75,15 +69,15 @@ public class EnrichTransform {
      */
     public Object transformEnhanceData (List rawResponseList, String businessService) throws IOException {
     	
-    	ObjectMapper mapper = new ObjectMapper(); 
-		List chainrSpecJSON = null ;
         Object transNode = null;
         List response = new ArrayList();
         
 		try {
-            chainrSpecJSON = mapper.readValue(configLoader.get(OBJECTIVE.concat(SEPARATOR).concat(businessService.toLowerCase()).concat(SEPARATOR).concat(ENHANCE).concat(SEPARATOR).concat(VERSION).concat(JSON_EXTENSION)), List.class);
-            LOGGER.info("ChainrSpecJSON::" + chainrSpecJSON);
-            Chainr chainr = Chainr.fromSpec( chainrSpecJSON );
+            Chainr chainr = chainrRegistry.get(businessService.toLowerCase().concat(SEPARATOR).concat(ENHANCE), VERSION);
+            if (chainr == null) {
+                LOGGER.error("No enhance transform spec found for businessService {} ", businessService);
+                return response;
+            }
             
             for (Object object : rawResponseList) {
             	if(object instanceof Map) {
@@ -4,11 +4,19 @@ import org.springframework.stereotype.Service;
 
 import com.ingestpipeline.model.IncomingData;
 
+import java.util.List;
 import java.util.Map;
 
 @Service
 public interface EnrichmentService {
 	
 	Map enrichData(Map incomingData);
+
+	/**
+	 * Resolves the domain lookups of the records consumed together ahead of enriching them one by one
+	 *
+	 * @param incomingRecords
+	 */
+	void prefetch(List<Map> incomingRecords);
 	
 }
@@ -2,13 +2,12 @@ package com.ingestpipeline.service;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.ingestpipeline.model.SourceReferences;
-import com.ingestpipeline.model.TargetReferences;
 import org.apache.tomcat.util.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +30,6 @@ import com.ingestpipeline.model.TargetData;
 import com.ingestpipeline.repository.ElasticSearchRepository;
 import com.ingestpipeline.repository.TargetDataDao;
 import com.ingestpipeline.util.Constants;
-import com.ingestpipeline.util.JSONUtil;
 
 /**
  * This is a Service Implementation for all the actions which are with respect
@@ -80,6 +78,9 @@ public class EnrichmentServiceImpl implements EnrichmentService {
 	@Autowired
 	private EnrichTransform enrichTransform;
 
+	@Autowired
+	private DomainLookup domainLookup;
+
 	public EnrichmentServiceImpl(@Value("${services.esindexer.host}") String indexServiceHost,
 			@Value("${services.esindexer.username}") String userName,
 			@Value("${services.esindexer.password}") String password,
@@ -106,42 +107,8 @@ public class EnrichmentServiceImpl implements EnrichmentService {
 			DomainIndexConfig indexConfig = domainConfig.getIndexConfig(businessTypeVal.toString());
 			LOGGER.info("indexConfig ## "+indexConfig);
 			if(indexConfig != null){
-				String indexName = indexConfig.getIndexName();
-
-				String query = indexConfig.getQuery();					
-
 				try {
-					ObjectNode queryNode = new ObjectMapper().readValue(query, ObjectNode.class);
-
-					Map<String, Object> expValMap = new HashMap<>();
-					// Source references to be prepare a map of fieldName & value
-					for (SourceReferences ref : indexConfig.getSourceReferences()){
-						String arg = ref.getFieldName();
-						String argVal = copyNode.findValue(arg).asText();
-						String[] values = argVal.split(ref.getSeperator());
-
-						String[] exps = ref.getExpression().split(ref.getSeperator());		
-
-						for(int i=0; i<exps.length; i++){
-							if(values[i] != null)
-								expValMap.put(exps[i], values[i]);
-						}
-					}
-
-					// To use produce the value of fieldNames and replace the query field value
-					for (TargetReferences ref : indexConfig.getTargetReferences()) {
-						String[] exps = ref.getExpression().split(ref.getSeperator());
-
-						StringBuffer buff = new StringBuffer();
-						for(String exp : exps){
-							buff.append(expValMap.get(exp)+ref.getSeperator());
-						}
-						ref.setValue(buff.substring(0,buff.length()-1));
-						JSONUtil.replaceFieldValue(queryNode, ref.getArgument(), ref.getValue());
-
-					}
-					LOGGER.info("Query node "+ queryNode);
-					Map domainNode = elasticService.search(indexName, queryNode.toString());
+					Map domainNode = domainLookup.find(indexConfig, domainLookup.getTemplate(indexConfig).resolve(copyNode));
 					if(domainNode != null){
 						Object transDomainResponse = enrichTransform.transform(domainNode, businessTypeVal.toString());
 						incomingData.put("domainObject", transDomainResponse);
@@ -183,6 +150,25 @@ public class EnrichmentServiceImpl implements EnrichmentService {
 		return incomingData;
 	}
 
+	@Override
+	public void prefetch(List<Map> incomingRecords) {
+		Map<DomainIndexConfig, List<Map<String, String>>> valueSets = new LinkedHashMap<>();
+		for (Map incomingData : incomingRecords) {
+			try {
+				DomainConfig domainConfig = domainConfigFactory.getConfiguration(incomingData.get(DATA_CONTEXT).toString());
+				if (!(domainConfig instanceof CollectionDomainConfig))
+					continue;
+				ObjectNode incomingNode = new ObjectMapper().convertValue(incomingData.get(DATA_OBJECT), ObjectNode.class);
+				DomainIndexConfig indexConfig = domainConfig.getIndexConfig(incomingNode.findValue(BUSINESS_SERVICE).asText());
+				if (indexConfig != null)
+					valueSets.computeIfAbsent(indexConfig, config -> new ArrayList<>()).add(domainLookup.getTemplate(indexConfig).resolve(incomingNode));
+			} catch (Exception e) {
+				LOGGER.error("Resolving the domain lookup of the record failed :: {}", e.getMessage());
+			}
+		}
+		valueSets.forEach((indexConfig, values) -> domainLookup.prefetch(indexConfig, values));
+	}
+
 	private Boolean pushToElasticSearchIndex(Object object) {
 		Long currentDateTime = new Date().getTime();
 		String url = String.format("%s%s/%s/%s", this.indexServiceHost, elasticSearchIndexName,
@@ -240,43 +226,8 @@ public class EnrichmentServiceImpl implements EnrichmentService {
 			DomainIndexConfig indexConfig = domainConfig.getIndexConfig(businessTypeVal.toString());
 			LOGGER.info("indexConfig ## "+indexConfig);
 			if(indexConfig != null){
-				String indexName = indexConfig.getIndexName();
-				String query = indexConfig.getQuery();
-							
-
 				try {
-					ObjectNode queryNode = new ObjectMapper().readValue(query, ObjectNode.class);
-					LOGGER.info("queryNode 114 ## "+queryNode.toString());
-
-					Map<String, Object> expValMap = new HashMap<>();
-					// Source references to be prepare a map of fieldName & value
-					for (SourceReferences ref : indexConfig.getSourceReferences()){
-						String arg = ref.getFieldName();
-						LOGGER.info("arg350## " + arg);
-						String argVal = copyNode.findValue(arg).asText();
-						String[] values = argVal.split(ref.getSeperator());
-						String[] exps = ref.getExpression().split(ref.getSeperator());
-						
-						for(int i=0; i<exps.length; i++){
-							if(i < values.length && values[i] != null)
-								expValMap.put(exps[i], values[i]);
-						}
-					}
-
-					// To use produce the value of fieldNames and replace the query field value
-					for (TargetReferences ref : indexConfig.getTargetReferences()) {
-						String[] exps = ref.getExpression().split(ref.getSeperator());
-
-						StringBuffer buff = new StringBuffer();
-						for(String exp : exps){
-							buff.append(expValMap.get(exp)+ref.getSeperator());
-						}
-						ref.setValue(buff.substring(0,buff.length()-1));
-						JSONUtil.replaceFieldValue(queryNode, ref.getArgument(), ref.getValue());
-
-					}
-					LOGGER.info("Enhance Query node "+ queryNode);
-					List domainNode = elasticService.searchMultiple(indexName, queryNode.toString());
+					List domainNode = domainLookup.findAll(indexConfig, domainLookup.getTemplate(indexConfig).resolve(copyNode));
 					if(domainNode != null){
 						Object transDomainResponse = enrichTransform.transformEnhanceData(domainNode, businessTypeVal.toString());
 						Object domainObject = incomingData.get("domainObject");
@@ -0,0 +1,225 @@
+package com.ingestpipeline.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingestpipeline.producer.IngestProducer;
+import com.ingestpipeline.util.ApplicationProperties;
+import com.ingestpipeline.util.Constants;
+
+/**
+ * Runs validate, transform and enrich + index for a record within the app, in place of the
+ * ingestData, validData and transformedData topics. Each stage has its own threads and a bounded
+ * queue, when the queue of a stage is full the stage before it runs the record itself, so a slow
+ * stage holds back the thread handing the record in.
+ *
+ * Kafka is only used for the error topic and, when es.push.direct is off, for the enriched data.
+ * With pipeline.fused.mirror.topics on, every record is also pushed to the topic of the stage it
+ * has passed, the stage consumers do not run in fused mode and so these are only for debugging.
+ *
+ * Records still on the queues are lost if the app stops abruptly, pipeline.fused.queue.capacity
+ * bounds how many there can be.
+ */
+@Service
+public class FusedPipeline {
+
+	public static final Logger LOGGER = LoggerFactory.getLogger(FusedPipeline.class);
+	private static final String ERROR_INTENT = "DataError";
+
+	@Value("${es.push.direct}")
+	private Boolean esPushDirect;
+
+	@Value("${kafka.topics.enriched.data}")
+	private String enrichedDataTopic;
+
+	@Autowired
+	private ApplicationProperties applicationProperties;
+
+	@Autowired
+	private ValidationService validationService;
+
+	@Autowired
+	@Qualifier(Constants.Qualifiers.TRANSFORM_COLLECTION_SERVICE)
+	private TransformService collectiontransformService;
+
+	@Autowired
+	@Qualifier(Constants.Qualifiers.TRANSFORM_SERVICE)
+	private TransformService defaulttransformService;
+
+	@Autowired
+	private EnrichmentService enrichmentService;
+
+	@Autowired
+	private IESService elasticService;
+
+	@Autowired
+	private IngestProducer ingestProducer;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private ThreadPoolExecutor validateExecutor;
+	private ThreadPoolExecutor transformExecutor;
+	private ThreadPoolExecutor indexExecutor;
+
+	@PostConstruct
+	public void start() {
+		if (!applicationProperties.isFusedPipeline())
+			return;
+		validateExecutor = newStageExecutor("validate");
+		transformExecutor = newStageExecutor("transform");
+		indexExecutor = newStageExecutor("index");
+		LOGGER.info("Fused pipeline started with " + applicationProperties.getFusedStageThreads()
+				+ " threads and a queue of " + applicationProperties.getFusedQueueCapacity() + " per stage");
+	}
+
+	/**
+	 * Hands the record to the first stage enabled in the pipeline rules
+	 *
+	 * @param incomingData IncomingData or a map with the dataContext, dataContextVersion and dataObject
+	 */
+	public void submit(Object incomingData) {
+		Map record = mapper.convertValue(incomingData, Map.class);
+		if (applicationProperties.getPipelineRules().get(Constants.PipelineRules.VALIDATE_DATA)) {
+			mirror(record, applicationProperties.getTransactionIngestTopic());
+			validateExecutor.execute(() -> validate(record));
+		} else {
+			afterValidation(record);
+		}
+	}
+
+	private void validate(Map record) {
+		try {
+			if (!validationService.validateData(record)) {
+				ingestProducer.pushToPipeline(record, Constants.KafkaTopics.ERROR_INTENT, null);
+				return;
+			}
+			afterValidation(record);
+		} catch (final Exception e) {
+			LOGGER.error("Exception Encountered while validating the record : " + e.getMessage());
+		}
+	}
+
+	private void afterValidation(Map record) {
+		if (applicationProperties.getPipelineRules().get(Constants.PipelineRules.TRANSFORM_DATA)) {
+			mirror(record, applicationProperties.getTransactionValidationTopic());
+			transformExecutor.execute(() -> transform(record));
+		} else if (applicationProperties.getPipelineRules().get(Constants.PipelineRules.ENRICH_DATA)) {
+			mirror(record, applicationProperties.getTransactionTransformationTopic());
+			indexExecutor.execute(() -> enrich(record));
+		}
+	}
+
+	private void transform(Map record) {
+		try {
+			boolean isTransformed;
+			if (Constants.TransformationType.COLLECTION.equals(record.get(Constants.DATA_CONTEXT))) {
+				isTransformed = collectiontransformService.transformData(record);
+			} else {
+				isTransformed = defaulttransformService.transformData(record);
+			}
+			if (isTransformed) {
+				mirror(record, applicationProperties.getTransactionTransformationTopic());
+				indexExecutor.execute(() -> enrich(record));
+			}
+		} catch (final Exception e) {
+			LOGGER.error("Exception Encountered while transforming the record : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Same as the EnrichmentConsumer, a transformed collection holds a record per document id.
+	 * A failed prefetch only costs the lookups being made one record at a time
+	 */
+	private void enrich(Map record) {
+		if (record.get(Constants.DATA_CONTEXT) != null && !record.get(Constants.DATA_CONTEXT).equals(Constants.TransformationType.COLLECTION)) {
+			push(record, null);
+			return;
+		}
+		List<Map> records = new ArrayList<>();
+		List<String> docIds = new ArrayList<>();
+		try {
+			for (Object key : record.keySet()) {
+				records.add((Map) record.get(key));
+				docIds.add(key.toString());
+			}
+		} catch (final Exception e) {
+			LOGGER.error("Exception Encountered while reading the transformed collection : " + e.getMessage());
+			return;
+		}
+
+		try {
+			enrichmentService.prefetch(records);
+		} catch (final Exception e) {
+			LOGGER.error("Exception Encountered while prefetching the domain lookups : " + e.getMessage());
+		}
+		for (int i = 0; i < records.size(); i++) {
+			push(records.get(i), docIds.get(i));
+		}
+	}
+
+	private void push(Map record, String docId) {
+		try {
+			Map updatedRecord = enrichmentService.enrichData(record);
+			if (esPushDirect) {
+				elasticService.push(record);
+			} else {
+				ingestProducer.pushToPipeline(record, enrichedDataTopic, docId);
+			}
+			if (updatedRecord == null) {
+				ingestProducer.pushToPipeline(record, ERROR_INTENT, null);
+			}
+		} catch (final Exception e) {
+			LOGGER.error("Exception Encountered while enriching the record : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The record is sent as it is now, the stages after this one change the same map
+	 */
+	private void mirror(Map record, String topic) {
+		if (applicationProperties.isFusedMirrorTopics())
+			ingestProducer.pushToPipeline(mapper.convertValue(record, Map.class), topic, null);
+	}
+
+	private ThreadPoolExecutor newStageExecutor(String stage) {
+		int threads = applicationProperties.getFusedStageThreads();
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> new Thread(runnable, "fused-" + stage + "-" + threadCount.incrementAndGet());
+		return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(applicationProperties.getFusedQueueCapacity()), threadFactory,
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Stops the stages in order, letting each one finish its queue before the next is stopped
+	 */
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (validateExecutor == null)
+			return;
+		for (ThreadPoolExecutor executor : new ThreadPoolExecutor[] { validateExecutor, transformExecutor, indexExecutor }) {
+			executor.shutdown();
+			if (!executor.awaitTermination(applicationProperties.getFusedShutdownTimeout(), TimeUnit.MILLISECONDS))
+				LOGGER.error("Fused pipeline stage did not finish in time, records left: " + executor.shutdownNow().size());
+		}
+	}
+
+}
@@ -44,6 +44,9 @@ public class IngestServiceImpl implements IngestService {
 	@Autowired
 	private ObjectMapper mapper;
 
+	@Autowired
+	private FusedPipeline fusedPipeline;
+
 	private Map<String, TopicContext> topicContextMap = new HashMap<>();
 	public void loadTopicsConfig(){
 		TopicContextConfig topicContextConf = null;
@@ -64,6 +67,10 @@ public class IngestServiceImpl implements IngestService {
 	@Override
 	public Boolean ingestToPipeline(Object incomingData) {
 		LOGGER.info("Fetching the Incoming Data Config for the data received");
+		if (applicationProperties.isFusedPipeline()) {
+			fusedPipeline.submit(incomingData);
+			return true;
+		}
 		String topic = "";
 		String key = "";
 		try { 
@@ -0,0 +1,163 @@
+package com.ingestpipeline.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ingestpipeline.model.DomainIndexConfig;
+import com.ingestpipeline.model.References;
+
+/**
+ * Compiled form of the query and the source and target references of a domain index config.
+ *
+ * The query is parsed once and the places of each target reference argument in it are noted,
+ * these being the fields JSONUtil.replaceFieldValue would have replaced. Binding the values of a
+ * record copies the parsed query and sets the values at those places. Nothing of the template,
+ * nor the domain index config it is compiled from, is changed after it is compiled, so one
+ * template is used by any number of threads.
+ */
+public final class QueryTemplate {
+
+	private final JsonNode query;
+
+	private final List<Reference> sourceReferences;
+
+	private final List<Reference> targetReferences;
+
+	private final List<Slot> slots;
+
+	private QueryTemplate(JsonNode query, List<Reference> sourceReferences, List<Reference> targetReferences, List<Slot> slots) {
+		this.query = query;
+		this.sourceReferences = sourceReferences;
+		this.targetReferences = targetReferences;
+		this.slots = slots;
+	}
+
+	/**
+	 * @param indexConfig Domain index config
+	 * @param mapper Mapper to parse the query with
+	 * @return template of the query of the index config
+	 */
+	public static QueryTemplate compile(DomainIndexConfig indexConfig, ObjectMapper mapper) throws Exception {
+		ObjectNode query = mapper.readValue(indexConfig.getQuery(), ObjectNode.class);
+
+		List<Reference> sourceReferences = new ArrayList<>();
+		indexConfig.getSourceReferences().forEach(ref -> sourceReferences.add(new Reference(ref)));
+		List<Reference> targetReferences = new ArrayList<>();
+		indexConfig.getTargetReferences().forEach(ref -> targetReferences.add(new Reference(ref)));
+
+		// located on a copy which is replaced as it goes, as the replaced fields are no longer searched into
+		ObjectNode replaced = query.deepCopy();
+		List<Slot> slots = new ArrayList<>();
+		for (Reference ref : targetReferences) {
+			int located = slots.size();
+			locate(replaced, "", ref.argument, slots);
+			for (Slot slot : slots.subList(located, slots.size()))
+				((ObjectNode) replaced.at(slot.parent)).put(slot.argument, "");
+		}
+
+		return new QueryTemplate(query, Collections.unmodifiableList(sourceReferences),
+				Collections.unmodifiableList(targetReferences), Collections.unmodifiableList(slots));
+	}
+
+	/**
+	 * Reads the source reference fields of the record and joins them as per the target references
+	 *
+	 * @param dataNode Data object of the record
+	 * @return value of each target reference argument
+	 */
+	public Map<String, String> resolve(JsonNode dataNode) {
+		Map<String, String> expValMap = new HashMap<>();
+		for (Reference ref : sourceReferences) {
+			String[] values = dataNode.findValue(ref.fieldName).asText().split(ref.seperator);
+			String[] exps = ref.expression.split(ref.seperator);
+			for (int i = 0; i < exps.length; i++) {
+				if (i < values.length && values[i] != null)
+					expValMap.put(exps[i], values[i]);
+			}
+		}
+
+		Map<String, String> targetValues = new LinkedHashMap<>();
+		for (Reference ref : targetReferences) {
+			StringBuilder value = new StringBuilder();
+			for (String exp : ref.expression.split(ref.seperator))
+				value.append(expValMap.get(exp)).append(ref.seperator);
+			targetValues.put(ref.argument, value.substring(0, value.length() - 1));
+		}
+		return targetValues;
+	}
+
+	/**
+	 * @param values Value of each target reference argument
+	 * @return copy of the query with the values set
+	 */
+	public ObjectNode bind(Map<String, String> values) {
+		ObjectNode bound = (ObjectNode) query.deepCopy();
+		for (Slot slot : slots) {
+			if (values.containsKey(slot.argument))
+				((ObjectNode) bound.at(slot.parent)).put(slot.argument, values.get(slot.argument));
+		}
+		return bound;
+	}
+
+	/**
+	 * Notes the objects which have the field, in the order JSONUtil.replaceFieldValue visits them
+	 */
+	private static void locate(JsonNode node, String path, String fieldName, List<Slot> slots) {
+		if (node.has(fieldName))
+			slots.add(new Slot(JsonPointer.compile(path), fieldName));
+		Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			String fieldPath = path + "/" + field.getKey().replace("~", "~0").replace("/", "~1");
+			JsonNode value = field.getValue();
+			if (value.isArray()) {
+				for (int i = 0; i < value.size(); i++) {
+					if (value.get(i).isObject())
+						locate(value.get(i), fieldPath + "/" + i, fieldName, slots);
+				}
+			} else if (value.isObject()) {
+				locate(value, fieldPath, fieldName, slots);
+			}
+		}
+	}
+
+	private static final class Reference {
+
+		private final String fieldName;
+
+		private final String argument;
+
+		private final String seperator;
+
+		private final String expression;
+
+		private Reference(References ref) {
+			this.fieldName = ref.getFieldName();
+			this.argument = ref.getArgument();
+			this.seperator = ref.getSeperator();
+			this.expression = ref.getExpression();
+		}
+	}
+
+	private static final class Slot {
+
+		private final JsonPointer parent;
+
+		private final String argument;
+
+		private Slot(JsonPointer parent, String argument) {
+			this.parent = parent;
+			this.argument = argument;
+		}
+	}
+
+}
@@ -1,6 +1,5 @@
 package com.ingestpipeline.service;
 
-import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -9,12 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.bazaarvoice.jolt.Chainr;
-import com.bazaarvoice.jolt.JsonUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.ingestpipeline.model.DigressionPoint;
-import com.ingestpipeline.util.ConfigLoader;
 import com.ingestpipeline.util.Constants;
 	
 /**
@@ -26,28 +23,19 @@ import com.ingestpipeline.util.Constants;
 public class TransformServiceImpl implements TransformService {
 	
 	public static final Logger LOGGER = LoggerFactory.getLogger(TransformServiceImpl.class);
-	private static final String SEPARATOR = "_"; 
-	private static final String JSON_EXTENSION = ".json"; 
-	private static final String OBJECTIVE = "transform"; 
-	private static final String CONFIGROOT = "config/";
 	
 	@Autowired
-	private ConfigLoader configLoader;
+	private ChainrRegistry chainrRegistry;
 
 	@Override
 	public Boolean transformData(Map incomingData) {
 		String dataContext = incomingData.get(Constants.DATA_CONTEXT).toString(); 
 		String dataContextVersion = incomingData.get(Constants.DATA_CONTEXT_VERSION).toString(); 
-		ObjectMapper mapper = new ObjectMapper(); 
-		List chainrSpecJSON = null ;
-		try {
-			chainrSpecJSON = mapper.readValue(configLoader.get(OBJECTIVE.concat(SEPARATOR).concat(dataContext).concat(SEPARATOR).concat(dataContextVersion).concat(JSON_EXTENSION)), List.class);
-			
-		} catch (Exception e) {
-			LOGGER.error("Encountered an error : " + e.getMessage());
-		} 
-		String sourceUrl = CONFIGROOT.concat(OBJECTIVE.concat(SEPARATOR).concat(dataContext).concat(SEPARATOR).concat(dataContextVersion).concat(JSON_EXTENSION));
-		chainrSpecJSON = JsonUtils.jsonToList(this.getClass().getClassLoader().getResourceAsStream(sourceUrl));
+		Chainr chainr = chainrRegistry.get(dataContext, dataContextVersion);
+		if (chainr == null) {
+			LOGGER.error("No transform spec found for " + dataContext + " version " + dataContextVersion);
+			return Boolean.FALSE;
+		}
 
 		/*Map<String, Integer> deepRouteSpecSize = new HashMap<>();  
 		
@@ -90,7 +78,6 @@ public class TransformServiceImpl implements TransformService {
 		}*/
 		
 		
-       Chainr chainr = Chainr.fromSpec( chainrSpecJSON );
         Object inputJSON = incomingData.get(Constants.DATA_OBJECT);
         try { 
             Object transformedOutput = chainr.transform( inputJSON );
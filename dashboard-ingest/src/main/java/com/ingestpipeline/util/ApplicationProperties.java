@@ -52,6 +52,21 @@ public class ApplicationProperties {
     
     @Value("#{${pipelinerules}}") 
     private Map<String, Boolean> pipelineRules;
+
+    @Value("${pipeline.mode:" + Constants.PipelineMode.STAGED + "}")
+    private String pipelineMode;
+
+    @Value("${pipeline.fused.queue.capacity}")
+    private Integer fusedQueueCapacity;
+
+    @Value("${pipeline.fused.stage.threads}")
+    private Integer fusedStageThreads;
+
+    @Value("${pipeline.fused.mirror.topics}")
+    private Boolean fusedMirrorTopics;
+
+    @Value("${pipeline.fused.shutdown.timeout.ms}")
+    private Long fusedShutdownTimeout;
     
     @Autowired
     private Environment environment;
@@ -96,6 +111,30 @@ public class ApplicationProperties {
 		this.pipelineRules = pipelineRules;
 	}
 
+	public boolean isFusedPipeline() {
+		return Constants.PipelineMode.FUSED.equalsIgnoreCase(pipelineMode);
+	}
+
+	public String getPipelineMode() {
+		return pipelineMode;
+	}
+
+	public Integer getFusedQueueCapacity() {
+		return fusedQueueCapacity;
+	}
+
+	public Integer getFusedStageThreads() {
+		return fusedStageThreads;
+	}
+
+	public Boolean isFusedMirrorTopics() {
+		return fusedMirrorTopics;
+	}
+
+	public Long getFusedShutdownTimeout() {
+		return fusedShutdownTimeout;
+	}
+
 	public String getTransactionIngestTopic() {
 		return transactionIngestTopic;
 	}
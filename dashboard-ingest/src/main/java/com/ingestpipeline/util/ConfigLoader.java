@@ -3,8 +3,10 @@ package com.ingestpipeline.util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -20,7 +22,7 @@ import org.springframework.stereotype.Component;
 public class ConfigLoader {
 
     private static Logger logger = LoggerFactory.getLogger(ConfigLoader.class);
-    private Map<String, String> nameContentMap = new HashMap<>();
+    private volatile Map<String, String> nameContentMap = new HashMap<>();
     @Autowired
     private ResourceLoader resourceLoader;
     
@@ -35,10 +37,12 @@ public class ConfigLoader {
 	    logger.info("RESOURCE_LOCATION:: "+RESOURCE_LOCATION);
 		Resource[] resources = getResources(RESOURCE_LOCATION);
 
+		Map<String, String> loaded = new HashMap<>();
 		for (Resource resource : resources) {
 			String jsonContent = getContent(resource);
-			nameContentMap.put(resource.getFilename(), jsonContent);
+			loaded.put(resource.getFilename(), jsonContent);
 		}
+		nameContentMap = loaded;
 		logger.info("Number of resources loaded " + nameContentMap.size());
 
 	}
@@ -52,6 +56,14 @@ public class ConfigLoader {
         return nameContentMap.get(name);
     }
 
+    /**
+     * Names of all the loaded resources/files
+     * @return
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(nameContentMap.keySet());
+    }
+
     /**
      * Loads all the resources/files with a given pattern *.json
      * @param pattern   path with *json
@@ -18,6 +18,8 @@ public interface Constants {
 		final String Targets = "/targets";
 		final String Collections = "/getCollections";
 		final String ES_INDEX = "/migrate/{indexName}/{version}";
+		final String TRANSFORM_RELOAD = "/transform/reload";
+		final String BULK_STATS = "/bulk/stats";
 	}
 	
 	public interface Qualifiers { 
@@ -54,6 +56,7 @@ public interface Constants {
 	
 	public interface BeanContainerFactory { 
 		public static final String INCOMING_KAFKA_LISTENER = "incomingKafkaListenerContainerFactory"; 
+		public static final String BATCH_KAFKA_LISTENER = "batchKafkaListenerContainerFactory";
 	}
 	
 	public interface DomainConfigurations { 
@@ -67,6 +70,16 @@ public interface Constants {
 		public static final String ENRICH_DATA = "ENRICH";
 	}
 
+	public interface PipelineMode {
+		public static final String STAGED = "staged";
+		public static final String FUSED = "fused";
+		/**
+		 * The stage consumers are not started in fused mode, the stages run within the app. The mode
+		 * is compared ignoring case, as ApplicationProperties.isFusedPipeline does
+		 */
+		public static final String STAGE_CONSUMERS_AUTO_STARTUP = "#{!'${pipeline.mode:staged}'.equalsIgnoreCase('fused')}";
+	}
+
 	public interface ScrollSearch { 
 		public static final String SCROLL_ID = "scrollId"; 
 		public static final String SEARCH_PATH = "searchPath"; 
@@ -100,6 +113,7 @@ public interface Constants {
 	        put("VALIDATE","Error while validating the Document");
 	        put("TRANSFORM","Error while transforming the Document");
 	        put("ENRICH","Error while enriching the Document");
+	        put("INDEX","Error while indexing the Document");
 	    }};
 	}
 	
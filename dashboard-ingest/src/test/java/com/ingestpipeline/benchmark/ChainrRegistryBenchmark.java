@@ -0,0 +1,116 @@
+package com.ingestpipeline.benchmark;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bazaarvoice.jolt.Chainr;
+import com.bazaarvoice.jolt.JsonUtils;
+import com.ingestpipeline.service.ChainrRegistry;
+import com.ingestpipeline.util.ConfigLoader;
+
+/**
+ * Transforms a record with a Chainr compiled from the spec for every record, as was done before
+ * the registry, against one compiled once and read from the registry. Both for a plain spec and
+ * for the collection spec, which is a template over $i and $j.
+ *
+ * Run the main method on the test classpath, it is not run by the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChainrRegistryBenchmark {
+
+	private static final String PT_SPEC = "transform_pt_v1.json";
+	private static final String COLLECTION_SPEC = "transform_collection_v2.json";
+
+	private ChainrRegistry chainrRegistry;
+
+	private Map<String, String> specs;
+
+	private Map record;
+
+	@Setup
+	public void setUp() throws Exception {
+		specs = new HashMap<>();
+		specs.put(PT_SPEC, read(PT_SPEC));
+		specs.put(COLLECTION_SPEC, read(COLLECTION_SPEC));
+		ConfigLoader configLoader = new ConfigLoader() {
+			@Override
+			public String get(String name) {
+				return specs.get(name);
+			}
+
+			@Override
+			public Set<String> getNames() {
+				return new HashSet<>(specs.keySet());
+			}
+		};
+		chainrRegistry = new ChainrRegistry();
+		ReflectionTestUtils.setField(chainrRegistry, "configLoader", configLoader);
+		chainrRegistry.compileAll();
+
+		record = new HashMap();
+		record.put("tenantId", "pb.amritsar");
+		record.put("propertyId", "PT-107-001");
+		record.put("ward", "B1");
+		record.put("propertyDetails", Collections.singletonList(Collections.singletonMap("assessmentNumber", "AS-1")));
+	}
+
+	@Benchmark
+	public Object compilePerRecord() {
+		List spec = JsonUtils.jsonToList(specs.get(PT_SPEC));
+		return Chainr.fromSpec(spec).transform(record);
+	}
+
+	@Benchmark
+	public Object compiledOnce() {
+		return chainrRegistry.get("pt", "v1").transform(record);
+	}
+
+	@Benchmark
+	public Object compileCollectionPerRecord() {
+		List spec = JsonUtils.jsonToList(specs.get(COLLECTION_SPEC).replace("$i", "1").replace("$j", "2"));
+		return Chainr.fromSpec(spec).transform(record);
+	}
+
+	@Benchmark
+	public Object compiledCollectionOnce() {
+		return chainrRegistry.get("collection", "v2", 1, 2).transform(record);
+	}
+
+	private static String read(String name) throws Exception {
+		try (InputStream stream = ChainrRegistryBenchmark.class.getClassLoader().getResourceAsStream("config/" + name)) {
+			return IOUtils.toString(stream, StandardCharsets.UTF_8);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(ChainrRegistryBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
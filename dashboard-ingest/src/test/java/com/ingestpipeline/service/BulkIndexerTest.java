@@ -0,0 +1,121 @@
+package com.ingestpipeline.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingestpipeline.model.ErrorWrapper;
+import com.ingestpipeline.producer.IngestProducer;
+import com.ingestpipeline.util.Constants;
+
+/**
+ * Checks the outcome of each item of a _bulk response is applied to its own document, and that
+ * stopping the indexer flushes what is buffered
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BulkIndexerTest {
+
+	private static final String BULK_URL = "http://localhost:9200/_bulk";
+	private static final String INDEX = "collectionsindex-v1";
+	private static final String SOURCE = "{\"tenantId\":\"pb.amritsar\"}";
+
+	@Mock
+	private RetryTemplate retryTemplate;
+
+	@Mock
+	private IngestProducer ingestProducer;
+
+	@InjectMocks
+	private BulkIndexer bulkIndexer;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Before
+	public void setUp() {
+		ReflectionTestUtils.setField(bulkIndexer, "mapper", mapper);
+		ReflectionTestUtils.setField(bulkIndexer, "indexerServiceHost", "http://localhost:9200/");
+		ReflectionTestUtils.setField(bulkIndexer, "enabled", Boolean.TRUE);
+		ReflectionTestUtils.setField(bulkIndexer, "flushDocs", 3);
+		ReflectionTestUtils.setField(bulkIndexer, "flushBytes", 1048576);
+		ReflectionTestUtils.setField(bulkIndexer, "lingerMs", 60000L);
+		ReflectionTestUtils.setField(bulkIndexer, "maxBufferedDocs", 10);
+		ReflectionTestUtils.setField(bulkIndexer, "maxRetries", 1);
+		bulkIndexer.start();
+	}
+
+	@Test
+	public void appliesTheOutcomeOfEachItemOfAPartiallyFailedBulkRequest() throws Exception {
+		when(retryTemplate.postForEntity(eq(BULK_URL), any())).thenReturn(
+				response("{\"errors\":true,\"items\":[{\"index\":{\"_id\":\"1\",\"status\":201}},"
+						+ "{\"index\":{\"_id\":\"2\",\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\"}}},"
+						+ "{\"index\":{\"_id\":\"3\",\"status\":503}}]}"),
+				response("{\"errors\":false,\"items\":[{\"index\":{\"_id\":\"3\",\"status\":201}}]}"));
+
+		bulkIndexer.add(INDEX, "general", "1", SOURCE);
+		bulkIndexer.add(INDEX, "general", "2", SOURCE);
+		bulkIndexer.add(INDEX, "general", "3", SOURCE);
+
+		ArgumentCaptor<Object> errors = ArgumentCaptor.forClass(Object.class);
+		verify(ingestProducer).pushToPipeline(errors.capture(), eq(Constants.KafkaTopics.ERROR_INTENT), isNull());
+		assertTrue(((ErrorWrapper) errors.getValue()).getErrorMessage().contains("mapper_parsing_exception"));
+		assertEquals(1, bulkIndexer.getStats().get("buffered"));
+
+		bulkIndexer.stop();
+
+		verify(retryTemplate, times(2)).postForEntity(eq(BULK_URL), any());
+		Map<String, Object> stats = bulkIndexer.getStats();
+		assertEquals(2L, stats.get("indexed"));
+		assertEquals(1L, stats.get("failed"));
+		assertEquals(1L, stats.get("retried"));
+		assertEquals(0, stats.get("buffered"));
+	}
+
+	@Test
+	public void sendsTheDocumentsToTheErrorTopicOnceTheRetriesAreUsedUp() throws Exception {
+		when(retryTemplate.postForEntity(eq(BULK_URL), any())).thenThrow(new IllegalStateException("connection refused"));
+
+		bulkIndexer.add(INDEX, "general", "1", SOURCE);
+		bulkIndexer.stop();
+
+		verify(retryTemplate, times(2)).postForEntity(eq(BULK_URL), any());
+		verify(ingestProducer).pushToPipeline(any(ErrorWrapper.class), eq(Constants.KafkaTopics.ERROR_INTENT), isNull());
+		assertEquals(1L, bulkIndexer.getStats().get("failed"));
+	}
+
+	@Test
+	public void writesTheDocumentsAddedAfterStoppingThrough() throws Exception {
+		when(retryTemplate.postForEntity(anyString(), any())).thenReturn(
+				response("{\"errors\":false,\"items\":[{\"index\":{\"_id\":\"1\",\"status\":201}}]}"));
+		bulkIndexer.stop();
+
+		bulkIndexer.add(INDEX, "general", "1", SOURCE);
+
+		verify(retryTemplate).postForEntity(eq(BULK_URL), any());
+		assertEquals(1L, bulkIndexer.getStats().get("indexed"));
+	}
+
+	private ResponseEntity<Object> response(String body) throws Exception {
+		return new ResponseEntity<>(mapper.readValue(body, Map.class), HttpStatus.OK);
+	}
+
+}
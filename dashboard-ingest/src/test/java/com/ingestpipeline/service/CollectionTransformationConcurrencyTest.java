@@ -0,0 +1,125 @@
+package com.ingestpipeline.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ingestpipeline.util.ConfigLoader;
+import com.ingestpipeline.util.Constants;
+
+/**
+ * Transforms collections of two data contexts, whose specs iterate over differently named fields,
+ * from many threads at once on a shared service and checks every collection is split into the
+ * documents of its own nested records
+ */
+public class CollectionTransformationConcurrencyTest {
+
+	private static final String RECEIPT_SPEC = "[{\"operation\":\"shift\",\"spec\":{\"receipts\":{\"$i\":{\"lines\":{\"$j\":"
+			+ "{\"id\":\"id\",\"amount\":\"amount\"}}}}}}]";
+	private static final String PAYMENT_SPEC = "[{\"operation\":\"shift\",\"spec\":{\"payments\":{\"$i\":{\"details\":{\"$j\":"
+			+ "{\"id\":\"id\",\"amount\":\"amount\"}}}}}}]";
+	private static final int THREADS = 8;
+	private static final int RECORDS_PER_THREAD = 500;
+
+	private ChainrRegistry chainrRegistry;
+
+	private CollectionTransformationService transformService;
+
+	@Before
+	public void setUp() {
+		ConfigLoader configLoader = mock(ConfigLoader.class);
+		when(configLoader.getNames()).thenReturn(new HashSet<>(Arrays.asList("transform_receipt_v1.json", "transform_payment_v1.json")));
+		when(configLoader.get("transform_receipt_v1.json")).thenReturn(RECEIPT_SPEC);
+		when(configLoader.get("transform_payment_v1.json")).thenReturn(PAYMENT_SPEC);
+
+		chainrRegistry = new ChainrRegistry();
+		ReflectionTestUtils.setField(chainrRegistry, "configLoader", configLoader);
+		chainrRegistry.compileAll();
+
+		transformService = new CollectionTransformationService();
+		ReflectionTestUtils.setField(transformService, "chainrRegistry", chainrRegistry);
+	}
+
+	@Test
+	public void findsTheIteratedFieldsOfEachSpec() {
+		assertEquals("receipts", chainrRegistry.getIndexField("receipt", "v1"));
+		assertEquals("lines", chainrRegistry.getNestedIndexField("receipt", "v1"));
+		assertEquals("payments", chainrRegistry.getIndexField("payment", "v1"));
+		assertEquals("details", chainrRegistry.getNestedIndexField("payment", "v1"));
+	}
+
+	@Test
+	public void splitsEachCollectionOnItsOwnUnderConcurrency() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<List<String>>> results = new ArrayList<>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			int threadId = thread;
+			Callable<List<String>> task = () -> {
+				start.await();
+				List<String> mismatches = new ArrayList<>();
+				for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+					boolean receipt = (threadId + i) % 2 == 0;
+					String prefix = threadId + "-" + i + "-";
+					Map record = receipt ? record("receipt", "receipts", "lines", prefix)
+							: record("payment", "payments", "details", prefix);
+					Boolean transformed = transformService.transformData(record);
+					List<String> expected = Arrays.asList(prefix + "0", prefix + "1", prefix + "2");
+					if (!Boolean.TRUE.equals(transformed) || !new HashSet<>(expected).equals(record.keySet()))
+						mismatches.add(prefix + (receipt ? "receipt" : "payment") + " transformed into " + record.keySet());
+				}
+				return mismatches;
+			};
+			results.add(executor.submit(task));
+		}
+		start.countDown();
+
+		List<String> mismatches = new ArrayList<>();
+		for (Future<List<String>> result : results)
+			mismatches.addAll(result.get(60, TimeUnit.SECONDS));
+		executor.shutdown();
+
+		assertEquals(Collections.emptyList(), mismatches);
+	}
+
+	/**
+	 * Collection of two records, the first with two nested records and the second with one
+	 */
+	private Map record(String dataContext, String field, String nestedField, String idPrefix) {
+		List<Map> records = new ArrayList<>();
+		records.add(Collections.singletonMap(nestedField, Arrays.asList(nested(idPrefix + "0"), nested(idPrefix + "1"))));
+		records.add(Collections.singletonMap(nestedField, Collections.singletonList(nested(idPrefix + "2"))));
+
+		Map record = new HashMap();
+		record.put(Constants.DATA_CONTEXT, dataContext);
+		record.put(Constants.DATA_CONTEXT_VERSION, "v1");
+		record.put(Constants.DATA_OBJECT, Collections.singletonMap(field, records));
+		return record;
+	}
+
+	private Map nested(String id) {
+		Map nested = new HashMap();
+		nested.put("id", id);
+		nested.put("amount", 10);
+		return nested;
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.ingestpipeline.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingestpipeline.model.DomainIndexConfig;
+import com.ingestpipeline.model.TargetReferences;
+
+/**
+ * Checks the domain documents prefetched for a batch of records are matched back to the records,
+ * including on paths through arrays, that only unambiguous matches are cached, and that the finds
+ * are then served from the cache with a copy of the document each
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DomainLookupTest {
+
+	private static final String INDEX = "property-services";
+	private static final String ARGUMENT = "Data.propertyDetails.assessmentNumber";
+	private static final String QUERY = "{\"query\":{\"bool\":{\"must\":[{\"match_phrase\":{\"" + ARGUMENT + "\":\"value\"}}]}}}";
+
+	@Mock
+	private IESService elasticService;
+
+	@InjectMocks
+	private DomainLookup domainLookup;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private DomainIndexConfig indexConfig;
+
+	@Before
+	public void setUp() {
+		ReflectionTestUtils.setField(domainLookup, "mapper", mapper);
+		ReflectionTestUtils.setField(domainLookup, "maxEntries", 100);
+		ReflectionTestUtils.setField(domainLookup, "ttlSeconds", 300L);
+		domainLookup.init();
+
+		indexConfig = new DomainIndexConfig();
+		indexConfig.setIndexName(INDEX);
+		indexConfig.setQuery(QUERY);
+		TargetReferences assessmentNumber = new TargetReferences();
+		assessmentNumber.setArgument(ARGUMENT);
+		assessmentNumber.setSeperator(" ");
+		assessmentNumber.setExpression("assessmentNumber");
+		assessmentNumber.setValue("$value");
+		indexConfig.getTargetReferences().add(assessmentNumber);
+	}
+
+	@Test
+	public void matchesPrefetchedDocumentsOnAnyElementOfAnArray() throws Exception {
+		Map first = hit("PT-1", "AS-1", "AS-2");
+		Map second = hit("PT-2", "AS-3");
+		when(elasticService.searchMultiple(eq(INDEX), anyString())).thenReturn(Arrays.asList(first, second));
+
+		domainLookup.prefetch(indexConfig, Arrays.asList(values("AS-2"), values("AS-3"), values("AS-4")));
+
+		assertEquals(first, domainLookup.find(indexConfig, values("AS-2")));
+		assertEquals(second, domainLookup.find(indexConfig, values("AS-3")));
+		verify(elasticService, never()).search(eq(INDEX), anyString());
+
+		domainLookup.find(indexConfig, values("AS-4"));
+		verify(elasticService).search(eq(INDEX), anyString());
+	}
+
+	@Test
+	public void leavesValuesMatchingMoreThanOneDocumentToTheirOwnSearch() throws Exception {
+		when(elasticService.searchMultiple(eq(INDEX), anyString()))
+				.thenReturn(Arrays.asList(hit("PT-1", "AS-1"), hit("PT-2", "AS-1", "AS-2"), hit("PT-3", "AS-3")));
+
+		domainLookup.prefetch(indexConfig, Arrays.asList(values("AS-1"), values("AS-2")));
+
+		domainLookup.find(indexConfig, values("AS-2"));
+		verify(elasticService, never()).search(eq(INDEX), anyString());
+		domainLookup.find(indexConfig, values("AS-1"));
+		verify(elasticService).search(eq(INDEX), anyString());
+	}
+
+	@Test
+	public void cachesNothingFromAResponseCutAtItsSize() throws Exception {
+		List<Map> hits = new ArrayList<>();
+		for (int i = 0; i < 10; i++)
+			hits.add(hit("PT-" + i, "AS-" + i));
+		when(elasticService.searchMultiple(eq(INDEX), anyString())).thenReturn(hits);
+
+		domainLookup.prefetch(indexConfig, Arrays.asList(values("AS-0"), values("AS-1")));
+
+		domainLookup.find(indexConfig, values("AS-0"));
+		domainLookup.find(indexConfig, values("AS-1"));
+		verify(elasticService, times(2)).search(eq(INDEX), anyString());
+	}
+
+	@Test
+	public void returnsACopyOfTheCachedDocumentToEachLookup() throws Exception {
+		when(elasticService.search(eq(INDEX), anyString())).thenReturn(hit("PT-1", "AS-1"));
+
+		Map first = domainLookup.find(indexConfig, values("AS-1"));
+		List propertyDetails = (List) ((Map) ((Map) first.get("_source")).get("Data")).get("propertyDetails");
+		propertyDetails.clear();
+		Map second = domainLookup.find(indexConfig, values("AS-1"));
+
+		assertNotSame(first, second);
+		assertEquals(hit("PT-1", "AS-1"), second);
+	}
+
+	@Test
+	public void asksForABoundedNumberOfDocumentsPerPrefetch() throws Exception {
+		List<Map<String, String>> valueSets = new ArrayList<>();
+		for (int i = 0; i < 250; i++)
+			valueSets.add(values("AS-" + i));
+		when(elasticService.searchMultiple(eq(INDEX), anyString())).thenReturn(Collections.emptyList());
+
+		domainLookup.prefetch(indexConfig, valueSets);
+
+		ArgumentCaptor<String> queries = ArgumentCaptor.forClass(String.class);
+		verify(elasticService, times(3)).searchMultiple(eq(INDEX), queries.capture());
+		for (String query : queries.getAllValues()) {
+			JsonNode searchNode = mapper.readTree(query);
+			assertEquals(200, searchNode.get("size").asInt());
+		}
+		assertEquals(100, mapper.readTree(queries.getAllValues().get(0)).at("/query/bool/should").size());
+		assertEquals(50, mapper.readTree(queries.getAllValues().get(2)).at("/query/bool/should").size());
+	}
+
+	@Test
+	public void cachesFoundDocumentsButNotMissingOnes() throws Exception {
+		Map document = hit("PT-1", "AS-1");
+		when(elasticService.search(eq(INDEX), anyString())).thenReturn(document, (Map) null);
+
+		assertEquals(document, domainLookup.find(indexConfig, values("AS-1")));
+		assertEquals(document, domainLookup.find(indexConfig, values("AS-1")));
+		assertNull(domainLookup.find(indexConfig, values("AS-9")));
+		assertNull(domainLookup.find(indexConfig, values("AS-9")));
+
+		verify(elasticService, times(3)).search(eq(INDEX), anyString());
+	}
+
+	private Map<String, String> values(String assessmentNumber) {
+		Map<String, String> values = new LinkedHashMap<>();
+		values.put(ARGUMENT, assessmentNumber);
+		return values;
+	}
+
+	private Map hit(String propertyId, String... assessmentNumbers) {
+		List<Map> propertyDetails = new ArrayList<>();
+		for (String assessmentNumber : assessmentNumbers)
+			propertyDetails.add(Collections.singletonMap("assessmentNumber", assessmentNumber));
+		Map data = new HashMap();
+		data.put("propertyId", propertyId);
+		data.put("propertyDetails", propertyDetails);
+		Map hit = new HashMap();
+		hit.put("_source", Collections.singletonMap("Data", data));
+		return hit;
+	}
+
+}
@@ -0,0 +1,194 @@
+package com.ingestpipeline.service;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingestpipeline.producer.IngestProducer;
+import com.ingestpipeline.util.ApplicationProperties;
+import com.ingestpipeline.util.Constants;
+
+/**
+ * Runs records through the stages of the fused pipeline and checks each one ends up indexed or
+ * on the error topic, once the pipeline is stopped
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class FusedPipelineTest {
+
+	@Mock
+	private ApplicationProperties applicationProperties;
+
+	@Mock
+	private ValidationService validationService;
+
+	@Mock
+	private TransformService collectiontransformService;
+
+	@Mock
+	private TransformService defaulttransformService;
+
+	@Mock
+	private EnrichmentService enrichmentService;
+
+	@Mock
+	private IESService elasticService;
+
+	@Mock
+	private IngestProducer ingestProducer;
+
+	@InjectMocks
+	private FusedPipeline fusedPipeline;
+
+	@Before
+	public void setUp() throws Exception {
+		Map<String, Boolean> pipelineRules = new HashMap<>();
+		pipelineRules.put(Constants.PipelineRules.VALIDATE_DATA, true);
+		pipelineRules.put(Constants.PipelineRules.TRANSFORM_DATA, true);
+		pipelineRules.put(Constants.PipelineRules.ENRICH_DATA, true);
+		when(applicationProperties.getPipelineRules()).thenReturn(pipelineRules);
+		when(applicationProperties.isFusedPipeline()).thenReturn(true);
+		when(applicationProperties.isFusedMirrorTopics()).thenReturn(false);
+		when(applicationProperties.getFusedStageThreads()).thenReturn(2);
+		when(applicationProperties.getFusedQueueCapacity()).thenReturn(4);
+		when(applicationProperties.getFusedShutdownTimeout()).thenReturn(10000L);
+
+		ReflectionTestUtils.setField(fusedPipeline, "collectiontransformService", collectiontransformService);
+		ReflectionTestUtils.setField(fusedPipeline, "defaulttransformService", defaulttransformService);
+		ReflectionTestUtils.setField(fusedPipeline, "mapper", new ObjectMapper());
+		ReflectionTestUtils.setField(fusedPipeline, "esPushDirect", Boolean.TRUE);
+		ReflectionTestUtils.setField(fusedPipeline, "enrichedDataTopic", "enriched-data");
+
+		when(enrichmentService.enrichData(anyMap())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(elasticService.push(anyMap())).thenReturn(Boolean.TRUE);
+		fusedPipeline.start();
+	}
+
+	@Test
+	public void indexesEveryDocumentOfTheTransformedCollections() throws Exception {
+		when(validationService.validateData(anyMap())).thenReturn(Boolean.TRUE);
+		doAnswer(invocation -> {
+			Map record = invocation.getArgument(0);
+			String id = record.get(Constants.DATA_OBJECT).toString();
+			record.clear();
+			record.put(id + "-0", new HashMap<>());
+			record.put(id + "-1", new HashMap<>());
+			return Boolean.TRUE;
+		}).when(collectiontransformService).transformData(anyMap());
+
+		int records = 50;
+		for (int i = 0; i < records; i++)
+			fusedPipeline.submit(record(Constants.TransformationType.COLLECTION, "PAY-" + i));
+		fusedPipeline.stop();
+
+		verify(collectiontransformService, times(records)).transformData(anyMap());
+		verify(enrichmentService, times(records)).prefetch(any());
+		verify(elasticService, times(records * 2)).push(anyMap());
+		verify(ingestProducer, never()).pushToPipeline(any(), anyString(), any());
+	}
+
+	@Test
+	public void sendsInvalidRecordsToTheErrorTopic() throws Exception {
+		when(validationService.validateData(anyMap())).thenReturn(Boolean.FALSE);
+
+		fusedPipeline.submit(record("pt", "PT-1"));
+		fusedPipeline.stop();
+
+		verify(ingestProducer).pushToPipeline(anyMap(), eq(Constants.KafkaTopics.ERROR_INTENT), isNull());
+		verify(defaulttransformService, never()).transformData(anyMap());
+		verify(elasticService, never()).push(anyMap());
+	}
+
+	@Test
+	public void indexesRecordsOfOtherDataContextsAsTheyAre() throws Exception {
+		when(validationService.validateData(anyMap())).thenReturn(Boolean.TRUE);
+		when(defaulttransformService.transformData(anyMap())).thenReturn(Boolean.TRUE);
+
+		fusedPipeline.submit(record("pt", "PT-1"));
+		fusedPipeline.stop();
+
+		verify(collectiontransformService, never()).transformData(anyMap());
+		verify(enrichmentService, never()).prefetch(any());
+		verify(elasticService).push(anyMap());
+	}
+
+	@Test
+	public void indexesTheCollectionWhenThePrefetchFails() throws Exception {
+		when(validationService.validateData(anyMap())).thenReturn(Boolean.TRUE);
+		doAnswer(invocation -> {
+			Map record = invocation.getArgument(0);
+			record.clear();
+			record.put("PAY-1-0", new HashMap<>());
+			record.put("PAY-1-1", new HashMap<>());
+			return Boolean.TRUE;
+		}).when(collectiontransformService).transformData(anyMap());
+		doThrow(new IllegalStateException("lookup index missing")).when(enrichmentService).prefetch(any());
+
+		fusedPipeline.submit(record(Constants.TransformationType.COLLECTION, "PAY-1"));
+		fusedPipeline.stop();
+
+		verify(elasticService, times(2)).push(anyMap());
+	}
+
+	@Test
+	public void skipsACollectionHoldingValuesOtherThanRecords() throws Exception {
+		when(validationService.validateData(anyMap())).thenReturn(Boolean.TRUE);
+		doAnswer(invocation -> {
+			Map record = invocation.getArgument(0);
+			record.put("PAY-1-0", new HashMap<>());
+			return Boolean.TRUE;
+		}).when(collectiontransformService).transformData(anyMap());
+
+		fusedPipeline.submit(record(Constants.TransformationType.COLLECTION, "PAY-1"));
+		fusedPipeline.stop();
+
+		verify(enrichmentService, never()).prefetch(any());
+		verify(elasticService, never()).push(anyMap());
+	}
+
+	@Test
+	public void startsTheStageConsumersUnlessTheModeIsFusedInAnyCase() {
+		assertTrue(stageConsumersAutoStartup("staged"));
+		assertFalse(stageConsumersAutoStartup("fused"));
+		assertFalse(stageConsumersAutoStartup("FUSED"));
+		assertFalse(stageConsumersAutoStartup("Fused"));
+	}
+
+	private boolean stageConsumersAutoStartup(String pipelineMode) {
+		String expression = Constants.PipelineMode.STAGE_CONSUMERS_AUTO_STARTUP.replace("${pipeline.mode:staged}", pipelineMode);
+		return new SpelExpressionParser().parseExpression(expression, new TemplateParserContext())
+				.getValue(Boolean.class);
+	}
+
+	private Map record(String dataContext, String dataObject) {
+		Map record = new HashMap();
+		record.put(Constants.DATA_CONTEXT, dataContext);
+		record.put(Constants.DATA_CONTEXT_VERSION, "v1");
+		record.put(Constants.DATA_OBJECT, dataObject);
+		return record;
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.ingestpipeline.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ingestpipeline.model.DomainIndexConfig;
+import com.ingestpipeline.model.SourceReferences;
+import com.ingestpipeline.model.TargetReferences;
+import com.ingestpipeline.util.JSONUtil;
+
+/**
+ * Binds records on a shared query template from many threads at once and checks every bound
+ * query holds the values of its own record, and that the template and the config are left as is
+ */
+public class QueryTemplateConcurrencyTest {
+
+	private static final String QUERY = "{\"query\":{\"bool\":{\"must\":[{\"match_phrase\":{\"Data.propertyId\":\"value\"}},"
+			+ "{\"match_phrase\":{\"Data.tenantId\":\"value\"}}]}}}";
+	private static final int THREADS = 16;
+	private static final int RECORDS_PER_THREAD = 2000;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private DomainIndexConfig indexConfig;
+
+	private QueryTemplate template;
+
+	@Before
+	public void setUp() throws Exception {
+		indexConfig = new DomainIndexConfig();
+		indexConfig.setIndexName("property-assessments");
+		indexConfig.setQuery(QUERY);
+
+		SourceReferences consumerCode = new SourceReferences();
+		consumerCode.setFieldName("consumerCode");
+		consumerCode.setSeperator(":");
+		consumerCode.setExpression("propertyId:tenantId");
+		indexConfig.getSourceReferences().add(consumerCode);
+
+		TargetReferences propertyId = new TargetReferences();
+		propertyId.setArgument("Data.propertyId");
+		propertyId.setSeperator(" ");
+		propertyId.setExpression("propertyId");
+		propertyId.setValue("$value");
+		indexConfig.getTargetReferences().add(propertyId);
+
+		TargetReferences tenantId = new TargetReferences();
+		tenantId.setArgument("Data.tenantId");
+		tenantId.setSeperator(" ");
+		tenantId.setExpression("tenantId");
+		tenantId.setValue("$value");
+		indexConfig.getTargetReferences().add(tenantId);
+
+		template = QueryTemplate.compile(indexConfig, mapper);
+	}
+
+	@Test
+	public void bindsTheSameQueryAsReplaceFieldValue() throws Exception {
+		Map<String, String> values = template.resolve(record("PT-1", "pb.amritsar"));
+
+		ObjectNode expected = mapper.readValue(QUERY, ObjectNode.class);
+		values.forEach((argument, value) -> JSONUtil.replaceFieldValue(expected, argument, value));
+
+		assertEquals(expected, template.bind(values));
+	}
+
+	@Test
+	public void bindsEachRecordOnItsOwnUnderConcurrency() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<List<String>>> results = new ArrayList<>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			int threadId = thread;
+			Callable<List<String>> task = () -> {
+				start.await();
+				List<String> mismatches = new ArrayList<>();
+				for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+					String propertyId = "PT-" + threadId + "-" + i;
+					String tenantId = "pb.tenant" + threadId;
+					ObjectNode query = template.bind(template.resolve(record(propertyId, tenantId)));
+					String boundPropertyId = query.at("/query/bool/must/0/match_phrase/Data.propertyId").asText();
+					String boundTenantId = query.at("/query/bool/must/1/match_phrase/Data.tenantId").asText();
+					if (!propertyId.equals(boundPropertyId) || !tenantId.equals(boundTenantId))
+						mismatches.add(propertyId + " bound as " + boundPropertyId + ", " + tenantId + " bound as " + boundTenantId);
+				}
+				return mismatches;
+			};
+			results.add(executor.submit(task));
+		}
+		start.countDown();
+
+		List<String> mismatches = new ArrayList<>();
+		for (Future<List<String>> result : results)
+			mismatches.addAll(result.get(60, TimeUnit.SECONDS));
+		executor.shutdown();
+
+		assertEquals(Collections.emptyList(), mismatches);
+		assertEquals(QUERY, indexConfig.getQuery());
+		indexConfig.getTargetReferences().forEach(ref -> assertEquals("$value", ref.getValue()));
+		ObjectNode unbound = template.bind(Collections.emptyMap());
+		assertEquals(mapper.readValue(QUERY, ObjectNode.class), unbound);
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	private ObjectNode record(String propertyId, String tenantId) {
+		ObjectNode dataNode = mapper.createObjectNode();
+		dataNode.putObject("paymentDetails").putObject("bill").put("consumerCode", propertyId + ":" + tenantId);
+		return dataNode;
+	}
+
+}
@@ -52,6 +52,37 @@ public class ApportionConfig {
     @Value("${persister.save.demand.apportion.response.topic}")
     private String demandResponseTopic;
 
+    //Audit Config
+    @Value("${egov.apportion.audit.mode}")
+    private String auditMode;
+
+    @Value("${egov.apportion.audit.queue.capacity}")
+    private Integer auditQueueCapacity;
+
+    @Value("${egov.apportion.audit.batch.size}")
+    private Integer auditBatchSize;
+
+    @Value("${egov.apportion.audit.enqueue.timeout.ms}")
+    private Long auditEnqueueTimeout;
+
+    @Value("${egov.apportion.audit.overflow}")
+    private String auditOverflow;
+
+    @Value("${egov.apportion.audit.send.timeout.ms}")
+    private Long auditSendTimeout;
+
+    @Value("${egov.apportion.audit.shutdown.timeout.ms}")
+    private Long auditShutdownTimeout;
+
+    @Value("${egov.apportion.audit.producer.batch.size}")
+    private Integer auditProducerBatchSize;
+
+    @Value("${egov.apportion.audit.producer.linger.ms}")
+    private Integer auditProducerLingerMs;
+
+    @Value("${egov.apportion.audit.producer.compression.type}")
+    private String auditProducerCompressionType;
+
     //MDMS
     @Value("${egov.mdms.host}")
     private String mdmsHost;
@@ -59,6 +90,9 @@ public class ApportionConfig {
     @Value("${egov.mdms.search.endpoint}")
     private String mdmsEndPoint;
 
+    @Value("${egov.apportion.mdms.cache.ttl.seconds}")
+    private Long mdmsCacheTtl;
+
     //Default implementation switch
     @Value("${egov.apportion.default.value.order}")
     private Boolean apportionByValueAndOrder;
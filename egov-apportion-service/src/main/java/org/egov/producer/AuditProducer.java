@@ -0,0 +1,237 @@
+package org.egov.producer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.egov.config.ApportionConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends the apportion request and response snapshots to the persister topics.
+ *
+ * In sync mode, the default, the snapshots are sent from the calling thread. In async mode the
+ * snapshots are put on a bounded queue and a background sender drains them in batches, sending
+ * all the records of a batch before waiting on their acknowledgements, so the apportion call
+ * does not wait on Kafka. When the queue stays full for the enqueue timeout the snapshot is
+ * either sent from the calling thread (spill) or dropped, as configured by
+ * egov.apportion.audit.overflow. The queue is drained on shutdown for up to
+ * egov.apportion.audit.shutdown.timeout.ms, snapshots still queued after that are lost.
+ */
+@Service
+@Slf4j
+public class AuditProducer {
+
+    private static final String MODE_ASYNC = "async";
+
+    private static final String OVERFLOW_DROP = "drop";
+
+    private static final long STATS_LOG_INTERVAL_MS = 60000;
+
+    private Producer producer;
+    private ApportionConfig config;
+    private ObjectMapper mapper;
+
+    private BlockingQueue<AuditRecord> queue;
+    private Thread sender;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Autowired
+    public AuditProducer(Producer producer, ApportionConfig config, ObjectMapper mapper) {
+        this.producer = producer;
+        this.config = config;
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isAsync())
+            return;
+        queue = new ArrayBlockingQueue<>(config.getAuditQueueCapacity());
+        running = true;
+        sender = new Thread(this::sendLoop, "apportion-audit-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Emits the request before it is apportioned. The request is copied as it is going to be
+     * updated by the apportion after this call
+     *
+     * @param topic The persister topic
+     * @param request The apportion request
+     */
+    public void auditRequest(String topic, Object request) {
+        if (!isAsync()) {
+            producer.push(topic, request);
+            return;
+        }
+        emit(new AuditRecord(topic, mapper.valueToTree(request)));
+    }
+
+    /**
+     * Emits the apportioned request, which is not changed after this call
+     *
+     * @param topic The persister topic
+     * @param response The apportioned request
+     */
+    public void auditResponse(String topic, Object response) {
+        if (!isAsync()) {
+            producer.push(topic, response);
+            return;
+        }
+        emit(new AuditRecord(topic, response));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue == null ? 0 : queue.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("sent", sent.get());
+        stats.put("batches", batches.get());
+        stats.put("spilled", spilled.get());
+        stats.put("dropped", dropped.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private void emit(AuditRecord record) {
+        try {
+            if (queue.offer(record, config.getAuditEnqueueTimeout(), TimeUnit.MILLISECONDS)) {
+                enqueued.incrementAndGet();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (OVERFLOW_DROP.equalsIgnoreCase(config.getAuditOverflow())) {
+            log.error("Audit queue full, dropped snapshot for topic " + record.topic + ", dropped so far: "
+                    + dropped.incrementAndGet());
+        } else {
+            spilled.incrementAndGet();
+            send(record);
+        }
+    }
+
+    /**
+     * Drains the queue in batches of egov.apportion.audit.batch.size until stopped and the queue is empty
+     */
+    private void sendLoop() {
+        List<AuditRecord> batch = new ArrayList<>(config.getAuditBatchSize());
+        long lastStatsLog = System.currentTimeMillis();
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditRecord first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, config.getAuditBatchSize() - 1);
+                    sendBatch(batch);
+                    batches.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                log.warn("Audit sender interrupted, remaining snapshots: " + queue.size());
+            } finally {
+                batch.clear();
+            }
+
+            if (System.currentTimeMillis() - lastStatsLog > STATS_LOG_INTERVAL_MS) {
+                log.info("Apportion audit stats: " + getStats());
+                lastStatsLog = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Sends all the records of the batch and then waits on their acknowledgements, for up to
+     * egov.apportion.audit.send.timeout.ms in all
+     */
+    private void sendBatch(List<AuditRecord> batch) throws InterruptedException {
+        List<ListenableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (AuditRecord record : batch) {
+            try {
+                futures.add(producer.pushAsync(record.topic, record.snapshot));
+            } catch (Exception e) {
+                futures.add(null);
+                failed.incrementAndGet();
+                log.error("Failed to send audit snapshot to topic " + record.topic, e);
+            }
+        }
+        producer.flush();
+
+        long deadline = System.currentTimeMillis() + config.getAuditSendTimeout();
+        for (int i = 0; i < futures.size(); i++) {
+            if (futures.get(i) == null)
+                continue;
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                sent.incrementAndGet();
+            } catch (ExecutionException | TimeoutException e) {
+                failed.incrementAndGet();
+                log.error("Failed to send audit snapshot to topic " + batch.get(i).topic, e);
+            }
+        }
+    }
+
+    private void send(AuditRecord record) {
+        try {
+            producer.push(record.topic, record.snapshot);
+            sent.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Failed to send audit snapshot to topic " + record.topic, e);
+        }
+    }
+
+    private boolean isAsync() {
+        return MODE_ASYNC.equalsIgnoreCase(config.getAuditMode());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (sender == null)
+            return;
+        running = false;
+        sender.join(config.getAuditShutdownTimeout());
+        if (sender.isAlive())
+            log.error("Apportion audit sender did not drain the queue in time, snapshots lost: " + queue.size());
+        log.info("Apportion audit sender stopped, stats: " + getStats());
+    }
+
+    private static class AuditRecord {
+
+        private String topic;
+
+        private Object snapshot;
+
+        private AuditRecord(String topic, Object snapshot) {
+            this.topic = topic;
+            this.snapshot = snapshot;
+        }
+    }
+
+}
@@ -1,9 +1,22 @@
 package org.egov.producer;
 
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.egov.config.ApportionConfig;
 import org.egov.tracer.kafka.CustomKafkaTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
 
 @Service
 @Slf4j
@@ -12,7 +25,62 @@ public class Producer {
     @Autowired
     private CustomKafkaTemplate<String, Object> kafkaTemplate;
 
+    @Autowired
+    private KafkaProperties kafkaProperties;
+
+    @Autowired
+    private ApportionConfig config;
+
+    @Value("${kafka.config.bootstrap_server_config}")
+    private String bootstrapServers;
+
+    private DefaultKafkaProducerFactory<String, Object> asyncProducerFactory;
+
+    private KafkaTemplate<String, Object> asyncKafkaTemplate;
+
+    /**
+     * Builds the producer used by pushAsync only. It batches and compresses as per the
+     * egov.apportion.audit.producer properties, which are kept off the shared producer so
+     * that the blocking pushes do not wait for linger.ms
+     */
+    @PostConstruct
+    public void initAsyncProducer() {
+        Map<String, Object> configProps = kafkaProperties.buildProducerProperties();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, config.getAuditProducerBatchSize());
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, config.getAuditProducerLingerMs());
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, config.getAuditProducerCompressionType());
+        asyncProducerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        asyncKafkaTemplate = new KafkaTemplate<>(asyncProducerFactory);
+    }
+
     public void push(String topic, Object value) {
         kafkaTemplate.send(topic, value);
     }
+
+    /**
+     * Sends the value without waiting for the acknowledgement, for callers which send many
+     * records and wait on them together. The record is batched by the async producer as per
+     * its batch.size and linger.ms
+     *
+     * @param topic The topic to push to
+     * @param value The value to push
+     * @return Future of the acknowledgement
+     */
+    public ListenableFuture<SendResult<String, Object>> pushAsync(String topic, Object value) {
+        return asyncKafkaTemplate.send(topic, value);
+    }
+
+    /**
+     * Sends the records batched so far without waiting for linger.ms
+     */
+    public void flush() {
+        asyncKafkaTemplate.flush();
+    }
+
+    @PreDestroy
+    public void closeAsyncProducer() {
+        if (asyncProducerFactory != null)
+            asyncProducerFactory.destroy();
+    }
 }
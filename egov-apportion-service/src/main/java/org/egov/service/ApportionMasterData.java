@@ -0,0 +1,48 @@
+package org.egov.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BillingService master data of a tenant as fetched from MDMS, shared by the apportion
+ * requests of the tenant until it is refreshed. The TaxHead priority table of a
+ * businessService is compiled the first time it is asked for.
+ */
+public class ApportionMasterData {
+
+    private final Object data;
+
+    private final long loadedAt;
+
+    private final TaxHeadMasterService taxHeadMasterService;
+
+    private final Map<String, TaxHeadPriorityTable> priorityTables = new ConcurrentHashMap<>();
+
+    public ApportionMasterData(Object data, long loadedAt, TaxHeadMasterService taxHeadMasterService) {
+        this.data = data;
+        this.loadedAt = loadedAt;
+        this.taxHeadMasterService = taxHeadMasterService;
+    }
+
+    /**
+     * @return The MDMS response the snapshot was built from
+     */
+    public Object getData() {
+        return data;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Returns the TaxHead priority table of the businessService
+     * @param businessService The businessService of the bill or demands
+     * @return Compiled priority table
+     */
+    public TaxHeadPriorityTable getPriorityTable(String businessService) {
+        return priorityTables.computeIfAbsent(businessService,
+                key -> taxHeadMasterService.compilePriorityTable(key, data));
+    }
+
+}
@@ -6,7 +6,7 @@ import java.math.BigDecimal;
 import java.util.*;
 
 import org.egov.config.ApportionConfig;
-import org.egov.producer.Producer;
+import org.egov.producer.AuditProducer;
 import org.egov.web.models.*;
 import org.egov.web.models.enums.DemandApportionRequest;
 import org.egov.web.models.enums.Purpose;
@@ -21,18 +21,18 @@ public class ApportionServiceV2 {
     private final List<ApportionV2> apportions;
     private Map<String, ApportionV2> APPORTION_MAP = new HashMap<>();
 
-    private Producer producer;
+    private AuditProducer auditProducer;
     private ApportionConfig config;
     private MDMSService mdmsService;
     private TranslationService translationService;
 
 
     @Autowired
-    public ApportionServiceV2(List<ApportionV2> apportions, Producer producer,
+    public ApportionServiceV2(List<ApportionV2> apportions, AuditProducer auditProducer,
                               ApportionConfig config, MDMSService mdmsService,
                               TranslationService translationService) {
         this.apportions = Collections.unmodifiableList(apportions);
-        this.producer = producer;
+        this.auditProducer = auditProducer;
         this.config = config;
         this.mdmsService = mdmsService;
         this.translationService = translationService;
@@ -63,10 +63,10 @@ public class ApportionServiceV2 {
         ApportionV2 apportion;
 
         //Save the request through persister
-        producer.push(config.getBillRequestTopic(), request);
+        auditProducer.auditRequest(config.getBillRequestTopic(), request);
 
         //Fetch the required MDMS data
-        Object masterData = mdmsService.mDMSCall(request.getRequestInfo(), request.getTenantId());
+        ApportionMasterData masterData = mdmsService.getApportionMasterData(request.getRequestInfo(), request.getTenantId());
 
         for (Bill bill : bills) {
         	
@@ -101,7 +101,7 @@ public class ApportionServiceV2 {
         }
 
         //Save the response through persister
-        producer.push(config.getBillResponseTopic(), request);
+        auditProducer.auditResponse(config.getBillResponseTopic(), request);
         return bills;
     }
 
@@ -140,10 +140,10 @@ public class ApportionServiceV2 {
         ApportionV2 apportion;
 
         //Save the request through persister
-        producer.push(config.getDemandRequestTopic(), request);
+        auditProducer.auditRequest(config.getDemandRequestTopic(), request);
 
         //Fetch the required MDMS data
-        Object masterData = mdmsService.mDMSCall(request.getRequestInfo(), request.getTenantId());
+        ApportionMasterData masterData = mdmsService.getApportionMasterData(request.getRequestInfo(), request.getTenantId());
 
         demands.sort(Comparator.comparing(Demand::getTaxPeriodFrom));
 
@@ -168,7 +168,7 @@ public class ApportionServiceV2 {
 
 
         //Save the response through persister
-        producer.push(config.getDemandResponseTopic(), request);
+        auditProducer.auditResponse(config.getDemandResponseTopic(), request);
         return demands;
     }
 
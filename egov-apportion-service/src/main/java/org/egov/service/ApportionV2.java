@@ -17,6 +17,12 @@ public interface ApportionV2 {
 
 
 
-    List<TaxDetail> apportionPaidAmount(ApportionRequestV2 apportionRequestV2, Object masterData);
+    /**
+     * Apportions the paid amount among the buckets of the taxDetails
+     * @param apportionRequestV2 The bill or demands translated to taxDetails
+     * @param masterData Billing master data of the tenant
+     * @return The apportioned taxDetails
+     */
+    List<TaxDetail> apportionPaidAmount(ApportionRequestV2 apportionRequestV2, ApportionMasterData masterData);
 
 }
@@ -7,6 +7,7 @@ import org.egov.mdms.model.MdmsCriteria;
 import org.egov.mdms.model.MdmsCriteriaReq;
 import org.egov.mdms.model.ModuleDetail;
 import org.egov.repository.ServiceRequestRepository;
+import org.egov.tracer.model.CustomException;
 import org.egov.web.models.ApportionRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,9 +16,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
 
 import static org.egov.util.ApportionConstants.*;
 
+@Slf4j
 @Service
 public class MDMSService {
 
@@ -26,10 +32,55 @@ public class MDMSService {
 
     private ApportionConfig config;
 
+    private TaxHeadMasterService taxHeadMasterService;
+
+    private final Map<String, ApportionMasterData> masterDataByTenant = new ConcurrentHashMap<>();
+
+    private final Map<String, Object> refreshLocks = new ConcurrentHashMap<>();
+
     @Autowired
-    public MDMSService(ServiceRequestRepository serviceRequestRepository,ApportionConfig config) {
+    public MDMSService(ServiceRequestRepository serviceRequestRepository,ApportionConfig config,
+                       TaxHeadMasterService taxHeadMasterService) {
         this.serviceRequestRepository = serviceRequestRepository;
         this.config = config;
+        this.taxHeadMasterService = taxHeadMasterService;
+    }
+
+    /**
+     * Returns the billing master data of the tenant, fetched from MDMS once and shared until it is
+     * older than egov.apportion.mdms.cache.ttl.seconds. If a refresh fails the old data is served
+     * until the next refresh.
+     * @param requestInfo The requestInfo of the apportion request
+     * @param tenantId TenantId of the request
+     * @return Master data of the tenant
+     */
+    public ApportionMasterData getApportionMasterData(RequestInfo requestInfo, String tenantId){
+        ApportionMasterData masterData = masterDataByTenant.get(tenantId);
+        if(masterData != null && !isExpired(masterData))
+            return masterData;
+
+        synchronized (refreshLocks.computeIfAbsent(tenantId, key -> new Object())){
+            masterData = masterDataByTenant.get(tenantId);
+            if(masterData != null && !isExpired(masterData))
+                return masterData;
+
+            long startTime = System.currentTimeMillis();
+            Object result = mDMSCall(requestInfo, tenantId);
+            if(result == null){
+                if(masterData == null)
+                    throw new CustomException("MDMS_FETCH_FAILED","Failed to fetch billing master data for tenant: "+tenantId);
+                log.error("Refresh of billing master data failed for tenant: "+tenantId+", serving data loaded at "+masterData.getLoadedAt());
+                return masterData;
+            }
+            masterData = new ApportionMasterData(result, startTime, taxHeadMasterService);
+            masterDataByTenant.put(tenantId, masterData);
+            log.info("Billing master data of tenant "+tenantId+" refreshed in "+(System.currentTimeMillis()-startTime)+"ms");
+            return masterData;
+        }
+    }
+
+    private boolean isExpired(ApportionMasterData masterData){
+        return System.currentTimeMillis() - masterData.getLoadedAt() > config.getMdmsCacheTtl() * 1000;
     }
 
     /**
@@ -84,4 +84,36 @@ public class TaxHeadMasterService {
    }
 
 
+    /**
+     * Compiles the taxHead priorities and the advance settings of the businessService from the MDMSData
+     * @param businessService The businessService for which the table is compiled
+     * @param mdmsData The master data received from MDMS Service
+     * @return Priority table of the businessService, missing data is reported when it is looked up
+     */
+   public TaxHeadPriorityTable compilePriorityTable(String businessService, Object mdmsData){
+
+       Map<String,Integer> codeToOrderMap = new HashMap<>();
+       String advanceTaxHead = null;
+       Boolean isAdvanceAllowed = null;
+
+       try {
+           codeToOrderMap = getCodeToOrderMap(businessService,mdmsData);
+       } catch (CustomException e) {
+           // reported by the table on lookup
+       }
+       try {
+           advanceTaxHead = getAdvanceTaxHead(businessService,mdmsData);
+       } catch (CustomException e) {
+           // reported by the table on lookup
+       }
+       try {
+           isAdvanceAllowed = isAdvanceAllowed(businessService,mdmsData);
+       } catch (CustomException e) {
+           // reported by the table on lookup
+       }
+
+       return new TaxHeadPriorityTable(businessService,codeToOrderMap,advanceTaxHead,isAdvanceAllowed);
+   }
+
+
 }
@@ -0,0 +1,59 @@
+package org.egov.service;
+
+import org.egov.tracer.model.CustomException;
+import org.springframework.util.CollectionUtils;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * TaxHead priorities and advance settings of a businessService, compiled once from the
+ * BillingService masters of a tenant. The lookups throw the same errors as the
+ * corresponding TaxHeadMasterService methods when the masters do not have the data.
+ */
+public class TaxHeadPriorityTable {
+
+    private final String businessService;
+
+    private final Map<String, Integer> codeToOrderMap;
+
+    private final String advanceTaxHead;
+
+    private final Boolean isAdvanceAllowed;
+
+    public TaxHeadPriorityTable(String businessService, Map<String, Integer> codeToOrderMap,
+                                String advanceTaxHead, Boolean isAdvanceAllowed) {
+        this.businessService = businessService;
+        this.codeToOrderMap = Collections.unmodifiableMap(codeToOrderMap);
+        this.advanceTaxHead = advanceTaxHead;
+        this.isAdvanceAllowed = isAdvanceAllowed;
+    }
+
+    /**
+     * @return Map of taxHeadCode to priority for the taxHeads of the businessService
+     */
+    public Map<String, Integer> getCodeToOrderMap() {
+        if (CollectionUtils.isEmpty(codeToOrderMap))
+            throw new CustomException("NO TAXHEAD FOUND", "No taxHeads found for businessService: " + businessService);
+        return codeToOrderMap;
+    }
+
+    /**
+     * @return The code of the advance TaxHead of the businessService
+     */
+    public String getAdvanceTaxHead() {
+        if (advanceTaxHead == null)
+            throw new CustomException("NO TAXHEAD FOUND", "No Advance taxHead found for businessService: " + businessService);
+        return advanceTaxHead;
+    }
+
+    /**
+     * @return The isAdvanceAllowed flag of the businessService
+     */
+    public Boolean isAdvanceAllowed() {
+        if (isAdvanceAllowed == null)
+            throw new CustomException("NO BUSINESSSERVICE FOUND", "No businessService or isAdvanceAllowed flag found for code: " + businessService);
+        return isAdvanceAllowed;
+    }
+
+}
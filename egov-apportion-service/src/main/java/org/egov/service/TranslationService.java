@@ -2,7 +2,6 @@ package org.egov.service;
 
 import org.egov.tracer.model.CustomException;
 import org.egov.web.models.*;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -15,15 +14,6 @@ import java.util.Map;
 public class TranslationService {
 
 
-    private TaxHeadMasterService taxHeadMasterService;
-
-
-    @Autowired
-    public TranslationService(TaxHeadMasterService taxHeadMasterService) {
-        this.taxHeadMasterService = taxHeadMasterService;
-    }
-
-
     public ApportionRequestV2 translate(Bill bill){
 
         String businessService = bill.getBusinessService();
@@ -61,17 +51,17 @@ public class TranslationService {
 
 
 
-    public ApportionRequestV2 translate(List<Demand> demands,Object mdmsData) {
+    public ApportionRequestV2 translate(List<Demand> demands,ApportionMasterData mdmsData) {
 
         // Group by businessService before calling this function
         String businessService = demands.get(0).getBusinessService();
 
-
-        Map<String,Integer> codeToOrderMap = taxHeadMasterService.getCodeToOrderMap(businessService,mdmsData);
+        TaxHeadPriorityTable priorityTable = mdmsData.getPriorityTable(businessService);
+        Map<String,Integer> codeToOrderMap = priorityTable.getCodeToOrderMap();
 
         // FIX ME
         BigDecimal amountPaid = BigDecimal.ZERO;
-        Boolean isAdvanceAllowed = taxHeadMasterService.isAdvanceAllowed(businessService,mdmsData);
+        Boolean isAdvanceAllowed = priorityTable.isAdvanceAllowed();
 
 
         ApportionRequestV2 apportionRequestV2 = ApportionRequestV2.builder().amountPaid(amountPaid).businessService(businessService)
@@ -1,8 +1,8 @@
 package org.egov.service.apportions;
 
 import org.egov.config.ApportionConfig;
+import org.egov.service.ApportionMasterData;
 import org.egov.service.ApportionV2;
-import org.egov.service.TaxHeadMasterService;
 import org.egov.tracer.model.CustomException;
 import org.egov.web.models.ApportionRequestV2;
 import org.egov.web.models.Bucket;
@@ -23,14 +23,17 @@ import static org.egov.util.ApportionConstants.DEFAULT;
 public class OrderByPriority implements ApportionV2 {
 
 
-    private TaxHeadMasterService taxHeadMasterService;
+    private static final Comparator<TaxDetail> BY_FROM_PERIOD = Comparator.comparing(TaxDetail::getFromPeriod);
+
+    private static final Comparator<Bucket> BY_AMOUNT = Comparator.comparing(Bucket::getAmount);
+
+    private static final Comparator<Bucket> BY_AMOUNT_AND_PRIORITY = BY_AMOUNT.thenComparing(Bucket::getPriority);
 
     private ApportionConfig config;
 
 
     @Autowired
-    public OrderByPriority(TaxHeadMasterService taxHeadMasterService, ApportionConfig config) {
-        this.taxHeadMasterService = taxHeadMasterService;
+    public OrderByPriority(ApportionConfig config) {
         this.config = config;
     }
 
@@ -41,9 +44,9 @@ public class OrderByPriority implements ApportionV2 {
     }
 
     @Override
-    public List<TaxDetail> apportionPaidAmount(ApportionRequestV2 apportionRequestV2, Object masterData) {
+    public List<TaxDetail> apportionPaidAmount(ApportionRequestV2 apportionRequestV2, ApportionMasterData masterData) {
         List<TaxDetail> taxDetails = apportionRequestV2.getTaxDetails();
-        taxDetails.sort(Comparator.comparing(TaxDetail::getFromPeriod));
+        taxDetails.sort(BY_FROM_PERIOD);
         BigDecimal remainingAmount = apportionRequestV2.getAmountPaid();
         BigDecimal amount;
         Boolean isAmountPositive;
@@ -66,9 +69,9 @@ public class OrderByPriority implements ApportionV2 {
             }
 
             if(!config.getApportionByValueAndOrder())
-                taxDetail.getBuckets().sort(Comparator.comparing(Bucket::getAmount));
+                taxDetail.getBuckets().sort(BY_AMOUNT);
             else
-                taxDetail.getBuckets().sort(Comparator.comparing(Bucket::getAmount).thenComparing(Bucket::getPriority));
+                taxDetail.getBuckets().sort(BY_AMOUNT_AND_PRIORITY);
 
 
             for(Bucket bucket : taxDetail.getBuckets()) {
@@ -128,9 +131,9 @@ public class OrderByPriority implements ApportionV2 {
      * @param apportionRequestV2 The bill for which apportioning is done
      * @param masterData The required masterData for the TaxHeads
      */
-    private void addAdvanceBillAccountDetail(BigDecimal advanceAmount, ApportionRequestV2 apportionRequestV2, Object masterData){
+    private void addAdvanceBillAccountDetail(BigDecimal advanceAmount, ApportionRequestV2 apportionRequestV2, ApportionMasterData masterData){
         List<TaxDetail> taxDetails = apportionRequestV2.getTaxDetails();
-        String taxHead = taxHeadMasterService.getAdvanceTaxHead(apportionRequestV2.getBusinessService(),masterData);
+        String taxHead = masterData.getPriorityTable(apportionRequestV2.getBusinessService()).getAdvanceTaxHead();
 
         TaxDetail latestTaxDetail = taxDetails.get(taxDetails.size()-1);
         Bucket bucketForAdvance = null;
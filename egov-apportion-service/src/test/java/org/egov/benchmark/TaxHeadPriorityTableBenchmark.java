@@ -0,0 +1,98 @@
+package org.egov.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.egov.service.ApportionMasterData;
+import org.egov.service.TaxHeadMasterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Looks up the taxHead priorities and advance settings of a bill with JsonPath over the MDMS
+ * data, as every apportion request did, against the priority table compiled once per
+ * businessService of the tenant's master data snapshot.
+ *
+ * Run the main method on the test classpath, it is not run by the build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaxHeadPriorityTableBenchmark {
+
+    private static final String[] BUSINESS_SERVICES = { "PT", "WS", "SW", "TL", "FIRENOC" };
+    private static final int TAXHEADS_PER_SERVICE = 40;
+    private static final String BUSINESS_SERVICE = "PT";
+
+    private TaxHeadMasterService taxHeadMasterService;
+
+    private Map<String, Object> mdmsData;
+
+    private ApportionMasterData masterData;
+
+    @Setup
+    public void setUp() {
+        List<Map<String, Object>> taxHeads = new ArrayList<>();
+        List<Map<String, Object>> businessServices = new ArrayList<>();
+        for (String businessService : BUSINESS_SERVICES) {
+            for (int i = 0; i < TAXHEADS_PER_SERVICE; i++) {
+                Map<String, Object> taxHead = new HashMap<>();
+                taxHead.put("code", businessService + "_TAXHEAD_" + i);
+                taxHead.put("service", businessService);
+                taxHead.put("order", String.valueOf(i));
+                taxHead.put("category", i == 0 ? "ADVANCE_COLLECTION" : "TAX");
+                taxHeads.add(taxHead);
+            }
+            Map<String, Object> master = new HashMap<>();
+            master.put("code", businessService);
+            master.put("isAdvanceAllowed", Boolean.TRUE);
+            businessServices.add(master);
+        }
+        Map<String, Object> billingService = new HashMap<>();
+        billingService.put("TaxHeadMaster", taxHeads);
+        billingService.put("BusinessService", businessServices);
+        Map<String, Object> mdmsRes = new HashMap<>();
+        mdmsRes.put("BillingService", billingService);
+        mdmsData = new HashMap<>();
+        mdmsData.put("MdmsRes", mdmsRes);
+
+        taxHeadMasterService = new TaxHeadMasterService();
+        masterData = new ApportionMasterData(mdmsData, System.currentTimeMillis(), taxHeadMasterService);
+    }
+
+    @Benchmark
+    public void jsonPathPerRequest(Blackhole blackhole) {
+        blackhole.consume(taxHeadMasterService.getCodeToOrderMap(BUSINESS_SERVICE, mdmsData));
+        blackhole.consume(taxHeadMasterService.getAdvanceTaxHead(BUSINESS_SERVICE, mdmsData));
+        blackhole.consume(taxHeadMasterService.isAdvanceAllowed(BUSINESS_SERVICE, mdmsData));
+    }
+
+    @Benchmark
+    public void compiledPriorityTable(Blackhole blackhole) {
+        blackhole.consume(masterData.getPriorityTable(BUSINESS_SERVICE).getCodeToOrderMap());
+        blackhole.consume(masterData.getPriorityTable(BUSINESS_SERVICE).getAdvanceTaxHead());
+        blackhole.consume(masterData.getPriorityTable(BUSINESS_SERVICE).isAdvanceAllowed());
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(TaxHeadPriorityTableBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
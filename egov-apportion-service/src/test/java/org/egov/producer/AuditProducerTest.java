@@ -0,0 +1,96 @@
+package org.egov.producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.egov.config.ApportionConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class AuditProducerTest {
+
+    private static final String TOPIC = "save-apportion-bill-request";
+
+    @Mock
+    private Producer producer;
+
+    @Mock
+    private ApportionConfig config;
+
+    private AuditProducer auditProducer;
+
+    @Before
+    public void setUp() {
+        when(config.getAuditQueueCapacity()).thenReturn(100);
+        when(config.getAuditBatchSize()).thenReturn(10);
+        when(config.getAuditEnqueueTimeout()).thenReturn(20L);
+        when(config.getAuditOverflow()).thenReturn("spill");
+        when(config.getAuditSendTimeout()).thenReturn(1000L);
+        when(config.getAuditShutdownTimeout()).thenReturn(10000L);
+        auditProducer = new AuditProducer(producer, config, new ObjectMapper());
+    }
+
+    @Test
+    public void sendsFromTheCallingThreadInSyncMode() throws Exception {
+        when(config.getAuditMode()).thenReturn("sync");
+        auditProducer.start();
+
+        auditProducer.auditResponse(TOPIC, Collections.singletonMap("billId", "BILL-1"));
+
+        verify(producer).push(eq(TOPIC), any());
+        verify(producer, never()).pushAsync(anyString(), any());
+        auditProducer.stop();
+    }
+
+    @Test
+    public void sendsTheQueuedSnapshotsAsynchronouslyAndDrainsThemOnStop() throws Exception {
+        when(config.getAuditMode()).thenReturn("async");
+        SettableListenableFuture<SendResult<String, Object>> acknowledged = new SettableListenableFuture<>();
+        acknowledged.set(null);
+        when(producer.pushAsync(eq(TOPIC), any())).thenReturn(acknowledged);
+        auditProducer.start();
+
+        for (int i = 0; i < 25; i++)
+            auditProducer.auditRequest(TOPIC, Collections.singletonMap("billId", "BILL-" + i));
+        auditProducer.stop();
+
+        verify(producer, times(25)).pushAsync(eq(TOPIC), any());
+        verify(producer, atLeastOnce()).flush();
+        verify(producer, never()).push(anyString(), any());
+        assertEquals(25L, auditProducer.getStats().get("sent"));
+        assertEquals(0L, auditProducer.getStats().get("failed"));
+    }
+
+    @Test
+    public void countsTheSnapshotsWhoseSendFailed() throws Exception {
+        when(config.getAuditMode()).thenReturn("async");
+        SettableListenableFuture<SendResult<String, Object>> rejected = new SettableListenableFuture<>();
+        rejected.setException(new IllegalStateException("broker unavailable"));
+        when(producer.pushAsync(eq(TOPIC), any())).thenReturn(rejected);
+        auditProducer.start();
+
+        auditProducer.auditRequest(TOPIC, Collections.singletonMap("billId", "BILL-1"));
+        auditProducer.stop();
+
+        assertEquals(0L, auditProducer.getStats().get("sent"));
+        assertEquals(1L, auditProducer.getStats().get("failed"));
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.egov.producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.egov.config.ApportionConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ProducerTest {
+
+    @Mock
+    private ApportionConfig config;
+
+    private KafkaProperties kafkaProperties = new KafkaProperties();
+
+    private Producer producer = new Producer();
+
+    @Before
+    public void setUp() {
+        when(config.getAuditProducerBatchSize()).thenReturn(65536);
+        when(config.getAuditProducerLingerMs()).thenReturn(20);
+        when(config.getAuditProducerCompressionType()).thenReturn("lz4");
+        ReflectionTestUtils.setField(producer, "kafkaProperties", kafkaProperties);
+        ReflectionTestUtils.setField(producer, "config", config);
+        ReflectionTestUtils.setField(producer, "bootstrapServers", "kafka:9092");
+        producer.initAsyncProducer();
+    }
+
+    @After
+    public void tearDown() {
+        producer.closeAsyncProducer();
+    }
+
+    @Test
+    public void batchesOnlyTheAsyncProducer() {
+        DefaultKafkaProducerFactory<?, ?> asyncProducerFactory = (DefaultKafkaProducerFactory<?, ?>) ReflectionTestUtils
+                .getField(producer, "asyncProducerFactory");
+        Map<String, Object> asyncConfig = asyncProducerFactory.getConfigurationProperties();
+
+        assertEquals("kafka:9092", asyncConfig.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+        assertEquals(65536, asyncConfig.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals(20, asyncConfig.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("lz4", asyncConfig.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+
+        Map<String, Object> sharedConfig = kafkaProperties.buildProducerProperties();
+        assertFalse(sharedConfig.containsKey(ProducerConfig.LINGER_MS_CONFIG));
+        assertFalse(sharedConfig.containsKey(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+    }
+
+}
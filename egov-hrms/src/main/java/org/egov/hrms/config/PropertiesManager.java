@@ -104,4 +104,24 @@ public class PropertiesManager {
 	
 	@Value("${open.search.enabled.roles}")
 	public String openSearchEnabledRoles;
+
+	//Bulk create
+	@Value("${egov.hrms.bulkcreate.max.size}")
+	public Integer bulkCreateMaxSize;
+
+	@Value("${egov.hrms.bulkcreate.user.concurrency}")
+	public Integer bulkCreateUserConcurrency;
+
+	@Value("${egov.hrms.bulkcreate.push.batch.size}")
+	public Integer bulkCreatePushBatchSize;
+
+	//User search
+	@Value("${egov.hrms.user.search.concurrency}")
+	public Integer userSearchConcurrency;
+
+	@Value("${egov.hrms.user.cache.ttl.seconds}")
+	public Long userCacheTtlSeconds;
+
+	@Value("${egov.hrms.user.cache.max.entries}")
+	public Integer userCacheMaxEntries;
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package org.egov.hrms.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.egov.hrms.utils.HRMSConstants;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Master data of a tenant as fetched from MDMS, with the codes of every master held in a hash set.
+ * The boundary types and boundaries of a hierarchy are read from the TenantBoundary master the
+ * first time the hierarchy is looked up and kept for the life of the snapshot.
+ */
+public class MDMSSnapshot {
+
+	private final Map<String, List<String>> masterData;
+
+	private final Map<String, Set<String>> masterCodes = new HashMap<>();
+
+	private final Set<String> hierarchyTypes;
+
+	private final Map<String, Set<String>> boundaryTypes = new ConcurrentHashMap<>();
+
+	private final Map<String, Set<String>> boundaries = new ConcurrentHashMap<>();
+
+	private final long loadedAt;
+
+	public MDMSSnapshot(Map<String, List<String>> masterData, long loadedAt) {
+		this.masterData = masterData;
+		this.loadedAt = loadedAt;
+		masterData.forEach((master, codes) -> {
+			if(null != codes)
+				masterCodes.put(master, new HashSet<>(codes));
+		});
+		this.hierarchyTypes = null == masterData.get(HRMSConstants.HRMS_MDMS_TENANT_BOUNDARY_CODE) ? Collections.emptySet()
+				: new HashSet<>(JsonPath.<List<String>>read(masterData, HRMSConstants.HRMS_TENANTBOUNDARY_HIERARCHY_JSONPATH));
+	}
+
+	public boolean isEmpty() {
+		return masterData.isEmpty();
+	}
+
+	public long getLoadedAt() {
+		return loadedAt;
+	}
+
+	/**
+	 * Checks if the code is an active code of the master
+	 *
+	 * @param master
+	 * @param code
+	 * @return
+	 */
+	public boolean contains(String master, String code) {
+		Set<String> codes = masterCodes.get(master);
+		return null != codes && codes.contains(code);
+	}
+
+	public boolean isValidHierarchy(String hierarchy) {
+		return hierarchyTypes.contains(hierarchy);
+	}
+
+	public boolean isValidBoundaryType(String hierarchy, String boundaryType) {
+		if(null == hierarchy)
+			return false;
+		return boundaryTypes.computeIfAbsent(hierarchy,
+				key -> readBoundaryCodes(HRMSConstants.HRMS_TENANTBOUNDARY_BOUNDARY_TYPE_JSONPATH, key)).contains(boundaryType);
+	}
+
+	public boolean isValidBoundary(String hierarchy, String boundary) {
+		if(null == hierarchy)
+			return false;
+		return boundaries.computeIfAbsent(hierarchy,
+				key -> readBoundaryCodes(HRMSConstants.HRMS_TENANTBOUNDARY_BOUNDARY_VALUE_JSONPATH, key)).contains(boundary);
+	}
+
+	private Set<String> readBoundaryCodes(String jsonPath, String hierarchy) {
+		if(null == masterData.get(HRMSConstants.HRMS_MDMS_TENANT_BOUNDARY_CODE))
+			return Collections.emptySet();
+		List<String> codes = JsonPath.read(masterData, String.format(jsonPath, hierarchy));
+		return new HashSet<>(codes);
+	}
+
+}
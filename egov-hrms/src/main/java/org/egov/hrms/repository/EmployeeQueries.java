@@ -45,5 +45,7 @@ public class EmployeeQueries {
 	
 	public static final String HRMS_POSITION_SEQ = "SELECT NEXTVAL('EG_HRMS_POSITION')";
 
+	public static final String HRMS_POSITION_SEQ_RANGE = "SELECT NEXTVAL('EG_HRMS_POSITION') FROM generate_series(1, ?)";
+
 	public static final String HRMS_GET_ASSIGNMENT = "select distinct(employeeid)  from eg_hrms_assignment assignment where assignment.tenantid notnull  ";
 }
@@ -32,6 +32,15 @@ public class EmployeeQueryBuilder {
 	public String getPositionSeqQuery() {
 		return EmployeeQueries.HRMS_POSITION_SEQ;
 	}
+
+	/**
+	 * Returns query to fetch the given number of next values of the position sequence in one call
+	 * 
+	 * @return
+	 */
+	public String getPositionSeqRangeQuery() {
+		return EmployeeQueries.HRMS_POSITION_SEQ_RANGE;
+	}
 	
 	/**
 	 * Adds where clause to the query based on the requirement.
@@ -95,4 +95,22 @@ public class EmployeeRepository {
 		return id;
 	}
 
+	/**
+	 * Fetches the given number of next values in the position seq table
+	 * 
+	 * @param count
+	 * @return
+	 */
+	public List<Long> fetchPositions(int count){
+		String query = queryBuilder.getPositionSeqRangeQuery();
+		List<Long> ids = new ArrayList<>();
+		try {
+			ids = jdbcTemplate.queryForList(query, new Object[] { count }, Long.class);
+		}catch(Exception e) {
+			log.error("Exception while making the db call: ",e);
+			log.error("query; "+query);
+		}
+		return ids;
+	}
+
 }
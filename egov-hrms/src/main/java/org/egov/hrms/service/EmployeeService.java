@@ -40,6 +40,7 @@
 
 package org.egov.hrms.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -58,11 +59,21 @@ import org.egov.hrms.utils.ResponseInfoFactory;
 import org.egov.hrms.web.contract.*;
 import org.egov.tracer.kafka.LogAwareKafkaTemplate;
 import org.egov.tracer.model.CustomException;
+import org.egov.tracer.model.ServiceCallException;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -102,6 +113,20 @@ public class EmployeeService {
 	@Autowired
 	private ObjectMapper objectMapper;
 
+	private ExecutorService userCreationExecutor;
+
+	@PostConstruct
+	public void initUserCreationExecutor() {
+		int concurrency = propertiesManager.getBulkCreateUserConcurrency();
+		userCreationExecutor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(propertiesManager.getBulkCreateMaxSize()), new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	@PreDestroy
+	public void shutdownUserCreationExecutor() {
+		userCreationExecutor.shutdown();
+	}
+
 	/**
 	 * Service method for create employee. Does following:
 	 * 1. Sets ids to all the objects using idgen service.
@@ -116,8 +141,9 @@ public class EmployeeService {
 		RequestInfo requestInfo = employeeRequest.getRequestInfo();
 		Map<String, String> pwdMap = new HashMap<>();
 		idGenService.setIds(employeeRequest);
+		Iterator<Long> positions = reservePositions(employeeRequest.getEmployees());
 		employeeRequest.getEmployees().stream().forEach(employee -> {
-			enrichCreateRequest(employee, requestInfo);
+			enrichCreateRequest(employee, requestInfo, positions);
 			createUser(employee, requestInfo);
 			pwdMap.put(employee.getUuid(), employee.getUser().getPassword());
 			employee.getUser().setPassword(null);
@@ -126,6 +152,173 @@ public class EmployeeService {
 		notificationService.sendNotification(employeeRequest, pwdMap);
 		return generateResponse(employeeRequest);
 	}
+
+	/**
+	 * Service method for bulk create of employees. Does following:
+	 * 1. Reports the employees which failed validation and leaves them out of the rest of the steps.
+	 * 2. Sets ids to all the objects using idgen service.
+	 * 3. Reserves the positions of all the assignments in one sequence call and enriches the employees
+	 * 4. Creates the users in the egov-user service concurrently, a failed user fails only its employee
+	 * 5. Pushes the created employees to the save topic in batches
+	 * 6. Sends notification to the created employees
+	 * 
+	 * @param employeeRequest
+	 * @param invalidEmployees errors of the employees which failed validation, keyed by their index in the request
+	 * @return outcome of each employee of the request
+	 */
+	public BulkEmployeeResponse bulkCreate(EmployeeRequest employeeRequest, Map<Integer, Map<String, String>> invalidEmployees) {
+		long startTime = System.currentTimeMillis();
+		RequestInfo requestInfo = employeeRequest.getRequestInfo();
+		List<BulkEmployeeResult> results = new ArrayList<>();
+		List<Integer> indexes = new ArrayList<>();
+		List<Employee> employees = new ArrayList<>();
+		for (int index = 0; index < employeeRequest.getEmployees().size(); index++) {
+			if (invalidEmployees.containsKey(index)) {
+				results.add(BulkEmployeeResult.builder().index(index).status(BulkEmployeeResult.StatusEnum.FAILED)
+						.errors(invalidEmployees.get(index)).build());
+			} else {
+				indexes.add(index);
+				employees.add(employeeRequest.getEmployees().get(index));
+			}
+		}
+
+		List<Employee> createdEmployees = new ArrayList<>();
+		if (!employees.isEmpty()) {
+			idGenService.setIds(new EmployeeRequest(requestInfo, employees));
+			Iterator<Long> positions = reservePositions(employees);
+			employees.forEach(employee -> enrichCreateRequest(employee, requestInfo, positions));
+
+			Map<String, String> context = MDC.getCopyOfContextMap();
+			List<CompletableFuture<Map<String, String>>> userCreations = new ArrayList<>();
+			employees.forEach(employee -> userCreations.add(CompletableFuture.supplyAsync(() -> {
+				if (context != null)
+					MDC.setContextMap(context);
+				try {
+					return createUserForBulk(employee, requestInfo);
+				} finally {
+					MDC.clear();
+				}
+			}, userCreationExecutor)));
+
+			Map<String, String> pwdMap = new HashMap<>();
+			for (int i = 0; i < employees.size(); i++) {
+				Employee employee = employees.get(i);
+				Map<String, String> errors = awaitUserCreation(userCreations.get(i));
+				if (CollectionUtils.isEmpty(errors)) {
+					pwdMap.put(employee.getUuid(), employee.getUser().getPassword());
+					employee.getUser().setPassword(null);
+					createdEmployees.add(employee);
+					results.add(BulkEmployeeResult.builder().index(indexes.get(i)).status(BulkEmployeeResult.StatusEnum.SUCCESSFUL)
+							.employee(employee).build());
+				} else {
+					results.add(BulkEmployeeResult.builder().index(indexes.get(i)).status(BulkEmployeeResult.StatusEnum.FAILED)
+							.errors(errors).build());
+				}
+			}
+
+			int batchSize = propertiesManager.getBulkCreatePushBatchSize();
+			for (int from = 0; from < createdEmployees.size(); from += batchSize) {
+				List<Employee> batch = createdEmployees.subList(from, Math.min(from + batchSize, createdEmployees.size()));
+				hrmsProducer.push(propertiesManager.getSaveEmployeeTopic(), new EmployeeRequest(requestInfo, new ArrayList<>(batch)));
+			}
+			if (!createdEmployees.isEmpty())
+				notificationService.sendNotification(new EmployeeRequest(requestInfo, createdEmployees), pwdMap);
+		}
+		results.sort(Comparator.comparing(BulkEmployeeResult::getIndex));
+
+		int total = employeeRequest.getEmployees().size();
+		log.info("Bulk create of " + total + " employees: " + createdEmployees.size() + " created, "
+				+ (total - createdEmployees.size()) + " failed in " + (System.currentTimeMillis() - startTime) + "ms");
+		return BulkEmployeeResponse.builder()
+				.responseInfo(factory.createResponseInfoFromRequestInfo(requestInfo, true))
+				.results(results).build();
+	}
+
+	/**
+	 * Creates the user of an employee of a bulk request, returning the errors instead of throwing them.
+	 * The errors returned by the user service are reported as they are
+	 * 
+	 * @param employee
+	 * @param requestInfo
+	 * @return errors of the user creation, empty when the user is created
+	 */
+	private Map<String, String> createUserForBulk(Employee employee, RequestInfo requestInfo) {
+		enrichUser(employee);
+		UserRequest request = UserRequest.builder().requestInfo(requestInfo).user(employee.getUser()).build();
+		try {
+			UserResponse response = userService.createUserOrThrow(request);
+			if (null == response || CollectionUtils.isEmpty(response.getUser()))
+				return Collections.singletonMap(ErrorConstants.HRMS_USER_CREATION_FAILED_CODE, ErrorConstants.HRMS_USER_CREATION_FAILED_MSG);
+			User user = response.getUser().get(0);
+			employee.setId(user.getId());
+			employee.setUuid(user.getUuid());
+			employee.getUser().setId(user.getId());
+			employee.getUser().setUuid(user.getUuid());
+			return Collections.emptyMap();
+		}catch(ServiceCallException e) {
+			log.error("Exception while creating user: ",e);
+			return getUserServiceErrors(e.getError());
+		}catch(CustomException e) {
+			if(!CollectionUtils.isEmpty(e.getErrors()))
+				return e.getErrors();
+			return Collections.singletonMap(e.getCode(), e.getMessage());
+		}catch(Exception e) {
+			log.error("Exception while creating user: ",e);
+			return Collections.singletonMap(ErrorConstants.HRMS_USER_CREATION_FAILED_CODE,
+					null != e.getMessage() ? e.getMessage() : e.getClass().getName());
+		}
+	}
+
+	/**
+	 * Reads the errors out of the error response of the user service
+	 * 
+	 * @param responseBody
+	 * @return code and message of each error, the body itself when it has no errors
+	 */
+	private Map<String, String> getUserServiceErrors(String responseBody) {
+		Map<String, String> errors = new LinkedHashMap<>();
+		try {
+			JsonNode errorNodes = objectMapper.readTree(responseBody).path("Errors");
+			errorNodes.forEach(error -> errors.put(error.path("code").asText(), error.path("message").asText()));
+		}catch(Exception e) {
+			log.error("Could not read the user service errors: ",e);
+		}
+		if(errors.isEmpty())
+			errors.put(ErrorConstants.HRMS_USER_CREATION_FAILED_CODE, responseBody);
+		return errors;
+	}
+
+	private Map<String, String> awaitUserCreation(CompletableFuture<Map<String, String>> userCreation) {
+		try {
+			return userCreation.get();
+		}catch(ExecutionException e) {
+			log.error("Exception while creating user: ",e.getCause());
+			Throwable cause = null != e.getCause() ? e.getCause() : e;
+			return Collections.singletonMap(ErrorConstants.HRMS_USER_CREATION_FAILED_CODE,
+					null != cause.getMessage() ? cause.getMessage() : cause.getClass().getName());
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CustomException(ErrorConstants.HRMS_USER_CREATION_FAILED_CODE, ErrorConstants.HRMS_USER_CREATION_FAILED_MSG);
+		}
+	}
+
+	/**
+	 * Reserves the positions of all the assignments of the employees in one call to the position sequence
+	 * 
+	 * @param employees
+	 * @return positions to be handed out to the assignments in order
+	 */
+	private Iterator<Long> reservePositions(List<Employee> employees) {
+		int count = employees.stream()
+				.mapToInt(employee -> CollectionUtils.isEmpty(employee.getAssignments()) ? 0 : employee.getAssignments().size())
+				.sum();
+		if(count == 0)
+			return Collections.emptyIterator();
+		List<Long> positions = repository.fetchPositions(count);
+		if(positions.size() < count)
+			throw new CustomException(ErrorConstants.HRMS_POSITION_ERROR_CODE, ErrorConstants.HRMS_POSITION_ERROR_MSG);
+		return positions.iterator();
+	}
 	
 	/**
 	 * Searches employees on a given criteria.
@@ -136,6 +329,7 @@ public class EmployeeService {
 	 */
 	public EmployeeResponse search(EmployeeSearchCriteria criteria, RequestInfo requestInfo) {
 		boolean  userChecked = false;
+		String tenantId = criteria.getTenantId();
 		if(null == criteria.getIsActive() || criteria.getIsActive())
 			criteria.setIsActive(true);
 		else
@@ -154,34 +348,24 @@ public class EmployeeService {
                  mapOfUsers.putAll(userResponse.getUser().stream()
                         .collect(Collectors.toMap(User::getUuid, Function.identity())));
             }
-			List<String> userUUIDs = userResponse.getUser().stream().map(User :: getUuid).collect(Collectors.toList());
+			Set<String> userUUIDs = userResponse.getUser().stream().map(User :: getUuid).collect(Collectors.toSet());
             if(!CollectionUtils.isEmpty(criteria.getUuids()))
                 criteria.setUuids(criteria.getUuids().stream().filter(userUUIDs::contains).collect(Collectors.toList()));
             else
-                criteria.setUuids(userUUIDs);
+                criteria.setUuids(new ArrayList<>(userUUIDs));
 		}
 		//checks if above criteria met and result is not  null will check for name search if list of names are given as user search on name is not bulk api
 
 		if(!((!CollectionUtils.isEmpty(criteria.getRoles()) || !StringUtils.isEmpty(criteria.getPhone())) && CollectionUtils.isEmpty(criteria.getUuids()))){
 			if(!CollectionUtils.isEmpty(criteria.getNames())) {
-				List<String> userUUIDs = new ArrayList<>();
-				for(String name: criteria.getNames()) {
-					Map<String, Object> userSearchCriteria = new HashMap<>();
-					userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_TENANTID,criteria.getTenantId());
-					userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_NAME,name);
-					UserResponse userResponse = userService.getUser(requestInfo, userSearchCriteria);
-					userChecked =true;
-					if(!CollectionUtils.isEmpty(userResponse.getUser())) {
-						mapOfUsers.putAll(userResponse.getUser().stream()
-								.collect(Collectors.toMap(User::getUuid, Function.identity())));
-					}
-					List<String> uuids = userResponse.getUser().stream().map(User :: getUuid).collect(Collectors.toList());
-					userUUIDs.addAll(uuids);
-				}
+				Map<String, User> usersByName = userService.getUsersByNames(requestInfo, criteria.getTenantId(), criteria.getNames());
+				userChecked =true;
+				mapOfUsers.putAll(usersByName);
+				Set<String> userUUIDs = usersByName.keySet();
 				if(!CollectionUtils.isEmpty(criteria.getUuids()))
 					criteria.setUuids(criteria.getUuids().stream().filter(userUUIDs::contains).collect(Collectors.toList()));
 				else
-					criteria.setUuids(userUUIDs);
+					criteria.setUuids(new ArrayList<>(userUUIDs));
 			}
 		}
 		if(userChecked)
@@ -191,14 +375,8 @@ public class EmployeeService {
             employees = repository.fetchEmployees(criteria, requestInfo);
         List<String> uuids = employees.stream().map(Employee :: getUuid).collect(Collectors.toList());
 		if(!CollectionUtils.isEmpty(uuids)){
-            Map<String, Object> UserSearchCriteria = new HashMap<>();
-            UserSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_UUID,uuids);
             if(mapOfUsers.isEmpty()){
-            UserResponse userResponse = userService.getUser(requestInfo, UserSearchCriteria);
-			if(!CollectionUtils.isEmpty(userResponse.getUser())) {
-				mapOfUsers = userResponse.getUser().stream()
-						.collect(Collectors.toMap(User :: getUuid, Function.identity()));
-            }
+                mapOfUsers = userService.getUsersByUuids(requestInfo, tenantId, uuids);
             }
             for(Employee employee: employees){
                 employee.setUser(mapOfUsers.get(employee.getUuid()));
@@ -255,8 +433,9 @@ public class EmployeeService {
 	 * 
 	 * @param employee
 	 * @param requestInfo
+	 * @param positions positions reserved for the assignments
 	 */
-	private void enrichCreateRequest(Employee employee, RequestInfo requestInfo) {
+	private void enrichCreateRequest(Employee employee, RequestInfo requestInfo, Iterator<Long> positions) {
 
 		AuditDetails auditDetails = AuditDetails.builder()
 				.createdBy(requestInfo.getUserInfo().getUuid())
@@ -272,7 +451,7 @@ public class EmployeeService {
 		employee.getAssignments().stream().forEach(assignment -> {
 			assignment.setId(UUID.randomUUID().toString());
 			assignment.setAuditDetails(auditDetails);
-			assignment.setPosition(getPosition());
+			assignment.setPosition(positions.next());
 		});
 		if(!CollectionUtils.isEmpty(employee.getServiceHistory())) {
 			employee.getServiceHistory().stream().forEach(serviceHistory -> {
@@ -308,14 +487,6 @@ public class EmployeeService {
 		employee.setIsActive(true);
 	}
 	
-	/**
-	 * Fetches next value from the position sequence table
-	 * @return
-	 */
-	public Long getPosition() {
-		return repository.fetchPosition();
-	}
-
 	/**
 	 * Service method to update user. Performs the following:
 	 * 1. Enriches the employee object with required parameters.
@@ -5,8 +5,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.model.MDMSSnapshot;
 import org.egov.hrms.utils.HRMSConstants;
 import org.egov.mdms.model.MasterDetail;
 import org.egov.mdms.model.MdmsCriteria;
@@ -33,6 +35,63 @@ public class MDMSService {
 
 	@Value("${egov.mdms.search.endpoint}")
 	private String mdmsEndpoint;
+
+	@Value("${egov.hrms.mdms.snapshot.ttl.seconds}")
+	private Long snapshotTtlSeconds;
+
+	@Value("${egov.hrms.mdms.snapshot.retry.delay.seconds}")
+	private Long snapshotRetryDelaySeconds;
+
+	private final Map<String, MDMSSnapshot> snapshots = new ConcurrentHashMap<>();
+
+	private final Map<String, Long> snapshotRetryTimes = new ConcurrentHashMap<>();
+
+	private final Map<String, Object> snapshotLocks = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the master data snapshot of the tenant, shared by all the requests of the tenant.
+	 * The snapshot is fetched again once it is older than egov.hrms.mdms.snapshot.ttl.seconds,
+	 * if that fetch fails the old snapshot is served and the fetch is not tried again for
+	 * egov.hrms.mdms.snapshot.retry.delay.seconds, so that the requests do not queue up on a
+	 * failing MDMS one after the other.
+	 * 
+	 * @param requestInfo
+	 * @param tenantId
+	 * @return
+	 */
+	public MDMSSnapshot getMDMSSnapshot(RequestInfo requestInfo, String tenantId) {
+		MDMSSnapshot snapshot = snapshots.get(tenantId);
+		if(null != snapshot && !isRefreshDue(tenantId, snapshot))
+			return snapshot;
+		synchronized (snapshotLocks.computeIfAbsent(tenantId, tenant -> new Object())) {
+			snapshot = snapshots.get(tenantId);
+			if(null != snapshot && !isRefreshDue(tenantId, snapshot))
+				return snapshot;
+			long startTime = System.currentTimeMillis();
+			MDMSSnapshot refreshed = new MDMSSnapshot(getMDMSData(requestInfo, tenantId), startTime);
+			long refreshLatency = System.currentTimeMillis() - startTime;
+			if(refreshed.isEmpty()) {
+				log.error("MDMS snapshot refresh of tenant " + tenantId + " returned no data in " + refreshLatency + "ms"
+						+ (null == snapshot ? "" : ", serving snapshot of age " + (startTime - snapshot.getLoadedAt())
+								+ "ms for the next " + snapshotRetryDelaySeconds + "s"));
+				if(null == snapshot)
+					return refreshed;
+				snapshotRetryTimes.put(tenantId, System.currentTimeMillis() + snapshotRetryDelaySeconds * 1000);
+				return snapshot;
+			}
+			snapshots.put(tenantId, refreshed);
+			snapshotRetryTimes.remove(tenantId);
+			log.info("MDMS snapshot of tenant " + tenantId + " refreshed in " + refreshLatency + "ms"
+					+ (null == snapshot ? "" : ", replaced snapshot of age " + (startTime - snapshot.getLoadedAt()) + "ms"));
+			return refreshed;
+		}
+	}
+
+	private boolean isRefreshDue(String tenantId, MDMSSnapshot snapshot) {
+		long now = System.currentTimeMillis();
+		return now - snapshot.getLoadedAt() > snapshotTtlSeconds * 1000
+				&& now >= snapshotRetryTimes.getOrDefault(tenantId, 0L);
+	}
 	
 	
 	/**
@@ -48,16 +48,28 @@ import org.egov.hrms.model.Employee;
 import org.egov.hrms.model.enums.UserType;
 import org.egov.hrms.repository.RestCallRepository;
 import org.egov.hrms.utils.HRMSConstants;
+import org.egov.hrms.web.contract.User;
 import org.egov.hrms.web.contract.UserRequest;
 import org.egov.hrms.web.contract.UserResponse;
 import org.egov.tracer.model.CustomException;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -80,6 +92,25 @@ public class UserService {
 
 	@Value("${egov.user.update.endpoint}")
 	private String userUpdateEndpoint;
+
+	private ExecutorService userSearchExecutor;
+
+	/**
+	 * Users fetched by uuid, per tenant. Entries live for egov.hrms.user.cache.ttl.seconds
+	 */
+	private final Map<String, Map<String, CachedUser>> userCache = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void initUserSearchExecutor() {
+		int concurrency = propertiesManager.getUserSearchConcurrency();
+		userSearchExecutor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	@PreDestroy
+	public void shutdownUserSearchExecutor() {
+		userSearchExecutor.shutdown();
+	}
 	
 	public UserResponse createUser(UserRequest userRequest) {
 		StringBuilder uri = new StringBuilder();
@@ -93,6 +124,19 @@ public class UserService {
 
 		return userResponse;
 	}
+
+	/**
+	 * Creates the user, failures of the user service are thrown to the caller instead of
+	 * being logged, so that their cause can be reported
+	 * 
+	 * @param userRequest
+	 * @return created user
+	 */
+	public UserResponse createUserOrThrow(UserRequest userRequest) {
+		StringBuilder uri = new StringBuilder();
+		uri.append(propertiesManager.getUserHost()).append(propertiesManager.getUserCreateEndpoint());
+		return userCall(userRequest,uri);
+	}
 	
 	public UserResponse updateUser(UserRequest userRequest) {
 		StringBuilder uri = new StringBuilder();
@@ -103,6 +147,8 @@ public class UserService {
 		}catch(Exception e) {
 			log.error("User created failed: ",e);
 		}
+		if(null != userRequest.getUser() && null != userRequest.getUser().getUuid())
+			userCache.values().forEach(users -> users.remove(userRequest.getUser().getUuid()));
 
 		return userResponse;
 	}
@@ -125,6 +171,122 @@ public class UserService {
 		return userResponse;
 	}
 
+	/**
+	 * Searches users of the tenant by each of the names. The user service searches on one name
+	 * at a time, so the searches are run concurrently on a bounded pool.
+	 * 
+	 * @param requestInfo
+	 * @param tenantId
+	 * @param names
+	 * @return users found for any of the names keyed by uuid
+	 */
+	public Map<String, User> getUsersByNames(RequestInfo requestInfo, String tenantId, List<String> names) {
+		List<Map<String, Object>> userSearchCriteria = new ArrayList<>();
+		for(String name: new LinkedHashSet<>(names)) {
+			Map<String, Object> criteria = new HashMap<>();
+			criteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_TENANTID, tenantId);
+			criteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_NAME, name);
+			userSearchCriteria.add(criteria);
+		}
+
+		Map<String, User> users = new LinkedHashMap<>();
+		for(UserResponse userResponse: getUsers(requestInfo, userSearchCriteria)) {
+			if(!CollectionUtils.isEmpty(userResponse.getUser()))
+				userResponse.getUser().forEach(user -> users.putIfAbsent(user.getUuid(), user));
+		}
+		cacheUsers(tenantId, users.values());
+		return users;
+	}
+
+	/**
+	 * Runs one user search per criteria concurrently on the bounded user search pool, for
+	 * criteria the user service cannot take in a single search
+	 * 
+	 * @param requestInfo
+	 * @param userSearchCriteria
+	 * @return response of each search, in the order of the criteria
+	 */
+	public List<UserResponse> getUsers(RequestInfo requestInfo, List<Map<String, Object>> userSearchCriteria) {
+		Map<String, String> context = MDC.getCopyOfContextMap();
+		List<CompletableFuture<UserResponse>> searches = new ArrayList<>(userSearchCriteria.size());
+		for(Map<String, Object> criteria: userSearchCriteria) {
+			searches.add(CompletableFuture.supplyAsync(() -> {
+				if(context != null)
+					MDC.setContextMap(context);
+				try {
+					return getUser(requestInfo, criteria);
+				} finally {
+					MDC.clear();
+				}
+			}, userSearchExecutor));
+		}
+
+		List<UserResponse> userResponses = new ArrayList<>(searches.size());
+		for(CompletableFuture<UserResponse> search: searches)
+			userResponses.add(awaitSearch(search));
+		return userResponses;
+	}
+
+	/**
+	 * Fetches users by uuid, reading them from the cache of the tenant first. Only the uuids
+	 * missing in the cache are searched for. Without a tenant the cache is not used.
+	 * 
+	 * @param requestInfo
+	 * @param tenantId
+	 * @param uuids
+	 * @return users keyed by uuid
+	 */
+	public Map<String, User> getUsersByUuids(RequestInfo requestInfo, String tenantId, List<String> uuids) {
+		Map<String, User> users = new HashMap<>();
+		List<String> missing = new ArrayList<>();
+		Map<String, CachedUser> cachedUsers = null == tenantId ? null : userCache.get(tenantId);
+		long now = System.currentTimeMillis();
+		for(String uuid: new LinkedHashSet<>(uuids)) {
+			CachedUser cachedUser = null == cachedUsers ? null : cachedUsers.get(uuid);
+			if(null != cachedUser && cachedUser.expiresAt > now)
+				users.put(uuid, cachedUser.user);
+			else
+				missing.add(uuid);
+		}
+		if(!missing.isEmpty()) {
+			Map<String, Object> userSearchCriteria = new HashMap<>();
+			userSearchCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_UUID, missing);
+			UserResponse userResponse = getUser(requestInfo, userSearchCriteria);
+			if(!CollectionUtils.isEmpty(userResponse.getUser())) {
+				userResponse.getUser().forEach(user -> users.put(user.getUuid(), user));
+				cacheUsers(tenantId, userResponse.getUser());
+			}
+		}
+		log.debug("Users by uuid: " + (users.size() - missing.size()) + " from cache, " + missing.size() + " searched");
+		return users;
+	}
+
+	private UserResponse awaitSearch(CompletableFuture<UserResponse> search) {
+		try {
+			return search.get();
+		}catch(ExecutionException e) {
+			log.error("User search failed: ",e.getCause());
+			return new UserResponse();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CustomException("USER_SEARCH_INTERRUPTED", "Interrupted while searching users");
+		}
+	}
+
+	private void cacheUsers(String tenantId, Collection<User> users) {
+		if(null == tenantId || users.isEmpty())
+			return;
+		Map<String, CachedUser> cachedUsers = userCache.computeIfAbsent(tenantId, tenant -> new ConcurrentHashMap<>());
+		long now = System.currentTimeMillis();
+		if(cachedUsers.size() + users.size() > propertiesManager.getUserCacheMaxEntries()) {
+			cachedUsers.values().removeIf(cachedUser -> cachedUser.expiresAt <= now);
+			if(cachedUsers.size() + users.size() > propertiesManager.getUserCacheMaxEntries())
+				cachedUsers.clear();
+		}
+		long expiresAt = now + propertiesManager.getUserCacheTtlSeconds() * 1000;
+		users.forEach(user -> cachedUsers.put(user.getUuid(), new CachedUser(user, expiresAt)));
+	}
+
 
 	/**
 	 * Returns UserDetailResponse by calling user service with given uri and object
@@ -191,5 +353,17 @@ public class UserService {
 		return  d.getTime();
 	}
 
+	private static class CachedUser {
+
+		private User user;
+
+		private long expiresAt;
+
+		private CachedUser(User user, long expiresAt) {
+			this.user = user;
+			this.expiresAt = expiresAt;
+		}
+	}
+
 
 }
\ No newline at end of file
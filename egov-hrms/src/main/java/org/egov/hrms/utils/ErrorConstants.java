@@ -188,4 +188,13 @@ public class ErrorConstants {
 	public static final String HRMS_GENERATE_ID_ERROR_CODE = "ERR_HRMS_GENERATE_ID_ERROR";
 	public static final String HRMS_GENERATE_ID_ERROR_MSG = "Unable to create ids " ;
 
+	public static final String HRMS_POSITION_ERROR_CODE = "ERR_HRMS_POSITION_ERROR";
+	public static final String HRMS_POSITION_ERROR_MSG = "Unable to reserve positions for the assignments";
+
+	public static final String HRMS_BULK_CREATE_LIMIT_CODE = "ERR_HRMS_BULK_CREATE_LIMIT";
+	public static final String HRMS_BULK_CREATE_LIMIT_MSG = "Bulk request can not have more employees than ";
+
+	public static final String HRMS_BULK_CREATE_EMPTY_CODE = "ERR_HRMS_BULK_CREATE_EMPTY";
+	public static final String HRMS_BULK_CREATE_EMPTY_MSG = "Bulk request has no employees";
+
 }
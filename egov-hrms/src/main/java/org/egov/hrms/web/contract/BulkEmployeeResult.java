@@ -0,0 +1,42 @@
+package org.egov.hrms.web.contract;
+
+import java.util.Map;
+
+import org.egov.hrms.model.Employee;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one employee of a bulk create request, index is the position
+ * of the employee in the request
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkEmployeeResult {
+
+	public enum StatusEnum {
+		SUCCESSFUL, FAILED
+	}
+
+	@JsonProperty("index")
+	private Integer index;
+
+	@JsonProperty("status")
+	private StatusEnum status;
+
+	@JsonProperty("Employee")
+	private Employee employee;
+
+	@JsonProperty("errors")
+	private Map<String, String> errors;
+
+}
@@ -42,6 +42,7 @@ package org.egov.hrms.web.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.egov.hrms.service.EmployeeService;
+import org.egov.hrms.web.contract.BulkEmployeeResponse;
 import org.egov.hrms.web.contract.EmployeeRequest;
 import org.egov.hrms.web.contract.EmployeeResponse;
 import org.egov.hrms.web.contract.EmployeeSearchCriteria;
@@ -54,6 +55,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -84,6 +86,22 @@ public class EmployeeController {
 	}
 
 
+	/**
+	 * Maps Post Requests for _bulkcreate & returns ResponseEntity of either
+	 * BulkEmployeeResponse type or ErrorResponse type
+	 *
+	 * @param employeeRequest
+	 * @return ResponseEntity<?>
+	 */
+	@PostMapping(value = "/_bulkcreate")
+	@ResponseBody
+	public ResponseEntity<?> bulkCreate(@RequestBody @Valid EmployeeRequest employeeRequest) {
+		Map<Integer, Map<String, String>> invalidEmployees = validator.validateBulkCreateEmployee(employeeRequest);
+		BulkEmployeeResponse bulkEmployeeResponse = employeeService.bulkCreate(employeeRequest, invalidEmployees);
+		return new ResponseEntity<>(bulkEmployeeResponse, HttpStatus.ACCEPTED);
+	}
+
+
 	/**
 	 * Maps Post Requests for _update & returns ResponseEntity of either
 	 * EmployeeResponse type or ErrorResponse type
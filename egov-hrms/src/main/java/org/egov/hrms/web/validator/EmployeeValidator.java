@@ -3,7 +3,6 @@ package org.egov.hrms.web.validator;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import com.jayway.jsonpath.JsonPath;
 import org.apache.commons.lang3.StringUtils;
 import org.egov.common.contract.request.RequestInfo;
 import org.egov.common.contract.request.Role;
@@ -53,14 +52,94 @@ public class EmployeeValidator {
 		validateExistingDuplicates(request ,errorMap);
 		if(!CollectionUtils.isEmpty(errorMap.keySet()))
 			throw new CustomException(errorMap);
-		Map<String, List<String>> mdmsData = mdmsService.getMDMSData(request.getRequestInfo(), request.getEmployees().get(0).getTenantId());
-		if(!CollectionUtils.isEmpty(mdmsData.keySet())){
+		MDMSSnapshot mdmsData = mdmsService.getMDMSSnapshot(request.getRequestInfo(), request.getEmployees().get(0).getTenantId());
+		if(!mdmsData.isEmpty()){
 			request.getEmployees().stream().forEach(employee -> validateMdmsData(employee, errorMap, mdmsData));
 		}
 		if(!CollectionUtils.isEmpty(errorMap.keySet()))
 			throw new CustomException(errorMap);
 	}
 	
+	/**
+	 * Validates employee request for bulk create. Checks the number of employees against
+	 * the configured limit and then validates every employee on its own with the validations
+	 * of create, so that an invalid employee does not reject the rest of the request
+	 * 
+	 * @param request
+	 * @return errors of each invalid employee keyed by its index in the request
+	 */
+	public Map<Integer, Map<String, String>> validateBulkCreateEmployee(EmployeeRequest request) {
+		List<Employee> employees = request.getEmployees();
+		if(CollectionUtils.isEmpty(employees))
+			throw new CustomException(ErrorConstants.HRMS_BULK_CREATE_EMPTY_CODE, ErrorConstants.HRMS_BULK_CREATE_EMPTY_MSG);
+		if(employees.size() > propertiesManager.getBulkCreateMaxSize())
+			throw new CustomException(ErrorConstants.HRMS_BULK_CREATE_LIMIT_CODE,
+					ErrorConstants.HRMS_BULK_CREATE_LIMIT_MSG + propertiesManager.getBulkCreateMaxSize());
+		Map<Integer, Map<String, String>> invalidEmployees = new HashMap<>();
+		MDMSSnapshot mdmsData = mdmsService.getMDMSSnapshot(request.getRequestInfo(), employees.get(0).getTenantId());
+		Map<Integer, Map<String, String>> existingUsers = validateBulkExistingUsers(employees, request.getRequestInfo());
+		HashSet<String> mobileNos = new HashSet<>();
+		HashSet<String> codes = new HashSet<>();
+		for(int index = 0; index < employees.size(); index++) {
+			Employee employee = employees.get(index);
+			Map<String, String> errorMap = new HashMap<>(existingUsers.getOrDefault(index, Collections.emptyMap()));
+			if(!mobileNos.add(employee.getUser().getMobileNumber()))
+				errorMap.put(ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_MOBILE_CODE, ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_MOBILE_MSG);
+			if(null != employee.getCode() && !codes.add(employee.getCode()))
+				errorMap.put(ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_EMPCODE_CODE, ErrorConstants.HRMS_BULK_CREATE_DUPLICATE_EMPCODE_MSG);
+			if(!mdmsData.isEmpty())
+				validateMdmsData(employee, errorMap, mdmsData);
+			if(!CollectionUtils.isEmpty(errorMap.keySet()))
+				invalidEmployees.put(index, errorMap);
+		}
+		return invalidEmployees;
+	}
+
+	/**
+	 * Checks that no user exists with the mobile number, or the employee code as user name,
+	 * of any of the employees. The user service searches on one mobile number or user name at
+	 * a time, so all the searches of the request are run together on the user search pool
+	 * 
+	 * @param employees
+	 * @param requestInfo
+	 * @return errors of the employees with an existing user keyed by their index
+	 */
+	private Map<Integer, Map<String, String>> validateBulkExistingUsers(List<Employee> employees, RequestInfo requestInfo) {
+		List<Map<String, Object>> userSearchCriteria = new ArrayList<>();
+		List<Integer> searchIndexes = new ArrayList<>();
+		List<Boolean> searchByMobile = new ArrayList<>();
+		for(int index = 0; index < employees.size(); index++) {
+			Employee employee = employees.get(index);
+			Map<String, Object> mobileCriteria = new HashMap<>();
+			mobileCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_TENANTID, employee.getTenantId());
+			mobileCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_MOBILENO, employee.getUser().getMobileNumber());
+			userSearchCriteria.add(mobileCriteria);
+			searchIndexes.add(index);
+			searchByMobile.add(true);
+			if(!StringUtils.isEmpty(employee.getCode())) {
+				Map<String, Object> userNameCriteria = new HashMap<>();
+				userNameCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_TENANTID, employee.getTenantId());
+				userNameCriteria.put(HRMSConstants.HRMS_USER_SEARCH_CRITERA_USERNAME, employee.getCode());
+				userSearchCriteria.add(userNameCriteria);
+				searchIndexes.add(index);
+				searchByMobile.add(false);
+			}
+		}
+
+		List<UserResponse> userResponses = userService.getUsers(requestInfo, userSearchCriteria);
+		Map<Integer, Map<String, String>> existingUsers = new HashMap<>();
+		for(int i = 0; i < userResponses.size(); i++) {
+			if(CollectionUtils.isEmpty(userResponses.get(i).getUser()))
+				continue;
+			Map<String, String> errorMap = existingUsers.computeIfAbsent(searchIndexes.get(i), index -> new HashMap<>());
+			if(searchByMobile.get(i))
+				errorMap.put(ErrorConstants.HRMS_USER_EXIST_MOB_CODE, ErrorConstants.HRMS_USER_EXIST_MOB_MSG);
+			else
+				errorMap.put(ErrorConstants.HRMS_USER_EXIST_USERNAME_CODE, ErrorConstants.HRMS_USER_EXIST_USERNAME_MSG);
+		}
+		return existingUsers;
+	}
+	
 	/**
 	 * Validates search request. Checks the following:
 	 * 1. If a user who doesn't have access to open search is making an open search call.
@@ -188,7 +267,7 @@ public class EmployeeValidator {
      * @param errorMap
      * @param mdmsData
      */
-	private void validateMdmsData(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateMdmsData(Employee employee, Map<String, String> errorMap, MDMSSnapshot mdmsData) {
 		validateEmployee(employee, errorMap, mdmsData);
 		validateAssignments(employee, errorMap, mdmsData);
 		validateServiceHistory(employee, errorMap, mdmsData);
@@ -206,7 +285,7 @@ public class EmployeeValidator {
 	 * @param existingEmp
 	 * @param requestInfo
 	 */
-	public void validateDataConsistency(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData, Employee existingEmp, RequestInfo requestInfo) {
+	public void validateDataConsistency(Employee employee, Map<String, String> errorMap, MDMSSnapshot mdmsData, Employee existingEmp, RequestInfo requestInfo) {
 		validateUserData(existingEmp,employee,errorMap, requestInfo);
 		validateConsistencyAssignment(existingEmp,employee,errorMap);
 		validateConsistencyJurisdiction(existingEmp,employee,errorMap);
@@ -256,7 +335,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateEmployee(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateEmployee(Employee employee, Map<String, String> errorMap, MDMSSnapshot mdmsData) {
 
 		if(employee.getUser().getMobileNumber().length() != 10)
 			errorMap.put(ErrorConstants.HRMS_INVALID_MOB_NO_CODE, ErrorConstants.HRMS_INVALID_MOB_NO_MSG);
@@ -265,13 +344,13 @@ public class EmployeeValidator {
 			errorMap.put(ErrorConstants.HRMS_MISSING_ROLES_CODE, ErrorConstants.HRMS_INVALID_ROLES_MSG);
 		else {
 			for(org.egov.hrms.model.Role role: employee.getUser().getRoles()) {
-				if(!mdmsData.get(HRMSConstants.HRMS_MDMS_ROLES_CODE).contains(role.getCode()))
+				if(!mdmsData.contains(HRMSConstants.HRMS_MDMS_ROLES_CODE, role.getCode()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_ROLE_CODE, ErrorConstants.HRMS_INVALID_ROLE_MSG );
 			}
 		}
-		if(!mdmsData.get(HRMSConstants.HRMS_MDMS_EMP_STATUS_CODE).contains(employee.getEmployeeStatus()))
+		if(!mdmsData.contains(HRMSConstants.HRMS_MDMS_EMP_STATUS_CODE, employee.getEmployeeStatus()))
 			errorMap.put(ErrorConstants.HRMS_INVALID_EMP_STATUS_CODE, ErrorConstants.HRMS_INVALID_EMP_STATUS_MSG);
-		if(!mdmsData.get(HRMSConstants.HRMS_MDMS_EMP_TYPE_CODE).contains(employee.getEmployeeType()))
+		if(!mdmsData.contains(HRMSConstants.HRMS_MDMS_EMP_TYPE_CODE, employee.getEmployeeType()))
 			errorMap.put(ErrorConstants.HRMS_INVALID_EMP_TYPE_CODE, ErrorConstants.HRMS_INVALID_EMP_TYPE_MSG);
 		if(null != employee.getDateOfAppointment() && employee.getDateOfAppointment() > new Date().getTime())
 			errorMap.put(ErrorConstants.HRMS_INVALID_DATE_OF_APPOINTMENT_CODE, ErrorConstants.HRMS_INVALID_DATE_OF_APPOINTMENT_MSG);
@@ -295,7 +374,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateAssignments(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateAssignments(Employee employee, Map<String, String> errorMap, MDMSSnapshot mdmsData) {
 		List<Assignment> currentAssignments = employee.getAssignments().stream().filter(assignment -> assignment.getIsCurrentAssignment()).collect(Collectors.toList());
 		if(currentAssignments.size() != 1){
 			errorMap.put(ErrorConstants.HRMS_INVALID_CURRENT_ASSGN_CODE, ErrorConstants.HRMS_INVALID_CURRENT_ASSGN_MSG);
@@ -318,9 +397,9 @@ public class EmployeeValidator {
 		for(Assignment assignment: employee.getAssignments()) {
 			if(!assignment.getIsCurrentAssignment() && !CollectionUtils.isEmpty(currentAssignments) && null != assignment.getToDate()&& currentAssignments.get(0).getFromDate() < assignment.getToDate() )
 				errorMap.put(ErrorConstants.HRMS_OVERLAPPING_ASSGN_CURRENT_CODE,ErrorConstants.HRMS_OVERLAPPING_ASSGN_CURRENT_MSG);
-		    if(!mdmsData.get(HRMSConstants.HRMS_MDMS_DEPT_CODE).contains(assignment.getDepartment()))
+		    if(!mdmsData.contains(HRMSConstants.HRMS_MDMS_DEPT_CODE, assignment.getDepartment()))
 				errorMap.put(ErrorConstants.HRMS_INVALID_DEPT_CODE, ErrorConstants.HRMS_INVALID_DEPT_MSG);
-			if(!mdmsData.get(HRMSConstants.HRMS_MDMS_DESG_CODE).contains(assignment.getDesignation()))
+			if(!mdmsData.contains(HRMSConstants.HRMS_MDMS_DESG_CODE, assignment.getDesignation()))
 				errorMap.put(ErrorConstants.HRMS_INVALID_DESG_CODE, ErrorConstants.HRMS_INVALID_DESG_MSG);
             if( assignment.getIsCurrentAssignment() && null != assignment.getToDate())
                 errorMap.put(ErrorConstants.HRMS_INVALID_ASSIGNMENT_CURRENT_TO_DATE_CODE,ErrorConstants.HRMS_INVALID_ASSIGNMENT_CURRENT_TO_DATE_MSG);
@@ -350,7 +429,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateServiceHistory(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateServiceHistory(Employee employee, Map<String, String> errorMap, MDMSSnapshot mdmsData) {
 		if(!CollectionUtils.isEmpty(employee.getServiceHistory())){
 			List<ServiceHistory> currentService = employee.getServiceHistory().stream().filter(serviceHistory -> null!= serviceHistory.getIsCurrentPosition() && serviceHistory.getIsCurrentPosition()).collect(Collectors.toList());
 			if(currentService.size() > 1){
@@ -363,7 +442,7 @@ public class EmployeeValidator {
 					errorMap.put(ErrorConstants.HRMS_INVALID_SERVICE_CURRENT_TO_DATE_CODE,ErrorConstants.HRMS_INVALID_SERVICE_CURRENT_TO_DATE_MSG);
 				if((null == history.getIsCurrentPosition() || !history.getIsCurrentPosition()) && null == history.getServiceTo())
 					errorMap.put(ErrorConstants.HRMS_INVALID_SERVICE_NON_CURRENT_TO_DATE_CODE,ErrorConstants.HRMS_INVALID_SERVICE_NON_CURRENT_TO_DATE_MSG);
-				if(!StringUtils.isEmpty(history.getServiceStatus()) && !mdmsData.get(HRMSConstants.HRMS_MDMS_EMP_STATUS_CODE).contains(history.getServiceStatus()))
+				if(!StringUtils.isEmpty(history.getServiceStatus()) && !mdmsData.contains(HRMSConstants.HRMS_MDMS_EMP_STATUS_CODE, history.getServiceStatus()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_SERVICE_STATUS_CODE, ErrorConstants.HRMS_INVALID_SERVICE_STATUS_MSG);
 				if( (null != history.getServiceFrom() &&  history.getServiceFrom() > new Date().getTime()) || (null != history.getServiceTo() && history.getServiceTo() > new Date().getTime())
 						|| (null != history.getServiceFrom() && null != history.getServiceTo() && history.getServiceFrom() > history.getServiceTo()))
@@ -385,12 +464,12 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateEducationalDetails(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateEducationalDetails(Employee employee, Map<String, String> errorMap, MDMSSnapshot mdmsData) {
 		if(!CollectionUtils.isEmpty(employee.getEducation())){
 			for(EducationalQualification education : employee.getEducation()) {
-				if(null!= education.getQualification() && !mdmsData.get(HRMSConstants.HRMS_MDMS_QUALIFICATION_CODE).contains(education.getQualification()))
+				if(null!= education.getQualification() && !mdmsData.contains(HRMSConstants.HRMS_MDMS_QUALIFICATION_CODE, education.getQualification()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_QUALIFICATION_CODE, ErrorConstants.HRMS_INVALID_QUALIFICATION_MSG);
-				if(null != education.getStream() && !mdmsData.get(HRMSConstants.HRMS_MDMS_STREAMS_CODE).contains(education.getStream()))
+				if(null != education.getStream() && !mdmsData.contains(HRMSConstants.HRMS_MDMS_STREAMS_CODE, education.getStream()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_EDUCATIONAL_STREAM_CODE, ErrorConstants.HRMS_INVALID_EDUCATIONAL_STREAM_MSG);
 				if(null != education.getYearOfPassing() && education.getYearOfPassing() > new Date().getTime()){
 					errorMap.put(ErrorConstants.HRMS_INVALID_EDUCATIONAL_PASSING_YEAR_CODE, ErrorConstants.HRMS_INVALID_EDUCATIONAL_PASSING_YEAR_MSG);
@@ -409,21 +488,16 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateJurisdicton(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateJurisdicton(Employee employee, Map<String, String> errorMap, MDMSSnapshot mdmsData) {
 		if(CollectionUtils.isEmpty(employee.getJurisdictions().stream().filter(jurisdiction -> null == jurisdiction.getIsActive() || jurisdiction.getIsActive() &&  jurisdiction.getIsActive() ).collect(Collectors.toList()))){
 			errorMap.put(ErrorConstants.HRMS_INVALID_JURISDICTION_ACTIIEV_NULL_CODE,ErrorConstants.HRMS_INVALID_JURISDICTION_ACTIIEV_NULL_MSG);
 		}
 		for(Jurisdiction jurisdiction: employee.getJurisdictions()) {
-				List<String>  hierarchyTypes = JsonPath.read(mdmsData,HRMSConstants.HRMS_TENANTBOUNDARY_HIERARCHY_JSONPATH);
-				String boundary_type_path = String.format(HRMSConstants.HRMS_TENANTBOUNDARY_BOUNDARY_TYPE_JSONPATH,jurisdiction.getHierarchy());
-				String boundary_value_path = String.format(HRMSConstants.HRMS_TENANTBOUNDARY_BOUNDARY_VALUE_JSONPATH,jurisdiction.getHierarchy());
-				List <String> boundaryTypes = JsonPath.read(mdmsData,boundary_type_path);
-				List <String> boundaryValues = JsonPath.read(mdmsData,boundary_value_path);
-				if(!hierarchyTypes.contains(jurisdiction.getHierarchy()))
+				if(!mdmsData.isValidHierarchy(jurisdiction.getHierarchy()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_JURISDICTION_HEIRARCHY_CODE, ErrorConstants.HRMS_INVALID_JURISDICTION_HEIRARCHY_MSG);
-				if(!boundaryTypes.contains(jurisdiction.getBoundaryType()))
+				if(!mdmsData.isValidBoundaryType(jurisdiction.getHierarchy(), jurisdiction.getBoundaryType()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_JURISDICTION_BOUNDARY_TYPE_CODE, ErrorConstants.HRMS_INVALID_JURISDICTION_BOUNDARY_TYPE_MSG);
-				if(!boundaryValues.contains(jurisdiction.getBoundary()))
+				if(!mdmsData.isValidBoundary(jurisdiction.getHierarchy(), jurisdiction.getBoundary()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_JURISDICTION_BOUNDARY_CODE, ErrorConstants.HRMS_INVALID_JURISDICTION_BOUNDARY_MSG);
 			}
 
@@ -440,10 +514,10 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateDepartmentalTest(Employee employee, Map<String, String> errorMap, Map<String, List<String>> mdmsData) {
+	private void validateDepartmentalTest(Employee employee, Map<String, String> errorMap, MDMSSnapshot mdmsData) {
 		if(!CollectionUtils.isEmpty(employee.getTests())) {
 			for (DepartmentalTest test : employee.getTests()) {
-				if (null!=test.getTest() && !mdmsData.get(HRMSConstants.HRMS_MDMS_DEPT_TEST_CODE).contains(test.getTest()))
+				if (null!=test.getTest() && !mdmsData.contains(HRMSConstants.HRMS_MDMS_DEPT_TEST_CODE, test.getTest()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_DEPARTMENTAL_TEST_CODE, ErrorConstants.HRMS_INVALID_DEPARTMENTAL_TEST_MSG );
 				if (null!= test.getYearOfPassing() && test.getYearOfPassing() > new Date().getTime()) {
 					errorMap.put(ErrorConstants.HRMS_INVALID_DEPARTMENTAL_TEST_PASSING_YEAR_CODE, ErrorConstants.HRMS_INVALID_DEPARTMENTAL_TEST_PASSING_YEAR_MSG);
@@ -460,7 +534,7 @@ public class EmployeeValidator {
 	 * @param errorMap
 	 * @param mdmsData
 	 */
-	private void validateDeactivationDetails(Employee existingEmp, Employee updatedEmployeeData, Map<String, String> errorMap, Map<String, List<String>> mdmsData){
+	private void validateDeactivationDetails(Employee existingEmp, Employee updatedEmployeeData, Map<String, String> errorMap, MDMSSnapshot mdmsData){
 		if(!CollectionUtils.isEmpty(updatedEmployeeData.getDeactivationDetails())) {
 			for (DeactivationDetails deactivationDetails : updatedEmployeeData.getDeactivationDetails()) {
 				if (deactivationDetails.getId()==null){
@@ -470,7 +544,7 @@ public class EmployeeValidator {
 				}
 				if(deactivationDetails.getEffectiveFrom() > new Date().getTime())
 					errorMap.put(ErrorConstants.HRMS_UPDATE_DEACT_DETAILS_INCORRECT_EFFECTIVEFROM_CODE, ErrorConstants.HRMS_UPDATE_DEACT_DETAILS_INCORRECT_EFFECTIVEFROM_MSG);
-				if (! mdmsData.get(HRMSConstants.HRMS_MDMS_DEACT_REASON_CODE).contains(deactivationDetails.getReasonForDeactivation()))
+				if (! mdmsData.contains(HRMSConstants.HRMS_MDMS_DEACT_REASON_CODE, deactivationDetails.getReasonForDeactivation()))
 					errorMap.put(ErrorConstants.HRMS_INVALID_DEACT_REASON_CODE, ErrorConstants.HRMS_INVALID_DEACT_REASON_MSG);
 			}
 		}
@@ -485,7 +559,7 @@ public class EmployeeValidator {
 	 */
 	public void validateUpdateEmployee(EmployeeRequest request) {
 		Map<String, String> errorMap = new HashMap<>();
-		Map<String, List<String>> mdmsData = mdmsService.getMDMSData(request.getRequestInfo(), request.getEmployees().get(0).getTenantId());
+		MDMSSnapshot mdmsData = mdmsService.getMDMSSnapshot(request.getRequestInfo(), request.getEmployees().get(0).getTenantId());
 		List <String> uuidList = request.getEmployees().stream().map(Employee :: getUuid).collect(Collectors.toList()); 
 		EmployeeResponse existingEmployeeResponse = employeeService.search(EmployeeSearchCriteria.builder().uuids(uuidList).build(),request.getRequestInfo());
 		List <Employee> existingEmployees = existingEmployeeResponse.getEmployees();
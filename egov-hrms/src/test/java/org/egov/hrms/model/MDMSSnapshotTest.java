@@ -0,0 +1,66 @@
+package org.egov.hrms.model;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.hrms.utils.HRMSConstants;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Checks the codes, hierarchies and boundaries of the snapshot answer as the MDMS data they
+ * were read from
+ */
+public class MDMSSnapshotTest {
+
+	private static final String TENANT_BOUNDARY = "[{\"hierarchyType\":{\"code\":\"ADMIN\",\"name\":\"ADMIN\"},"
+			+ "\"boundary\":{\"code\":\"pb.amritsar\",\"label\":\"City\",\"children\":["
+			+ "{\"code\":\"B1\",\"label\":\"Block\",\"children\":[]}]}}]";
+
+	private MDMSSnapshot snapshot;
+
+	@Before
+	public void setUp() throws Exception {
+		Map masterData = new HashMap();
+		masterData.put("Department", Arrays.asList("DEPT_1", "DEPT_2"));
+		masterData.put("Designation", Collections.singletonList("DESIG_1"));
+		masterData.put("Degree", null);
+		masterData.put(HRMSConstants.HRMS_MDMS_TENANT_BOUNDARY_CODE, new ObjectMapper().readValue(TENANT_BOUNDARY, List.class));
+		snapshot = new MDMSSnapshot(masterData, System.currentTimeMillis());
+	}
+
+	@Test
+	public void findsTheCodesOfEachMaster() {
+		assertTrue(snapshot.contains("Department", "DEPT_2"));
+		assertFalse(snapshot.contains("Department", "DESIG_1"));
+		assertFalse(snapshot.contains("Degree", "BTECH"));
+		assertFalse(snapshot.contains("EmployeeType", "PERMANENT"));
+	}
+
+	@Test
+	public void validatesTheHierarchiesAndTheirBoundaries() {
+		assertTrue(snapshot.isValidHierarchy("ADMIN"));
+		assertFalse(snapshot.isValidHierarchy("REVENUE"));
+
+		assertTrue(snapshot.isValidBoundaryType("ADMIN", "Block"));
+		assertTrue(snapshot.isValidBoundary("ADMIN", "B1"));
+		assertFalse(snapshot.isValidBoundary("ADMIN", "B2"));
+		assertFalse(snapshot.isValidBoundary("REVENUE", "B1"));
+		assertFalse(snapshot.isValidBoundaryType(null, "Block"));
+	}
+
+	@Test
+	public void isEmptyWithoutMasterData() {
+		assertTrue(new MDMSSnapshot(new HashMap<>(), System.currentTimeMillis()).isEmpty());
+		assertFalse(snapshot.isEmpty());
+	}
+
+}
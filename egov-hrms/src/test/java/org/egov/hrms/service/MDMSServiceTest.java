@@ -0,0 +1,74 @@
+package org.egov.hrms.service;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.model.MDMSSnapshot;
+import org.egov.hrms.utils.HRMSConstants;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks an expired snapshot is served after a failed refresh, and that MDMS is not tried
+ * again for every request until the retry delay has passed
+ */
+public class MDMSServiceTest {
+
+	private static final String TENANT_ID = "pb.amritsar";
+
+	private MDMSService mdmsService;
+
+	@Before
+	public void setUp() {
+		mdmsService = spy(new MDMSService());
+		ReflectionTestUtils.setField(mdmsService, "snapshotTtlSeconds", 0L);
+		ReflectionTestUtils.setField(mdmsService, "snapshotRetryDelaySeconds", 60L);
+	}
+
+	@Test
+	public void servesTheExpiredSnapshotWithoutRetryingUntilTheDelayHasPassed() throws Exception {
+		Map<String, List<String>> masterData = new HashMap<>();
+		masterData.put(HRMSConstants.HRMS_MDMS_DEPT_CODE, Collections.singletonList("DEPT_1"));
+		doReturn(masterData).doReturn(new HashMap<>()).when(mdmsService).getMDMSData(any(), any());
+
+		MDMSSnapshot loaded = mdmsService.getMDMSSnapshot(new RequestInfo(), TENANT_ID);
+		Thread.sleep(5);
+
+		assertSame(loaded, mdmsService.getMDMSSnapshot(new RequestInfo(), TENANT_ID));
+		assertSame(loaded, mdmsService.getMDMSSnapshot(new RequestInfo(), TENANT_ID));
+		assertSame(loaded, mdmsService.getMDMSSnapshot(new RequestInfo(), TENANT_ID));
+		assertTrue(loaded.contains(HRMSConstants.HRMS_MDMS_DEPT_CODE, "DEPT_1"));
+		verify(mdmsService, times(2)).getMDMSData(any(), any());
+	}
+
+	@Test
+	public void refreshesAgainOnceTheDelayHasPassed() throws Exception {
+		ReflectionTestUtils.setField(mdmsService, "snapshotRetryDelaySeconds", 0L);
+		Map<String, List<String>> masterData = new HashMap<>();
+		masterData.put(HRMSConstants.HRMS_MDMS_DEPT_CODE, Collections.singletonList("DEPT_1"));
+		Map<String, List<String>> refreshedData = new HashMap<>();
+		refreshedData.put(HRMSConstants.HRMS_MDMS_DEPT_CODE, Collections.singletonList("DEPT_2"));
+		doReturn(masterData).doReturn(new HashMap<>()).doReturn(refreshedData).when(mdmsService).getMDMSData(any(), any());
+
+		mdmsService.getMDMSSnapshot(new RequestInfo(), TENANT_ID);
+		Thread.sleep(5);
+		mdmsService.getMDMSSnapshot(new RequestInfo(), TENANT_ID);
+		Thread.sleep(5);
+
+		assertTrue(mdmsService.getMDMSSnapshot(new RequestInfo(), TENANT_ID).contains(HRMSConstants.HRMS_MDMS_DEPT_CODE, "DEPT_2"));
+		verify(mdmsService, times(3)).getMDMSData(any(), any());
+	}
+
+}
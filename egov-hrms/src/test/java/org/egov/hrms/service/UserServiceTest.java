@@ -0,0 +1,111 @@
+package org.egov.hrms.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.utils.HRMSConstants;
+import org.egov.hrms.web.contract.User;
+import org.egov.hrms.web.contract.UserResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks the name searches are run once per distinct name with the users de-duplicated, and
+ * that the users fetched by uuid are served from the cache of the tenant
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class UserServiceTest {
+
+	private static final String TENANT_ID = "pb.amritsar";
+
+	@Mock
+	private PropertiesManager propertiesManager;
+
+	private UserService userService;
+
+	@Before
+	public void setUp() {
+		when(propertiesManager.getUserSearchConcurrency()).thenReturn(4);
+		when(propertiesManager.getUserCacheTtlSeconds()).thenReturn(300L);
+		when(propertiesManager.getUserCacheMaxEntries()).thenReturn(100);
+		userService = spy(new UserService());
+		ReflectionTestUtils.setField(userService, "propertiesManager", propertiesManager);
+		userService.initUserSearchExecutor();
+
+		doAnswer(invocation -> {
+			Map<String, Object> criteria = invocation.getArgument(1);
+			List<User> users = new ArrayList<>();
+			if("Ravi".equals(criteria.get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_NAME))) {
+				users.add(user("uuid-1"));
+				users.add(user("uuid-2"));
+			} else if("Ravi Kumar".equals(criteria.get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_NAME)))
+				users.add(user("uuid-2"));
+			else if(null != criteria.get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_UUID))
+				((List<String>) criteria.get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_UUID)).forEach(uuid -> users.add(user(uuid)));
+			return new UserResponse(null, users);
+		}).when(userService).getUser(any(), anyMap());
+	}
+
+	@After
+	public void tearDown() {
+		userService.shutdownUserSearchExecutor();
+	}
+
+	@Test
+	public void searchesEachNameOnceAndDeduplicatesTheUsers() {
+		Map<String, User> users = userService.getUsersByNames(new RequestInfo(), TENANT_ID,
+				Arrays.asList("Ravi", "Ravi Kumar", "Ravi"));
+
+		assertEquals(new HashSet<>(Arrays.asList("uuid-1", "uuid-2")), users.keySet());
+		verify(userService, times(2)).getUser(any(), anyMap());
+	}
+
+	@Test
+	public void searchesOnlyTheUuidsMissingFromTheCache() {
+		userService.getUsersByNames(new RequestInfo(), TENANT_ID, Collections.singletonList("Ravi"));
+
+		Map<String, User> users = userService.getUsersByUuids(new RequestInfo(), TENANT_ID,
+				Arrays.asList("uuid-1", "uuid-2", "uuid-3"));
+
+		assertEquals(new HashSet<>(Arrays.asList("uuid-1", "uuid-2", "uuid-3")), users.keySet());
+		verify(userService).getUser(any(), argThat(criteria ->
+				Collections.singletonList("uuid-3").equals(criteria.get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_UUID))));
+
+		userService.getUsersByUuids(new RequestInfo(), TENANT_ID, Arrays.asList("uuid-1", "uuid-3"));
+		verify(userService, times(2)).getUser(any(), anyMap());
+	}
+
+	@Test
+	public void searchesEveryTimeWithoutATenant() {
+		userService.getUsersByUuids(new RequestInfo(), null, Collections.singletonList("uuid-1"));
+		userService.getUsersByUuids(new RequestInfo(), null, Collections.singletonList("uuid-1"));
+
+		verify(userService, times(2)).getUser(any(), anyMap());
+	}
+
+	private User user(String uuid) {
+		return User.builder().uuid(uuid).tenantId(TENANT_ID).build();
+	}
+
+}
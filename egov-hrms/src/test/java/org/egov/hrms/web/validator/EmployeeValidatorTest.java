@@ -0,0 +1,110 @@
+package org.egov.hrms.web.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.egov.common.contract.request.RequestInfo;
+import org.egov.hrms.config.PropertiesManager;
+import org.egov.hrms.model.Employee;
+import org.egov.hrms.model.MDMSSnapshot;
+import org.egov.hrms.service.MDMSService;
+import org.egov.hrms.service.UserService;
+import org.egov.hrms.utils.ErrorConstants;
+import org.egov.hrms.utils.HRMSConstants;
+import org.egov.hrms.web.contract.EmployeeRequest;
+import org.egov.hrms.web.contract.User;
+import org.egov.hrms.web.contract.UserResponse;
+import org.egov.tracer.model.CustomException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/**
+ * Checks the existing user checks of a bulk request are made in one round of searches and
+ * reported against the index of each employee
+ */
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class EmployeeValidatorTest {
+
+	private static final String TENANT_ID = "pb.amritsar";
+
+	@Mock
+	private MDMSService mdmsService;
+
+	@Mock
+	private UserService userService;
+
+	@Mock
+	private PropertiesManager propertiesManager;
+
+	@InjectMocks
+	private EmployeeValidator employeeValidator;
+
+	@Before
+	public void setUp() {
+		when(propertiesManager.getBulkCreateMaxSize()).thenReturn(100);
+		when(mdmsService.getMDMSSnapshot(any(), any())).thenReturn(new MDMSSnapshot(new HashMap<>(), 0L));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void searchesTheUsersOfAllTheEmployeesTogether() {
+		when(userService.getUsers(any(), anyList())).thenAnswer(invocation -> {
+			List<Map<String, Object>> criteria = invocation.getArgument(1);
+			List<UserResponse> userResponses = new ArrayList<>();
+			for(Map<String, Object> userSearchCriteria: criteria) {
+				boolean exists = "9999900002".equals(userSearchCriteria.get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_MOBILENO))
+						|| "EMP-3".equals(userSearchCriteria.get(HRMSConstants.HRMS_USER_SEARCH_CRITERA_USERNAME));
+				userResponses.add(new UserResponse(null, exists ? Collections.singletonList(new User())
+						: new ArrayList<>()));
+			}
+			return userResponses;
+		});
+		EmployeeRequest request = new EmployeeRequest(new RequestInfo(), Arrays.asList(employee("EMP-1", "9999900001"),
+				employee("EMP-2", "9999900002"), employee("EMP-3", "9999900003")));
+
+		Map<Integer, Map<String, String>> invalidEmployees = employeeValidator.validateBulkCreateEmployee(request);
+
+		ArgumentCaptor<List<Map<String, Object>>> criteria = ArgumentCaptor.forClass(List.class);
+		verify(userService).getUsers(any(), criteria.capture());
+		assertEquals(6, criteria.getValue().size());
+		verify(userService, never()).getUser(any(), anyMap());
+		assertEquals(2, invalidEmployees.size());
+		assertEquals(Collections.singleton(ErrorConstants.HRMS_USER_EXIST_MOB_CODE), invalidEmployees.get(1).keySet());
+		assertEquals(Collections.singleton(ErrorConstants.HRMS_USER_EXIST_USERNAME_CODE), invalidEmployees.get(2).keySet());
+	}
+
+	@Test
+	public void rejectsARequestWithoutEmployees() {
+		try {
+			employeeValidator.validateBulkCreateEmployee(new EmployeeRequest(new RequestInfo(), Collections.emptyList()));
+			fail("An empty request should be rejected");
+		} catch(CustomException e) {
+			assertEquals(ErrorConstants.HRMS_BULK_CREATE_EMPTY_CODE, e.getCode());
+		}
+		verify(mdmsService, never()).getMDMSSnapshot(any(), any());
+	}
+
+	private Employee employee(String code, String mobileNumber) {
+		return Employee.builder().code(code).tenantId(TENANT_ID)
+				.user(User.builder().mobileNumber(mobileNumber).build()).build();
+	}
+
+}